@@ -12,7 +12,6 @@ package org.eclipse.cdt.codan.internal.checkers;
 
 import org.eclipse.cdt.codan.core.cxx.model.AbstractIndexAstChecker;
 import org.eclipse.cdt.core.dom.ast.ASTNodeProperty;
-import org.eclipse.cdt.core.dom.ast.ASTVisitor;
 import org.eclipse.cdt.core.dom.ast.IASTBinaryExpression;
 import org.eclipse.cdt.core.dom.ast.IASTConditionalExpression;
 import org.eclipse.cdt.core.dom.ast.IASTDoStatement;
@@ -28,44 +27,33 @@ public class AssignmentInConditionChecker extends AbstractIndexAstChecker {
 
 	@Override
 	public void processAst(IASTTranslationUnit ast) {
-		// traverse the ast using the visitor pattern.
-		ast.accept(new CheckCodeVisitor());
-	}
-
-	class CheckCodeVisitor extends ASTVisitor {
-		CheckCodeVisitor() {
-			shouldVisitExpressions = true;
-		}
-
-		@Override
-		public int visit(IASTExpression expression) {
+		for (IASTExpression expression : getNodes(ast, IASTExpression.class)) {
 			if (isAssignmentExpression(expression) && isUsedAsCondition(expression)) {
 				reportProblem(ER_ID, expression, expression.getRawSignature());
 			}
-			return PROCESS_CONTINUE;
 		}
+	}
 
-		private boolean isAssignmentExpression(IASTExpression e) {
-			if (e instanceof IASTBinaryExpression) {
-				IASTBinaryExpression binExpr = (IASTBinaryExpression) e;
-				return binExpr.getOperator() == IASTBinaryExpression.op_assign;
-			}
-			return false;
+	private boolean isAssignmentExpression(IASTExpression e) {
+		if (e instanceof IASTBinaryExpression) {
+			IASTBinaryExpression binExpr = (IASTBinaryExpression) e;
+			return binExpr.getOperator() == IASTBinaryExpression.op_assign;
 		}
+		return false;
+	}
 
-		private boolean isUsedAsCondition(IASTExpression expression) {
-			ASTNodeProperty prop = expression.getPropertyInParent();
-			if (prop == IASTForStatement.CONDITION || prop == IASTIfStatement.CONDITION || prop == IASTWhileStatement.CONDITIONEXPRESSION
-					|| prop == IASTDoStatement.CONDITION)
+	private boolean isUsedAsCondition(IASTExpression expression) {
+		ASTNodeProperty prop = expression.getPropertyInParent();
+		if (prop == IASTForStatement.CONDITION || prop == IASTIfStatement.CONDITION || prop == IASTWhileStatement.CONDITIONEXPRESSION
+				|| prop == IASTDoStatement.CONDITION)
+			return true;
+		if (prop == IASTUnaryExpression.OPERAND) {
+			IASTUnaryExpression expr = (IASTUnaryExpression) expression.getParent();
+			if (expr.getOperator() == IASTUnaryExpression.op_bracketedPrimary
+					&& expr.getPropertyInParent() == IASTConditionalExpression.LOGICAL_CONDITION) {
 				return true;
-			if (prop == IASTUnaryExpression.OPERAND) {
-				IASTUnaryExpression expr = (IASTUnaryExpression) expression.getParent();
-				if (expr.getOperator() == IASTUnaryExpression.op_bracketedPrimary
-						&& expr.getPropertyInParent() == IASTConditionalExpression.LOGICAL_CONDITION) {
-					return true;
-				}
 			}
-			return false;
 		}
+		return false;
 	}
 }
@@ -11,7 +11,6 @@
 package org.eclipse.cdt.codan.internal.checkers;
 
 import org.eclipse.cdt.codan.core.cxx.model.AbstractIndexAstChecker;
-import org.eclipse.cdt.core.dom.ast.ASTVisitor;
 import org.eclipse.cdt.core.dom.ast.IASTBinaryExpression;
 import org.eclipse.cdt.core.dom.ast.IASTExpression;
 import org.eclipse.cdt.core.dom.ast.IASTTranslationUnit;
@@ -26,39 +25,29 @@ public class AssignmentToItselfChecker extends AbstractIndexAstChecker {
 
 	@Override
 	public void processAst(IASTTranslationUnit ast) {
-		// Traverse the ast using the visitor pattern.
-		ast.accept(new ASTVisitor() {
-			{ // constructor
-				shouldVisitExpressions = true;
-			}
-
-			// visit expressions
-			@Override
-			public int visit(IASTExpression expression) {
-				if (isAssignmentToItself(expression)) {
-					reportProblem(ER_ID, expression, expression.getRawSignature());
-				}
-				return PROCESS_CONTINUE;
+		for (IASTExpression expression : getNodes(ast, IASTExpression.class)) {
+			if (isAssignmentToItself(expression)) {
+				reportProblem(ER_ID, expression, expression.getRawSignature());
 			}
+		}
+	}
 
-			private boolean isAssignmentToItself(IASTExpression expr) {
-				if (expr instanceof IASTBinaryExpression) {
-					IASTBinaryExpression binExpr = (IASTBinaryExpression) expr;
-					if (binExpr.getOperator() == IASTBinaryExpression.op_assign) {
-						IASTExpression operand1 = binExpr.getOperand1();
-						IASTExpression operand2 = binExpr.getOperand2();
-						if (operand1 != null && operand2 != null) {
-							String op1 = operand1.getRawSignature();
-							String op2 = operand2.getRawSignature();
-							String exprImage = binExpr.getRawSignature();
-							return op1.equals(op2)
-									// When macro is used, RawSignature returns macro name, see bug 321933
-									&& !op1.equals(exprImage);
-						}
-					}
+	private boolean isAssignmentToItself(IASTExpression expr) {
+		if (expr instanceof IASTBinaryExpression) {
+			IASTBinaryExpression binExpr = (IASTBinaryExpression) expr;
+			if (binExpr.getOperator() == IASTBinaryExpression.op_assign) {
+				IASTExpression operand1 = binExpr.getOperand1();
+				IASTExpression operand2 = binExpr.getOperand2();
+				if (operand1 != null && operand2 != null) {
+					String op1 = operand1.getRawSignature();
+					String op2 = operand2.getRawSignature();
+					String exprImage = binExpr.getRawSignature();
+					return op1.equals(op2)
+							// When macro is used, RawSignature returns macro name, see bug 321933
+							&& !op1.equals(exprImage);
 				}
-				return false;
 			}
-		});
+		}
+		return false;
 	}
-}
\ No newline at end of file
+}
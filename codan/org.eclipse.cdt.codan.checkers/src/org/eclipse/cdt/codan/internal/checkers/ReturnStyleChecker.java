@@ -11,10 +11,8 @@
 package org.eclipse.cdt.codan.internal.checkers;
 
 import org.eclipse.cdt.codan.core.cxx.model.AbstractIndexAstChecker;
-import org.eclipse.cdt.core.dom.ast.ASTVisitor;
 import org.eclipse.cdt.core.dom.ast.IASTNode;
 import org.eclipse.cdt.core.dom.ast.IASTReturnStatement;
-import org.eclipse.cdt.core.dom.ast.IASTStatement;
 import org.eclipse.cdt.core.dom.ast.IASTTranslationUnit;
 import org.eclipse.cdt.core.dom.ast.IASTUnaryExpression;
 
@@ -28,30 +26,20 @@ public class ReturnStyleChecker extends AbstractIndexAstChecker {
 
 	@Override
 	public void processAst(IASTTranslationUnit ast) {
-		ast.accept(new ASTVisitor() {
-			{
-				shouldVisitStatements = true;
-			}
-
-			@Override
-			public int visit(IASTStatement statement) {
-				if (statement instanceof IASTReturnStatement) {
-					boolean isValidStyle = false;
-					IASTNode[] children = statement.getChildren();
-					if (children.length == 0) {
-						isValidStyle = true;
-					} else if (children.length == 1 && children[0] instanceof IASTUnaryExpression) {
-						IASTUnaryExpression unaryExpression = (IASTUnaryExpression) children[0];
-						if (unaryExpression.getOperator() == IASTUnaryExpression.op_bracketedPrimary) {
-							isValidStyle = true;
-						}
-					}
-					if (!isValidStyle) {
-						reportProblem(ERR_ID, statement);
-					}
+		for (IASTReturnStatement statement : getNodes(ast, IASTReturnStatement.class)) {
+			boolean isValidStyle = false;
+			IASTNode[] children = statement.getChildren();
+			if (children.length == 0) {
+				isValidStyle = true;
+			} else if (children.length == 1 && children[0] instanceof IASTUnaryExpression) {
+				IASTUnaryExpression unaryExpression = (IASTUnaryExpression) children[0];
+				if (unaryExpression.getOperator() == IASTUnaryExpression.op_bracketedPrimary) {
+					isValidStyle = true;
 				}
-				return PROCESS_CONTINUE;
 			}
-		});
+			if (!isValidStyle) {
+				reportProblem(ERR_ID, statement);
+			}
+		}
 	}
 }
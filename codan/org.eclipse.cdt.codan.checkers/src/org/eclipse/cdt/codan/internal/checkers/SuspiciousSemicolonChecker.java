@@ -14,7 +14,6 @@ package org.eclipse.cdt.codan.internal.checkers;
 import org.eclipse.cdt.codan.core.cxx.model.AbstractIndexAstChecker;
 import org.eclipse.cdt.codan.core.model.IProblem;
 import org.eclipse.cdt.codan.core.model.IProblemWorkingCopy;
-import org.eclipse.cdt.core.dom.ast.ASTVisitor;
 import org.eclipse.cdt.core.dom.ast.IASTFileLocation;
 import org.eclipse.cdt.core.dom.ast.IASTIfStatement;
 import org.eclipse.cdt.core.dom.ast.IASTNodeSelector;
@@ -30,29 +29,19 @@ public class SuspiciousSemicolonChecker extends AbstractIndexAstChecker {
 
 	@Override
 	public void processAst(IASTTranslationUnit ast) {
-		ast.accept(new ASTVisitor() {
-			{
-				shouldVisitStatements = true;
+		for (IASTIfStatement statement : getNodes(ast, IASTIfStatement.class)) {
+			IASTStatement thenStmt = statement.getThenClause();
+			IASTStatement elseStmt = statement.getElseClause();
+			if (elseStmt instanceof IASTNullStatement && doReportAfterElse() &&
+					!macroInvolved(elseStmt)) {
+				reportProblem(ER_ID, elseStmt);
 			}
-
-			@Override
-			public int visit(IASTStatement statement) {
-				if (statement instanceof IASTIfStatement) {
-					IASTStatement thenStmt = ((IASTIfStatement) statement).getThenClause();
-					IASTStatement elseStmt = ((IASTIfStatement) statement).getElseClause();
-					if (elseStmt instanceof IASTNullStatement && doReportAfterElse() &&
-							!macroInvolved(elseStmt)) {
-						reportProblem(ER_ID, elseStmt);
-					}
-					if (elseStmt != null && doNotReportIfElse())
-						return PROCESS_CONTINUE;
-					if (thenStmt instanceof IASTNullStatement && !macroInvolved(thenStmt)) {
-						reportProblem(ER_ID, thenStmt);
-					}
-				}
-				return PROCESS_CONTINUE;
+			if (elseStmt != null && doNotReportIfElse())
+				continue;
+			if (thenStmt instanceof IASTNullStatement && !macroInvolved(thenStmt)) {
+				reportProblem(ER_ID, thenStmt);
 			}
-		});
+		}
 	}
 
 	private boolean doNotReportIfElse() {
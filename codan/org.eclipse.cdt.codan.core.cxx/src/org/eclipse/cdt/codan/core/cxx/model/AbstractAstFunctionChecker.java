@@ -11,8 +11,6 @@
 package org.eclipse.cdt.codan.core.cxx.model;
 
 import org.eclipse.cdt.codan.core.model.ICheckerWithPreferences;
-import org.eclipse.cdt.core.dom.ast.ASTVisitor;
-import org.eclipse.cdt.core.dom.ast.IASTDeclaration;
 import org.eclipse.cdt.core.dom.ast.IASTFunctionDefinition;
 import org.eclipse.cdt.core.dom.ast.IASTTranslationUnit;
 
@@ -22,22 +20,11 @@ import org.eclipse.cdt.core.dom.ast.IASTTranslationUnit;
 public abstract class AbstractAstFunctionChecker extends AbstractIndexAstChecker implements ICheckerWithPreferences {
 	@Override
 	public void processAst(IASTTranslationUnit ast) {
-		// traverse the ast using the visitor pattern.
-		ast.accept(new ASTVisitor() {
-			{
-				shouldVisitDeclarations = true;
-			}
-
-			@Override
-			public int visit(IASTDeclaration element) {
-				if (element instanceof IASTFunctionDefinition) {
-					processFunction((IASTFunctionDefinition) element);
-				}
-				// visit all nodes to support inner functions within class definitions 
-				// and gcc extensions
-				return PROCESS_CONTINUE;
-			}
-		});
+		// The function definitions include inner functions within class definitions
+		// and gcc extensions.
+		for (IASTFunctionDefinition func : getNodes(ast, IASTFunctionDefinition.class)) {
+			processFunction(func);
+		}
 	}
 
 	/**
@@ -11,13 +11,20 @@
  *******************************************************************************/
 package org.eclipse.cdt.codan.core.cxx.model;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import org.eclipse.cdt.codan.core.cxx.Activator;
 import org.eclipse.cdt.codan.core.model.AbstractCheckerWithProblemPreferences;
 import org.eclipse.cdt.codan.core.model.ICheckerInvocationContext;
+import org.eclipse.cdt.codan.core.model.IIncrementalChecker;
+import org.eclipse.cdt.codan.core.model.IModelPreparingChecker;
 import org.eclipse.cdt.codan.core.model.IProblem;
 import org.eclipse.cdt.codan.core.model.IProblemLocation;
 import org.eclipse.cdt.codan.core.model.IProblemLocationFactory;
 import org.eclipse.cdt.codan.core.model.IRunnableInEditorChecker;
+import org.eclipse.cdt.core.dom.ast.ASTGenericVisitor;
+import org.eclipse.cdt.core.dom.ast.ASTVisitor;
 import org.eclipse.cdt.core.dom.ast.IASTFileLocation;
 import org.eclipse.cdt.core.dom.ast.IASTImageLocation;
 import org.eclipse.cdt.core.dom.ast.IASTMacroExpansionLocation;
@@ -41,7 +48,7 @@ import org.eclipse.core.runtime.OperationCanceledException;
  * Clients may extend this class.
  */
 public abstract class AbstractIndexAstChecker extends AbstractCheckerWithProblemPreferences
-		implements ICAstChecker, IRunnableInEditorChecker {
+		implements ICAstChecker, IRunnableInEditorChecker, IModelPreparingChecker, IIncrementalChecker {
 	private CxxModelsCache modelCache;
 
 	@Override
@@ -55,19 +62,64 @@ public abstract class AbstractIndexAstChecker extends AbstractCheckerWithProblem
 		return false;
 	}
 
-	private void processFile(IFile file) throws OperationCanceledException {
-		ICheckerInvocationContext context = getContext();
+	private static CxxModelsCache getModelCache(IFile file, ICheckerInvocationContext context) {
 		synchronized (context) {
-			modelCache = context.get(CxxModelsCache.class);
-			if (modelCache == null) {
+			CxxModelsCache cache = context.get(CxxModelsCache.class);
+			if (cache == null) {
 				ICElement celement = CoreModel.getDefault().create(file);
 				if (!(celement instanceof ITranslationUnit)) {
-					return;
+					return null;
 				}
-				modelCache = new CxxModelsCache((ITranslationUnit) celement);
-				context.add(modelCache);
+				cache = new CxxModelsCache((ITranslationUnit) celement);
+				context.add(cache);
 			}
+			return cache;
 		}
+	}
+
+	/* (non-Javadoc)
+	 * @see IModelPreparingChecker#prepareModel(IResource, ICheckerInvocationContext)
+	 */
+	@Override
+	public void prepareModel(IResource resource, ICheckerInvocationContext context) {
+		if (!(resource instanceof IFile))
+			return;
+		CxxModelsCache cache = getModelCache((IFile) resource, context);
+		if (cache == null)
+			return;
+		try {
+			if (cache.getIndex().isFullyInitialized()) {
+				cache.getAST();
+			}
+		} catch (CoreException e) {
+			Activator.log(e);
+		}
+	}
+
+	/* (non-Javadoc)
+	 * @see IIncrementalChecker#getInputFingerprint(IResource, ICheckerInvocationContext)
+	 */
+	@Override
+	public String getInputFingerprint(IResource resource, ICheckerInvocationContext context) {
+		if (!(resource instanceof IFile))
+			return null;
+		CxxModelsCache cache = getModelCache((IFile) resource, context);
+		if (cache == null) {
+			// Not a translation unit, the checker does not report problems for it.
+			return ""; //$NON-NLS-1$
+		}
+		try {
+			return cache.getInputFingerprint();
+		} catch (CoreException e) {
+			Activator.log(e);
+			return null;
+		}
+	}
+
+	private void processFile(IFile file) throws OperationCanceledException {
+		modelCache = getModelCache(file, getContext());
+		if (modelCache == null)
+			return;
 
 		try {
 			// Run the checker only if the index is fully initialized. Otherwise it may produce
@@ -185,4 +237,37 @@ public abstract class AbstractIndexAstChecker extends AbstractCheckerWithProblem
 	protected ICodanCommentMap getCommentMap() {
 		return modelCache.getCommentedNodeMap();
 	}
+
+	/**
+	 * Returns the nodes of the given type in the order in which an {@link ASTVisitor} visits
+	 * them. Checkers that look at every node of a certain type should use this method rather than
+	 * a visitor, the nodes are collected by a single traversal of the AST that is shared with
+	 * the other checkers.
+	 *
+	 * @param ast the AST passed to {@link #processAst(IASTTranslationUnit)}.
+	 * @param nodeType the type of the nodes.
+	 * @since 3.3
+	 */
+	protected <T extends IASTNode> List<T> getNodes(IASTTranslationUnit ast, final Class<T> nodeType) {
+		if (modelCache != null) {
+			try {
+				if (modelCache.getAST() == ast)
+					return modelCache.getNodes(ast, nodeType);
+			} catch (CoreException e) {
+				Activator.log(e);
+			}
+		}
+		// The AST is not shared, collect the nodes by a traversal of its own.
+		final List<T> nodes = new ArrayList<T>();
+		ast.accept(new ASTGenericVisitor(true) {
+			@Override
+			protected int genericVisit(IASTNode node) {
+				if (nodeType.isInstance(node)) {
+					nodes.add(nodeType.cast(node));
+				}
+				return PROCESS_CONTINUE;
+			}
+		});
+		return nodes;
+	}
 }
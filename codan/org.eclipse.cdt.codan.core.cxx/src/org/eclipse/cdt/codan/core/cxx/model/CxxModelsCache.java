@@ -11,16 +11,34 @@
  *******************************************************************************/
 package org.eclipse.cdt.codan.core.cxx.model;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.WeakHashMap;
 
+import org.eclipse.cdt.codan.core.cxx.Activator;
 import org.eclipse.cdt.codan.core.cxx.internal.model.CodanCommentMap;
 import org.eclipse.cdt.codan.core.cxx.internal.model.cfg.CxxControlFlowGraph;
 import org.eclipse.cdt.codan.core.model.ICodanDisposable;
 import org.eclipse.cdt.codan.core.model.cfg.IControlFlowGraph;
 import org.eclipse.cdt.core.CCorePlugin;
+import org.eclipse.cdt.core.dom.ast.ASTGenericVisitor;
 import org.eclipse.cdt.core.dom.ast.IASTFunctionDefinition;
+import org.eclipse.cdt.core.dom.ast.IASTNode;
 import org.eclipse.cdt.core.dom.ast.IASTTranslationUnit;
 import org.eclipse.cdt.core.index.IIndex;
+import org.eclipse.cdt.core.index.IIndexFile;
+import org.eclipse.cdt.core.index.IIndexInclude;
+import org.eclipse.cdt.core.index.IndexLocationFactory;
 import org.eclipse.cdt.core.model.CoreModel;
 import org.eclipse.cdt.core.model.ICProject;
 import org.eclipse.cdt.core.model.ITranslationUnit;
@@ -28,7 +46,9 @@ import org.eclipse.cdt.internal.core.dom.rewrite.commenthandler.ASTCommenter;
 import org.eclipse.core.resources.IFile;
 import org.eclipse.core.runtime.Assert;
 import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IStatus;
 import org.eclipse.core.runtime.OperationCanceledException;
+import org.eclipse.core.runtime.Status;
 
 /**
  * Cache data models for resource so checkers can share it
@@ -45,6 +65,9 @@ public class CxxModelsCache implements ICodanDisposable {
 	private IIndex index;
 	private final WeakHashMap<IASTFunctionDefinition, IControlFlowGraph> cfgmap;
 	private ICodanCommentMap commentMap;
+	private String inputFingerprint;
+	private List<IASTNode> nodes;
+	private Map<Class<?>, List<?>> nodesByType;
 	private boolean disposed;
 
 	CxxModelsCache(ITranslationUnit tu) {
@@ -62,7 +85,7 @@ public class CxxModelsCache implements ICodanDisposable {
 		return getAST(tu);
 	}
 
-	public IASTTranslationUnit getAST(ITranslationUnit tu)
+	public synchronized IASTTranslationUnit getAST(ITranslationUnit tu)
 			throws OperationCanceledException, CoreException {
 		if (!this.tu.equals(tu)) {
 			throw new IllegalArgumentException();
@@ -112,6 +135,115 @@ public class CxxModelsCache implements ICodanDisposable {
 		return commentMap;
 	}
 
+	/**
+	 * Returns the nodes of the given type that an {@link org.eclipse.cdt.core.dom.ast.ASTVisitor}
+	 * visits when traversing the AST, in the order of the traversal. The nodes are collected by
+	 * a single traversal of the AST that is shared by all checkers operating on the AST, such
+	 * that checkers that look at every node of a certain type don't need to traverse the AST
+	 * by themselves.
+	 * 
+	 * @param ast the AST, must be the one returned by {@link #getAST()}.
+	 * @param nodeType the type of the nodes.
+	 * @since 3.3
+	 */
+	public synchronized <T extends IASTNode> List<T> getNodes(IASTTranslationUnit ast, Class<T> nodeType) {
+		if (ast != this.ast) {
+			throw new IllegalArgumentException();
+		}
+		if (nodes == null) {
+			final List<IASTNode> result = new ArrayList<IASTNode>();
+			ast.accept(new ASTGenericVisitor(true) {
+				@Override
+				protected int genericVisit(IASTNode node) {
+					result.add(node);
+					return PROCESS_CONTINUE;
+				}
+			});
+			nodes = result;
+			nodesByType = new HashMap<Class<?>, List<?>>();
+		}
+		@SuppressWarnings("unchecked")
+		List<T> nodesOfType = (List<T>) nodesByType.get(nodeType);
+		if (nodesOfType == null) {
+			nodesOfType = new ArrayList<T>();
+			for (IASTNode node : nodes) {
+				if (nodeType.isInstance(node)) {
+					nodesOfType.add(nodeType.cast(node));
+				}
+			}
+			nodesByType.put(nodeType, nodesOfType);
+		}
+		return nodesOfType;
+	}
+
+	/**
+	 * Returns a fingerprint of the inputs of the analysis of the file. The fingerprint covers
+	 * the content of the file and, according to the index, the configuration the file is parsed
+	 * with as well as the content and the significant macros of the files it includes directly
+	 * or indirectly.
+	 *
+	 * @return the fingerprint, or {@code null} if it cannot be computed, e.g. because the index
+	 *     is not fully initialized or does not contain the file.
+	 * @since 3.3
+	 */
+	public synchronized String getInputFingerprint() throws CoreException, OperationCanceledException {
+		if (inputFingerprint != null || file == null)
+			return inputFingerprint;
+		IIndex index = getIndex();
+		if (!index.isFullyInitialized())
+			return null;
+		IIndexFile[] files = index.getFiles(IndexLocationFactory.getWorkspaceIFL(file));
+		if (files.length == 0)
+			return null;
+
+		List<String> entries = new ArrayList<String>();
+		Set<IIndexFile> visited = new HashSet<IIndexFile>();
+		ArrayDeque<IIndexFile> queue = new ArrayDeque<IIndexFile>();
+		Collections.addAll(queue, files);
+		while (!queue.isEmpty()) {
+			IIndexFile indexFile = queue.poll();
+			if (!visited.add(indexFile))
+				continue;
+			entries.add(indexFile.getLocation().getURI().toString() + '\0' + indexFile.getContentsHash() + '\0'
+					+ indexFile.getScannerConfigurationHashcode() + '\0'
+					+ new String(indexFile.getSignificantMacros().encode()));
+			for (IIndexInclude include : indexFile.getIncludes()) {
+				IIndexFile target = index.resolveInclude(include);
+				if (target != null) {
+					queue.add(target);
+				} else if (include.isResolved()) {
+					// The included file is not indexed, its content is unknown.
+					return null;
+				}
+			}
+		}
+		Collections.sort(entries);
+
+		try {
+			MessageDigest digest = MessageDigest.getInstance("SHA-1"); //$NON-NLS-1$
+			// The file may have changed since it was indexed.
+			try (InputStream in = file.getContents(true)) {
+				byte[] buffer = new byte[8192];
+				int n;
+				while ((n = in.read(buffer)) > 0) {
+					digest.update(buffer, 0, n);
+				}
+			}
+			for (String entry : entries) {
+				digest.update(entry.getBytes("UTF-8")); //$NON-NLS-1$
+				digest.update((byte) '\n');
+			}
+			StringBuilder buf = new StringBuilder();
+			for (byte b : digest.digest()) {
+				buf.append(Character.forDigit((b >> 4) & 0xf, 16)).append(Character.forDigit(b & 0xf, 16));
+			}
+			inputFingerprint = buf.toString();
+		} catch (NoSuchAlgorithmException | IOException e) {
+			throw new CoreException(new Status(IStatus.ERROR, Activator.PLUGIN_ID, e.getMessage(), e));
+		}
+		return inputFingerprint;
+	}
+
 	/**
 	 * Returns the index that can be safely used for reading until the cache is disposed.
 	 * 
@@ -0,0 +1,76 @@
+/*******************************************************************************
+ * Copyright (c) 2016 agent and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     agent - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.cdt.codan.core.internal;
+
+import junit.framework.TestCase;
+
+import org.eclipse.cdt.codan.core.CodanCorePlugin;
+import org.eclipse.cdt.codan.core.CodanRuntime;
+import org.eclipse.cdt.codan.core.PreferenceConstants;
+import org.eclipse.cdt.codan.core.model.IChecker;
+import org.eclipse.cdt.codan.internal.core.CheckersTimeBudget;
+import org.eclipse.core.runtime.preferences.IEclipsePreferences;
+import org.eclipse.core.runtime.preferences.InstanceScope;
+
+/**
+ * Tests for {@link CheckersTimeBudget}.
+ */
+public class CheckersTimeBudgetTest extends TestCase {
+	private static final long MS = 1000000;
+
+	private IEclipsePreferences node;
+	private IChecker checker;
+	private CheckersTimeBudget budget;
+
+	@Override
+	protected void setUp() throws Exception {
+		super.setUp();
+		node = InstanceScope.INSTANCE.getNode(CodanCorePlugin.PLUGIN_ID);
+		node.putLong(PreferenceConstants.P_RUN_IN_EDITOR_TIME_BUDGET, 100);
+		checker = CodanRuntime.getInstance().getCheckersRegistry().iterator().next();
+		budget = CheckersTimeBudget.getInstance();
+		budget.reset();
+	}
+
+	@Override
+	protected void tearDown() throws Exception {
+		budget.reset();
+		node.remove(PreferenceConstants.P_RUN_IN_EDITOR_TIME_BUDGET);
+		super.tearDown();
+	}
+
+	public void testDeferredAfterConsecutiveOverruns() {
+		for (int i = 1; i < CheckersTimeBudget.MAX_OVERRUNS; i++) {
+			budget.checkerFinished(checker, 200 * MS);
+			assertFalse(budget.isDeferred(checker));
+		}
+		budget.checkerFinished(checker, 200 * MS);
+		assertTrue(budget.isDeferred(checker));
+		budget.reset();
+		assertFalse(budget.isDeferred(checker));
+	}
+
+	public void testFastRunResetsOverruns() {
+		for (int i = 0; i < CheckersTimeBudget.MAX_OVERRUNS * 2; i++) {
+			budget.checkerFinished(checker, 200 * MS);
+			budget.checkerFinished(checker, 50 * MS);
+		}
+		assertFalse(budget.isDeferred(checker));
+	}
+
+	public void testZeroBudgetDisablesEnforcement() {
+		node.putLong(PreferenceConstants.P_RUN_IN_EDITOR_TIME_BUDGET, 0);
+		for (int i = 0; i < CheckersTimeBudget.MAX_OVERRUNS; i++) {
+			budget.checkerFinished(checker, 200 * MS);
+		}
+		assertFalse(budget.isDeferred(checker));
+	}
+}
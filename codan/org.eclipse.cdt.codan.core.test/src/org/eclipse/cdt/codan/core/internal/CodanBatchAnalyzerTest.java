@@ -0,0 +1,98 @@
+/*******************************************************************************
+ * Copyright (c) 2016 agent and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     agent - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.cdt.codan.core.internal;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.eclipse.cdt.codan.core.CodanRuntime;
+import org.eclipse.cdt.codan.core.model.IProblemReporter;
+import org.eclipse.cdt.codan.core.test.CheckerTestCase;
+import org.eclipse.cdt.codan.core.test.TestUtils;
+import org.eclipse.cdt.codan.internal.core.CodanBatchAnalyzer;
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.runtime.NullProgressMonitor;
+
+/**
+ * Tests for {@link CodanBatchAnalyzer}.
+ */
+@SuppressWarnings("nls")
+public class CodanBatchAnalyzerTest extends CheckerTestCase {
+	private static final String PROBLEM_ID = "org.eclipse.cdt.codan.internal.checkers.AssignmentInConditionProblem";
+
+	private IProblemReporter savedReporter;
+	private File storeFile;
+
+	@Override
+	public void setUp() throws Exception {
+		super.setUp();
+		enableProblems(PROBLEM_ID);
+		savedReporter = CodanRuntime.getInstance().getProblemReporter();
+		// Outside of the project, such that it is not analyzed.
+		storeFile = File.createTempFile("codan", ".results");
+		storeFile.delete();
+	}
+
+	@Override
+	public void tearDown() throws Exception {
+		CodanRuntime.getInstance().setProblemReporter(savedReporter);
+		storeFile.delete();
+		super.tearDown();
+	}
+
+	private CodanBatchAnalyzer analyze(List<CodanBatchAnalyzer.Result> results) throws Exception {
+		CodanBatchAnalyzer analyzer = new CodanBatchAnalyzer(storeFile, 2);
+		CodanRuntime.getInstance().setProblemReporter(analyzer.getProblemReporter());
+		List<IProject> projects = Collections.singletonList(cproject.getProject());
+		results.clear();
+		results.addAll(analyzer.analyze(projects, new NullProgressMonitor()));
+		return analyzer;
+	}
+
+	//	 main() {
+	//	   int a=1,b=3;
+	//	   if (a=b) b=4; // error here on line 3
+	//	 }
+
+	//	 main() {
+	//	   int a=1,b=3;
+	//	   if ((a=b)) b=4; // no error
+	//	 }
+	public void testUnchangedFilesAreNotAnalyzed() throws Exception {
+		CharSequence[] code = getContents(2);
+		File file = loadcode(code[0].toString());
+		indexFiles();
+
+		List<CodanBatchAnalyzer.Result> results = new ArrayList<>();
+		CodanBatchAnalyzer analyzer = analyze(results);
+		assertTrue(analyzer.getAnalyzedFiles() > 0);
+		assertEquals(1, results.size());
+		assertEquals(PROBLEM_ID, results.get(0).problemId);
+		assertEquals(3, results.get(0).line);
+		assertTrue(storeFile.isFile());
+
+		analyzer = analyze(results);
+		assertEquals(0, analyzer.getAnalyzedFiles());
+		assertEquals(1, results.size());
+		assertEquals(3, results.get(0).line);
+
+		TestUtils.saveFile(new ByteArrayInputStream(code[1].toString().trim().getBytes()), file);
+		cproject.getProject().refreshLocal(IResource.DEPTH_INFINITE, null);
+		indexFiles();
+		analyzer = analyze(results);
+		assertEquals(1, analyzer.getAnalyzedFiles());
+		assertEquals(0, results.size());
+	}
+}
@@ -10,6 +10,9 @@
  *******************************************************************************/
 package org.eclipse.cdt.codan.core.internal.checkers;
 
+import java.io.File;
+import java.io.IOException;
+
 import org.eclipse.cdt.codan.core.test.CheckerTestCase;
 import org.eclipse.cdt.codan.internal.core.model.CodanProblemMarker;
 import org.eclipse.core.resources.IMarker;
@@ -107,4 +110,33 @@ public class AssignmentInConditionCheckerTest extends CheckerTestCase {
 		String arg = CodanProblemMarker.getProblemArgument(marker, 0);
 		assertEquals("a=b", arg); //$NON-NLS-1$
 	}
+
+	//	 main() {
+	//	   int a=1,b=3;
+	//	   if (a=b) b=4; // error here on line 3
+	//	 }
+
+	//	 foo() {
+	//	   int a=1,b=3;
+	//
+	//	   while (a=b) b--; // error here on line 4
+	//	 }
+
+	//	 bar() {
+	//	   int a=1,b=3;
+	//	   if ((a=b)) b--; // no error
+	//	 }
+	public void test3Files() throws IOException {
+		// The files may be processed in parallel.
+		CharSequence[] code = getContents(3);
+		File f1 = loadcode(code[0].toString());
+		File f2 = loadcode(code[1].toString());
+		File f3 = loadcode(code[2].toString());
+		runOnProject();
+		checkErrorLine(f1, 3);
+		checkErrorLine(f2, 4);
+		for (IMarker m : markers) {
+			assertFalse(m.getResource().getName().equals(f3.getName()));
+		}
+	}
 }
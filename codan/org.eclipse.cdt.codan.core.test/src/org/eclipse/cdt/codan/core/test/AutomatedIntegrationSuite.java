@@ -15,6 +15,8 @@ import junit.framework.Test;
 import junit.framework.TestCase;
 import junit.framework.TestSuite;
 
+import org.eclipse.cdt.codan.core.internal.CheckersTimeBudgetTest;
+import org.eclipse.cdt.codan.core.internal.CodanBatchAnalyzerTest;
 import org.eclipse.cdt.codan.core.internal.checkers.AbstractClassInstantiationCheckerTest;
 import org.eclipse.cdt.codan.core.internal.checkers.AssignmentInConditionCheckerTest;
 import org.eclipse.cdt.codan.core.internal.checkers.AssignmentToItselfCheckerTest;
@@ -74,6 +76,8 @@ public class AutomatedIntegrationSuite extends TestSuite {
 		suite.addTestSuite(UnusedSymbolInFileScopeCheckerTest.class);
 		suite.addTestSuite(CommentCheckerLineTests.class);
 		suite.addTestSuite(CommentCheckerNestedTests.class);
+		suite.addTestSuite(CodanBatchAnalyzerTest.class);
+		suite.addTestSuite(CheckersTimeBudgetTest.class);
 		// framework
 		suite.addTest(CodanFastTestSuite.suite());
 		// quick fixes
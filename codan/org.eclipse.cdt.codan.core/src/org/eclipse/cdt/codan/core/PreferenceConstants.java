@@ -18,4 +18,10 @@ public class PreferenceConstants {
 	public static final String P_RUN_IN_EDITOR = "inEditor"; //$NON-NLS-1$
 	public static final String P_PROBLEMS = "problems"; //$NON-NLS-1$
 	public static final String P_USE_PARENT = "useParentScope"; //$NON-NLS-1$
+	/**
+	 * Time in milliseconds a checker may take on a file in the editor, before it is deferred
+	 * to the saving of the file. Zero disables the limit.
+	 * @since 3.3
+	 */
+	public static final String P_RUN_IN_EDITOR_TIME_BUDGET = "inEditorTimeBudget"; //$NON-NLS-1$
 }
@@ -0,0 +1,33 @@
+/*******************************************************************************
+ * Copyright (c) 2016 agent and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     agent - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.cdt.codan.core.model;
+
+import org.eclipse.core.resources.IResource;
+
+/**
+ * Optional interface for checkers that can fingerprint the inputs that determine the problems
+ * they report for a resource, e.g. the content of a file and the files it includes. Allows
+ * batch runs to reuse the results of a previous run for resources with unchanged inputs.
+ *
+ * @since 3.3
+ */
+public interface IIncrementalChecker {
+	/**
+	 * Returns a fingerprint of the inputs of the checker for the resource. The preferences of the
+	 * problems of the checker need not be covered by the fingerprint.
+	 *
+	 * @param resource the resource the checker is going to be run on.
+	 * @param context container object for sharing data between different checkers
+	 * 		operating on the resource.
+	 * @return the fingerprint, or {@code null} if it cannot be computed.
+	 */
+	String getInputFingerprint(IResource resource, ICheckerInvocationContext context);
+}
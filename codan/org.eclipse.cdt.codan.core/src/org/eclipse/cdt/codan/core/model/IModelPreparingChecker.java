@@ -0,0 +1,33 @@
+/*******************************************************************************
+ * Copyright (c) 2016 agent and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     agent - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.cdt.codan.core.model;
+
+import org.eclipse.core.resources.IResource;
+
+/**
+ * Optional interface for checkers that build a model of the resource, e.g. an AST, and share
+ * it with other checkers through the {@link ICheckerInvocationContext}. The model is prepared
+ * before any of the checkers is run on the resource, without holding the lock of the checker,
+ * such that the models of different resources can be built concurrently.
+ *
+ * @since 3.3
+ */
+public interface IModelPreparingChecker {
+	/**
+	 * Builds the model of the resource and adds it to the context, unless the context already
+	 * contains it. The method may be called concurrently for different resources.
+	 *
+	 * @param resource the resource the checkers are going to be run on.
+	 * @param context container object for sharing data between different checkers
+	 * 		operating on the resource.
+	 */
+	void prepareModel(IResource resource, ICheckerInvocationContext context);
+}
@@ -64,6 +64,7 @@ public class CheckersRegistry implements Iterable<IChecker>, ICheckersRegistry {
 	private Collection<IChecker> checkers = new ArrayList<IChecker>();
 	private static CheckersRegistry instance;
 	private static boolean initialized = false;
+	/** Guarded by this, the profiles are looked up by the threads processing files in parallel */
 	private final Map<Object, IProblemProfile> profiles = new HashMap<Object, IProblemProfile>();
 	private final Map<IChecker, Collection<IProblem>> problemList = new HashMap<IChecker, Collection<IProblem>>();
 	private final Map<String, IChecker> problemCheckerMapping = new HashMap<String, IChecker>();
@@ -325,12 +326,12 @@ public class CheckersRegistry implements Iterable<IChecker>, ICheckersRegistry {
 	}
 
 	@Override
-	public IProblemProfile getDefaultProfile() {
+	public synchronized IProblemProfile getDefaultProfile() {
 		return profiles.get(DEFAULT);
 	}
 
 	@Override
-	public IProblemProfile getWorkspaceProfile() {
+	public synchronized IProblemProfile getWorkspaceProfile() {
 		IProblemProfile wp = profiles.get(ResourcesPlugin.getWorkspace());
 		if (wp == null) {
 			wp = (IProblemProfile) getDefaultProfile().clone();
@@ -349,7 +350,7 @@ public class CheckersRegistry implements Iterable<IChecker>, ICheckersRegistry {
 	}
 
 	@Override
-	public void updateProfile(IResource element, IProblemProfile profile) {
+	public synchronized void updateProfile(IResource element, IProblemProfile profile) {
 		// Updating profile can invalidate all cached profiles
 		IProblemProfile defaultProfile = getDefaultProfile();
 		profiles.clear();
@@ -359,7 +360,7 @@ public class CheckersRegistry implements Iterable<IChecker>, ICheckersRegistry {
 	}
 
 	@Override
-	public IProblemProfile getResourceProfile(IResource element) {
+	public synchronized IProblemProfile getResourceProfile(IResource element) {
 		IProblemProfile prof = profiles.get(element);
 		if (prof == null) {
 			if (element instanceof IProject) {
@@ -383,7 +384,7 @@ public class CheckersRegistry implements Iterable<IChecker>, ICheckersRegistry {
 	}
 
 	@Override
-	public IProblemProfile getResourceProfileWorkingCopy(IResource element) {
+	public synchronized IProblemProfile getResourceProfileWorkingCopy(IResource element) {
 		IProblemProfile prof = (IProblemProfile) getResourceProfile(element).clone();
 		return prof;
 	}
@@ -404,6 +405,10 @@ public class CheckersRegistry implements Iterable<IChecker>, ICheckersRegistry {
 		if (mode == CheckerLaunchMode.RUN_AS_YOU_TYPE && !Checkers.canCheckerRunAsYouType(checker)) {
 			return false;
 		}
+		boolean deferred = CheckersTimeBudget.getInstance().isDeferred(checker);
+		if (mode == CheckerLaunchMode.RUN_AS_YOU_TYPE && deferred) {
+			return false;
+		}
 		for (ICheckerEnablementVerifier verifier : checkerEnablementVerifiers) {
 			if (!verifier.isCheckerEnabled(checker, resource, mode)) {
 				return false;
@@ -423,6 +428,11 @@ public class CheckersRegistry implements Iterable<IChecker>, ICheckersRegistry {
 				if (pref.isRunningInMode(mode)) {
 					return true;
 				}
+				// A checker that is too slow to run as you type runs when the file is saved.
+				if (deferred && mode == CheckerLaunchMode.RUN_ON_FILE_SAVE &&
+						pref.isRunningInMode(CheckerLaunchMode.RUN_AS_YOU_TYPE)) {
+					return true;
+				}
 			}
 		}
 		return false;
@@ -0,0 +1,102 @@
+/*******************************************************************************
+ * Copyright (c) 2016 agent and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     agent - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.cdt.codan.internal.core;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import org.eclipse.cdt.codan.core.CodanCorePlugin;
+import org.eclipse.cdt.codan.core.PreferenceConstants;
+import org.eclipse.cdt.codan.core.model.IChecker;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Platform;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.osgi.util.NLS;
+
+/**
+ * Enforces the time budget of checkers running as you type. A checker that exceeds the budget
+ * {@link #MAX_OVERRUNS} times in a row is deferred for the rest of the session: it no longer
+ * runs as you type, instead it runs when the file is saved.
+ * <p>
+ * The budget is set by the {@link PreferenceConstants#P_RUN_IN_EDITOR_TIME_BUDGET} preference,
+ * in milliseconds. A budget of zero disables the enforcement.
+ */
+public class CheckersTimeBudget {
+	/** Number of consecutive runs exceeding the budget that cause a checker to be deferred */
+	public static final int MAX_OVERRUNS = 3;
+	private static CheckersTimeBudget instance = new CheckersTimeBudget();
+
+	private final Map<IChecker, Integer> overruns = new HashMap<IChecker, Integer>();
+	private final Set<IChecker> deferred = new HashSet<IChecker>();
+
+	/**
+	 * @return global instance of the budget
+	 */
+	public static CheckersTimeBudget getInstance() {
+		return instance;
+	}
+
+	/**
+	 * Returns the budget for a run of a checker in the editor in milliseconds, zero if there is
+	 * no budget.
+	 */
+	public long getBudget() {
+		return Platform.getPreferencesService().getLong(CodanCorePlugin.PLUGIN_ID,
+				PreferenceConstants.P_RUN_IN_EDITOR_TIME_BUDGET, 0, null);
+	}
+
+	/**
+	 * Records a run of a checker in the editor.
+	 *
+	 * @param checker the checker
+	 * @param nanos the duration of the run in nanoseconds
+	 */
+	public void checkerFinished(IChecker checker, long nanos) {
+		long budget = getBudget();
+		if (budget <= 0)
+			return;
+		synchronized (this) {
+			if (nanos <= budget * 1000000) {
+				overruns.remove(checker);
+				return;
+			}
+			Integer n = overruns.get(checker);
+			int count = n == null ? 1 : n + 1;
+			if (count < MAX_OVERRUNS) {
+				overruns.put(checker, count);
+				return;
+			}
+			overruns.remove(checker);
+			if (!deferred.add(checker))
+				return;
+		}
+		CodanCorePlugin.log(new Status(IStatus.INFO, CodanCorePlugin.PLUGIN_ID,
+				NLS.bind(Messages.CheckersTimeBudget_CheckerDeferred,
+						new Object[] { checker.getClass().getName(), nanos / 1000000, budget })));
+	}
+
+	/**
+	 * Checks whether the checker exceeded the budget and no longer runs as you type.
+	 */
+	public synchronized boolean isDeferred(IChecker checker) {
+		return deferred.contains(checker);
+	}
+
+	/**
+	 * Lets all checkers run as you type again.
+	 */
+	public synchronized void reset() {
+		overruns.clear();
+		deferred.clear();
+	}
+}
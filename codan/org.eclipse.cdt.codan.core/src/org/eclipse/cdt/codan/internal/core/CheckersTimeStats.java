@@ -10,12 +10,16 @@
  *******************************************************************************/
 package org.eclipse.cdt.codan.internal.core;
 
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.Map;
 
 /**
- * Class to collect time states for checkers runs
+ * Class to collect time states for checkers runs. For every checker and counter, usually the
+ * launch mode, the total and the maximum time, a latency histogram and the number of allocated
+ * bytes are recorded. Times are printed in milliseconds.
  */
 public class CheckersTimeStats {
 	public static final String ALL = "ALL"; //$NON-NLS-1$
@@ -30,39 +34,119 @@ public class CheckersTimeStats {
 		return instance;
 	}
 
+	/**
+	 * Per-thread allocation counter of the JVM, if supported. The counter is provided by
+	 * {@code com.sun.management.ThreadMXBean}, which is not available on all VMs, the class
+	 * referencing it is only loaded when the platform bean implements it.
+	 */
+	private static final boolean allocationsReported;
+	static {
+		boolean supported = false;
+		try {
+			supported = ThreadAllocationCounter.isSupported();
+		} catch (LinkageError e) {
+			// Not a HotSpot compatible VM, allocations are not reported.
+		}
+		allocationsReported = supported;
+	}
+
+	private static long getAllocatedBytes() {
+		return allocationsReported ? ThreadAllocationCounter.getAllocatedBytes() : 0;
+	}
+
+	private static class ThreadAllocationCounter {
+		private static final com.sun.management.ThreadMXBean bean;
+		static {
+			ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+			bean = threadBean instanceof com.sun.management.ThreadMXBean ?
+					(com.sun.management.ThreadMXBean) threadBean : null;
+		}
+
+		static boolean isSupported() {
+			return bean != null && bean.isThreadAllocatedMemorySupported() && bean.isThreadAllocatedMemoryEnabled();
+		}
+
+		static long getAllocatedBytes() {
+			long allocated = bean.getThreadAllocatedBytes(Thread.currentThread().getId());
+			return allocated < 0 ? 0 : allocated;
+		}
+	}
+
 	private static class TimeRecord {
-		private long duration;
-		private long current;
+		/**
+		 * Number of buckets of the latency histogram. Bucket {@code i > 0} counts the runs that
+		 * took between 2<sup>i-1</sup> and 2<sup>i</sup> microseconds.
+		 */
+		private static final int BUCKETS = 40;
+
+		private long duration; // nanoseconds
+		private long maxDuration;
+		private long allocated;
+		private final long[] histogram = new long[BUCKETS];
+		// Checkers may run concurrently on different files.
+		private final ThreadLocal<long[]> current = new ThreadLocal<long[]>();
 		private int count;
 
 		public void start() {
-			current = System.currentTimeMillis();
+			current.set(new long[] { System.nanoTime(), getAllocatedBytes() });
 		}
 
-		public void stop() {
+		public synchronized void stop() {
+			long[] start = current.get();
+			if (start == null)
+				return;
+			current.remove();
+			long time = System.nanoTime() - start[0];
 			count++;
-			duration += System.currentTimeMillis() - current;
-			current = 0;
+			duration += time;
+			maxDuration = Math.max(maxDuration, time);
+			allocated += getAllocatedBytes() - start[1];
+			long micros = time / 1000;
+			int bucket = micros == 0 ? 0 : 64 - Long.numberOfLeadingZeros(micros);
+			histogram[Math.min(bucket, BUCKETS - 1)]++;
+		}
+
+		/**
+		 * Returns an upper bound of the given percentile of the durations in milliseconds, with
+		 * the resolution of the histogram.
+		 */
+		public synchronized float getPercentile(int percent) {
+			if (count == 0)
+				return 0;
+			long rank = (count * (long) percent + 99) / 100;
+			long seen = 0;
+			for (int i = 0; i < BUCKETS; i++) {
+				seen += histogram[i];
+				if (seen >= rank) {
+					// The upper bound of the bucket, but not more than the maximum.
+					return Math.min((1L << i) * 1000, maxDuration) / 1000000f;
+				}
+			}
+			return maxDuration / 1000000f;
 		}
 
 		@Override
-		public String toString() {
-			return String.format("%4d %4d %4.2f", duration, count, count == 0 ? count : (duration / (float) count)); //$NON-NLS-1$
+		public synchronized String toString() {
+			return String.format("%4d %4d %4.2f", duration / 1000000, count, //$NON-NLS-1$
+					count == 0 ? 0f : (duration / 1000000f / count));
 		}
 
-		public String toString(long total) {
-			float ave = count == 0 ? count : (duration / (float) count);
+		public synchronized String toString(long total) {
+			float ave = count == 0 ? 0f : (duration / 1000000f / count);
 			float per = total == 0 ? 100f : (duration * 100 / (float) total);
-			return String.format("%4d %4d %4.2f %4.2f%%", duration, count, ave, per); //$NON-NLS-1$
+			return String.format("%4d %4d %4.2f %4.2f%% p50=%.2f p95=%.2f max=%.2f alloc=%dK", //$NON-NLS-1$
+					duration / 1000000, count, ave, per, getPercentile(50), getPercentile(95),
+					maxDuration / 1000000f, allocated / 1024);
 		}
 	}
+
 	private Map<String, TimeRecord> records = new HashMap<String, TimeRecord>();
 
 	/**
 	 * @param id - checker id
 	 * @return
 	 */
-	private TimeRecord getTimeRecord(String id) {
+	private synchronized TimeRecord getTimeRecord(String id) {
 		TimeRecord record = records.get(id);
 		if (record == null) {
 			record = new TimeRecord();
@@ -126,7 +210,7 @@ public class CheckersTimeStats {
 	/**
 	 *
 	 */
-	public void printStats() {
+	public synchronized void printStats() {
 		System.out.println("---"); //$NON-NLS-1$
 		String totalId = getKey(ALL, ELAPSED);
 		TimeRecord all = records.get(totalId);
@@ -135,15 +219,16 @@ public class CheckersTimeStats {
 			if (id.equals(totalId))
 				continue;
 			TimeRecord timeRecord = getTimeRecord(id);
-			System.out.println(timeRecord.toString(all.duration) + " " + id); //$NON-NLS-1$
+			System.out.println(timeRecord.toString(all == null ? 0 : all.duration) + " " + id); //$NON-NLS-1$
 		}
-		System.out.println(all.toString() + " " + totalId); //$NON-NLS-1$
+		if (all != null)
+			System.out.println(all.toString() + " " + totalId); //$NON-NLS-1$
 	}
 
 	/**
 	 *
 	 */
-	public void reset() {
+	public synchronized void reset() {
 		records.clear();
 	}
 
@@ -10,14 +10,14 @@
  *******************************************************************************/
 package org.eclipse.cdt.codan.internal.core;
 
+import java.io.File;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
 
 import org.eclipse.cdt.codan.core.CodanRuntime;
-import org.eclipse.cdt.codan.core.model.AbstractProblemReporter;
-import org.eclipse.cdt.codan.core.model.ICodanProblemMarker;
 import org.eclipse.core.resources.IProject;
-import org.eclipse.core.resources.IResource;
 import org.eclipse.core.resources.IWorkspaceRoot;
 import org.eclipse.core.resources.ResourcesPlugin;
 import org.eclipse.core.runtime.NullProgressMonitor;
@@ -35,6 +35,8 @@ public class CodanApplication implements IApplication {
 	private Collection<String> projects = new ArrayList<String>();
 	private boolean verbose;
 	private boolean all;
+	private boolean json;
+	private File resultsFile;
 
 	@Override
 	public Object start(IApplicationContext context) throws Exception {
@@ -44,20 +46,11 @@ public class CodanApplication implements IApplication {
 			return EXIT_OK;
 		}
 		extractArguments(args);
-		CodanBuilder codanBuilder = new CodanBuilder();
-		CodanRuntime runtime = CodanRuntime.getInstance();
-		runtime.setProblemReporter(new AbstractProblemReporter() {
-			@Override
-			protected void reportProblem(ICodanProblemMarker pm) {
-				IResource file = pm.getResource();
-				System.out.println(file.getLocation() + ":" + pm.getLocation().getLineNumber() + ": " //$NON-NLS-1$ //$NON-NLS-2$
-						+ pm.createMessage());
-			}
-		});
 		IWorkspaceRoot root = ResourcesPlugin.getWorkspace().getRoot();
+		List<IProject> wProjects = new ArrayList<IProject>();
 		if (all) {
 			log(Messages.CodanApplication_LogRunWorkspace);
-			codanBuilder.processResource(root, new NullProgressMonitor());
+			Collections.addAll(wProjects, root.getProjects());
 		} else {
 			for (String project : projects) {
 				log(Messages.CodanApplication_LogRunProject + project);
@@ -67,9 +60,16 @@ public class CodanApplication implements IApplication {
 							NLS.bind(Messages.CodanApplication_Error_ProjectDoesNotExists, project));
 					continue;
 				}
-				codanBuilder.processResource(wProject, new NullProgressMonitor());
+				wProjects.add(wProject);
 			}
 		}
+		CodanBatchAnalyzer analyzer =
+				new CodanBatchAnalyzer(resultsFile, Runtime.getRuntime().availableProcessors());
+		CodanRuntime.getInstance().setProblemReporter(analyzer.getProblemReporter());
+		List<CodanBatchAnalyzer.Result> results = analyzer.analyze(wProjects, new NullProgressMonitor());
+		log(NLS.bind(Messages.CodanApplication_LogAnalyzedFiles, analyzer.getAnalyzedFiles(),
+				analyzer.getReusedFiles()));
+		CodanBatchAnalyzer.printResults(results, json, System.out);
 		return EXIT_OK;
 	}
 
@@ -91,6 +91,10 @@ public class CodanApplication implements IApplication {
 				verbose = true;
 			} else if (string.equals("-all")) { //$NON-NLS-1$
 				all = true;
+			} else if (string.equals("-json")) { //$NON-NLS-1$
+				json = true;
+			} else if (string.equals("-results") && i + 1 < args.length) { //$NON-NLS-1$
+				resultsFile = new File(args[++i]);
 			} else {
 				projects.add(string);
 			}
@@ -104,6 +108,8 @@ public class CodanApplication implements IApplication {
 		System.out.println(Messages.CodanApplication_Usage);
 		System.out.println(Messages.CodanApplication_Options);
 		System.out.println(Messages.CodanApplication_all_option);
+		System.out.println(Messages.CodanApplication_results_option);
+		System.out.println(Messages.CodanApplication_json_option);
 		System.out.println(Messages.CodanApplication_verbose_option);
 	}
 
@@ -0,0 +1,459 @@
+/*******************************************************************************
+ * Copyright (c) 2016 agent and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     agent - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.cdt.codan.internal.core;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.UnsupportedEncodingException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.eclipse.cdt.codan.core.CodanCorePlugin;
+import org.eclipse.cdt.codan.core.model.AbstractProblemReporter;
+import org.eclipse.cdt.codan.core.model.CheckerLaunchMode;
+import org.eclipse.cdt.codan.core.model.IChecker;
+import org.eclipse.cdt.codan.core.model.ICheckerInvocationContext;
+import org.eclipse.cdt.codan.core.model.ICodanProblemMarker;
+import org.eclipse.cdt.codan.core.model.IIncrementalChecker;
+import org.eclipse.cdt.codan.core.model.IProblem;
+import org.eclipse.cdt.codan.core.model.IProblemLocation;
+import org.eclipse.cdt.codan.core.model.IProblemProfile;
+import org.eclipse.cdt.codan.core.param.IProblemPreference;
+import org.eclipse.core.resources.IFile;
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.resources.IResourceVisitor;
+import org.eclipse.core.resources.IWorkspaceRoot;
+import org.eclipse.core.resources.ResourcesPlugin;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IPath;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.NullProgressMonitor;
+import org.eclipse.core.runtime.OperationCanceledException;
+import org.eclipse.core.runtime.Path;
+
+/**
+ * Runs the checkers on the files of a set of projects in parallel, for the headless application.
+ * <p>
+ * The problems found in a file are stored in a result file, together with a fingerprint of the
+ * inputs of the analysis of the file. The fingerprint covers the enabled checkers, the settings
+ * of the problems and the fingerprints provided by the checkers, see {@link IIncrementalChecker}.
+ * On the next run files with an unchanged fingerprint are not analyzed again, their problems
+ * are taken from the result file. Files for which one of the enabled checkers cannot provide a
+ * fingerprint are analyzed on every run.
+ */
+public class CodanBatchAnalyzer {
+	/** Version of the format of the result file, has to be increased when the format changes. */
+	private static final int STORE_VERSION = 1;
+	private static final int STORE_MAGIC = 0x43444e52;
+
+	/**
+	 * Problem reported for a file. The problem may be located in a different file than the one
+	 * it was reported for, e.g. in a header.
+	 */
+	public static final class Result {
+		public final String path;
+		public final String problemId;
+		public final String severity;
+		public final int line;
+		public final int startChar;
+		public final int endChar;
+		public final String message;
+
+		Result(String path, String problemId, String severity, int line, int startChar, int endChar,
+				String message) {
+			this.path = path;
+			this.problemId = problemId;
+			this.severity = severity;
+			this.line = line;
+			this.startChar = startChar;
+			this.endChar = endChar;
+			this.message = message;
+		}
+	}
+
+	private static final class Entry {
+		final String fingerprint;
+		final List<Result> results;
+
+		Entry(String fingerprint, List<Result> results) {
+			this.fingerprint = fingerprint;
+			this.results = results;
+		}
+	}
+
+	private static final Comparator<Result> RESULT_ORDER = new Comparator<Result>() {
+		@Override
+		public int compare(Result r1, Result r2) {
+			int c = r1.path.compareTo(r2.path);
+			if (c == 0)
+				c = Integer.compare(r1.line, r2.line);
+			if (c == 0)
+				c = Integer.compare(r1.startChar, r2.startChar);
+			if (c == 0)
+				c = r1.problemId.compareTo(r2.problemId);
+			return c;
+		}
+	};
+
+	private final File storeFile;
+	private final int threads;
+	private final Map<String, Entry> store = new ConcurrentHashMap<>();
+	private final Map<IProblemProfile, String> profileFingerprints = new IdentityHashMap<>();
+	/** Collects the problems reported by the checkers running in the current thread. */
+	private final ThreadLocal<List<Result>> currentResults = new ThreadLocal<>();
+	private int analyzedFiles;
+	private int reusedFiles;
+
+	/**
+	 * @param storeFile the file the results are stored in between runs, or {@code null}
+	 * 		to analyze all files.
+	 * @param threads the number of files analyzed concurrently.
+	 */
+	public CodanBatchAnalyzer(File storeFile, int threads) {
+		this.storeFile = storeFile;
+		this.threads = Math.max(1, threads);
+	}
+
+	/**
+	 * Returns a problem reporter that collects the problems for this analyzer. Has to be installed
+	 * in the runtime before calling {@link #analyze(List, IProgressMonitor)}.
+	 */
+	public AbstractProblemReporter getProblemReporter() {
+		return new AbstractProblemReporter() {
+			@Override
+			protected void reportProblem(ICodanProblemMarker pm) {
+				List<Result> results = currentResults.get();
+				if (results == null)
+					return;
+				IProblemLocation loc = pm.getLocation();
+				IProblem problem = pm.getProblem();
+				results.add(new Result(pm.getResource().getFullPath().toString(), problem.getId(),
+						problem.getSeverity().toString(), loc.getLineNumber(), loc.getStartingChar(),
+						loc.getEndingChar(), pm.createMessage()));
+			}
+		};
+	}
+
+	/**
+	 * Analyzes the files of the given projects and returns the problems found in them, including
+	 * the problems taken over from the previous run. Updates the result file.
+	 */
+	public List<Result> analyze(List<IProject> projects, final IProgressMonitor monitor) throws CoreException {
+		loadStore();
+		final List<IFile> files = new ArrayList<>();
+		for (IProject project : projects) {
+			if (!project.isAccessible())
+				continue;
+			project.accept(new IResourceVisitor() {
+				@Override
+				public boolean visit(IResource resource) {
+					if (resource instanceof IFile)
+						files.add((IFile) resource);
+					return true;
+				}
+			});
+		}
+		monitor.beginTask(Messages.CodanBatchAnalyzer_Analyzing, files.size());
+
+		final IProgressMonitor workerMonitor = new NullProgressMonitor() {
+			@Override
+			public boolean isCanceled() {
+				return monitor.isCanceled();
+			}
+		};
+		List<Result> results = new ArrayList<>();
+		ExecutorService executor = Executors.newFixedThreadPool(threads);
+		try {
+			List<Future<List<Result>>> futures = new ArrayList<>(files.size());
+			for (final IFile file : files) {
+				futures.add(executor.submit(new Callable<List<Result>>() {
+					@Override
+					public List<Result> call() {
+						return analyzeFile(file, workerMonitor);
+					}
+				}));
+			}
+			for (Future<List<Result>> future : futures) {
+				try {
+					results.addAll(future.get());
+				} catch (ExecutionException e) {
+					CodanCorePlugin.log(e.getCause());
+				}
+				monitor.worked(1);
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new OperationCanceledException();
+		} finally {
+			executor.shutdownNow();
+			monitor.done();
+		}
+		if (monitor.isCanceled())
+			throw new OperationCanceledException();
+
+		saveStore();
+		Collections.sort(results, RESULT_ORDER);
+		return results;
+	}
+
+	/**
+	 * Returns the number of files analyzed by the last run.
+	 */
+	public int getAnalyzedFiles() {
+		return analyzedFiles;
+	}
+
+	/**
+	 * Returns the number of files for which the results of the previous run were used.
+	 */
+	public int getReusedFiles() {
+		return reusedFiles;
+	}
+
+	private List<Result> analyzeFile(IFile file, IProgressMonitor monitor) {
+		if (monitor.isCanceled())
+			return Collections.emptyList();
+		String path = file.getFullPath().toString();
+		String fingerprint = getFingerprint(file);
+		if (fingerprint != null) {
+			Entry entry = store.get(path);
+			if (entry != null && entry.fingerprint.equals(fingerprint)) {
+				synchronized (this) {
+					reusedFiles++;
+				}
+				return entry.results;
+			}
+		}
+
+		List<Result> results = Collections.synchronizedList(new ArrayList<Result>());
+		currentResults.set(results);
+		try {
+			CodanRunner.processResource(file, CheckerLaunchMode.RUN_ON_FULL_BUILD, monitor);
+		} finally {
+			currentResults.remove();
+		}
+		results = new ArrayList<>(results);
+		if (!monitor.isCanceled()) {
+			if (fingerprint != null) {
+				store.put(path, new Entry(fingerprint, results));
+			} else {
+				store.remove(path);
+			}
+		}
+		synchronized (this) {
+			analyzedFiles++;
+		}
+		return results;
+	}
+
+	/**
+	 * Computes the fingerprint of the inputs of the analysis of the file, or returns {@code null}
+	 * if one of the enabled checkers cannot provide a fingerprint.
+	 */
+	private String getFingerprint(IFile file) {
+		CheckersRegistry registry = CheckersRegistry.getInstance();
+		StringBuilder buf = new StringBuilder();
+		buf.append(getProfileFingerprint(registry.getResourceProfile(file))).append('\n');
+		ICheckerInvocationContext context = new CheckerInvocationContext(file);
+		try {
+			for (IChecker checker : registry) {
+				if (!registry.isCheckerEnabled(checker, file, CheckerLaunchMode.RUN_ON_FULL_BUILD))
+					continue;
+				if (!(checker instanceof IIncrementalChecker))
+					return null;
+				String checkerFingerprint = ((IIncrementalChecker) checker).getInputFingerprint(file, context);
+				if (checkerFingerprint == null)
+					return null;
+				buf.append(checker.getClass().getName()).append('\0').append(checkerFingerprint).append('\n');
+			}
+		} catch (OperationCanceledException e) {
+			return null;
+		} finally {
+			context.dispose();
+		}
+		return digest(buf.toString());
+	}
+
+	/**
+	 * Computes a fingerprint of the settings of the problems in the profile.
+	 */
+	private String getProfileFingerprint(IProblemProfile profile) {
+		synchronized (profileFingerprints) {
+			String fingerprint = profileFingerprints.get(profile);
+			if (fingerprint == null) {
+				StringBuilder buf = new StringBuilder();
+				for (IProblem problem : profile.getProblems()) {
+					buf.append(problem.getId()).append('\0').append(problem.isEnabled()).append('\0')
+							.append(problem.getSeverity()).append('\0').append(problem.getMessagePattern());
+					IProblemPreference preference = problem.getPreference();
+					if (preference != null)
+						buf.append('\0').append(preference.exportValue());
+					buf.append('\n');
+				}
+				fingerprint = digest(buf.toString());
+				profileFingerprints.put(profile, fingerprint);
+			}
+			return fingerprint;
+		}
+	}
+
+	private static String digest(String str) {
+		try {
+			MessageDigest digest = MessageDigest.getInstance("SHA-1"); //$NON-NLS-1$
+			StringBuilder buf = new StringBuilder();
+			for (byte b : digest.digest(str.getBytes("UTF-8"))) { //$NON-NLS-1$
+				buf.append(Character.forDigit((b >> 4) & 0xf, 16)).append(Character.forDigit(b & 0xf, 16));
+			}
+			return buf.toString();
+		} catch (NoSuchAlgorithmException | UnsupportedEncodingException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	private void loadStore() {
+		store.clear();
+		if (storeFile == null || !storeFile.isFile())
+			return;
+		try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(storeFile)))) {
+			if (in.readInt() != STORE_MAGIC || in.readInt() != STORE_VERSION)
+				return;
+			IWorkspaceRoot root = ResourcesPlugin.getWorkspace().getRoot();
+			Map<String, Entry> entries = new HashMap<>();
+			for (int i = in.readInt(); i > 0; i--) {
+				String path = in.readUTF();
+				String fingerprint = in.readUTF();
+				int count = in.readInt();
+				List<Result> results = new ArrayList<>(count);
+				for (int j = 0; j < count; j++) {
+					results.add(new Result(in.readUTF(), in.readUTF(), in.readUTF(), in.readInt(),
+							in.readInt(), in.readInt(), in.readUTF()));
+				}
+				// Forget about deleted files.
+				if (root.getFile(new Path(path)).exists())
+					entries.put(path, new Entry(fingerprint, results));
+			}
+			store.putAll(entries);
+		} catch (IOException e) {
+			// The results of the previous run are not usable, all files are analyzed.
+			CodanCorePlugin.log(e);
+		}
+	}
+
+	private void saveStore() {
+		if (storeFile == null)
+			return;
+		File tmpFile = new File(storeFile.getPath() + ".tmp"); //$NON-NLS-1$
+		try {
+			try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmpFile)))) {
+				out.writeInt(STORE_MAGIC);
+				out.writeInt(STORE_VERSION);
+				out.writeInt(store.size());
+				for (Map.Entry<String, Entry> e : store.entrySet()) {
+					out.writeUTF(e.getKey());
+					out.writeUTF(e.getValue().fingerprint);
+					List<Result> results = e.getValue().results;
+					out.writeInt(results.size());
+					for (Result r : results) {
+						out.writeUTF(r.path);
+						out.writeUTF(r.problemId);
+						out.writeUTF(r.severity);
+						out.writeInt(r.line);
+						out.writeInt(r.startChar);
+						out.writeInt(r.endChar);
+						out.writeUTF(r.message);
+					}
+				}
+			}
+			if (storeFile.exists() && !storeFile.delete() || !tmpFile.renameTo(storeFile))
+				throw new IOException("Cannot replace " + storeFile); //$NON-NLS-1$
+		} catch (IOException e) {
+			CodanCorePlugin.log(e);
+		}
+	}
+
+	/**
+	 * Prints the results one per line, either as {@code location:line: message} or as
+	 * JSON objects with the members file, line, id, severity and message.
+	 */
+	public static void printResults(List<Result> results, boolean json, PrintStream out) {
+		IWorkspaceRoot root = ResourcesPlugin.getWorkspace().getRoot();
+		for (Result r : results) {
+			IPath location = root.getFile(new Path(r.path)).getLocation();
+			String file = location != null ? location.toOSString() : r.path;
+			if (json) {
+				StringBuilder buf = new StringBuilder();
+				buf.append("{\"file\":"); //$NON-NLS-1$
+				appendJsonString(buf, file);
+				buf.append(",\"line\":").append(r.line); //$NON-NLS-1$
+				buf.append(",\"id\":"); //$NON-NLS-1$
+				appendJsonString(buf, r.problemId);
+				buf.append(",\"severity\":"); //$NON-NLS-1$
+				appendJsonString(buf, r.severity);
+				buf.append(",\"message\":"); //$NON-NLS-1$
+				appendJsonString(buf, r.message);
+				buf.append('}');
+				out.println(buf);
+			} else {
+				out.println(file + ":" + r.line + ": " + r.message); //$NON-NLS-1$ //$NON-NLS-2$
+			}
+		}
+	}
+
+	private static void appendJsonString(StringBuilder buf, String str) {
+		buf.append('"');
+		for (int i = 0; i < str.length(); i++) {
+			char c = str.charAt(i);
+			switch (c) {
+			case '"':
+			case '\\':
+				buf.append('\\').append(c);
+				break;
+			case '\n':
+				buf.append("\\n"); //$NON-NLS-1$
+				break;
+			case '\r':
+				buf.append("\\r"); //$NON-NLS-1$
+				break;
+			case '\t':
+				buf.append("\\t"); //$NON-NLS-1$
+				break;
+			default:
+				if (c < 0x20) {
+					buf.append(String.format("\\u%04x", (int) c)); //$NON-NLS-1$
+				} else {
+					buf.append(c);
+				}
+			}
+		}
+		buf.append('"');
+	}
+}
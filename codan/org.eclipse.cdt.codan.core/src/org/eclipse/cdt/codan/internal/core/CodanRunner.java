@@ -11,17 +11,30 @@
  *******************************************************************************/
 package org.eclipse.cdt.codan.internal.core;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
 import org.eclipse.cdt.codan.core.CodanCorePlugin;
 import org.eclipse.cdt.codan.core.model.CheckerLaunchMode;
 import org.eclipse.cdt.codan.core.model.IChecker;
 import org.eclipse.cdt.codan.core.model.ICheckerInvocationContext;
+import org.eclipse.cdt.codan.core.model.IModelPreparingChecker;
 import org.eclipse.cdt.codan.core.model.IRunnableInEditorChecker;
 import org.eclipse.core.resources.IContainer;
+import org.eclipse.core.resources.IFile;
 import org.eclipse.core.resources.IResource;
 import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.NullProgressMonitor;
 import org.eclipse.core.runtime.OperationCanceledException;
 import org.eclipse.core.runtime.SubProgressMonitor;
+import org.eclipse.core.runtime.jobs.Job;
 import org.eclipse.osgi.util.NLS;
 
 /**
@@ -32,6 +45,9 @@ import org.eclipse.osgi.util.NLS;
  * CodanRuntime.getInstance().getBuilder()
  */
 public class CodanRunner {
+	/** Maximum number of files processed concurrently */
+	private static final int MAX_PARALLEL_FILES = Runtime.getRuntime().availableProcessors();
+
 	/** Do not instantiate. All methods are static */
 	private CodanRunner() {}
 
@@ -55,11 +71,32 @@ public class CodanRunner {
 	 */
 	public static void processResource(IResource resource, CheckerLaunchMode checkerLaunchMode,
 			IProgressMonitor monitor) {
-		processResource(resource, null, checkerLaunchMode, monitor);
+		if (resource instanceof IContainer &&
+				(checkerLaunchMode == CheckerLaunchMode.RUN_ON_FULL_BUILD || checkerLaunchMode == CheckerLaunchMode.RUN_ON_DEMAND) &&
+				canProcessInParallel()) {
+			// One pool of workers for the files of all folders
+			ExecutorService executor = Executors.newFixedThreadPool(MAX_PARALLEL_FILES);
+			try {
+				processResource(resource, null, checkerLaunchMode, monitor, executor);
+			} finally {
+				executor.shutdownNow();
+			}
+		} else {
+			processResource(resource, null, checkerLaunchMode, monitor, null);
+		}
 	}
 
 	private static void processResource(IResource resource, Object model,
 			CheckerLaunchMode checkerLaunchMode, IProgressMonitor monitor) {
+		processResource(resource, model, checkerLaunchMode, monitor, null);
+	}
+
+	/**
+	 * @param executor - the workers processing the files of the folders, or {@code null}
+	 *     to process them in the current thread
+	 */
+	private static void processResource(IResource resource, Object model,
+			CheckerLaunchMode checkerLaunchMode, IProgressMonitor monitor, ExecutorService executor) {
 		CheckersRegistry chegistry = CheckersRegistry.getInstance();
 		int checkers = chegistry.getCheckersSize();
 		IResource[] children = null;
@@ -79,29 +116,55 @@ public class CodanRunner {
 			CheckersTimeStats.getInstance().checkerStart(CheckersTimeStats.ALL);
 			ICheckerInvocationContext context = new CheckerInvocationContext(resource);
 			try {
+				List<IChecker> enabledCheckers = new ArrayList<>();
 				for (IChecker checker : chegistry) {
-					if (monitor.isCanceled())
-						return;
 					if (chegistry.isCheckerEnabled(checker, resource, checkerLaunchMode)) {
-						synchronized (checker) {
+						enabledCheckers.add(checker);
+					}
+				}
+				if (checkerLaunchMode != CheckerLaunchMode.RUN_AS_YOU_TYPE) {
+					// Build the shared models before locking the checkers, such that they can be
+					// built concurrently for different files.
+					for (IChecker checker : enabledCheckers) {
+						if (monitor.isCanceled())
+							return;
+						if (checker instanceof IModelPreparingChecker) {
 							try {
-								checker.before(resource);
-								CheckersTimeStats.getInstance().checkerStart(checker.getClass().getName());
-								if (checkerLaunchMode == CheckerLaunchMode.RUN_AS_YOU_TYPE) {
-									((IRunnableInEditorChecker) checker).processModel(model, context);
-								} else {
-									checker.processResource(resource, context);
-								}
+								((IModelPreparingChecker) checker).prepareModel(resource, context);
 							} catch (OperationCanceledException e) {
 								return;
 							} catch (Throwable e) {
 								CodanCorePlugin.log(e);
-							} finally {
-								CheckersTimeStats.getInstance().checkerStop(checker.getClass().getName());
-								checker.after(resource);
 							}
 						}
 					}
+				}
+				// Disabled checkers count as done.
+				monitor.worked(checkers - enabledCheckers.size());
+				for (IChecker checker : enabledCheckers) {
+					if (monitor.isCanceled())
+						return;
+					synchronized (checker) {
+						String checkerName = checker.getClass().getName();
+						try {
+							checker.before(resource);
+							CheckersTimeStats.getInstance().checkerStart(checkerName, checkerLaunchMode.name());
+							if (checkerLaunchMode == CheckerLaunchMode.RUN_AS_YOU_TYPE) {
+								long start = System.nanoTime();
+								((IRunnableInEditorChecker) checker).processModel(model, context);
+								CheckersTimeBudget.getInstance().checkerFinished(checker, System.nanoTime() - start);
+							} else {
+								checker.processResource(resource, context);
+							}
+						} catch (OperationCanceledException e) {
+							return;
+						} catch (Throwable e) {
+							CodanCorePlugin.log(e);
+						} finally {
+							CheckersTimeStats.getInstance().checkerStop(checkerName, checkerLaunchMode.name());
+							checker.after(resource);
+						}
+					}
 					monitor.worked(1);
 				}
 			} finally {
@@ -112,14 +175,76 @@ public class CodanRunner {
 
 			if (children != null &&
 					(checkerLaunchMode == CheckerLaunchMode.RUN_ON_FULL_BUILD || checkerLaunchMode == CheckerLaunchMode.RUN_ON_DEMAND)) {
+				List<IResource> files = new ArrayList<>();
 				for (IResource child : children) {
 					if (monitor.isCanceled())
 						return;
-					processResource(child, null, checkerLaunchMode, new SubProgressMonitor(monitor, childWeight));
+					if (child instanceof IFile && executor != null) {
+						files.add(child);
+					} else {
+						processResource(child, null, checkerLaunchMode, new SubProgressMonitor(monitor, childWeight),
+								executor);
+					}
 				}
+				processInParallel(files, checkerLaunchMode, monitor, childWeight, executor);
 			}
 		} finally {
 			monitor.done();
 		}
 	}
+
+	/**
+	 * Checks whether files can be processed by worker threads. Checkers create markers when
+	 * they are done with a file. While the current thread holds a scheduling rule, e.g. during
+	 * a build, a worker thread creating markers would wait for the rule to be released.
+	 */
+	private static boolean canProcessInParallel() {
+		return MAX_PARALLEL_FILES > 1 && Job.getJobManager().currentRule() == null;
+	}
+
+	/**
+	 * Processes the given files in worker threads. The checkers are not run concurrently on
+	 * different files, however while one worker runs a checker on a file, other workers can
+	 * run other checkers or build the ASTs of their files.
+	 */
+	private static void processInParallel(List<IResource> files, final CheckerLaunchMode checkerLaunchMode,
+			final IProgressMonitor monitor, int fileWeight, ExecutorService executor) {
+		if (files.isEmpty())
+			return;
+		if (files.size() == 1) {
+			processResource(files.get(0), null, checkerLaunchMode, new SubProgressMonitor(monitor, fileWeight));
+			return;
+		}
+
+		final IProgressMonitor workerMonitor = new NullProgressMonitor() {
+			@Override
+			public boolean isCanceled() {
+				return monitor.isCanceled();
+			}
+		};
+		CompletionService<Object> completionService = new ExecutorCompletionService<>(executor);
+		try {
+			for (final IResource file : files) {
+				completionService.submit(new Callable<Object>() {
+					@Override
+					public Object call() {
+						if (!workerMonitor.isCanceled()) {
+							processResource(file, null, checkerLaunchMode, workerMonitor);
+						}
+						return null;
+					}
+				});
+			}
+			for (int i = 0; i < files.size(); i++) {
+				try {
+					completionService.take().get();
+				} catch (ExecutionException e) {
+					CodanCorePlugin.log(e.getCause());
+				}
+				monitor.worked(fileWeight);
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
 }
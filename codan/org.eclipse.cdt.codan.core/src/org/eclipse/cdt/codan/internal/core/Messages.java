@@ -18,13 +18,18 @@ import org.eclipse.osgi.util.NLS;
  * Core Messages
  */
 class Messages extends NLS {
+	public static String CheckersTimeBudget_CheckerDeferred;
 	public static String CodanApplication_all_option;
 	public static String CodanApplication_Error_ProjectDoesNotExists;
+	public static String CodanApplication_json_option;
+	public static String CodanApplication_LogAnalyzedFiles;
 	public static String CodanApplication_LogRunProject;
 	public static String CodanApplication_LogRunWorkspace;
 	public static String CodanApplication_Options;
+	public static String CodanApplication_results_option;
 	public static String CodanApplication_Usage;
 	public static String CodanApplication_verbose_option;
+	public static String CodanBatchAnalyzer_Analyzing;
 	public static String CodanRunner_Code_analysis_on;
 
 	static {
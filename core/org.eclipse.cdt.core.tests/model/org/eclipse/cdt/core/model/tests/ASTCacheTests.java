@@ -144,6 +144,46 @@ public class ASTCacheTests extends BaseTestCase {
 		checkAccessWithConcurrentReconciler();
 	}
 	
+	public void testInactiveASTs() throws Exception {
+		ASTCache cache= new ASTCache(1);
+		cache.setActiveElement(fTU1);
+		final IASTTranslationUnit ast1= getAST(cache, fTU1, true);
+		assertNotNull(ast1);
+		assertEquals(1, cache.getMisses());
+
+		// The AST of the previously active element is kept.
+		cache.setActiveElement(fTU2);
+		assertSame(ast1, getAST(cache, fTU1, false));
+		final IASTTranslationUnit ast2= getAST(cache, fTU2, true);
+		assertNotNull(ast2);
+		cache.setActiveElement(fTU1);
+		assertSame(ast1, getAST(cache, fTU1, false));
+		assertSame(ast2, getAST(cache, fTU2, false));
+		assertEquals(2, cache.getMisses());
+		assertEquals(3, cache.getHits());
+
+		// Without inactive ASTs only the AST of the active element is cached.
+		cache= new ASTCache(0);
+		cache.setActiveElement(fTU1);
+		assertNotNull(getAST(cache, fTU1, true));
+		cache.setActiveElement(fTU2);
+		assertNull(getAST(cache, fTU1, false));
+		cache.setActiveElement(fTU1);
+		assertNull(getAST(cache, fTU1, false));
+	}
+
+	private IASTTranslationUnit getAST(ASTCache cache, ITranslationUnit tUnit, boolean wait) {
+		final IASTTranslationUnit[] result= { null };
+		cache.runOnAST(tUnit, wait, null, new ASTRunnable() {
+			@Override
+			public IStatus runOnAST(ILanguage lang, IASTTranslationUnit ast) {
+				result[0]= ast;
+				return Status.OK_STATUS;
+			}
+		});
+		return result[0];
+	}
+
 	private void checkActiveElement() throws Exception {
 		ASTCache cache= new ASTCache();
 		assertFalse(cache.isActiveElement(fTU1));
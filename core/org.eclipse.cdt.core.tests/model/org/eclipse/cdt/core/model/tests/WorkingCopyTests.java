@@ -19,6 +19,7 @@ import junit.framework.TestCase;
 import junit.framework.TestSuite;
 
 import org.eclipse.cdt.core.dom.IPDOMManager;
+import org.eclipse.cdt.core.dom.ast.IASTTranslationUnit;
 import org.eclipse.cdt.core.model.CoreModel;
 import org.eclipse.cdt.core.model.IBuffer;
 import org.eclipse.cdt.core.model.ICProject;
@@ -48,6 +49,7 @@ public class WorkingCopyTests extends TestCase {
 	public static Test suite() {
 		TestSuite suite= new TestSuite(WorkingCopyTests.class.getName());
 		suite.addTest(new WorkingCopyTests("testWorkingCopy"));
+		suite.addTest(new WorkingCopyTests("testReconcileReusesAST"));
 		//suite.addTest(new WorkingCopyTests("testHashing"));
 		return suite;
 	}		
@@ -112,4 +114,31 @@ public class WorkingCopyTests extends TestCase {
 		
 		Thread.sleep(1000);	
 	}
+
+	public void testReconcileReusesAST() throws Exception {
+		ITranslationUnit tu = (ITranslationUnit)CoreModel.getDefault().create(headerFile);
+		IWorkingCopy wc = tu.getWorkingCopy();
+		try {
+			IASTTranslationUnit ast1= reconcile(wc);
+			assertNotNull(ast1);
+			// Unchanged content, the AST is reused.
+			assertSame(ast1, reconcile(wc));
+
+			wc.getBuffer().append("\n class Hello{ int x; };");
+			IASTTranslationUnit ast2= reconcile(wc);
+			assertNotNull(ast2);
+			assertNotSame(ast1, ast2);
+		} finally {
+			wc.destroy();
+		}
+	}
+
+	private IASTTranslationUnit reconcile(IWorkingCopy wc) throws Exception {
+		IASTTranslationUnit ast= wc.reconcile(true, true, monitor);
+		if (ast != null) {
+			// The index read lock is held for the receiver of the AST.
+			ast.getIndex().releaseReadLock();
+		}
+		return ast;
+	}
 }
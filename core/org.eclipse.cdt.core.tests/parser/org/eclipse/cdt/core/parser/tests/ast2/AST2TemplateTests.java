@@ -97,9 +97,12 @@ import org.eclipse.cdt.core.parser.util.ObjectMap;
 import org.eclipse.cdt.internal.core.dom.parser.Value;
 import org.eclipse.cdt.internal.core.dom.parser.cpp.CPPASTNameBase;
 import org.eclipse.cdt.internal.core.dom.parser.cpp.CPPBasicType;
+import org.eclipse.cdt.internal.core.dom.parser.cpp.CPPInstanceMap;
 import org.eclipse.cdt.internal.core.dom.parser.cpp.CPPReferenceType;
+import org.eclipse.cdt.internal.core.dom.parser.cpp.CPPTemplateNonTypeArgument;
 import org.eclipse.cdt.internal.core.dom.parser.cpp.ClassTypeHelper;
 import org.eclipse.cdt.internal.core.dom.parser.cpp.ICPPDeferredClassInstance;
+import org.eclipse.cdt.internal.core.dom.parser.cpp.ICPPInstanceCache;
 import org.eclipse.cdt.internal.core.dom.parser.cpp.ICPPInternalUnknownScope;
 import org.eclipse.cdt.internal.core.dom.parser.cpp.ICPPUnknownBinding;
 import org.eclipse.cdt.internal.core.dom.parser.cpp.semantics.SemanticUtil;
@@ -9010,4 +9013,32 @@ public class AST2TemplateTests extends AST2TestBase {
 	public void testDisambiguationInNoexceptSpecifier_467332() throws Exception {
 		parseAndCheckBindings();
 	}
+
+	//	template <typename T>
+	//	struct A {};
+	//
+	//	A<int> a1;
+	//	A<int> a2;
+	//	A<long> a3;
+	public void testInstanceCache() throws Exception {
+		BindingAssertionHelper bh= getAssertionHelper();
+		ICPPClassTemplate template= bh.assertNonProblem("A {", 1, ICPPClassTemplate.class);
+		ICPPTemplateInstance i1= bh.assertNonProblem("A<int> a1", 6, ICPPTemplateInstance.class);
+		ICPPTemplateInstance i2= bh.assertNonProblem("A<int> a2", 6, ICPPTemplateInstance.class);
+		ICPPTemplateInstance i3= bh.assertNonProblem("A<long> a3", 7, ICPPTemplateInstance.class);
+		assertSame(i1, i2);
+		assertNotSame(i1, i3);
+		assertEquals(2, ((ICPPInstanceCache) template).getAllInstances().length);
+	}
+
+	public void testInstanceMapKeys() throws Exception {
+		CPPInstanceMap map= new CPPInstanceMap();
+		ICPPTemplateArgument[] args= new ICPPTemplateArgument[1];
+		for (int i = 0; i < 100; i++) {
+			// The same array is reused with different content, the key must not be stale.
+			args[0]= new CPPTemplateNonTypeArgument(Value.create(i), CPPBasicType.INT);
+			map.put(args, null);
+			assertEquals(i + 1, map.size());
+		}
+	}
 }
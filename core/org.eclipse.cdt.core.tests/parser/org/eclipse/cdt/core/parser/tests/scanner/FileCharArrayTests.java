@@ -21,6 +21,7 @@ import junit.framework.TestSuite;
 
 import org.eclipse.cdt.core.testplugin.util.BaseTestCase;
 import org.eclipse.cdt.internal.core.parser.scanner.AbstractCharArray;
+import org.eclipse.cdt.internal.core.parser.scanner.CharArray;
 import org.eclipse.cdt.internal.core.parser.scanner.FileCharArray;
 import org.eclipse.cdt.internal.core.parser.scanner.LazyCharArray;
 
@@ -63,6 +64,44 @@ public class FileCharArrayTests extends BaseTestCase {
 		testFile(false, LazyCharArray.CHUNK_SIZE*3+1);
 	}
 
+	public void testLargeASCIIFile() throws IOException {
+		final int charSize= LazyCharArray.CHUNK_SIZE*16+1;
+		createFile(true, charSize);
+		FileCharArray charArray= (FileCharArray) createCharArray();
+		checkContent(charArray, 0, charSize);
+		assertEquals(charSize, charArray.getLength());
+		// The chunks have been read without the decoder.
+		assertEquals(0, charArray.testGetDecodedChunkCount());
+
+		char[] chars= new char[charSize];
+		charArray.arraycopy(0, chars, 0, charSize);
+		assertEquals(new CharArray(chars).getContentsHash(), charArray.getContentsHash());
+
+		// Chunks that are read again are decoded.
+		charArray.testClearData();
+		checkContent(charArray, 0, charSize);
+		assertTrue(charArray.testGetDecodedChunkCount() > 0);
+	}
+
+	public void testLargeFileWithNonASCII() throws IOException {
+		final int charSize= LazyCharArray.CHUNK_SIZE*16+1;
+		createFile(false, charSize);
+		FileCharArray charArray= (FileCharArray) createCharArray();
+		checkContent(charArray, LazyCharArray.CHUNK_SIZE, charSize);
+		assertEquals(charSize, charArray.getLength());
+		// Only the first chunk contains a character that has to be decoded.
+		assertEquals(1, charArray.testGetDecodedChunkCount());
+	}
+
+	private AbstractCharArray createCharArray() throws IOException {
+		final FileInputStream inputStream = new FileInputStream(fFile);
+		try {
+			return FileCharArray.create(fFile.getPath(), "utf-8", inputStream);
+		} finally {
+			inputStream.close();
+		}
+	}
+
 	private void testFile(boolean aligned, int charSize) throws IOException {
 		createFile(aligned, charSize);
 		
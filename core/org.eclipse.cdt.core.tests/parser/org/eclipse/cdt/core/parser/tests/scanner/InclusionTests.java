@@ -279,6 +279,26 @@ public class InclusionTests extends PreprocessorTestsBase {
     	validateEOF();
     }
     
+    // #include "guard.h"
+    // #include "guard.h"
+    public void testIncludeGuardOfModifiedHeader() throws Exception {
+    	IFile base = importFile("base.cpp", getAboveComment());
+    	importFile("guard.h", "#ifndef GUARD\n#define GUARD\n1\n#endif\n");
+
+    	FileContent reader= FileContent.create(base);
+    	initializeScanner(reader, ParserLanguage.C, ParserMode.COMPLETE_PARSE, new ScannerInfo());
+    	validateInteger("1");
+    	validateEOF();
+
+    	// The guard no longer spans the header, the include guard detected before must not be used.
+    	importFile("guard.h", "#ifndef GUARD\n#define GUARD\n#endif\n2\n");
+    	reader= FileContent.create(base);
+    	initializeScanner(reader, ParserLanguage.C, ParserMode.COMPLETE_PARSE, new ScannerInfo());
+    	validateInteger("2");
+    	validateInteger("2");
+    	validateEOF();
+    }
+
     // #include "test.h"
     public void testSuppressingUseOfCurrentFileDirectory() throws Exception {    
     	String content= getAboveComment();
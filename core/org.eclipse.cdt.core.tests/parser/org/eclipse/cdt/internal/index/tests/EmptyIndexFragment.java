@@ -204,6 +204,11 @@ public class EmptyIndexFragment implements IIndexFragment {
 		return value;
 	}
 
+	@Override
+	public Object putPinnedResult(Object key, Object value) {
+		return value;
+	}
+
 	@Override
 	public void clearResultCache() {
 	}
@@ -25,6 +25,7 @@ import java.util.regex.Pattern;
 import junit.framework.TestSuite;
 
 import org.eclipse.cdt.core.CCorePlugin;
+import org.eclipse.cdt.core.CCorePreferenceConstants;
 import org.eclipse.cdt.core.dom.ILinkage;
 import org.eclipse.cdt.core.dom.IName;
 import org.eclipse.cdt.core.dom.IPDOMManager;
@@ -107,6 +108,8 @@ import org.eclipse.core.runtime.NullProgressMonitor;
 import org.eclipse.core.runtime.Path;
 import org.eclipse.core.runtime.Status;
 import org.eclipse.core.runtime.jobs.Job;
+import org.eclipse.core.runtime.preferences.IEclipsePreferences;
+import org.eclipse.core.runtime.preferences.InstanceScope;
 
 public class IndexBugsTests extends BaseTestCase {
 	private ICProject fCProject;
@@ -2615,4 +2618,43 @@ public class IndexBugsTests extends BaseTestCase {
 		}
 	}
 
+	//	// common.h
+	//	#pragma once
+	//	struct Common { int f; };
+
+	//	// source.cpp
+	//	#include "common.h"
+	//	void func(Common* c) {}
+	public void testParallelParsing() throws Exception {
+		IEclipsePreferences prefs = InstanceScope.INSTANCE.getNode(CCorePlugin.PLUGIN_ID);
+		prefs.putInt(CCorePreferenceConstants.INDEXER_PARSER_THREADS, 3);
+		try {
+			String[] contents= getContentsForTest(2);
+			IProject project = fCProject.getProject();
+			IFile header= TestSourceReader.createFile(project, "common.h", contents[0]);
+			final int sourceCount= 7;
+			for (int i = 0; i < sourceCount; i++) {
+				TestSourceReader.createFile(project, "source" + i + ".cpp", contents[1].replace("func", "func" + i));
+			}
+			CCorePlugin.getIndexManager().reindex(fCProject);
+			waitForIndexer();
+			fIndex.acquireReadLock();
+			try {
+				IIndexFile[] files = fIndex.getFiles(ILinkage.CPP_LINKAGE_ID, IndexLocationFactory.getWorkspaceIFL(header));
+				assertEquals(1, files.length);
+				IIndexBinding[] types = fIndex.findBindings("Common".toCharArray(), IndexFilter.ALL_DECLARED, npm());
+				assertEquals(1, types.length);
+				assertEquals(1, fIndex.findDefinitions(types[0]).length);
+				for (int i = 0; i < sourceCount; i++) {
+					IIndexBinding[] funcs = fIndex.findBindings(("func" + i).toCharArray(), IndexFilter.ALL_DECLARED, npm());
+					assertEquals(1, funcs.length);
+				}
+				assertEquals(sourceCount, fIndex.findReferences(types[0]).length);
+			} finally {
+				fIndex.releaseReadLock();
+			}
+		} finally {
+			prefs.remove(CCorePreferenceConstants.INDEXER_PARSER_THREADS);
+		}
+	}
 }
@@ -60,6 +60,8 @@ import org.eclipse.cdt.core.index.IndexFilter;
 import org.eclipse.cdt.core.model.IBuffer;
 import org.eclipse.cdt.core.model.ITranslationUnit;
 import org.eclipse.cdt.core.model.IWorkingCopy;
+import org.eclipse.cdt.internal.core.dom.parser.cpp.CPPASTTranslationUnit;
+import org.eclipse.cdt.internal.core.dom.parser.cpp.CPPIndexLookupCache;
 import org.eclipse.cdt.internal.core.dom.parser.cpp.CPPTemplateTypeArgument;
 import org.eclipse.cdt.internal.core.dom.parser.cpp.ClassTypeHelper;
 import org.eclipse.cdt.internal.core.dom.parser.cpp.ICPPInstanceCache;
@@ -1367,4 +1369,28 @@ public class IndexCPPBindingResolutionBugs extends IndexBindingResolutionTestBas
 		ast = workingCopy.getAST(strategy.getIndex(), ITranslationUnit.AST_SKIP_INDEXED_HEADERS);
 		checkBindings(ast);
 	}
+
+	//	void waldo(int);
+	//	namespace ns {
+	//	  void waldo(int);
+	//	}
+
+	//	void test() {
+	//	  waldo(1);
+	//	  waldo(2);
+	//	  ns::waldo(3);
+	//	}
+	public void testIndexLookupCache() throws Exception {
+		ICPPFunction f1= getBindingFromASTName("waldo(1)", 5, ICPPFunction.class);
+		ICPPFunction f2= getBindingFromASTName("waldo(2)", 5, ICPPFunction.class);
+		ICPPFunction f3= getBindingFromASTName("waldo(3)", 5, ICPPFunction.class);
+		assertEquals("waldo", ASTTypeUtil.getQualifiedName(f1));
+		assertEquals("waldo", ASTTypeUtil.getQualifiedName(f2));
+		assertEquals("ns::waldo", ASTTypeUtil.getQualifiedName(f3));
+
+		IASTTranslationUnit ast= findName("waldo(2)", 5).getTranslationUnit();
+		CPPIndexLookupCache cache= ((CPPASTTranslationUnit) ast).getIndexLookupCache();
+		assertNotNull(cache);
+		assertTrue(cache.getHits() > 0);
+	}
 }
@@ -26,6 +26,7 @@ public class IndexCPPBindingResolutionBugsSingleProjectFirstAST extends IndexCPP
 	@Override public void test_176708_CCE() {}
 	@Override public void testIsSameAnonymousType_193962() {}
 	@Override public void testIsSameNestedAnonymousType_193962() {}
+	@Override public void testIndexLookupCache() {}
 	// For some unknown reason this test is flaky for this strategy.
 	@Override public void testTemplateArgumentResolution_450888() {}
 }
\ No newline at end of file
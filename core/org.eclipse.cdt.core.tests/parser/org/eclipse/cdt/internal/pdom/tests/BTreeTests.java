@@ -117,6 +117,55 @@ public class BTreeTests extends BaseTestCase {
 		}
 	}
 
+	/**
+	 * Builds B-trees of various degrees and sizes with bulk loading, and checks that they can
+	 * be modified afterwards.
+	 */
+	public void testBulkLoad() throws Exception {
+		Random random = new Random(4711);
+		int[] sizes = { 0, 1, 2, 3, 7, 15, 16, 17, 100, 1000, 20000 };
+		for (int degree = 2; degree <= 9; degree++) {
+			for (int size : sizes) {
+				init(degree);
+				try {
+					SortedSet expected = new TreeSet();
+					List history = new ArrayList();
+					long[] records = new long[size];
+					for (int i = 0; i < size; i++) {
+						Integer value = new Integer(random.nextInt(size * 2 + 1));
+						BTMockRecord btValue = new BTMockRecord(db, value.intValue());
+						records[i] = btValue.getRecord();
+						// The sort is stable, of equal records the first one ends up in the B-tree.
+						if (expected.add(value)) {
+							history.add(btValue);
+						}
+					}
+					btree.sort(records, size);
+					btree.bulkLoad(records, size);
+					String msg = "[degree " + degree + ", size " + size + "] ";
+					assertBTreeMatchesSortedSet(msg, btree, expected);
+					assertBTreeInvariantsHold(msg);
+
+					for (int i = 0; i < size / 2; i++) {
+						Integer value = new Integer(random.nextInt(size * 2 + 1));
+						if (expected.add(value)) {
+							BTMockRecord btValue = new BTMockRecord(db, value.intValue());
+							history.add(btValue);
+							btree.insert(btValue.getRecord());
+						}
+						BTMockRecord btValue = (BTMockRecord) history.remove(random.nextInt(history.size()));
+						expected.remove(new Integer(btValue.intValue()));
+						btree.delete(btValue.getRecord());
+					}
+					assertBTreeMatchesSortedSet(msg, btree, expected);
+					assertBTreeInvariantsHold(msg);
+				} finally {
+					finish();
+				}
+			}
+		}
+	}
+
 	/**
 	 * Insert/Delete a random number of records into/from the B-tree
 	 * @param seed the seed for obtaining the deterministic random testing
@@ -0,0 +1,77 @@
+/*******************************************************************************
+ * Copyright (c) 2016 agent and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     agent - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.cdt.internal.pdom.tests;
+
+import java.io.File;
+import java.util.Random;
+
+import org.eclipse.cdt.core.testplugin.util.BaseTestCase;
+import org.eclipse.cdt.internal.core.pdom.db.ChunkCache;
+import org.eclipse.cdt.internal.core.pdom.db.Database;
+
+import junit.framework.Test;
+
+/**
+ * Compares the throughput of flushing a database directly to the database file with flushing
+ * it through the write-ahead journal. Each round modifies random chunks of the database and
+ * flushes it, the results are printed to the console.
+ *
+ * n.b. this is intentionally not added to any test suite
+ */
+public class DatabaseFlushPerformanceTest extends BaseTestCase {
+	private static final int CHUNKS= 10000;
+	private static final int ROUNDS= 200;
+	private static final int CHUNKS_PER_ROUND= 50;
+
+	public static Test suite() {
+		return suite(DatabaseFlushPerformanceTest.class);
+	}
+
+	public void testFlushThroughput() throws Exception {
+		// Warm up.
+		runFlushes(false);
+		runFlushes(true);
+
+		runFlushes(false);
+		runFlushes(true);
+	}
+
+	private void runFlushes(boolean journaled) throws Exception {
+		File file= File.createTempFile("flushtest", "db");
+		Database db= new Database(file, new ChunkCache(), 0, false);
+		try {
+			db.setExclusiveLock();
+			db.setJournaled(journaled);
+			long[] records= new long[CHUNKS];
+			for (int i = 0; i < CHUNKS; i++) {
+				records[i]= db.malloc(Database.MAX_MALLOC_SIZE);
+			}
+			db.flush();
+
+			Random random= new Random(42);
+			final long bytesWritten= db.getBytesWritten();
+			final long start= System.nanoTime();
+			for (int round = 0; round < ROUNDS; round++) {
+				for (int i = 0; i < CHUNKS_PER_ROUND; i++) {
+					db.putInt(records[random.nextInt(CHUNKS)], round);
+				}
+				db.flush();
+			}
+			final long millis= Math.max(1, (System.nanoTime() - start) / 1000000);
+			System.out.println((journaled ? "Journaled" : "Direct") + " flush: " + ROUNDS + " flushes in "
+					+ millis + " ms, " + (ROUNDS * 1000L / millis) + " flushes/s, "
+					+ ((db.getBytesWritten() - bytesWritten) / 1024) + " KB written to the database file");
+		} finally {
+			db.close();
+			file.delete();
+		}
+	}
+}
@@ -13,6 +13,10 @@
 package org.eclipse.cdt.internal.pdom.tests;
 
 import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
 import java.util.Random;
 
 import junit.framework.Test;
@@ -142,6 +146,269 @@ public class DatabaseTest extends BaseTestCase {
 		assertEquals(mem2, mem1);
 	}
 
+	public void testStatistics() throws Exception {
+		final long mallocs= db.getMallocCount();
+		final long frees= db.getFreeCount();
+		final long writes= db.getChunkWrites();
+		long mem1 = db.malloc(42);
+		long mem2 = db.malloc(42);
+		db.free(mem1);
+		assertEquals(mallocs + 2, db.getMallocCount());
+		assertEquals(frees + 1, db.getFreeCount());
+
+		db.putInt(mem2, 1);
+		db.flush();
+		assertTrue(db.getChunkWrites() > writes);
+		assertTrue(db.getBytesWritten() >= Database.CHUNK_SIZE);
+
+		db.resetCacheCounters();
+		db.getInt(mem2);
+		assertEquals(1, db.getCacheHits() + db.getCacheMisses());
+	}
+
+	public void testMemoryMappedAccess() throws Exception {
+		final int count= 1000;
+		long[] records= new long[count];
+		for (int i = 0; i < count; i++) {
+			records[i]= db.malloc(Database.MAX_MALLOC_SIZE);
+			db.putInt(records[i], i);
+			db.putLong(records[i] + 4, -i);
+			db.putChar(records[i] + 12, (char) i);
+		}
+		db.flush();
+		db.close();
+
+		// Use a small cache, such that chunks are read from the file repeatedly.
+		Database mapped= new Database(db.getLocation(), new ChunkCache(Database.CHUNK_SIZE * 16), 0, false);
+		try {
+			mapped.setMemoryMapped(true);
+			mapped.setLocked(true);
+			for (int i = 0; i < count; i++) {
+				assertEquals(i, mapped.getInt(records[i]));
+				assertEquals(-i, mapped.getLong(records[i] + 4));
+				assertEquals((char) i, mapped.getChar(records[i] + 12));
+			}
+
+			// Modifications of mapped chunks are written back to the file.
+			mapped.setExclusiveLock();
+			for (int i = 0; i < count; i += 2) {
+				mapped.putInt(records[i], i * 3);
+			}
+			long mem= mapped.malloc(42);
+			mapped.putInt(mem, 42);
+			mapped.flush();
+			mapped.giveUpExclusiveLock(true);
+
+			for (int i = 0; i < count; i++) {
+				assertEquals(i % 2 == 0 ? i * 3 : i, mapped.getInt(records[i]));
+				assertEquals(-i, mapped.getLong(records[i] + 4));
+			}
+			assertEquals(42, mapped.getInt(mem));
+		} finally {
+			mapped.setExclusiveLock();
+			mapped.close();
+		}
+		db= new Database(db.getLocation(), new ChunkCache(), 0, false);
+		db.setExclusiveLock();
+	}
+
+	public void testConcurrentReaders() throws Exception {
+		final int count= 500;
+		final long[] records= new long[count];
+		for (int i = 0; i < count; i++) {
+			records[i]= db.malloc(Database.MAX_MALLOC_SIZE);
+			db.putInt(records[i], i);
+		}
+		db.flush();
+		db.close();
+
+		// A cache much smaller than the database, such that readers constantly evict chunks.
+		final Database shared= new Database(db.getLocation(), new ChunkCache(Database.CHUNK_SIZE * 8), 0, false);
+		shared.setLocked(true);
+		final Throwable[] failure= { null };
+		Thread[] readers= new Thread[4];
+		for (int t = 0; t < readers.length; t++) {
+			final int seed= t;
+			readers[t]= new Thread() {
+				@Override
+				public void run() {
+					Random random= new Random(seed);
+					try {
+						for (int j = 0; j < 20000; j++) {
+							int i= random.nextInt(count);
+							assertEquals(i, shared.getInt(records[i]));
+						}
+					} catch (Throwable e) {
+						synchronized (failure) {
+							failure[0]= e;
+						}
+					}
+				}
+			};
+			readers[t].start();
+		}
+		for (Thread reader : readers) {
+			reader.join();
+		}
+		shared.setExclusiveLock();
+		shared.close();
+		if (failure[0] != null) {
+			throw new AssertionError(failure[0]);
+		}
+		db= new Database(db.getLocation(), new ChunkCache(), 0, false);
+		db.setExclusiveLock();
+	}
+
+	public void testCompact() throws Exception {
+		// Two records fill a chunk.
+		final int halfChunk= Database.CHUNK_SIZE / 2 - Database.BLOCK_HEADER_SIZE;
+		final int chunks= 10;
+		long[] records= new long[2 * chunks];
+		for (int i = 0; i < records.length; i++) {
+			records[i]= db.malloc(halfChunk);
+			db.putInt(records[i], i);
+		}
+		// Free the first chunk, and the last three chunks.
+		db.free(records[0]);
+		db.free(records[1]);
+		for (int i = records.length - 6; i < records.length; i++) {
+			db.free(records[i]);
+		}
+		db.flush();
+		final long size= db.getSizeBytes();
+		assertEquals(8, db.getFreeBlockCount());
+		assertEquals(4 * Database.CHUNK_SIZE, db.getFreeBytes());
+
+		assertEquals(3 * Database.CHUNK_SIZE, db.compact());
+		assertEquals(size - 3 * Database.CHUNK_SIZE, db.getSizeBytes());
+		assertEquals(1, db.getFreeBlockCount());
+		assertEquals(Database.CHUNK_SIZE, db.getFreeBytes());
+		for (int i = 2; i < records.length - 6; i++) {
+			assertEquals(i, db.getInt(records[i]));
+		}
+		// The halves of the first chunk have been merged.
+		assertEquals(records[0], db.malloc(Database.MAX_MALLOC_SIZE));
+		assertEquals(0, db.compact());
+	}
+
+	public void testJournalRecovery() throws Exception {
+		// Use a small cache, such that modified chunks are written to the journal before they
+		// are committed.
+		db.close();
+		db= new Database(db.getLocation(), new ChunkCache(Database.CHUNK_SIZE * 16), 0, false);
+		db.setExclusiveLock();
+		db.setJournaled(true);
+		assertTrue(db.isJournaled());
+
+		final int count= 200;
+		long[] records= new long[count];
+		for (int i = 0; i < count; i++) {
+			records[i]= db.malloc(Database.MAX_MALLOC_SIZE);
+			db.putInt(records[i], i);
+		}
+		db.flush();
+		for (int i = 0; i < count; i++) {
+			db.putInt(records[i], -i);
+		}
+		db.giveUpExclusiveLock(false);
+		for (int i = 0; i < count; i++) {
+			assertEquals(-i, db.getInt(records[i]));
+		}
+
+		// Simulate a crash by copying the files while the database is open.
+		File copy= copyWithJournal(db.getLocation());
+		Database recovered= new Database(copy, new ChunkCache(), 0, false);
+		try {
+			recovered.setLocked(true);
+			for (int i = 0; i < count; i++) {
+				assertEquals(i, recovered.getInt(records[i]));
+			}
+		} finally {
+			recovered.setExclusiveLock();
+			recovered.close();
+		}
+		assertFalse(getJournal(copy).exists());
+		copy.delete();
+
+		db.setExclusiveLock();
+		db.close();
+		assertFalse(getJournal(db.getLocation()).exists());
+		db= new Database(db.getLocation(), new ChunkCache(), 0, false);
+		db.setExclusiveLock();
+		for (int i = 0; i < count; i++) {
+			assertEquals(-i, db.getInt(records[i]));
+		}
+	}
+
+	public void testJournalWithIncompleteCommit() throws Exception {
+		db.setJournaled(true);
+		long mem= db.malloc(42);
+		db.putInt(mem, 1);
+		db.flush();
+		db.putInt(mem, 2);
+		db.flush();
+
+		// Cut the last commit, the previous one has to be recovered.
+		File copy= copyWithJournal(db.getLocation());
+		File journal= getJournal(copy);
+		RandomAccessFile file= new RandomAccessFile(journal, "rw");
+		try {
+			file.setLength(file.length() - 1);
+		} finally {
+			file.close();
+		}
+		Database recovered= new Database(copy, new ChunkCache(), 0, false);
+		try {
+			recovered.setLocked(true);
+			assertEquals(1, recovered.getInt(mem));
+		} finally {
+			recovered.setExclusiveLock();
+			recovered.close();
+		}
+		copy.delete();
+	}
+
+	public void testReadOnlyWithJournal() throws Exception {
+		db.setJournaled(true);
+		db.flush();
+		final long fileSize= db.getLocation().length();
+		final int count= 40;
+		long[] records= new long[count];
+		for (int i = 0; i < count; i++) {
+			records[i]= db.malloc(Database.MAX_MALLOC_SIZE);
+			db.putInt(records[i], i);
+		}
+		db.flush();
+		assertTrue(db.getSizeBytes() > fileSize);
+
+		// The chunks appended since the last checkpoint are found in the journal only.
+		File copy= copyWithJournal(db.getLocation());
+		Database readOnly= new Database(copy, new ChunkCache(), 0, true);
+		try {
+			readOnly.setLocked(true);
+			assertTrue(readOnly.getSizeBytes() > fileSize);
+			for (int i = 0; i < count; i++) {
+				assertEquals(i, readOnly.getInt(records[i]));
+			}
+		} finally {
+			readOnly.setExclusiveLock();
+			readOnly.close();
+		}
+		getJournal(copy).delete();
+		copy.delete();
+	}
+
+	private File getJournal(File location) {
+		return new File(location.getPath() + ".journal");
+	}
+
+	private File copyWithJournal(File location) throws IOException {
+		File copy= new File(location.getPath() + ".copy");
+		Files.copy(location.toPath(), copy.toPath(), StandardCopyOption.REPLACE_EXISTING);
+		Files.copy(getJournal(location).toPath(), getJournal(copy).toPath(), StandardCopyOption.REPLACE_EXISTING);
+		return copy;
+	}
+
 	private static class FindVisitor implements IBTreeVisitor {
 		private Database db;
 		private String key;
@@ -0,0 +1,126 @@
+/*******************************************************************************
+ * Copyright (c) 2016 agent and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     agent - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.cdt.internal.pdom.tests;
+
+import java.io.File;
+
+import org.eclipse.cdt.core.index.IIndexFileLocation;
+import org.eclipse.cdt.core.index.IIndexLocationConverter;
+import org.eclipse.cdt.core.model.LanguageManager;
+import org.eclipse.cdt.core.testplugin.util.BaseTestCase;
+import org.eclipse.cdt.internal.core.pdom.PDOM;
+import org.eclipse.cdt.internal.core.pdom.PDOMLockStatistics;
+import org.eclipse.cdt.internal.core.pdom.WritablePDOM;
+import org.eclipse.cdt.internal.core.pdom.db.ChunkCache;
+import org.eclipse.cdt.internal.core.pdom.db.Database;
+
+import junit.framework.Test;
+
+/**
+ * Tests for the read and write locks of {@link PDOM}.
+ */
+public class PDOMLockTests extends BaseTestCase {
+	private File pdomFile;
+	private WritablePDOM pdom;
+
+	public static Test suite() {
+		return suite(PDOMLockTests.class);
+	}
+
+	private static class MockIndexLocationConverter implements IIndexLocationConverter {
+		@Override
+		public IIndexFileLocation fromInternalFormat(String raw) {
+			return null;
+		}
+
+		@Override
+		public String toInternalFormat(IIndexFileLocation location) {
+			return null;
+		}
+	}
+
+	@Override
+	protected void setUp() throws Exception {
+		super.setUp();
+		pdomFile= File.createTempFile(getClass().getSimpleName(), null);
+		pdomFile.delete();
+		pdom= new WritablePDOM(pdomFile, new MockIndexLocationConverter(),
+				LanguageManager.getInstance().getPDOMLinkageFactoryMappings());
+	}
+
+	@Override
+	protected void tearDown() throws Exception {
+		pdom.acquireWriteLock(null);
+		try {
+			pdom.close();
+		} finally {
+			pdom.releaseWriteLock(0, false);
+		}
+		pdomFile.delete();
+		super.tearDown();
+	}
+
+	public void testLockStatistics() throws Exception {
+		PDOMLockStatistics statistics= pdom.getLockStatistics();
+		statistics.reset();
+
+		pdom.acquireReadLock();
+		pdom.acquireReadLock();
+		pdom.releaseReadLock();
+		pdom.releaseReadLock();
+		pdom.acquireWriteLock(null);
+		pdom.releaseWriteLock();
+
+		assertEquals(2, statistics.getReadLockCount());
+		assertEquals(1, statistics.getWriteLockCount());
+		assertEquals(2, sum(statistics.getReadLockWaitHistogram()));
+		assertEquals(1, sum(statistics.getWriteLockWaitHistogram()));
+		assertEquals(1, sum(statistics.getWriteLockHoldHistogram()));
+
+		statistics.reset();
+		assertEquals(0, statistics.getReadLockCount());
+		assertEquals(0, sum(statistics.getWriteLockHoldHistogram()));
+	}
+
+	public void testReleaseWriteLockWithFlush() throws Exception {
+		pdom.acquireWriteLock(null);
+		final Database db= pdom.getDB();
+		final long record= db.malloc(Database.INT_SIZE);
+		db.putInt(record, 4711);
+		pdom.releaseWriteLock(0, true);
+
+		// The flush must not leave a lock behind.
+		pdom.acquireWriteLock(null);
+		assertEquals(4711, db.getInt(record));
+		pdom.releaseWriteLock(0, false);
+
+		pdom.acquireReadLock();
+		try {
+			assertEquals(4711, db.getInt(record));
+		} finally {
+			pdom.releaseReadLock();
+		}
+
+		// The data has been written to the file.
+		Database copy= new Database(pdomFile, new ChunkCache(), 0, true);
+		copy.setLocked(true);
+		assertEquals(pdom.getDB().getVersion(), copy.getVersion());
+		assertEquals(4711, copy.getInt(record));
+	}
+
+	private static long sum(long[] histogram) {
+		long result= 0;
+		for (long count : histogram) {
+			result+= count;
+		}
+		return result;
+	}
+}
@@ -19,6 +19,7 @@ import java.net.URI;
 import junit.framework.Test;
 
 import org.eclipse.cdt.core.CCorePlugin;
+import org.eclipse.cdt.core.CCorePreferenceConstants;
 import org.eclipse.cdt.core.dom.IPDOMManager;
 import org.eclipse.cdt.core.dom.ast.IBinding;
 import org.eclipse.cdt.core.dom.ast.cpp.ICPPClassType;
@@ -37,12 +38,15 @@ import org.eclipse.cdt.core.settings.model.ICProjectDescription;
 import org.eclipse.cdt.core.testplugin.CProjectHelper;
 import org.eclipse.cdt.core.testplugin.util.TestSourceReader;
 import org.eclipse.cdt.internal.core.CCoreInternals;
+import org.eclipse.cdt.internal.core.index.IIndexFragment;
 import org.eclipse.cdt.internal.core.index.provider.IndexProviderManager;
 import org.eclipse.cdt.internal.core.index.provider.ReadOnlyPDOMProviderBridge;
 import org.eclipse.cdt.internal.core.pdom.WritablePDOM;
 import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.IPath;
 import org.eclipse.core.runtime.Path;
+import org.eclipse.core.runtime.preferences.IEclipsePreferences;
+import org.eclipse.core.runtime.preferences.InstanceScope;
 
 /**
  * Tests addition of external pdom's into the logical index
@@ -244,6 +248,58 @@ public class PDOMProviderTests extends PDOMTestBase {
 		}
 	}
 	
+	public void testSharedFragments() throws Exception {
+		final File tempPDOM= createTempFile("temp", ".pdom");
+
+		{
+			ICProject cproject= createCCProject("foo" + System.currentTimeMillis(), null, IPDOMManager.ID_FAST_INDEXER);
+			TestSourceReader.createFile(cproject.getProject(), new Path("/this.h"), "class A {};\n\n");
+			waitForIndexer(cproject);
+			ResourceContainerRelativeLocationConverter cvr= new ResourceContainerRelativeLocationConverter(cproject.getProject());
+			CCoreInternals.getPDOMManager().exportProjectPDOM(cproject, tempPDOM, cvr, null);
+			CProjectHelper.delete(cproject);
+		}
+
+		IEclipsePreferences prefs = InstanceScope.INSTANCE.getNode(CCorePlugin.PLUGIN_ID);
+		prefs.put(CCorePreferenceConstants.INDEX_SHARED_FRAGMENTS,
+				tempPDOM.getAbsolutePath() + "=" + new File("c:/ExternalSDK/").getAbsolutePath());
+		try {
+			ICProject cproject2= createCCProject("bar" + System.currentTimeMillis(), null, IPDOMManager.ID_FAST_INDEXER);
+			TestSourceReader.createFile(cproject2.getProject(), new Path("/source.cpp"), "namespace X { class A {}; }\n\n");
+			waitForIndexer(cproject2);
+			ICProject cproject3= createCCProject("baz" + System.currentTimeMillis(), null, IPDOMManager.ID_FAST_INDEXER);
+			waitForIndexer(cproject3);
+
+			IIndex index= CCorePlugin.getIndexManager().getIndex(cproject2, A_FRAGMENT_OPTIONS);
+			index.acquireReadLock();
+			try {
+				IBinding[] bindings= index.findBindings("A".toCharArray(), IndexFilter.ALL, npm());
+				assertEquals(1, bindings.length);
+				bindings= index.findBindingsForPrefix("A".toCharArray(), false, new IndexFilter() {
+					@Override
+					public boolean acceptBinding(IBinding binding) {
+						return binding instanceof ICPPClassType;
+					}
+				}, null);
+				assertEquals(2, bindings.length);
+			} finally {
+				index.releaseReadLock();
+			}
+
+			// The fragment is shared by the projects.
+			IndexProviderManager ipm= CCoreInternals.getPDOMManager().getIndexProviderManager();
+			ICProjectDescription pd2= CCorePlugin.getDefault().getProjectDescription(cproject2.getProject(), false);
+			ICProjectDescription pd3= CCorePlugin.getDefault().getProjectDescription(cproject3.getProject(), false);
+			IIndexFragment[] fragments2= ipm.getProvidedIndexFragments(pd2.getActiveConfiguration(), -1);
+			IIndexFragment[] fragments3= ipm.getProvidedIndexFragments(pd3.getActiveConfiguration(), -1);
+			assertEquals(1, fragments2.length);
+			assertEquals(1, fragments3.length);
+			assertSame(fragments2[0], fragments3[0]);
+		} finally {
+			prefs.remove(CCorePreferenceConstants.INDEX_SHARED_FRAGMENTS);
+		}
+	}
+
 	public void testVersionMismatchOfExternalPDOM_178998() throws Exception {
 		final File tempPDOM= createTempFile("temp", ".pdom");
 
@@ -0,0 +1,81 @@
+/*******************************************************************************
+ * Copyright (c) 2016 agent and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     agent - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.cdt.internal.pdom.tests;
+
+import org.eclipse.cdt.core.testplugin.util.BaseTestCase;
+import org.eclipse.cdt.internal.core.pdom.PDOMResultCache;
+
+import junit.framework.Test;
+
+/**
+ * Tests for the cache of results computed from a PDOM.
+ */
+public class PDOMResultCacheTests extends BaseTestCase {
+
+	public static Test suite() {
+		return suite(PDOMResultCacheTests.class);
+	}
+
+	public void testPutAndGet() throws Exception {
+		PDOMResultCache cache= new PDOMResultCache(1000);
+		assertNull(cache.get("a"));
+		assertEquals("1", cache.put("a", "1", true));
+		assertEquals("1", cache.get("a"));
+		// Without replace the existing result is kept.
+		assertEquals("1", cache.put("a", "2", false));
+		assertEquals("1", cache.get("a"));
+		assertEquals("3", cache.put("a", "3", true));
+		assertEquals("3", cache.get("a"));
+		assertEquals(3, cache.getHits());
+		assertEquals(1, cache.getMisses());
+
+		cache.remove("a");
+		assertNull(cache.get("a"));
+		cache.put("b", "1", true);
+		cache.clear();
+		assertEquals(0, cache.size());
+		assertNull(cache.get("b"));
+
+		cache.resetCounters();
+		assertEquals(0, cache.getHits());
+		assertEquals(0, cache.getMisses());
+	}
+
+	public void testEviction() throws Exception {
+		final int capacity= 1600;
+		PDOMResultCache cache= new PDOMResultCache(capacity);
+		for (int i = 0; i < 10 * capacity; i++) {
+			cache.put(new Long(i), "value", true);
+		}
+		assertTrue(cache.size() <= capacity);
+		assertEquals(10 * capacity - cache.size(), cache.getEvictions());
+		// The most recently used entries are retained.
+		assertNotNull(cache.get(new Long(10 * capacity - 1)));
+		assertNull(cache.get(new Long(0)));
+	}
+
+	public void testPinnedEntries() throws Exception {
+		final int capacity= 1600;
+		PDOMResultCache cache= new PDOMResultCache(capacity);
+		Object pinned= new Object();
+		assertSame(pinned, cache.putPinned("pinned", pinned));
+		// An existing entry is kept.
+		assertSame(pinned, cache.putPinned("pinned", new Object()));
+		for (int i = 0; i < 10 * capacity; i++) {
+			cache.put(new Long(i), "value", true);
+		}
+		// Pinned entries are not evicted.
+		assertSame(pinned, cache.get("pinned"));
+
+		cache.clear();
+		assertNull(cache.get("pinned"));
+	}
+}
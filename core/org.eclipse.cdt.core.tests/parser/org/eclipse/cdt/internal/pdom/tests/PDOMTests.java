@@ -41,6 +41,8 @@ public class PDOMTests extends TestSuite {
 		suite.addTest(BTreeTests.suite());
 		suite.addTest(PDOMStringSetTests.suite());
 		suite.addTest(PDOMTagIndexTests.suite());
+		suite.addTest(PDOMLockTests.suite());
+		suite.addTest(PDOMResultCacheTests.suite());
 		suite.addTest(FilesOnReindexTests.suite());
 		suite.addTest(GeneratePDOMApplicationTest.suite());
 
@@ -11,13 +11,19 @@
  ******************************************************************************/
 package org.eclipse.cdt.internal.core.model;
 
+import java.lang.ref.SoftReference;
+import java.util.concurrent.atomic.LongAdder;
+
 import org.eclipse.cdt.core.CCorePlugin;
+import org.eclipse.cdt.core.CCorePreferenceConstants;
 import org.eclipse.cdt.core.dom.ast.IASTTranslationUnit;
 import org.eclipse.cdt.core.index.IIndex;
 import org.eclipse.cdt.core.index.IIndexManager;
 import org.eclipse.cdt.core.model.ILanguage;
 import org.eclipse.cdt.core.model.ITranslationUnit;
 import org.eclipse.cdt.internal.core.dom.parser.ASTTranslationUnit;
+import org.eclipse.cdt.internal.core.parser.scanner.CharArray;
+import org.eclipse.cdt.internal.core.parser.util.LRUCache;
 import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.core.runtime.ISafeRunnable;
@@ -28,7 +34,9 @@ import org.eclipse.core.runtime.SafeRunner;
 import org.eclipse.core.runtime.Status;
 
 /**
- * Provides a shared AST of a single translation unit at a time.
+ * Provides a shared AST of a single translation unit at a time. In addition the ASTs of a few
+ * recently active translation units are kept, such that switching back to one of them does not
+ * require the AST to be recomputed.
  *
  * @since 4.0
  */
@@ -61,6 +69,22 @@ public class ASTCache {
 		IStatus runOnAST(ILanguage lang, IASTTranslationUnit ast) throws CoreException;
 	}
 
+	/**
+	 * AST of a translation unit that is no longer active, together with the state it was
+	 * computed for.
+	 */
+	private static class InactiveAST {
+		final SoftReference<IASTTranslationUnit> fAST;
+		final long fLastWriteOnIndex;
+		final long fContentsHash;
+
+		InactiveAST(IASTTranslationUnit ast, long lastWriteOnIndex, long contentsHash) {
+			fAST= new SoftReference<IASTTranslationUnit>(ast);
+			fLastWriteOnIndex= lastWriteOnIndex;
+			fContentsHash= contentsHash;
+		}
+	}
+
 	private final int fParseMode;
 	private final Object fCacheMutex= new Object();
 
@@ -74,14 +98,36 @@ public class ASTCache {
 	 * write access afterwards.
 	 */
 	private long fLastWriteOnIndex;
+	/** The hash of the contents of the translation unit at the time the AST got cached */
+	private long fContentsHash;
 	/** Indicates whether the AST is currently being computed */
 	private boolean fIsReconciling;
+	/** The ASTs of recently active translation units */
+	private final LRUCache<ITranslationUnit, InactiveAST> fInactiveASTs;
+
+	private final LongAdder fHits= new LongAdder();
+	private final LongAdder fMisses= new LongAdder();
+	private final LongAdder fBuildTime= new LongAdder();
 
 	/**
 	 * Create a new AST cache.
 	 */
 	public ASTCache() {
+		this(Platform.getPreferencesService().getInt(CCorePlugin.PLUGIN_ID,
+				CCorePreferenceConstants.AST_CACHE_SIZE, CCorePreferenceConstants.DEFAULT_AST_CACHE_SIZE,
+				null));
+	}
+
+	/**
+	 * Create a new AST cache.
+	 *
+	 * @param inactiveASTs  the number of ASTs of recently active translation units to keep
+	 * @since 5.12
+	 */
+	public ASTCache(int inactiveASTs) {
 		fParseMode= PARSE_MODE;
+		// The LRU cache holds one entry less than its limit.
+		fInactiveASTs= new LRUCache<ITranslationUnit, InactiveAST>(Math.max(0, inactiveASTs) + 1);
 	}
 
 	/**
@@ -120,6 +166,7 @@ public class ASTCache {
 							// cached AST is valid
 							if (DEBUG)
 								System.out.println(DEBUG_PREFIX + getThreadName() + "returning cached AST:" + toString(fAST) + " for: " + tUnit.getElementName()); //$NON-NLS-1$ //$NON-NLS-2$
+							fHits.increment();
 							return fAST;
 						}
 					}
@@ -149,8 +196,16 @@ public class ASTCache {
 					} catch (InterruptedException e) {
 						return null; // thread has been interrupted don't compute AST
 					}
-				} else if (!wait) {
-					return null;
+				} else if (!isActiveElement) {
+					IASTTranslationUnit ast= getInactiveAST(tUnit, index.getLastWriteAccess());
+					if (ast != null) {
+						if (DEBUG)
+							System.out.println(DEBUG_PREFIX + getThreadName() + "returning AST of inactive element:" + toString(ast) + " for: " + tUnit.getElementName()); //$NON-NLS-1$ //$NON-NLS-2$
+						fHits.increment();
+						return ast;
+					}
+					if (!wait)
+						return null;
 				}
 			}
 
@@ -162,7 +217,10 @@ public class ASTCache {
 
 			IASTTranslationUnit ast= null;
 			try {
+				fMisses.increment();
+				final long start= System.nanoTime();
 				ast= createAST(tUnit, index, progressMonitor);
+				fBuildTime.add(System.nanoTime() - start);
 				if (progressMonitor != null && progressMonitor.isCanceled())
 					ast= null;
 				else if (DEBUG && ast != null)
@@ -294,6 +352,7 @@ public class ASTCache {
 
 		fAST= ast;
 		fLastWriteOnIndex= fAST == null ? 0 : fAST.getIndex().getLastWriteAccess();
+		fContentsHash= fAST == null ? 0 : getContentsHash(fAST, tUnit);
 
 		// Signal AST change
 		fCacheMutex.notifyAll();
@@ -362,14 +421,100 @@ public class ASTCache {
 			return;
 		}
 		synchronized (fCacheMutex) {
+			final InactiveAST inactive= tUnit == null ? null : fInactiveASTs.remove(tUnit);
+			if (fActiveTU != null && fAST != null) {
+				if (DEBUG)
+					System.out.println(DEBUG_PREFIX + getThreadName() + "keeping AST: " + toString(fAST) + " for: " + toString(fActiveTU)); //$NON-NLS-1$ //$NON-NLS-2$
+				fInactiveASTs.put(fActiveTU, new InactiveAST(fAST, fLastWriteOnIndex, fContentsHash));
+			}
 			fIsReconciling= false;
 			fActiveTU= tUnit;
 			cache(null, tUnit);
+
+			if (inactive != null) {
+				// The index is checked when the AST is requested.
+				IASTTranslationUnit ast= getInactiveAST(tUnit, inactive, 0);
+				if (ast != null) {
+					if (DEBUG)
+						System.out.println(DEBUG_PREFIX + getThreadName() + "reusing AST: " + toString(ast) + " for: " + toString(tUnit)); //$NON-NLS-1$ //$NON-NLS-2$
+					fAST= ast;
+					fLastWriteOnIndex= inactive.fLastWriteOnIndex;
+					fContentsHash= inactive.fContentsHash;
+				}
+			}
 		}
 		if (DEBUG)
 			System.out.println(DEBUG_PREFIX + getThreadName() + "active element is: " + toString(tUnit)); //$NON-NLS-1$
 	}
 
+	/**
+	 * Returns the kept AST of a translation unit that is not active, or <code>null</code> if there
+	 * is no such AST or if the AST is outdated.
+	 */
+	private IASTTranslationUnit getInactiveAST(ITranslationUnit tUnit, long lastWriteOnIndex) {
+		assert Thread.holdsLock(fCacheMutex);
+		InactiveAST inactive= fInactiveASTs.get(tUnit);
+		if (inactive == null)
+			return null;
+		IASTTranslationUnit ast= getInactiveAST(tUnit, inactive, lastWriteOnIndex);
+		if (ast == null)
+			fInactiveASTs.remove(tUnit);
+		return ast;
+	}
+
+	private static IASTTranslationUnit getInactiveAST(ITranslationUnit tUnit, InactiveAST inactive,
+			long lastWriteOnIndex) {
+		IASTTranslationUnit ast= inactive.fAST.get();
+		if (ast == null || inactive.fLastWriteOnIndex < lastWriteOnIndex
+				|| inactive.fContentsHash != getContentsHash(tUnit)) {
+			return null;
+		}
+		return ast;
+	}
+
+	/**
+	 * Returns the hash of the content the AST was parsed from. The content of the translation
+	 * unit may have changed while the AST was created.
+	 */
+	private static long getContentsHash(IASTTranslationUnit ast, ITranslationUnit tUnit) {
+		if (ast instanceof ASTTranslationUnit) {
+			final long hash= ((ASTTranslationUnit) ast).getContentsHash();
+			if (hash != 0)
+				return hash;
+		}
+		return getContentsHash(tUnit);
+	}
+
+	private static long getContentsHash(ITranslationUnit tUnit) {
+		char[] contents= tUnit.getContents();
+		return contents == null ? 0 : new CharArray(contents).getContentsHash();
+	}
+
+	/**
+	 * Returns the number of requests that have been answered with a cached AST.
+	 * @since 5.12
+	 */
+	public long getHits() {
+		return fHits.sum();
+	}
+
+	/**
+	 * Returns the number of requests for which an AST had to be computed.
+	 * @since 5.12
+	 */
+	public long getMisses() {
+		return fMisses.sum();
+	}
+
+	/**
+	 * Returns the total time in milliseconds spent on computing ASTs for requests that could
+	 * not be answered with a cached AST.
+	 * @since 5.12
+	 */
+	public long getBuildTime() {
+		return fBuildTime.sum() / 1000000;
+	}
+
 	/**
 	 * Check whether the given translation unit is the active element of this cache.
 	 *
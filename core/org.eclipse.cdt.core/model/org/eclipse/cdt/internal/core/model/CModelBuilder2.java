@@ -84,6 +84,7 @@ import org.eclipse.cdt.core.parser.Keywords;
 import org.eclipse.cdt.core.parser.ParseError;
 import org.eclipse.cdt.core.parser.ast.ASTAccessVisibility;
 import org.eclipse.cdt.internal.core.dom.parser.ASTQueries;
+import org.eclipse.cdt.internal.core.dom.parser.ASTTranslationUnit;
 import org.eclipse.cdt.internal.core.dom.parser.cpp.semantics.CPPVisitor;
 import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.core.runtime.OperationCanceledException;
@@ -144,7 +145,23 @@ public class CModelBuilder2 implements IContributedModelBuilder {
 			parseFlags |= ITranslationUnit.AST_PARSE_INACTIVE_CODE;
 			final IASTTranslationUnit ast;
 			try {
-				ast= fTranslationUnit.getAST(index, parseFlags, fProgressMonitor);
+				if (elementInfo instanceof ASTHolderTUInfo) {
+					ast= fTranslationUnit.getReconcilerAST(index, parseFlags, fProgressMonitor);
+					if (ast != null && index != null && ast.getIndex() != index) {
+						// The AST of the previous reconcile is reused, the read lock needs
+						// to be held on its index.
+						final IIndex astIndex= ast.getIndex();
+						try {
+							astIndex.acquireReadLock();
+						} catch (InterruptedException e) {
+							throw new OperationCanceledException();
+						}
+						index.releaseReadLock();
+						index= astIndex;
+					}
+				} else {
+					ast= fTranslationUnit.getAST(index, parseFlags, fProgressMonitor);
+				}
 				if (DEBUG) {
 					Util.debugLog("CModelBuilder2: parsing " //$NON-NLS-1$
 							+ fTranslationUnit.getElementName()
@@ -162,7 +179,22 @@ public class CModelBuilder2 implements IContributedModelBuilder {
 
 			checkCanceled();
 			startTime= System.currentTimeMillis();
-			buildModel(ast);
+			// The AST of a previous reconcile may be in use by other threads.
+			final boolean exclusive= elementInfo instanceof ASTHolderTUInfo && ast instanceof ASTTranslationUnit;
+			if (exclusive) {
+				try {
+					((ASTTranslationUnit) ast).beginExclusiveAccess();
+				} catch (InterruptedException e) {
+					throw new OperationCanceledException();
+				}
+			}
+			try {
+				buildModel(ast);
+			} finally {
+				if (exclusive) {
+					((ASTTranslationUnit) ast).endExclusiveAccess();
+				}
+			}
 			elementInfo.setIsStructureKnown(true);
 			if (DEBUG) {
 				Util.debugLog("CModelBuilder2: building " //$NON-NLS-1$
@@ -16,9 +16,11 @@
  *******************************************************************************/
 package org.eclipse.cdt.internal.core.model;
 
+import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.lang.ref.SoftReference;
 import java.net.URI;
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -30,6 +32,7 @@ import java.util.Map;
 import org.eclipse.cdt.core.CCorePlugin;
 import org.eclipse.cdt.core.dom.ILinkage;
 import org.eclipse.cdt.core.dom.ast.IASTCompletionNode;
+import org.eclipse.cdt.core.dom.ast.IASTPreprocessorIncludeStatement;
 import org.eclipse.cdt.core.dom.ast.IASTTranslationUnit;
 import org.eclipse.cdt.core.index.IIndex;
 import org.eclipse.cdt.core.index.IIndexFile;
@@ -60,6 +63,7 @@ import org.eclipse.cdt.core.model.IWorkingCopy;
 import org.eclipse.cdt.core.model.LanguageManager;
 import org.eclipse.cdt.core.parser.ExtendedScannerInfo;
 import org.eclipse.cdt.core.parser.FileContent;
+import org.eclipse.cdt.core.parser.IExtendedScannerInfo;
 import org.eclipse.cdt.core.parser.IParserLogService;
 import org.eclipse.cdt.core.parser.IScannerInfo;
 import org.eclipse.cdt.core.parser.IScannerInfoProvider;
@@ -69,9 +73,11 @@ import org.eclipse.cdt.core.parser.util.CharArrayUtils;
 import org.eclipse.cdt.core.settings.model.ICConfigurationDescription;
 import org.eclipse.cdt.core.settings.model.ICProjectDescription;
 import org.eclipse.cdt.internal.core.dom.parser.ASTTranslationUnit;
+import org.eclipse.cdt.internal.core.index.CIndex;
 import org.eclipse.cdt.internal.core.index.IndexBasedFileContentProvider;
 import org.eclipse.cdt.internal.core.parser.InternalParserUtil;
 import org.eclipse.cdt.internal.core.parser.ParserLogService;
+import org.eclipse.cdt.internal.core.parser.scanner.CharArray;
 import org.eclipse.cdt.internal.core.parser.scanner.InternalFileContentProvider;
 import org.eclipse.cdt.internal.core.pdom.indexer.ProjectIndexerIncludeResolutionHeuristics;
 import org.eclipse.cdt.internal.core.pdom.indexer.ProjectIndexerInputAdapter;
@@ -109,6 +115,35 @@ public class TranslationUnit extends Openable implements ITranslationUnit {
 	SourceManipulationInfo sourceManipulationInfo = null;
 	private ILanguage fLanguageOfContext;
 
+	/** The AST of the last reconcile and the state it was created from, see {@link #getReconcilerAST}. */
+	private SoftReference<IASTTranslationUnit> fReconcilerAST;
+	private int fReconcilerASTStyle;
+	private long fReconcilerASTContentsHash;
+	private int fReconcilerASTContentsLength;
+	private long fReconcilerASTLastWriteOnIndex;
+	private List<Object> fReconcilerASTConfiguration;
+	private IncludedFileState[] fReconcilerASTIncludedFiles;
+
+	/**
+	 * The state of a header that has been parsed as part of an AST.
+	 */
+	private static final class IncludedFileState {
+		final String fPath;
+		final long fTimestamp;
+		final long fSize;
+
+		IncludedFileState(String path, long timestamp, long size) {
+			fPath= path;
+			fTimestamp= timestamp;
+			fSize= size;
+		}
+
+		boolean isUnchanged() {
+			final File file= new File(fPath);
+			return file.lastModified() == fTimestamp && file.length() == fSize;
+		}
+	}
+
 	public TranslationUnit(ICElement parent, IFile file, String idType) {
 		super(parent, file, ICElement.C_UNIT);
 		setContentTypeID(idType);
@@ -878,10 +913,133 @@ public class TranslationUnit extends Openable implements ITranslationUnit {
 		if (ast == null)
 			return null;
 		ast.setOriginatingTranslationUnit(this);
+		ast.setContentsHash(fileContent.getContentsHash());
 		ast.setBasedOnIncompleteIndex(incompleteIndex);
 		return ast;
 	}
 
+	/**
+	 * Returns an AST for reconciling this translation unit. The AST of the previous reconcile is
+	 * returned again if neither the content of the translation unit, its build configuration,
+	 * the headers parsed with it, nor the index have changed since it was created, otherwise a
+	 * new AST is created with {@link #getAST(IIndex, int, IProgressMonitor)}. Any edit causes
+	 * a full parse of the translation unit, an existing AST is never updated incrementally.
+	 * <p>
+	 * An AST that is returned again is based on its original index object, i.e. the caller
+	 * has to hold a read lock on the index of the AST rather than on the given index. The AST
+	 * may be in use by other threads, see {@link ASTTranslationUnit#beginExclusiveAccess()}.
+	 */
+	IASTTranslationUnit getReconcilerAST(IIndex index, int style, IProgressMonitor monitor)
+			throws CoreException {
+		final char[] contents= getContents();
+		final long contentsHash= contents == null ? 0 : new CharArray(contents).getContentsHash();
+		final int contentsLength= contents == null ? -1 : contents.length;
+		final List<Object> configuration= index == null ? null : getConfiguration(index, style);
+		synchronized (this) {
+			final IASTTranslationUnit ast= fReconcilerAST == null ? null : fReconcilerAST.get();
+			if (ast != null && configuration != null && fReconcilerASTStyle == style
+					&& fReconcilerASTContentsHash == contentsHash
+					&& fReconcilerASTContentsLength == contentsLength
+					&& isSameIndex(ast.getIndex(), index)
+					&& fReconcilerASTLastWriteOnIndex == index.getLastWriteAccess()
+					&& configuration.equals(fReconcilerASTConfiguration)
+					&& areUnchanged(fReconcilerASTIncludedFiles)) {
+				return ast;
+			}
+			fReconcilerAST= null;
+			fReconcilerASTConfiguration= null;
+			fReconcilerASTIncludedFiles= null;
+		}
+
+		final IASTTranslationUnit ast= getAST(index, style, monitor);
+		// The content may have changed while the AST was created.
+		if (ast instanceof ASTTranslationUnit && configuration != null && !ast.isBasedOnIncompleteIndex()
+				&& ((ASTTranslationUnit) ast).getContentsHash() == contentsHash) {
+			final IncludedFileState[] includedFiles= getIncludedFiles(ast);
+			if (includedFiles != null) {
+				synchronized (this) {
+					fReconcilerAST= new SoftReference<IASTTranslationUnit>(ast);
+					fReconcilerASTStyle= style;
+					fReconcilerASTContentsHash= contentsHash;
+					fReconcilerASTContentsLength= contentsLength;
+					fReconcilerASTLastWriteOnIndex= index.getLastWriteAccess();
+					fReconcilerASTConfiguration= configuration;
+					fReconcilerASTIncludedFiles= includedFiles;
+				}
+			}
+		}
+		return ast;
+	}
+
+	/**
+	 * Returns the parts of the build configuration that an AST created with the given style
+	 * depends on, or <code>null</code> if there is no build configuration.
+	 */
+	private List<Object> getConfiguration(IIndex index, int style) throws CoreException {
+		final IIndexFile[] contextToHeader = getContextToHeader(index, style);
+		final ITranslationUnit configureWith = getConfigureWith(contextToHeader);
+		final IScannerInfo scanInfo= configureWith.getScannerInfo((style & AST_SKIP_IF_NO_BUILD_INFO) == 0);
+		if (scanInfo == null)
+			return null;
+
+		final List<Object> configuration= new ArrayList<Object>();
+		configuration.add(configureWith);
+		configuration.add(scanInfo.getDefinedSymbols());
+		configuration.add(asList(scanInfo.getIncludePaths()));
+		if (scanInfo instanceof IExtendedScannerInfo) {
+			final IExtendedScannerInfo extendedInfo= (IExtendedScannerInfo) scanInfo;
+			configuration.add(asList(extendedInfo.getLocalIncludePath()));
+			configuration.add(asList(extendedInfo.getIncludeFiles()));
+			configuration.add(asList(extendedInfo.getMacroFiles()));
+		}
+		return configuration;
+	}
+
+	private static List<String> asList(String[] array) {
+		return array == null ? null : Arrays.asList(array);
+	}
+
+	/**
+	 * Returns the state of the headers that have been parsed with the AST, or <code>null</code>
+	 * if a change of the included files could not be detected. That is the case for headers read
+	 * from a working copy, and for includes that have not been resolved.
+	 */
+	private static IncludedFileState[] getIncludedFiles(IASTTranslationUnit ast) {
+		final List<IncludedFileState> result= new ArrayList<IncludedFileState>();
+		for (IASTPreprocessorIncludeStatement include : ast.getIncludeDirectives()) {
+			if (!include.isActive())
+				continue;
+			if (!include.isResolved())
+				return null;
+			if (include.createsAST()) {
+				final long timestamp= include.getIncludedFileTimestamp();
+				if (timestamp == FileContent.NULL_TIMESTAMP)
+					return null;
+				result.add(new IncludedFileState(include.getPath(), timestamp, include.getIncludedFileSize()));
+			}
+		}
+		return result.toArray(new IncludedFileState[result.size()]);
+	}
+
+	private static boolean areUnchanged(IncludedFileState[] includedFiles) {
+		if (includedFiles == null)
+			return false;
+		for (IncludedFileState includedFile : includedFiles) {
+			if (!includedFile.isUnchanged())
+				return false;
+		}
+		return true;
+	}
+
+	private static boolean isSameIndex(IIndex index1, IIndex index2) {
+		if (index1 == index2)
+			return true;
+		if (index1 instanceof CIndex && index2 instanceof CIndex) {
+			return Arrays.equals(((CIndex) index1).getFragments(), ((CIndex) index2).getFragments());
+		}
+		return false;
+	}
+
 	private IncludeFileContentProvider getIncludeFileContentProvider(int style, IIndex index, int linkageID, IIndexFile[] contextToHeader) {
 		final ICProject cprj= getCProject();
 		final ProjectIndexerInputAdapter pathResolver = new ProjectIndexerInputAdapter(cprj);
@@ -84,6 +84,7 @@ public abstract class ASTTranslationUnit extends ASTNode implements IASTTranslat
 	private final Semaphore fSemaphore= new Semaphore(1);
 	private boolean fBasedOnIncompleteIndex;
 	private boolean fNodesOmitted;
+	private long fContentsHash;
 
 	@Override
 	public final IASTTranslationUnit getTranslationUnit() {
@@ -440,6 +441,7 @@ public abstract class ASTTranslationUnit extends ASTNode implements IASTTranslat
 		target.setLocationResolver(fLocationResolver);
 		target.fForContentAssist = fForContentAssist;
 		target.fOriginatingTranslationUnit = fOriginatingTranslationUnit;
+		target.fContentsHash = fContentsHash;
 		target.fNodesOmitted = fNodesOmitted;
 		
 		for (IASTDeclaration declaration : getDeclarations()) {
@@ -469,6 +471,19 @@ public abstract class ASTTranslationUnit extends ASTNode implements IASTTranslat
 		this.fOriginatingTranslationUnit = tu;
 	}
 
+	/**
+	 * Returns the hash of the content the AST was parsed from, see
+	 * {@link org.eclipse.cdt.core.parser.FileContent#getContentsHash()}, or <code>0</code> if it is
+	 * not known.
+	 */
+	public long getContentsHash() {
+		return fContentsHash;
+	}
+
+	public void setContentsHash(long hash) {
+		fContentsHash = hash;
+	}
+
 	@Override
 	public ISignificantMacros getSignificantMacros() {
 		return fSignificantMacros;
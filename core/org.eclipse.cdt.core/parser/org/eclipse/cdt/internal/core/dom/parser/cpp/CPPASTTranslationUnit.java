@@ -31,6 +31,7 @@ import org.eclipse.cdt.core.dom.ast.cpp.ICPPFunctionType;
 import org.eclipse.cdt.core.dom.ast.cpp.ICPPNamespace;
 import org.eclipse.cdt.core.dom.ast.cpp.ICPPNamespaceScope;
 import org.eclipse.cdt.core.dom.ast.cpp.ICPPParameter;
+import org.eclipse.cdt.core.index.IIndex;
 import org.eclipse.cdt.core.parser.ParserLanguage;
 import org.eclipse.cdt.core.parser.util.ArrayUtil;
 import org.eclipse.cdt.internal.core.dom.Linkage;
@@ -52,6 +53,7 @@ public class CPPASTTranslationUnit extends ASTTranslationUnit implements ICPPAST
 	
 	// Caches
 	private Map<ICPPClassType, FinalOverriderMap> fFinalOverriderMapCache = new HashMap<>();
+	private CPPIndexLookupCache fIndexLookupCache;
 	
 	public CPPASTTranslationUnit() {
 	}
@@ -171,6 +173,10 @@ public class CPPASTTranslationUnit extends ASTTranslationUnit implements ICPPAST
 	public void skippedFile(int offset, InternalFileContent fileContent) {
 		super.skippedFile(offset, fileContent);
 		fScopeMapper.registerAdditionalDirectives(offset, fileContent.getUsingDirectives());
+		// File-local bindings of the skipped files are visible from now on.
+		if (fIndexLookupCache != null) {
+			fIndexLookupCache.clear();
+		}
 	}	
 
 	@Override
@@ -222,4 +228,18 @@ public class CPPASTTranslationUnit extends ASTTranslationUnit implements ICPPAST
 	public Map<ICPPClassType, FinalOverriderMap> getFinalOverriderMapCache() {
 		return fFinalOverriderMapCache;
 	}
+
+	/**
+	 * Returns the cache for lookups in the index, or <code>null</code> if the translation unit
+	 * has no index.
+	 */
+	public CPPIndexLookupCache getIndexLookupCache() {
+		final IIndex index= getIndex();
+		if (index == null)
+			return null;
+		if (fIndexLookupCache == null || fIndexLookupCache.getIndex() != index) {
+			fIndexLookupCache= new CPPIndexLookupCache(index);
+		}
+		return fIndexLookupCache;
+	}
 }
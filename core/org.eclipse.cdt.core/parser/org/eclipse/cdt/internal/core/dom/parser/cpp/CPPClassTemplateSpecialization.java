@@ -13,7 +13,6 @@
  *******************************************************************************/
 package org.eclipse.cdt.internal.core.dom.parser.cpp;
 
-import org.eclipse.cdt.core.dom.ast.ASTTypeUtil;
 import org.eclipse.cdt.core.dom.ast.DOMException;
 import org.eclipse.cdt.core.dom.ast.IASTNode;
 import org.eclipse.cdt.core.dom.ast.IBinding;
@@ -24,7 +23,6 @@ import org.eclipse.cdt.core.dom.ast.cpp.ICPPTemplateArgument;
 import org.eclipse.cdt.core.dom.ast.cpp.ICPPTemplateInstance;
 import org.eclipse.cdt.core.dom.ast.cpp.ICPPTemplateParameter;
 import org.eclipse.cdt.core.dom.ast.cpp.ICPPTemplateParameterMap;
-import org.eclipse.cdt.core.parser.util.ObjectMap;
 import org.eclipse.cdt.internal.core.dom.parser.cpp.semantics.CPPTemplates;
 
 /**
@@ -32,7 +30,7 @@ import org.eclipse.cdt.internal.core.dom.parser.cpp.semantics.CPPTemplates;
  */
 public class CPPClassTemplateSpecialization extends CPPClassSpecialization
 		implements ICPPClassTemplate, ICPPInternalClassTemplate {
-	private ObjectMap instances;
+	private final CPPInstanceMap instances= new CPPInstanceMap();
 	private ICPPDeferredClassInstance fDeferredInstance;
 	private ICPPClassTemplatePartialSpecialization[] fPartialSpecs;
 	private ICPPTemplateParameter[] fTemplateParameters;
@@ -69,31 +67,17 @@ public class CPPClassTemplateSpecialization extends CPPClassSpecialization
 
 	@Override
 	public synchronized final void addInstance(ICPPTemplateArgument[] arguments, ICPPTemplateInstance instance) {
-		if (instances == null)
-			instances = new ObjectMap(2);
-		String key= ASTTypeUtil.getArgumentListString(arguments, true);
-		instances.put(key, instance);
+		instances.put(arguments, instance);
 	}
 
 	@Override
 	public synchronized final ICPPTemplateInstance getInstance(ICPPTemplateArgument[] arguments) {
-		if (instances != null) {
-			String key= ASTTypeUtil.getArgumentListString(arguments, true);
-			return (ICPPTemplateInstance) instances.get(key);
-		}
-		return null;
+		return instances.get(arguments);
 	}
 
 	@Override
 	public synchronized ICPPTemplateInstance[] getAllInstances() {
-		if (instances != null) {
-			ICPPTemplateInstance[] result= new ICPPTemplateInstance[instances.size()];
-			for (int i=0; i < instances.size(); i++) {
-				result[i]= (ICPPTemplateInstance) instances.getAt(i);
-			}
-			return result;
-		}
-		return ICPPTemplateInstance.EMPTY_TEMPLATE_INSTANCE_ARRAY;
+		return instances.getAll();
 	}
 
 	@Override
@@ -11,7 +11,6 @@
  *******************************************************************************/
 package org.eclipse.cdt.internal.core.dom.parser.cpp;
 
-import org.eclipse.cdt.core.dom.ast.ASTTypeUtil;
 import org.eclipse.cdt.core.dom.ast.IBinding;
 import org.eclipse.cdt.core.dom.ast.IType;
 import org.eclipse.cdt.core.dom.ast.cpp.ICPPFunction;
@@ -21,14 +20,13 @@ import org.eclipse.cdt.core.dom.ast.cpp.ICPPTemplateArgument;
 import org.eclipse.cdt.core.dom.ast.cpp.ICPPTemplateInstance;
 import org.eclipse.cdt.core.dom.ast.cpp.ICPPTemplateParameter;
 import org.eclipse.cdt.core.dom.ast.cpp.ICPPTemplateParameterMap;
-import org.eclipse.cdt.core.parser.util.ObjectMap;
 
 /**
  * The specialization of a friend function template in the context of a class specialization.
  */
 public class CPPFunctionTemplateSpecialization extends CPPFunctionSpecialization
 		implements ICPPFunctionTemplate, ICPPInternalTemplate {
-	private ObjectMap instances;
+	private final CPPInstanceMap instances= new CPPInstanceMap();
 	
 	public CPPFunctionTemplateSpecialization(ICPPFunction original, IBinding owner,
 			ICPPTemplateParameterMap argumentMap, ICPPFunctionType type, IType[] exceptionSpecs) {
@@ -43,31 +41,17 @@ public class CPPFunctionTemplateSpecialization extends CPPFunctionSpecialization
 
 	@Override
 	public synchronized final void addInstance(ICPPTemplateArgument[] arguments, ICPPTemplateInstance instance) {
-		if (instances == null)
-			instances = new ObjectMap(2);
-		String key= ASTTypeUtil.getArgumentListString(arguments, true);
-		instances.put(key, instance);
+		instances.put(arguments, instance);
 	}
 
 	@Override
 	public synchronized final ICPPTemplateInstance getInstance(ICPPTemplateArgument[] arguments) {
-		if (instances != null) {
-			String key= ASTTypeUtil.getArgumentListString(arguments, true);
-			return (ICPPTemplateInstance) instances.get(key);
-		}
-		return null;
+		return instances.get(arguments);
 	}
 	
 	@Override
 	public synchronized ICPPTemplateInstance[] getAllInstances() {
-		if (instances != null) {
-			ICPPTemplateInstance[] result= new ICPPTemplateInstance[instances.size()];
-			for (int i= 0; i < instances.size(); i++) {
-				result[i]= (ICPPTemplateInstance) instances.getAt(i);
-			}
-			return result;
-		}
-		return ICPPTemplateInstance.EMPTY_TEMPLATE_INSTANCE_ARRAY;
+		return instances.getAll();
 	}
 	
 	@Override
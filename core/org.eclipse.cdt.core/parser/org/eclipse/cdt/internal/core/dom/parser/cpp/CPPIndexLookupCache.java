@@ -0,0 +1,109 @@
+/*******************************************************************************
+ * Copyright (c) 2016 agent and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     agent - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.cdt.internal.core.dom.parser.cpp;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.eclipse.cdt.core.dom.ast.IASTNode;
+import org.eclipse.cdt.core.dom.ast.IBinding;
+import org.eclipse.cdt.core.index.IIndex;
+import org.eclipse.cdt.core.parser.util.CharArrayUtils;
+
+/**
+ * Caches the bindings found in the index by the lookups in the namespace scopes of a translation
+ * unit. Such a lookup does not depend on the point of the lookup, its result is determined by the
+ * name, the namespace, the files included in the translation unit and the content of the index.
+ * The cache is cleared when the included files or the content of the index change.
+ */
+public final class CPPIndexLookupCache {
+	private static final class Key {
+		final IASTNode fScopeNode;
+		final char[] fName;
+		final int fHash;
+
+		Key(IASTNode scopeNode, char[] name) {
+			fScopeNode= scopeNode;
+			fName= name;
+			fHash= 31 * scopeNode.hashCode() + CharArrayUtils.hash(name);
+		}
+
+		@Override
+		public int hashCode() {
+			return fHash;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (!(obj instanceof Key))
+				return false;
+			Key other= (Key) obj;
+			return fScopeNode == other.fScopeNode && CharArrayUtils.equals(fName, other.fName);
+		}
+	}
+
+	private final IIndex fIndex;
+	private final Map<Key, IBinding[]> fCache= new HashMap<>();
+	private long fLastWriteAccess;
+	private long fHits;
+	private long fMisses;
+
+	public CPPIndexLookupCache(IIndex index) {
+		fIndex= index;
+		fLastWriteAccess= index.getLastWriteAccess();
+	}
+
+	/**
+	 * Returns the cached result of a lookup in the index for the namespace scope with the given
+	 * physical node, or <code>null</code>. The returned array must not be modified.
+	 */
+	public IBinding[] get(IASTNode scopeNode, char[] name) {
+		final long lastWriteAccess= fIndex.getLastWriteAccess();
+		if (lastWriteAccess != fLastWriteAccess) {
+			fCache.clear();
+			fLastWriteAccess= lastWriteAccess;
+		}
+		IBinding[] result= fCache.get(new Key(scopeNode, name));
+		if (result != null) {
+			fHits++;
+		} else {
+			fMisses++;
+		}
+		return result;
+	}
+
+	/**
+	 * Stores the result of a lookup in the index. The array must not be modified afterwards.
+	 */
+	public void put(IASTNode scopeNode, char[] name, IBinding[] bindings) {
+		fCache.put(new Key(scopeNode, name), bindings);
+	}
+
+	/**
+	 * Clears the cache, must be called when the set of files included in the translation unit
+	 * changes.
+	 */
+	public void clear() {
+		fCache.clear();
+	}
+
+	public IIndex getIndex() {
+		return fIndex;
+	}
+
+	public long getHits() {
+		return fHits;
+	}
+
+	public long getMisses() {
+		return fMisses;
+	}
+}
@@ -0,0 +1,138 @@
+/*******************************************************************************
+ * Copyright (c) 2016 agent and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     agent - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.cdt.internal.core.dom.parser.cpp;
+
+import java.lang.ref.WeakReference;
+import java.util.LinkedHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.eclipse.cdt.core.dom.ast.ASTTypeUtil;
+import org.eclipse.cdt.core.dom.ast.cpp.ICPPTemplateArgument;
+import org.eclipse.cdt.core.dom.ast.cpp.ICPPTemplateInstance;
+
+/**
+ * Map from template arguments to the instances of a template, used by the implementations of
+ * {@link ICPPInstanceCache} in the AST and in the index. The instances are keyed by the canonical
+ * string of the argument list. The key of the most recently used argument list is remembered
+ * per thread, such that looking up an instance and adding it after a miss computes the key only
+ * once, also when the lookup falls back from an AST template to its index binding. The arguments
+ * are remembered via weak references, such that the memo does not keep an AST alive.
+ * <p>
+ * An instance that has been added is never removed, the identity of instances must be preserved.
+ * The map is not synchronized.
+ */
+public final class CPPInstanceMap {
+	private static final class KeyMemo {
+		WeakReference<ICPPTemplateArgument>[] fArguments;
+		String fKey;
+	}
+
+	private static final ThreadLocal<KeyMemo> fKeyMemo= new ThreadLocal<KeyMemo>() {
+		@Override
+		protected KeyMemo initialValue() {
+			return new KeyMemo();
+		}
+	};
+
+	private static final LongAdder fHits= new LongAdder();
+	private static final LongAdder fMisses= new LongAdder();
+	private static final LongAdder fAdded= new LongAdder();
+
+	/**
+	 * Returns the canonical key for the given template arguments.
+	 */
+	@SuppressWarnings("unchecked")
+	public static String getKey(ICPPTemplateArgument[] arguments) {
+		final KeyMemo memo= fKeyMemo.get();
+		final WeakReference<ICPPTemplateArgument>[] last= memo.fArguments;
+		if (last != null && last.length == arguments.length) {
+			int i= 0;
+			while (i < last.length && last[i].get() == arguments[i] && arguments[i] != null) {
+				i++;
+			}
+			if (i == last.length)
+				return memo.fKey;
+		}
+		final String key= ASTTypeUtil.getArgumentListString(arguments, true);
+		// The elements are remembered rather than the array, because the caller may modify
+		// the array later on.
+		final WeakReference<ICPPTemplateArgument>[] refs= new WeakReference[arguments.length];
+		for (int i = 0; i < refs.length; i++) {
+			refs[i]= new WeakReference<>(arguments[i]);
+		}
+		memo.fArguments= refs;
+		memo.fKey= key;
+		return key;
+	}
+
+	private LinkedHashMap<String, ICPPTemplateInstance> fMap;
+
+	public ICPPTemplateInstance get(ICPPTemplateArgument[] arguments) {
+		if (fMap != null) {
+			ICPPTemplateInstance result= fMap.get(getKey(arguments));
+			if (result != null) {
+				fHits.increment();
+				return result;
+			}
+		}
+		fMisses.increment();
+		return null;
+	}
+
+	public void put(ICPPTemplateArgument[] arguments, ICPPTemplateInstance instance) {
+		if (fMap == null) {
+			fMap= new LinkedHashMap<>(4);
+		}
+		if (fMap.put(getKey(arguments), instance) == null) {
+			fAdded.increment();
+		}
+	}
+
+	/**
+	 * Returns all instances in the order they were added.
+	 */
+	public ICPPTemplateInstance[] getAll() {
+		if (fMap == null)
+			return ICPPTemplateInstance.EMPTY_TEMPLATE_INSTANCE_ARRAY;
+		return fMap.values().toArray(new ICPPTemplateInstance[fMap.size()]);
+	}
+
+	public int size() {
+		return fMap == null ? 0 : fMap.size();
+	}
+
+	/**
+	 * Returns the number of lookups that found an instance, in all maps.
+	 */
+	public static long getHits() {
+		return fHits.sum();
+	}
+
+	/**
+	 * Returns the number of lookups that did not find an instance, in all maps.
+	 */
+	public static long getMisses() {
+		return fMisses.sum();
+	}
+
+	/**
+	 * Returns the number of instances that have been added to any of the maps.
+	 */
+	public static long getAdded() {
+		return fAdded.sum();
+	}
+
+	public static void resetCounters() {
+		fHits.reset();
+		fMisses.reset();
+		fAdded.reset();
+	}
+}
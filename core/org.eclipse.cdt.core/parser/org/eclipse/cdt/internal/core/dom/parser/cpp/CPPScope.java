@@ -187,41 +187,61 @@ abstract public class CPPScope implements ICPPASTInternalScope {
 		final IASTTranslationUnit tu = lookup.getTranslationUnit();
 		if (tu != null) {
 			IIndex index = tu.getIndex();
-			if (index != null) {
-				IIndexFileSet fileSet= lookup.getIncludedFiles();
-				if (physicalNode instanceof IASTTranslationUnit) {
-					try {
-						IndexFilter filter = IndexFilter.CPP_DECLARED_OR_IMPLICIT_NO_INSTANCE;
-						final char[] nchars = lookup.getLookupKey();
-						IBinding[] bindings = lookup.isPrefixLookup() ?
-								index.findBindingsForContentAssist(nchars, true, filter, null) :
-								index.findBindings(nchars, filter, null);
-						if (fileSet != null) {
-							bindings= fileSet.filterFileLocalBindings(bindings);
-						}
-						result = ArrayUtil.addAll(IBinding.class, result, bindings);
-					} catch (CoreException e) {
-						CCorePlugin.log(e);
-					}
-				} else if (physicalNode instanceof ICPPASTNamespaceDefinition) {
-					ICPPASTNamespaceDefinition ns = (ICPPASTNamespaceDefinition) physicalNode;
-					try {
-						IIndexBinding binding = index.findBinding(ns.getName());
-						if (binding instanceof ICPPNamespace) {
-							ICPPNamespaceScope indexNs = ((ICPPNamespace) binding).getNamespaceScope();
-							IBinding[] bindings = indexNs.getBindings(lookup);
-							result = ArrayUtil.addAll(IBinding.class, result, bindings);
-						}
-					} catch (CoreException e) {
-						CCorePlugin.log(e);
+			if (index != null && (physicalNode instanceof IASTTranslationUnit
+					|| physicalNode instanceof ICPPASTNamespaceDefinition)) {
+				IBinding[] bindings;
+				CPPIndexLookupCache cache= null;
+				if (!lookup.isPrefixLookup() && tu instanceof CPPASTTranslationUnit) {
+					cache= ((CPPASTTranslationUnit) tu).getIndexLookupCache();
+				}
+				if (cache != null) {
+					final char[] nchars = lookup.getLookupKey();
+					bindings= cache.get(physicalNode, nchars);
+					if (bindings == null) {
+						bindings= getBindingsInIndex(lookup, index);
+						cache.put(physicalNode, nchars, bindings);
 					}
+				} else {
+					bindings= getBindingsInIndex(lookup, index);
 				}
+				result = ArrayUtil.addAll(IBinding.class, result, bindings);
 			}
 		}
 
 		return ArrayUtil.trim(IBinding.class, result);
 	}
 
+	private IBinding[] getBindingsInIndex(ScopeLookupData lookup, IIndex index) {
+		IIndexFileSet fileSet= lookup.getIncludedFiles();
+		if (physicalNode instanceof IASTTranslationUnit) {
+			try {
+				IndexFilter filter = IndexFilter.CPP_DECLARED_OR_IMPLICIT_NO_INSTANCE;
+				final char[] nchars = lookup.getLookupKey();
+				IBinding[] bindings = lookup.isPrefixLookup() ?
+						index.findBindingsForContentAssist(nchars, true, filter, null) :
+						index.findBindings(nchars, filter, null);
+				if (fileSet != null) {
+					bindings= fileSet.filterFileLocalBindings(bindings);
+				}
+				return bindings;
+			} catch (CoreException e) {
+				CCorePlugin.log(e);
+			}
+		} else if (physicalNode instanceof ICPPASTNamespaceDefinition) {
+			ICPPASTNamespaceDefinition ns = (ICPPASTNamespaceDefinition) physicalNode;
+			try {
+				IIndexBinding binding = index.findBinding(ns.getName());
+				if (binding instanceof ICPPNamespace) {
+					ICPPNamespaceScope indexNs = ((ICPPNamespace) binding).getNamespaceScope();
+					return indexNs.getBindings(lookup);
+				}
+			} catch (CoreException e) {
+				CCorePlugin.log(e);
+			}
+		}
+		return IBinding.EMPTY_BINDING_ARRAY;
+	}
+
 	public IBinding[] getBindingsInAST(ScopeLookupData lookup) {
 		populateCache();
 	    final char[] c = lookup.getLookupKey();
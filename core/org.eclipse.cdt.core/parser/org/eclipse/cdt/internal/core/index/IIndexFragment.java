@@ -340,6 +340,14 @@ public interface IIndexFragment {
 	 */
 	Object putCachedResult(Object key, Object value, boolean replace);
 
+	/**
+	 * Caches an object with the key, like {@link #putCachedResult(Object, Object, boolean)} without
+	 * replacing an existing entry. The object is retained until the cache is cleared, it is used
+	 * for objects whose identity must not change while the fragment is locked.
+	 * @return the value that is actually stored.
+	 */
+	Object putPinnedResult(Object key, Object value);
+
 	/**
 	 * Returns a previously cached object, the cache is cleared at latest when the fragment no
 	 * longer holds a locks.
@@ -105,7 +105,7 @@ public class CompositeCPPClassSpecialization extends CompositeCPPClassType imple
 						}
 					}
 				}
-				specializationMap= (ObjectMap) frag.putCachedResult(key, newMap, false);
+				specializationMap= (ObjectMap) frag.putPinnedResult(key, newMap);
 			}
 		}
 		synchronized (specializationMap) {
@@ -10,19 +10,14 @@
  *******************************************************************************/ 
 package org.eclipse.cdt.internal.core.index.composite.cpp;
 
-import java.util.HashMap;
-
-import org.eclipse.cdt.core.CCorePlugin;
-import org.eclipse.cdt.core.dom.ast.DOMException;
 import org.eclipse.cdt.core.dom.ast.cpp.ICPPTemplateArgument;
 import org.eclipse.cdt.core.dom.ast.cpp.ICPPTemplateInstance;
+import org.eclipse.cdt.internal.core.dom.parser.cpp.CPPInstanceMap;
 import org.eclipse.cdt.internal.core.dom.parser.cpp.ICPPDeferredClassInstance;
 import org.eclipse.cdt.internal.core.dom.parser.cpp.ICPPInstanceCache;
 import org.eclipse.cdt.internal.core.index.IIndexFragment;
 import org.eclipse.cdt.internal.core.index.IIndexFragmentBinding;
-import org.eclipse.cdt.internal.core.index.IndexCPPSignatureUtil;
 import org.eclipse.cdt.internal.core.index.composite.ICompositesFactory;
-import org.eclipse.core.runtime.CoreException;
 
 public class CompositeInstanceCache {
 	
@@ -36,35 +31,22 @@ public class CompositeInstanceCache {
 		
 		CompositeInstanceCache newCache= new CompositeInstanceCache();
 		newCache.populate(cf, fb);
-		return (CompositeInstanceCache) frag.putCachedResult(key, newCache, false);
+		return (CompositeInstanceCache) frag.putPinnedResult(key, newCache);
 	}
 	
-	private final HashMap<String, ICPPTemplateInstance> fMap;
+	private final CPPInstanceMap fMap;
 	private ICPPDeferredClassInstance fDeferredInstance;
 
 	public CompositeInstanceCache() {
-		fMap= new HashMap<String, ICPPTemplateInstance>();
+		fMap= new CPPInstanceMap();
 	}
 	
 	synchronized public final void addInstance(ICPPTemplateArgument[] arguments, ICPPTemplateInstance instance) {
-		try {
-			String key= IndexCPPSignatureUtil.getTemplateArgString(arguments, true);
-			fMap.put(key, instance);
-		} catch (CoreException e) {
-			CCorePlugin.log(e);
-		} catch (DOMException e) {
-		}
+		fMap.put(arguments, instance);
 	}
 
 	synchronized public final ICPPTemplateInstance getInstance(ICPPTemplateArgument[] arguments) {
-		try {
-			String key= IndexCPPSignatureUtil.getTemplateArgString(arguments, true);
-			return fMap.get(key);
-		} catch (CoreException e) {
-			CCorePlugin.log(e);
-		} catch (DOMException e) {
-		}
-		return null;
+		return fMap.get(arguments);
 	}
 	
 	private void populate(ICompositesFactory cf, IIndexFragmentBinding fb) {
@@ -81,7 +63,7 @@ public class CompositeInstanceCache {
 	}
 
 	synchronized public ICPPTemplateInstance[] getAllInstances() {
-		return fMap.values().toArray(new ICPPTemplateInstance[fMap.size()]);
+		return fMap.getAll();
 	}
 
 	public ICPPDeferredClassInstance getDeferredInstance() {
@@ -113,6 +113,8 @@ public final class IndexProviderManager implements IElementChangedListener {
 	public void startup() {
 		List<IIndexFragmentProvider> providers = new ArrayList<IIndexFragmentProvider>();
 		List<IConfigurationElement[]> usageSpecifications= new ArrayList<IConfigurationElement[]>();
+		providers.add(new SharedPDOMFragmentProvider());
+		usageSpecifications.add(null); // Allow usage for all tools.
 		IExtensionRegistry registry = Platform.getExtensionRegistry();
 		IExtensionPoint indexProviders = registry.getExtensionPoint(CCorePlugin.INDEX_UNIQ_ID);
 		for (IExtension extension : indexProviders.getExtensions()) {
@@ -12,15 +12,18 @@
 package org.eclipse.cdt.internal.core.index.provider;
 
 import java.io.File;
+import java.io.IOException;
 import java.util.HashMap;
 import java.util.Map;
 
 import org.eclipse.cdt.core.CCorePlugin;
+import org.eclipse.cdt.core.CCorePreferenceConstants;
 import org.eclipse.cdt.core.index.IIndexLocationConverter;
 import org.eclipse.cdt.core.model.LanguageManager;
 import org.eclipse.cdt.internal.core.pdom.PDOM;
 import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.IPath;
+import org.eclipse.core.runtime.Platform;
 
 /**
  * Internal singleton map maintained for non-project PDOM objects
@@ -55,12 +58,23 @@ class PDOMCache {
 	 * @return a PDOM instance or null if the PDOM version was too old
 	 */
 	public PDOM getPDOM(IPath path, IIndexLocationConverter converter) {
+		return getPDOM(path, converter, Platform.getPreferencesService().getBoolean(CCorePlugin.PLUGIN_ID,
+				CCorePreferenceConstants.INDEX_DB_MEMORY_MAPPED,
+				CCorePreferenceConstants.DEFAULT_INDEX_DB_MEMORY_MAPPED, null));
+	}
+
+	/**
+	 * Returns the mapped PDOM for the path specified, like {@link #getPDOM(IPath, IIndexLocationConverter)}.
+	 * With <code>memoryMapped</code> the PDOM is read through memory mapped regions of its file,
+	 * such that its content is shared with all other processes reading the same file.
+	 */
+	public PDOM getPDOM(IPath path, IIndexLocationConverter converter, boolean memoryMapped) {
 		if (path == null){
 			return null;
 		}
 
 		PDOM result= null;
-		File file = path.toFile();
+		File file = canonicalFile(path.toFile());
 
 		synchronized (path2pdom) {
 			if (path2pdom.containsKey(file)) {
@@ -74,8 +88,23 @@ class PDOMCache {
 					CCorePlugin.log(ce);
 				}
 			}
+			// A PDOM that is shared as memory mapped file by one of its users remains mapped.
+			if (result != null && memoryMapped) {
+				result.setMemoryMapped(true);
+			}
 		}
 
 		return result;
 	}
+
+	/**
+	 * Different paths of the same file must result in the same PDOM.
+	 */
+	private static File canonicalFile(File file) {
+		try {
+			return file.getCanonicalFile();
+		} catch (IOException e) {
+			return file.getAbsoluteFile();
+		}
+	}
 }
\ No newline at end of file
@@ -0,0 +1,73 @@
+/*******************************************************************************
+ * Copyright (c) 2016 agent and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     agent - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.cdt.internal.core.index.provider;
+
+import java.io.File;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.eclipse.cdt.core.CCorePlugin;
+import org.eclipse.cdt.core.CCorePreferenceConstants;
+import org.eclipse.cdt.core.index.URIRelativeLocationConverter;
+import org.eclipse.cdt.core.model.ICProject;
+import org.eclipse.cdt.core.settings.model.ICConfigurationDescription;
+import org.eclipse.cdt.internal.core.index.IIndexFragment;
+import org.eclipse.cdt.internal.core.pdom.PDOM;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.Path;
+import org.eclipse.core.runtime.Platform;
+
+/**
+ * Provides the pre-built indexes listed in the preference
+ * {@link CCorePreferenceConstants#INDEX_SHARED_FRAGMENTS} to all projects. The indexes are
+ * opened via the {@link PDOMCache}, i.e. once per JVM, and are read through memory mapped
+ * regions of their files, such that their content is not copied into the heap.
+ */
+class SharedPDOMFragmentProvider implements IIndexFragmentProvider {
+	private static final char BASE_SEPARATOR= '=';
+
+	@Override
+	public IIndexFragment[] getIndexFragments(ICConfigurationDescription config) throws CoreException {
+		String value= Platform.getPreferencesService().getString(CCorePlugin.PLUGIN_ID,
+				CCorePreferenceConstants.INDEX_SHARED_FRAGMENTS,
+				CCorePreferenceConstants.DEFAULT_INDEX_SHARED_FRAGMENTS, null);
+		if (value.isEmpty())
+			return new IIndexFragment[0];
+
+		List<PDOM> result = new ArrayList<PDOM>();
+		for (String entry : value.split(File.pathSeparator)) {
+			int idx= entry.lastIndexOf(BASE_SEPARATOR);
+			if (idx <= 0)
+				continue;
+			File file= new File(entry.substring(0, idx).trim());
+			if (!file.isFile())
+				continue;
+			URI base= new File(entry.substring(idx + 1).trim()).getAbsoluteFile().toURI();
+			if (!base.getPath().endsWith("/")) { //$NON-NLS-1$
+				base= URI.create(base.toString() + '/');
+			}
+			PDOM pdom= PDOMCache.getInstance().getPDOM(new Path(file.getPath()),
+					new URIRelativeLocationConverter(base), true);
+			if (pdom != null) {
+				result.add(pdom);
+			}
+		}
+		return result.toArray(new IIndexFragment[result.size()]);
+	}
+
+	@Override
+	public boolean providesFor(ICProject cproject) throws CoreException {
+		// The answer is cached by the IndexProviderManager, the preference is checked on every
+		// request for fragments instead.
+		return true;
+	}
+}
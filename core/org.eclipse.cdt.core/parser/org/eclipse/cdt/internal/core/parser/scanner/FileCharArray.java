@@ -45,7 +45,6 @@ public class FileCharArray extends LazyCharArray {
 		if (lsize < CHUNK_SIZE) {
 			return decodeSmallFile(channel, (int) lsize, charSet);
 		}
-
 		return new FileCharArray(fileName, charSet);
 	}
 	
@@ -82,17 +81,54 @@ public class FileCharArray extends LazyCharArray {
 		return buf;
 	}
 
+	/**
+	 * Returns whether every character of the charset is encoded as a single byte of the same value.
+	 */
+	private static boolean isLatin1(String charSet) {
+		return charSet.equalsIgnoreCase("ISO-8859-1"); //$NON-NLS-1$
+	}
+
+	/**
+	 * Returns whether the ASCII characters are encoded as single bytes of the same value.
+	 */
+	private static boolean isASCIICompatible(String charSet) {
+		return charSet.equalsIgnoreCase(UTF8_CHARSET_NAME) || charSet.equalsIgnoreCase("US-ASCII"); //$NON-NLS-1$
+	}
+
+	/**
+	 * Converts the bytes to characters without decoding them, returns <code>null</code> if
+	 * the bytes contain a character that has to be decoded.
+	 */
+	private static char[] widen(ByteBuffer bytes, boolean latin1) {
+		final int start= bytes.position();
+		final char[] chars= new char[bytes.remaining()];
+		for (int i = 0; i < chars.length; i++) {
+			final byte b= bytes.get(start + i);
+			if (b < 0 && !latin1)
+				return null;
+			chars[i]= (char) (b & 0xff);
+		}
+		return chars;
+	}
+
 	private final String fFileName;
 	private final String fCharSet;
+	private final boolean fLatin1;
+	private final boolean fSingleByteChunks;
 	private boolean fHasError;
 	private FileChannel fChannel;
 	private long fNextFileOffset;
 	private int fNextCharOffset;
 	private boolean fReachedEOF;
+	// Reused for reading the chunks that do not need to be decoded, released at the end of the file.
+	private ByteBuffer fSingleByteBuffer;
+	private int fDecodedChunks;
 
 	private FileCharArray(String fileName, String charSet) {
 		fFileName= fileName;
 		fCharSet= charSet;
+		fLatin1= isLatin1(charSet);
+		fSingleByteChunks= fLatin1 || isASCIICompatible(charSet);
 	}
 
 	@Override
@@ -110,6 +146,9 @@ public class FileCharArray extends LazyCharArray {
 			return super.createChunk(chunkNumber);
 		} finally {
 			fChannel= null;
+			if (fReachedEOF) {
+				fSingleByteBuffer= null;
+			}
 			try {
 				fis.close();
 			} catch (IOException e) {
@@ -124,6 +163,11 @@ public class FileCharArray extends LazyCharArray {
 		
 		try {
 			assert fChannel != null;
+			if (fSingleByteChunks) {
+				Chunk chunk= nextSingleByteChunk();
+				if (chunk != null || fReachedEOF)
+					return chunk;
+			}
 			final Charset charset = Charset.forName(fCharSet);
 			final CharsetDecoder decoder = charset.newDecoder()
 					.onMalformedInput(CodingErrorAction.REPLACE)
@@ -158,6 +202,7 @@ public class FileCharArray extends LazyCharArray {
 				fReachedEOF= true;
 			}
 			final char[] chars = extractChars(dest);
+			fDecodedChunks++;
 			Chunk chunk = newChunk(fNextFileOffset, fileOffset, fNextCharOffset, chars);
 			fNextFileOffset = fileOffset;
 			fNextCharOffset += chars.length;
@@ -171,6 +216,41 @@ public class FileCharArray extends LazyCharArray {
 		}
 	}
 
+	/**
+	 * Reads the next chunk without decoding, if all of its characters are encoded in single
+	 * bytes. Whether that is the case is checked for each chunk when it is read, a chunk with
+	 * other characters is decoded by the charset.
+	 * @return the chunk, or <code>null</code> if the chunk has to be decoded or the end of the
+	 *     file has been reached.
+	 */
+	private Chunk nextSingleByteChunk() throws IOException {
+		if (fSingleByteBuffer == null) {
+			fSingleByteBuffer= ByteBuffer.allocate(CHUNK_SIZE);
+		}
+		final ByteBuffer in = fSingleByteBuffer;
+		in.clear();
+		fChannel.position(fNextFileOffset);
+		fChannel.read(in);
+		final boolean eof= in.remaining() > 0;
+		in.flip();
+		if (fNextFileOffset == 0) {
+			skipUTF8ByteOrderMark(in, fCharSet);
+		}
+		final char[] chars= widen(in, fLatin1);
+		if (chars == null)
+			return null;
+		if (eof) {
+			fReachedEOF= true;
+			if (chars.length == 0)
+				return null;
+		}
+		final long fileOffset= fNextFileOffset + in.limit();
+		Chunk chunk = newChunk(fNextFileOffset, fileOffset, fNextCharOffset, chars);
+		fNextFileOffset = fileOffset;
+		fNextCharOffset += chars.length;
+		return chunk;
+	}
+
 	@Override
 	protected void rereadChunkData(Chunk chunk, char[] dest) {
 		FileInputStream fis;
@@ -213,6 +293,14 @@ public class FileCharArray extends LazyCharArray {
 			skipUTF8ByteOrderMark(in, fCharSet);
 		}
 		decoder.decode(in, dest, true);
+		fDecodedChunks++;
+	}
+
+	/**
+	 * For testing purposes: Returns the number of chunks that have been decoded by the charset.
+	 */
+	public int testGetDecodedChunkCount() {
+		return fDecodedChunks;
 	}
 
 	@Override
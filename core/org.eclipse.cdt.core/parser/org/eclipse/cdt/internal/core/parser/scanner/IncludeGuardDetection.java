@@ -18,12 +18,73 @@ import org.eclipse.cdt.core.parser.Keywords;
 import org.eclipse.cdt.core.parser.OffsetLimitReachedException;
 import org.eclipse.cdt.core.parser.util.CharArrayIntMap;
 import org.eclipse.cdt.core.parser.util.CharArrayUtils;
+import org.eclipse.cdt.internal.core.parser.util.LRUCache;
 
 /**
  * Helper class for detecting include guards 
  */
 public class IncludeGuardDetection {
+	private static final int GUARD_CACHE_SIZE= 20000;
+	private static final char[] NO_GUARD= {};
+	/**
+	 * The include guard depends on the content of a file only, it is cached such that the content
+	 * of a header has to be scanned for the guard only once rather than for every inclusion.
+	 */
+	private static final LRUCache<GuardKey, char[]> sGuardCache= new LRUCache<>(GUARD_CACHE_SIZE);
+
+	private static final class GuardKey {
+		final long fContentsHash;
+		final int fLength;
+		final int fOptions;
+
+		GuardKey(AbstractCharArray content, Lexer.LexerOptions lexOptions) {
+			fContentsHash= content.getContentsHash();
+			fLength= content.getLength();
+			int options= 0;
+			if (lexOptions.fSupportDollarInIdentifiers) options |= 0x01;
+			if (lexOptions.fSupportAtSignInIdentifiers) options |= 0x02;
+			if (lexOptions.fSupportMinAndMax) options |= 0x04;
+			if (lexOptions.fSupportSlashPercentComments) options |= 0x08;
+			if (lexOptions.fSupportUTFLiterals) options |= 0x10;
+			if (lexOptions.fSupportRawStringLiterals) options |= 0x20;
+			if (lexOptions.fSupportUserDefinedLiterals) options |= 0x40;
+			fOptions= options;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (!(obj instanceof GuardKey))
+				return false;
+			GuardKey other= (GuardKey) obj;
+			return fContentsHash == other.fContentsHash && fLength == other.fLength
+					&& fOptions == other.fOptions;
+		}
+
+		@Override
+		public int hashCode() {
+			return (int) (fContentsHash ^ (fContentsHash >>> 32)) + 31 * fOptions;
+		}
+	}
+
 	public static char[] detectIncludeGuard(AbstractCharArray content, Lexer.LexerOptions lexOptions, CharArrayIntMap ppKeywords) {
+		final GuardKey key= new GuardKey(content, lexOptions);
+		if (content.hasError())
+			return findIncludeGuard(content, lexOptions, ppKeywords);
+
+		char[] guard;
+		synchronized (sGuardCache) {
+			guard= sGuardCache.get(key);
+		}
+		if (guard == null) {
+			guard= findIncludeGuard(content, lexOptions, ppKeywords);
+			synchronized (sGuardCache) {
+				sGuardCache.put(key, guard == null ? NO_GUARD : guard);
+			}
+		}
+		return guard == NO_GUARD ? null : guard;
+	}
+
+	private static char[] findIncludeGuard(AbstractCharArray content, Lexer.LexerOptions lexOptions, CharArrayIntMap ppKeywords) {
 		Lexer l= new Lexer(content, lexOptions, ILexerLog.NULL, null);
 		char[] guard= findIncludeGuard(l, ppKeywords);
 		if (guard != null && currentIfSpansFile(l, ppKeywords)) {
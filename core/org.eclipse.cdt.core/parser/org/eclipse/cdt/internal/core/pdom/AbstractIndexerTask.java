@@ -29,6 +29,11 @@ import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -299,6 +304,71 @@ public abstract class AbstractIndexerTask extends PDOMWriter {
 		}
 	}
 
+	/**
+	 * A file that is parsed, possibly on one of the parser threads, before it is written
+	 * to the index on the thread running the task.
+	 */
+	private class ParseRequest implements Callable<ParseRequest> {
+		final Object fTu;
+		final AbstractLanguage fLanguage;
+		final IIndexFileLocation fLocation;
+		final IScannerInfo fScannerInfo;
+		final FileContext fContext;
+		FileContent fCodeReader;
+		IASTTranslationUnit fAST;
+		long fParseTime;
+		Throwable fError;
+		boolean fParsed;
+
+		ParseRequest(Object tu, AbstractLanguage lang, IIndexFileLocation ifl, IScannerInfo scanInfo,
+				FileContext ctx) {
+			fTu= tu;
+			fLanguage= lang;
+			fLocation= ifl;
+			fScannerInfo= scanInfo;
+			fContext= ctx;
+		}
+
+		void parse(InternalFileContentProvider fileContentProvider, IProgressMonitor pm) {
+			fParsed= true;
+			try {
+				fCodeReader= fResolver.getCodeReader(fTu);
+				final boolean isSource = fResolver.isSourceUnit(fTu);
+				long start= System.currentTimeMillis();
+				fAST= createAST(fLanguage, fCodeReader, fScannerInfo, isSource, fASTOptions,
+						fileContentProvider, pm);
+				fParseTime= System.currentTimeMillis() - start;
+			} catch (CoreException | RuntimeException | Error e) {
+				fError= e;
+			}
+		}
+
+		/**
+		 * Rethrows the problem encountered while parsing, if any, on the calling thread.
+		 */
+		void checkError() throws CoreException {
+			if (fError instanceof CoreException)
+				throw (CoreException) fError;
+			if (fError instanceof RuntimeException)
+				throw (RuntimeException) fError;
+			if (fError instanceof Error)
+				throw (Error) fError;
+		}
+
+		@Override
+		public ParseRequest call() throws InterruptedException {
+			// The thread running the task holds a read lock as well, but does not write to the index
+			// until all parser threads are done.
+			fIndex.acquireReadLock();
+			try {
+				parse(createFileContentProvider(fLanguage.getLinkageID(), null), fProgressMonitor);
+			} finally {
+				fIndex.releaseReadLock();
+			}
+			return this;
+		}
+	}
+
 	protected enum MessageKind { parsingFileTask, errorWhileParsing, tooManyIndexProblems }
 
 	private int fUpdateFlags= IIndexManager.UPDATE_ALL;
@@ -324,6 +394,8 @@ public abstract class AbstractIndexerTask extends PDOMWriter {
 	private long fIncludedFileSizeLimit;
 	private InternalFileContentProvider fCodeReaderFactory;
 	private int fSwallowOutOfMemoryError= 5;
+	private int fParserThreads= 1;
+	private ExecutorService fParserExecutor;
 	/**
 	 * A queue of urgent indexing tasks that contribute additional files to this task.
 	 * The files from the urgent tasks are indexed before all not yet processed files.
@@ -384,6 +456,15 @@ public abstract class AbstractIndexerTask extends PDOMWriter {
 		fPragmaPrivatePattern = pattern;
 	}
 
+	/**
+	 * Sets the number of threads used to parse source files. With more than one thread, source files
+	 * are parsed concurrently in batches while the results are still written to the index
+	 * one translation unit at a time.
+	 */
+	public final void setParserThreadCount(int threads) {
+		fParserThreads= Math.max(1, threads);
+	}
+
 	/**
 	 * @see IPDOMIndexerTask#acceptUrgentTask(IPDOMIndexerTask)
 	 */
@@ -531,6 +612,10 @@ public abstract class AbstractIndexerTask extends PDOMWriter {
 				fASTOptions |= ILanguage.OPTION_SKIP_FUNCTION_BODIES;
 			}
 
+			if (fParserThreads > 1) {
+				fParserExecutor= createParserExecutor(fParserThreads);
+			}
+
 			fIndex.resetCacheCounters();
 			fIndex.acquireReadLock();
 
@@ -615,10 +700,27 @@ public abstract class AbstractIndexerTask extends PDOMWriter {
 			synchronized (this) {
 				fTaskCompleted = true;
 			}
+			if (fParserExecutor != null) {
+				fParserExecutor.shutdownNow();
+				fParserExecutor= null;
+			}
 			fProgressMonitor = null;
 		}
 	}
 
+	private static ExecutorService createParserExecutor(int threads) {
+		return Executors.newFixedThreadPool(threads, new ThreadFactory() {
+			private final AtomicInteger fThreadCount= new AtomicInteger();
+
+			@Override
+			public Thread newThread(Runnable r) {
+				Thread thread= new Thread(r, "C/C++ Indexer Parser " + fThreadCount.incrementAndGet()); //$NON-NLS-1$
+				thread.setDaemon(true);
+				return thread;
+			}
+		});
+	}
+
 	private void setResume(boolean value) throws InterruptedException, CoreException {
 		fIndex.acquireWriteLock(fProgressMonitor);
 		try {
@@ -885,6 +987,7 @@ public abstract class AbstractIndexerTask extends PDOMWriter {
 				continue;
 
 			// First parse the required sources.
+			List<ParseRequest> batch= fParserExecutor != null ? new ArrayList<ParseRequest>(fParserThreads) : null;
 			for (Iterator<IIndexFileLocation> it= filesAtPriority.iterator(); it.hasNext();) {
 				IIndexFileLocation ifl= it.next();
 				LocationTask locTask = map.find(ifl);
@@ -895,9 +998,22 @@ public abstract class AbstractIndexerTask extends PDOMWriter {
 						return;
 					final Object tu = locTask.fTu;
 					final IScannerInfo scannerInfo = getScannerInfo(linkageID, tu);
-					parseFile(tu, getLanguage(tu, linkageID), ifl, scannerInfo, null, monitor);
+					if (batch == null) {
+						parseFile(tu, getLanguage(tu, linkageID), ifl, scannerInfo, null, monitor);
+					} else {
+						batch.add(new ParseRequest(tu, getLanguage(tu, linkageID), ifl, scannerInfo, null));
+						if (batch.size() == fParserThreads) {
+							parseFilesInParallel(map, batch, monitor);
+							batch.clear();
+						}
+					}
 				}
 			}
+			if (batch != null && !batch.isEmpty()) {
+				if (monitor.isCanceled() || hasUrgentTasks())
+					return;
+				parseFilesInParallel(map, batch, monitor);
+			}
 	
 			// Files with context.
 			for (Iterator<IIndexFileLocation> it= filesAtPriority.iterator(); it.hasNext();) {
@@ -1067,11 +1183,39 @@ public abstract class AbstractIndexerTask extends PDOMWriter {
 		}
 	}
 
+	/**
+	 * Parses the given source files on the parser threads and writes the resulting ASTs to the index.
+	 * The index is not modified before all files of the batch have been parsed, such that the parser
+	 * threads can share the read lock of the task.
+	 */
+	private void parseFilesInParallel(LinkageTask map, List<ParseRequest> batch, IProgressMonitor monitor)
+			throws CoreException, InterruptedException {
+		fParserExecutor.invokeAll(batch);
+		for (ParseRequest request : batch) {
+			if (monitor.isCanceled())
+				return;
+			// The file may have been written to the index as part of a previous AST of the batch.
+			LocationTask locTask = map.find(request.fLocation);
+			if (locTask != null && !locTask.isCompleted()) {
+				indexFile(request, monitor);
+			}
+		}
+	}
+
 	private DependsOnOutdatedFileException parseFile(Object tu, AbstractLanguage lang,
 			IIndexFileLocation ifl, IScannerInfo scanInfo, FileContext ctx, IProgressMonitor pm)
 			throws CoreException, InterruptedException {
+		return indexFile(new ParseRequest(tu, lang, ifl, scanInfo, ctx), pm);
+	}
+
+	/**
+	 * Writes the AST of the given request to the index. The file is parsed on the calling thread,
+	 * unless that already happened on a parser thread.
+	 */
+	private DependsOnOutdatedFileException indexFile(ParseRequest request, IProgressMonitor pm)
+			throws CoreException, InterruptedException {
 		boolean resultCacheCleared = false;
-		IPath path= getLabel(ifl);
+		IPath path= getLabel(request.fLocation);
 		Throwable th= null;
 		try {
 			if (fShowActivity) {
@@ -1079,19 +1223,19 @@ public abstract class AbstractIndexerTask extends PDOMWriter {
 			}
 			pm.subTask(getMessage(MessageKind.parsingFileTask,
 					path.lastSegment(), path.removeLastSegments(1).toString()));
-			FileContent codeReader= fResolver.getCodeReader(tu);
-			final boolean isSource = fResolver.isSourceUnit(tu);
-
-			long start= System.currentTimeMillis();
-			IASTTranslationUnit ast= createAST(lang, codeReader, scanInfo, isSource, fASTOptions, ctx, pm);
-			fStatistics.fParsingTime += System.currentTimeMillis() - start;
+			if (!request.fParsed) {
+				request.parse(getFileContentProvider(request.fLanguage, request.fContext), pm);
+			}
+			fStatistics.fParsingTime += request.fParseTime;
+			request.checkError();
+			IASTTranslationUnit ast= request.fAST;
 			if (ast == null) {
 				++fStatistics.fTooManyTokensCount;
 			} else {
 				// Give the new AST a chance to recognize its translation unit before it is written
 				// to the index.
-				((ASTTranslationUnit) ast).setOriginatingTranslationUnit((ITranslationUnit) tu);
-				writeToIndex(lang.getLinkageID(), ast, codeReader, ctx, pm);
+				((ASTTranslationUnit) ast).setOriginatingTranslationUnit((ITranslationUnit) request.fTu);
+				writeToIndex(request.fLanguage.getLinkageID(), ast, request.fCodeReader, request.fContext, pm);
 				resultCacheCleared = true;  // The cache was cleared while writing to the index.
 			}
 		} catch (RuntimeException e) {
@@ -1192,7 +1336,7 @@ public abstract class AbstractIndexerTask extends PDOMWriter {
 
 	private final IASTTranslationUnit createAST(AbstractLanguage language, FileContent codeReader,
 			IScannerInfo scanInfo, boolean isSource, int options,
-			FileContext ctx, IProgressMonitor pm) throws CoreException {
+			InternalFileContentProvider fileContentProvider, IProgressMonitor pm) throws CoreException {
 		if (codeReader == null) {
 			return null;
 		}
@@ -1205,33 +1349,46 @@ public abstract class AbstractIndexerTask extends PDOMWriter {
 			}
 			return null;
 		}
+
+		IASTTranslationUnit ast= language.getASTTranslationUnit(codeReader, scanInfo, fileContentProvider,
+				fIndex, options, getLogService());
+		if (pm.isCanceled()) {
+			return null;
+		}
+		return ast;
+	}
+
+	/**
+	 * Returns the file content provider shared by all files parsed on the thread running the task.
+	 */
+	private InternalFileContentProvider getFileContentProvider(AbstractLanguage language, FileContext ctx) {
 		final IIndexFile[] ctx2header = ctx == null ? null : new IIndexFile[] {ctx.fContext, ctx.fOldFile};
 		if (fCodeReaderFactory == null) {
-			InternalFileContentProvider fileContentProvider = createInternalFileContentProvider();
-			if (fIsFastIndexer) {
-				IndexBasedFileContentProvider ibfcp = new IndexBasedFileContentProvider(fIndex, fResolver,
-						language.getLinkageID(), fileContentProvider, this);
-				ibfcp.setContextToHeaderGap(ctx2header);
-				ibfcp.setFileSizeLimit(fIncludedFileSizeLimit);
-				ibfcp.setHeadersToIndexAllVersions(fHeadersToIndexAllVersions);
-				ibfcp.setIndexAllHeaderVersions(fIndexAllHeaderVersions);
-				fCodeReaderFactory= ibfcp;
-			} else {
-				fCodeReaderFactory= fileContentProvider;
-			}
-			fCodeReaderFactory.setIncludeResolutionHeuristics(createIncludeHeuristics());
+			fCodeReaderFactory= createFileContentProvider(language.getLinkageID(), ctx2header);
 		} else if (fIsFastIndexer) {
 			final IndexBasedFileContentProvider ibfcp = (IndexBasedFileContentProvider) fCodeReaderFactory;
 			ibfcp.setContextToHeaderGap(ctx2header);
 			ibfcp.setLinkage(language.getLinkageID());
 		}
+		return fCodeReaderFactory;
+	}
 
-		IASTTranslationUnit ast= language.getASTTranslationUnit(codeReader, scanInfo, fCodeReaderFactory,
-				fIndex, options, getLogService());
-		if (pm.isCanceled()) {
-			return null;
+	private InternalFileContentProvider createFileContentProvider(int linkageID, IIndexFile[] ctx2header) {
+		InternalFileContentProvider result;
+		InternalFileContentProvider fileContentProvider = createInternalFileContentProvider();
+		if (fIsFastIndexer) {
+			IndexBasedFileContentProvider ibfcp = new IndexBasedFileContentProvider(fIndex, fResolver,
+					linkageID, fileContentProvider, this);
+			ibfcp.setContextToHeaderGap(ctx2header);
+			ibfcp.setFileSizeLimit(fIncludedFileSizeLimit);
+			ibfcp.setHeadersToIndexAllVersions(fHeadersToIndexAllVersions);
+			ibfcp.setIndexAllHeaderVersions(fIndexAllHeaderVersions);
+			result= ibfcp;
+		} else {
+			result= fileContentProvider;
 		}
-		return ast;
+		result.setIncludeResolutionHeuristics(createIncludeHeuristics());
+		return result;
 	}
 
 	private InternalFileContentProvider createInternalFileContentProvider() {
@@ -1429,12 +1586,15 @@ public abstract class AbstractIndexerTask extends PDOMWriter {
 					throw new DependsOnOutdatedFileException(request.fTu, task.fIndexFile);
 			}
 		}
-		IndexFileContent fc= fIndexContentCache.get(file);
-		if (fc == null) {
-			fc= new IndexFileContent(file);
-			fIndexContentCache.put(file, fc);
+		// The cache is shared by the parser threads.
+		synchronized (fIndexContentCache) {
+			IndexFileContent fc= fIndexContentCache.get(file);
+			if (fc == null) {
+				fc= new IndexFileContent(file);
+				fIndexContentCache.put(file, fc);
+			}
+			return fc;
 		}
-		return fc;
 	}
 
 	IIndexFragmentFile selectIndexFile(int linkageID, IIndexFileLocation ifl, ISignificantMacros sigMacros) throws CoreException {
@@ -1484,25 +1644,27 @@ public abstract class AbstractIndexerTask extends PDOMWriter {
 
 	public IIndexFragmentFile[] getAvailableIndexFiles(int linkageID, IIndexFileLocation ifl)
 			throws CoreException {
-		IIndexFragmentFile[] files= fIndexFilesCache.get(ifl);
-		if (files == null) {
-			IIndexFragmentFile[] fragFiles = fIndex.getWritableFiles(linkageID, ifl);
-			int j= 0;
-			for (int i = 0; i < fragFiles.length; i++) {
-				if (fragFiles[i].hasContent()) {
-					if (j != i)
-						fragFiles[j]= fragFiles[i];
-					j++;
+		synchronized (fIndexFilesCache) {
+			IIndexFragmentFile[] files= fIndexFilesCache.get(ifl);
+			if (files == null) {
+				IIndexFragmentFile[] fragFiles = fIndex.getWritableFiles(linkageID, ifl);
+				int j= 0;
+				for (int i = 0; i < fragFiles.length; i++) {
+					if (fragFiles[i].hasContent()) {
+						if (j != i)
+							fragFiles[j]= fragFiles[i];
+						j++;
+					}
 				}
+				if (j == fragFiles.length) {
+					files= fragFiles;
+				} else {
+					files= new IIndexFragmentFile[j];
+					System.arraycopy(fragFiles, 0, files, 0, j);
+				}
+				fIndexFilesCache.put(ifl, files);
 			}
-			if (j == fragFiles.length) {
-				files= fragFiles;
-			} else {
-				files= new IIndexFragmentFile[j];
-				System.arraycopy(fragFiles, 0, files, 0, j);
-			}
-			fIndexFilesCache.put(ifl, files);
+			return files;
 		}
-		return files;
 	}
 }
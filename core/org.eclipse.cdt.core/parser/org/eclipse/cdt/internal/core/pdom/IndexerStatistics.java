@@ -23,4 +23,6 @@ public class IndexerStatistics {
 	public int fPreprocessorProblemCount= 0;
 	public int fSyntaxProblemsCount= 0;
 	public int fTooManyTokensCount= 0;
+	public long fLookupCacheHits= 0;
+	public long fLookupCacheMisses= 0;
 }
@@ -374,9 +374,11 @@ public class PDOM extends PlatformObject implements IPDOM {
 	private BTree indexOfFiledWithUnresolvedIncludes;
 	private final Map<Integer, PDOMLinkage> fLinkageIDCache = new HashMap<>();
 	private File fPath;
+	private boolean fMemoryMapped;
+	private boolean fJournaled;
 	private final IIndexLocationConverter locationConverter;
 	private final Map<String, IPDOMLinkageFactory> fPDOMLinkageFactoryCache;
-	private final HashMap<Object, Object> fResultCache= new HashMap<>();
+	private final PDOMResultCache fResultCache= new PDOMResultCache(PDOMResultCache.DEFAULT_CAPACITY);
 	private List<IListener> listeners;
 	protected ChangeEvent fEvent= new ChangeEvent();
 
@@ -409,6 +411,8 @@ public class PDOM extends PlatformObject implements IPDOM {
 
 		clearCaches();
 		db = new Database(fPath, cache, getDefaultVersion(), isPermanentlyReadOnly());
+		db.setMemoryMapped(fMemoryMapped);
+		db.setJournaled(fJournaled);
 
 		db.setLocked(lockDB);
 		if (isSupportedVersion()) {
@@ -417,6 +421,25 @@ public class PDOM extends PlatformObject implements IPDOM {
 		db.setLocked(lockCount != 0);
 	}
 
+	/**
+	 * Controls whether the database is read via memory mapped regions of its file. The setting
+	 * is retained when the database is reloaded from a different file.
+	 */
+	public void setMemoryMapped(boolean value) {
+		fMemoryMapped= value;
+		db.setMemoryMapped(value);
+	}
+
+	/**
+	 * Controls whether modifications of the database are written through a write-ahead journal,
+	 * see {@link Database#setJournaled(boolean)}. The setting is retained when the database is
+	 * reloaded from a different file.
+	 */
+	public void setJournaled(boolean value) throws CoreException {
+		fJournaled= value;
+		db.setJournaled(value);
+	}
+
 	public IIndexLocationConverter getLocationConverter() {
 		return locationConverter;
 	}
@@ -957,10 +980,12 @@ public class PDOM extends PlatformObject implements IPDOM {
 	private long lastWriteAccess= 0;
 	private long lastReadAccess= 0;
 	private long timeWriteLockAcquired;
+	private long nanoTimeWriteLockAcquired;
+	private final PDOMLockStatistics fLockStatistics= new PDOMLockStatistics();
 
 	@Override
 	public void acquireReadLock() throws InterruptedException {
-		long t = sDEBUG_LOCKS ? System.nanoTime() : 0;
+		long t = System.nanoTime();
 		synchronized (mutex) {
 			++waitingReaders;
 			try {
@@ -971,9 +996,11 @@ public class PDOM extends PlatformObject implements IPDOM {
 			}
 			++lockCount;
 			db.setLocked(true);
+			final long waitNanos= System.nanoTime() - t;
+			fLockStatistics.readLockAcquired(waitNanos);
 
 			if (sDEBUG_LOCKS) {
-				t = (System.nanoTime() - t) / 1000000;
+				t = waitNanos / 1000000;
 				if (t >= LONG_READ_LOCK_WAIT_REPORT_THRESHOLD) {
 					System.out.println("Acquired index read lock after " + t + " ms wait."); //$NON-NLS-1$//$NON-NLS-2$
 				}
@@ -1022,6 +1049,7 @@ public class PDOM extends PlatformObject implements IPDOM {
 	 */
 	public void acquireWriteLock(int giveupReadLocks, IProgressMonitor monitor) throws InterruptedException {
 		assert !isPermanentlyReadOnly();
+		final long t= System.nanoTime();
 		synchronized (mutex) {
 			if (sDEBUG_LOCKS) {
 				incWriteLock(giveupReadLocks);
@@ -1051,6 +1079,8 @@ public class PDOM extends PlatformObject implements IPDOM {
 			lockCount= -1;
 			if (sDEBUG_LOCKS)
 				timeWriteLockAcquired = System.currentTimeMillis();
+			nanoTimeWriteLockAcquired= System.nanoTime();
+			fLockStatistics.writeLockAcquired(nanoTimeWriteLockAcquired - t);
 			db.setExclusiveLock();
 		}
 	}
@@ -1066,7 +1096,8 @@ public class PDOM extends PlatformObject implements IPDOM {
 			clearResultCache();
 		}
 		try {
-			db.giveUpExclusiveLock(flush);
+			// Dirty chunks are flushed after readers have been let in, see below.
+			db.giveUpExclusiveLock(false);
 		} catch (CoreException e) {
 			CCorePlugin.log(e);
 		}
@@ -1083,12 +1114,31 @@ public class PDOM extends PlatformObject implements IPDOM {
 				}
 				decWriteLock(establishReadLocks);
 			}
+			fLockStatistics.writeLockReleased(System.nanoTime() - nanoTimeWriteLockAcquired);
 
 			if (lockCount < 0)
 				lockCount= establishReadLocks;
+			if (flush) {
+				// Keep a read lock while flushing, such that readers don't have to wait for the
+				// file to be written, but writers do.
+				++lockCount;
+			}
 			mutex.notifyAll();
 			db.setLocked(lockCount != 0);
 		}
+		if (flush) {
+			try {
+				db.flush();
+			} catch (CoreException e) {
+				CCorePlugin.log(e);
+			} finally {
+				synchronized (mutex) {
+					--lockCount;
+					mutex.notifyAll();
+					db.setLocked(lockCount != 0);
+				}
+			}
+		}
 		fireChange(event);
 	}
 
@@ -1452,9 +1502,7 @@ public class PDOM extends PlatformObject implements IPDOM {
 
 	@Override
 	public void clearResultCache() {
-		synchronized (fResultCache) {
-			fResultCache.clear();
-		}
+		fResultCache.clear();
 	}
 
 	@Override
@@ -1470,6 +1518,21 @@ public class PDOM extends PlatformObject implements IPDOM {
 	@Override
 	public void resetCacheCounters() {
 		db.resetCacheCounters();
+		fResultCache.resetCounters();
+	}
+
+	/**
+	 * Returns the cache for results computed from the content of this PDOM.
+	 */
+	public PDOMResultCache getResultCache() {
+		return fResultCache;
+	}
+
+	/**
+	 * Returns the statistics about the acquisition of the read and write locks of this PDOM.
+	 */
+	public PDOMLockStatistics getLockStatistics() {
+		return fLockStatistics;
 	}
 
 	protected void flush() throws CoreException {
@@ -1478,9 +1541,7 @@ public class PDOM extends PlatformObject implements IPDOM {
 
 	@Override
 	public Object getCachedResult(Object key) {
-		synchronized (fResultCache) {
-			return fResultCache.get(key);
-		}
+		return fResultCache.get(key);
 	}
 
 	public void putCachedResult(Object key, Object result) {
@@ -1489,20 +1550,16 @@ public class PDOM extends PlatformObject implements IPDOM {
 
 	@Override
 	public Object putCachedResult(Object key, Object result, boolean replace) {
-		synchronized (fResultCache) {
-			Object old= fResultCache.put(key, result);
-			if (old != null && !replace) {
-				fResultCache.put(key, old);
-				return old;
-			}
-			return result;
-		}
+		return fResultCache.put(key, result, replace);
+	}
+
+	@Override
+	public Object putPinnedResult(Object key, Object result) {
+		return fResultCache.putPinned(key, result);
 	}
 
 	public void removeCachedResult(Object key) {
-		synchronized (fResultCache) {
-			fResultCache.remove(key);
-		}
+		fResultCache.remove(key);
 	}
 
 	public String createKeyForCache(long record, char[] name) {
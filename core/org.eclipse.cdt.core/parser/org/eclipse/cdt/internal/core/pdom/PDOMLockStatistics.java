@@ -0,0 +1,99 @@
+/*******************************************************************************
+ * Copyright (c) 2016 agent and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     agent - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.cdt.internal.core.pdom;
+
+import java.util.Arrays;
+
+/**
+ * Counts the acquisitions of the read and write locks of a PDOM together with the time spent
+ * waiting for and holding them. In addition to the totals, the durations are recorded in
+ * histograms with {@link #HISTOGRAM_BUCKETS} buckets, where bucket <code>i > 0</code> counts
+ * durations from <code>2^(i-1)</code> up to <code>2^i</code> milliseconds, and bucket 0 counts
+ * durations below one millisecond. The last bucket also counts all longer durations.
+ */
+public final class PDOMLockStatistics {
+	public static final int HISTOGRAM_BUCKETS= 16;
+
+	private long fReadLockCount;
+	private long fReadLockWaitNanos;
+	private long fWriteLockCount;
+	private long fWriteLockWaitNanos;
+	private long fWriteLockHoldNanos;
+	private final long[] fReadLockWaitHistogram= new long[HISTOGRAM_BUCKETS];
+	private final long[] fWriteLockWaitHistogram= new long[HISTOGRAM_BUCKETS];
+	private final long[] fWriteLockHoldHistogram= new long[HISTOGRAM_BUCKETS];
+
+	synchronized void readLockAcquired(long waitNanos) {
+		fReadLockCount++;
+		fReadLockWaitNanos+= waitNanos;
+		fReadLockWaitHistogram[bucket(waitNanos)]++;
+	}
+
+	synchronized void writeLockAcquired(long waitNanos) {
+		fWriteLockCount++;
+		fWriteLockWaitNanos+= waitNanos;
+		fWriteLockWaitHistogram[bucket(waitNanos)]++;
+	}
+
+	synchronized void writeLockReleased(long holdNanos) {
+		fWriteLockHoldNanos+= holdNanos;
+		fWriteLockHoldHistogram[bucket(holdNanos)]++;
+	}
+
+	static int bucket(long nanos) {
+		final long millis= nanos / 1000000;
+		if (millis <= 0)
+			return 0;
+		// Number of bits needed to represent the milliseconds, i.e. floor(log2(millis)) + 1.
+		final int bits= Long.SIZE - Long.numberOfLeadingZeros(millis);
+		return Math.min(bits, HISTOGRAM_BUCKETS - 1);
+	}
+
+	public synchronized long getReadLockCount() {
+		return fReadLockCount;
+	}
+
+	public synchronized long getReadLockWaitNanos() {
+		return fReadLockWaitNanos;
+	}
+
+	public synchronized long getWriteLockCount() {
+		return fWriteLockCount;
+	}
+
+	public synchronized long getWriteLockWaitNanos() {
+		return fWriteLockWaitNanos;
+	}
+
+	public synchronized long getWriteLockHoldNanos() {
+		return fWriteLockHoldNanos;
+	}
+
+	public synchronized long[] getReadLockWaitHistogram() {
+		return fReadLockWaitHistogram.clone();
+	}
+
+	public synchronized long[] getWriteLockWaitHistogram() {
+		return fWriteLockWaitHistogram.clone();
+	}
+
+	public synchronized long[] getWriteLockHoldHistogram() {
+		return fWriteLockHoldHistogram.clone();
+	}
+
+	public synchronized void reset() {
+		fReadLockCount= fReadLockWaitNanos= 0;
+		fWriteLockCount= fWriteLockWaitNanos= fWriteLockHoldNanos= 0;
+		Arrays.fill(fReadLockWaitHistogram, 0);
+		Arrays.fill(fWriteLockWaitHistogram, 0);
+		Arrays.fill(fWriteLockHoldHistogram, 0);
+	}
+}
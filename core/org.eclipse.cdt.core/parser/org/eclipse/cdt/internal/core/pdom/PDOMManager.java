@@ -283,6 +283,11 @@ public class PDOMManager implements IWritableIndexManager, IListener {
 			jobToCancel.cancelJobs(null, true);
 		}
 		Job.getJobManager().removeJobChangeListener(fJobChangeListener);
+		synchronized (fProjectToPDOM) {
+			for (IProject project : fProjectToPDOM.keySet()) {
+				PDOMStatistics.unregister(project.getName());
+			}
+		}
 	}
 
 	protected void onPreferenceChange(PreferenceChangeEvent event) {
@@ -382,6 +387,20 @@ public class PDOMManager implements IWritableIndexManager, IListener {
 			}
 
 			WritablePDOM pdom= new WritablePDOM(dbFile, new PDOMProjectIndexLocationConverter(rproject), getLinkageFactories());
+			pdom.setMemoryMapped(CCorePreferenceConstants.getPreference(CCorePreferenceConstants.INDEX_DB_MEMORY_MAPPED,
+					project, CCorePreferenceConstants.DEFAULT_INDEX_DB_MEMORY_MAPPED));
+			try {
+				pdom.acquireWriteLock(monitor);
+			} catch (InterruptedException e) {
+				throw new CoreException(CCorePlugin.createStatus(Messages.PDOMManager_creationOfIndexInterrupted, e));
+			}
+			try {
+				// Turning off the journal writes it to the database file.
+				pdom.setJournaled(CCorePreferenceConstants.getPreference(CCorePreferenceConstants.INDEX_DB_JOURNAL,
+						project, CCorePreferenceConstants.DEFAULT_INDEX_DB_JOURNAL));
+			} finally {
+				pdom.releaseWriteLock(0, false);
+			}
 			if (!pdom.isSupportedVersion() || fromScratch) {
 				try {
 					pdom.acquireWriteLock(monitor);
@@ -402,6 +421,7 @@ public class PDOMManager implements IWritableIndexManager, IListener {
 
 			fFileToProject.put(dbFile, project);
 			fProjectToPDOM.put(rproject, pdom);
+			PDOMStatistics.register(rproject.getName(), pdom);
 			if (pdomProxy instanceof PDOMProxy) {
 				((PDOMProxy) pdomProxy).setDelegate(pdom);
 			}
@@ -846,6 +866,7 @@ public class PDOMManager implements IWritableIndexManager, IListener {
 			stopIndexer(indexer);
 		}
     	unregisterPreferenceListener(cproject);
+    	PDOMStatistics.unregister(name);
     	Object pdom= null;
     	synchronized (fProjectToPDOM) {
     		pdom = fProjectToPDOM.remove(rproject);
@@ -1272,6 +1293,9 @@ public class PDOMManager implements IWritableIndexManager, IListener {
 				// Ensure that fragment id has a sensible value, in case callee's do not
 				// overwrite with their own values.
 				newPDOM.setProperty(IIndexFragment.PROPERTY_FRAGMENT_ID, "exported." + oldID); //$NON-NLS-1$
+				// Reclaim the space freed while rewriting the locations, and clear the free blocks
+				// such that the exported file compresses well.
+				newPDOM.getDB().compact();
 				newPDOM.close();
 			} finally {
 				newPDOM.releaseWriteLock();
@@ -351,6 +351,11 @@ public class PDOMProxy implements IPDOM {
 		return value;
 	}
 
+	@Override
+	public Object putPinnedResult(Object key, Object value) {
+		return value;
+	}
+
 	@Override
 	public void clearResultCache() {
 		if (fDelegate != null)
@@ -0,0 +1,154 @@
+/*******************************************************************************
+ * Copyright (c) 2016 agent and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     agent - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.cdt.internal.core.pdom;
+
+import java.util.Map.Entry;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.eclipse.cdt.internal.core.parser.util.LRUCache;
+
+/**
+ * Size-bounded cache for results computed from the content of a PDOM. The cache is split into
+ * segments with separate locks, such that concurrent readers of the PDOM rarely contend for the
+ * same lock. Each segment evicts its least recently used entries when it is full.
+ * <p>
+ * Because entries are evicted, results that can be recomputed only may be stored with
+ * {@link #put(Object, Object, boolean)}. Results whose identity has to be preserved for as long
+ * as the cache is not cleared, e.g. the caches of template instances, are stored with
+ * {@link #putPinned(Object, Object)} and are never evicted.
+ */
+public final class PDOMResultCache {
+	public static final int DEFAULT_CAPACITY= 100000;
+	private static final int SEGMENTS= 16;	// Must be a power of two.
+
+	private final LRUCache<Object, Object>[] fSegments;
+	private final ConcurrentHashMap<Object, Object> fPinned= new ConcurrentHashMap<>();
+	private final LongAdder fHits= new LongAdder();
+	private final LongAdder fMisses= new LongAdder();
+	private final LongAdder fEvictions= new LongAdder();
+
+	@SuppressWarnings("unchecked")
+	public PDOMResultCache(int capacity) {
+		final int segmentCapacity= Math.max(2, capacity / SEGMENTS);
+		fSegments= new LRUCache[SEGMENTS];
+		for (int i = 0; i < SEGMENTS; i++) {
+			fSegments[i]= new LRUCache<Object, Object>(segmentCapacity) {
+				@Override
+				protected boolean removeEldestEntry(Entry<Object, Object> eldest) {
+					if (super.removeEldestEntry(eldest)) {
+						fEvictions.increment();
+						return true;
+					}
+					return false;
+				}
+			};
+		}
+	}
+
+	private LRUCache<Object, Object> getSegment(Object key) {
+		final int h= key.hashCode();
+		return fSegments[(h ^ (h >>> 16)) & (SEGMENTS - 1)];
+	}
+
+	public Object get(Object key) {
+		Object result= fPinned.get(key);
+		if (result == null) {
+			final LRUCache<Object, Object> segment= getSegment(key);
+			synchronized (segment) {
+				result= segment.get(key);
+			}
+		}
+		if (result != null) {
+			fHits.increment();
+		} else {
+			fMisses.increment();
+		}
+		return result;
+	}
+
+	/**
+	 * Stores the result for the given key. Without <code>replace</code> an existing result
+	 * is kept.
+	 * @return the result stored in the cache.
+	 */
+	public Object put(Object key, Object result, boolean replace) {
+		final LRUCache<Object, Object> segment= getSegment(key);
+		synchronized (segment) {
+			Object old= segment.put(key, result);
+			if (old != null && !replace) {
+				segment.put(key, old);
+				return old;
+			}
+			return result;
+		}
+	}
+
+	/**
+	 * Stores a result that is not evicted when the cache is full. An existing result is kept.
+	 * @return the result stored in the cache.
+	 */
+	public Object putPinned(Object key, Object result) {
+		final Object old= fPinned.putIfAbsent(key, result);
+		return old != null ? old : result;
+	}
+
+	public void remove(Object key) {
+		fPinned.remove(key);
+		final LRUCache<Object, Object> segment= getSegment(key);
+		synchronized (segment) {
+			segment.remove(key);
+		}
+	}
+
+	public void clear() {
+		fPinned.clear();
+		for (LRUCache<Object, Object> segment : fSegments) {
+			synchronized (segment) {
+				segment.clear();
+			}
+		}
+	}
+
+	/**
+	 * Returns the number of entries in the cache.
+	 */
+	public int size() {
+		int result= fPinned.size();
+		for (LRUCache<Object, Object> segment : fSegments) {
+			synchronized (segment) {
+				result+= segment.size();
+			}
+		}
+		return result;
+	}
+
+	public long getHits() {
+		return fHits.sum();
+	}
+
+	public long getMisses() {
+		return fMisses.sum();
+	}
+
+	/**
+	 * Returns the number of entries that have been evicted because the cache was full.
+	 */
+	public long getEvictions() {
+		return fEvictions.sum();
+	}
+
+	public void resetCounters() {
+		fHits.reset();
+		fMisses.reset();
+		fEvictions.reset();
+	}
+}
@@ -0,0 +1,238 @@
+/*******************************************************************************
+ * Copyright (c) 2016 agent and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     agent - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.cdt.internal.core.pdom;
+
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.Date;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.eclipse.cdt.core.CCorePlugin;
+import org.eclipse.cdt.internal.core.pdom.db.Database;
+
+/**
+ * Runtime statistics of a PDOM, published as an MBean for each project index.
+ */
+public class PDOMStatistics implements PDOMStatisticsMXBean {
+	private static final String DOMAIN= CCorePlugin.PLUGIN_ID;
+
+	private final PDOM fPDOM;
+
+	public PDOMStatistics(PDOM pdom) {
+		fPDOM= pdom;
+	}
+
+	/**
+	 * Registers the statistics of the given PDOM with the platform MBean server, replacing
+	 * a previous registration for the same project.
+	 */
+	public static void register(String projectName, PDOM pdom) {
+		try {
+			MBeanServer server= ManagementFactory.getPlatformMBeanServer();
+			ObjectName name= getObjectName(projectName);
+			if (server.isRegistered(name)) {
+				server.unregisterMBean(name);
+			}
+			server.registerMBean(new PDOMStatistics(pdom), name);
+		} catch (JMException e) {
+			CCorePlugin.log(e);
+		}
+	}
+
+	/**
+	 * Removes the statistics of the project's index from the platform MBean server.
+	 */
+	public static void unregister(String projectName) {
+		try {
+			MBeanServer server= ManagementFactory.getPlatformMBeanServer();
+			ObjectName name= getObjectName(projectName);
+			if (server.isRegistered(name)) {
+				server.unregisterMBean(name);
+			}
+		} catch (JMException e) {
+			CCorePlugin.log(e);
+		}
+	}
+
+	private static ObjectName getObjectName(String projectName) throws JMException {
+		return new ObjectName(DOMAIN + ":type=Index,project=" + ObjectName.quote(projectName)); //$NON-NLS-1$
+	}
+
+	private Database getDB() {
+		return fPDOM.getDB();
+	}
+
+	@Override
+	public String getLocation() {
+		return fPDOM.getPath().getAbsolutePath();
+	}
+
+	@Override
+	public long getDatabaseSize() {
+		return getDB().getSizeBytes();
+	}
+
+	@Override
+	public long getChunkCacheSize() {
+		return getDB().getChunkCache().getMaxSize();
+	}
+
+	@Override
+	public long getCacheHits() {
+		return getDB().getCacheHits();
+	}
+
+	@Override
+	public long getCacheMisses() {
+		return getDB().getCacheMisses();
+	}
+
+	@Override
+	public double getCacheHitRatio() {
+		final long hits= getCacheHits();
+		final long tries= hits + getCacheMisses();
+		return tries == 0 ? 0.0 : (double) hits / tries;
+	}
+
+	@Override
+	public long getChunkWrites() {
+		return getDB().getChunkWrites();
+	}
+
+	@Override
+	public long getBytesWritten() {
+		return getDB().getBytesWritten();
+	}
+
+	@Override
+	public long getMallocCount() {
+		return getDB().getMallocCount();
+	}
+
+	@Override
+	public long getFreeCount() {
+		return getDB().getFreeCount();
+	}
+
+	@Override
+	public long getResultCacheSize() {
+		return fPDOM.getResultCache().size();
+	}
+
+	@Override
+	public long getResultCacheHits() {
+		return fPDOM.getResultCache().getHits();
+	}
+
+	@Override
+	public long getResultCacheMisses() {
+		return fPDOM.getResultCache().getMisses();
+	}
+
+	@Override
+	public long getResultCacheEvictions() {
+		return fPDOM.getResultCache().getEvictions();
+	}
+
+	@Override
+	public long getReadLockCount() {
+		return fPDOM.getLockStatistics().getReadLockCount();
+	}
+
+	@Override
+	public double getReadLockWaitTime() {
+		return toMillis(fPDOM.getLockStatistics().getReadLockWaitNanos());
+	}
+
+	@Override
+	public long getWriteLockCount() {
+		return fPDOM.getLockStatistics().getWriteLockCount();
+	}
+
+	@Override
+	public double getWriteLockWaitTime() {
+		return toMillis(fPDOM.getLockStatistics().getWriteLockWaitNanos());
+	}
+
+	@Override
+	public double getWriteLockHoldTime() {
+		return toMillis(fPDOM.getLockStatistics().getWriteLockHoldNanos());
+	}
+
+	@Override
+	public long[] getReadLockWaitHistogram() {
+		return fPDOM.getLockStatistics().getReadLockWaitHistogram();
+	}
+
+	@Override
+	public long[] getWriteLockWaitHistogram() {
+		return fPDOM.getLockStatistics().getWriteLockWaitHistogram();
+	}
+
+	@Override
+	public long[] getWriteLockHoldHistogram() {
+		return fPDOM.getLockStatistics().getWriteLockHoldHistogram();
+	}
+
+	private static double toMillis(long nanos) {
+		return nanos / 1000000.0;
+	}
+
+	@Override
+	public void reset() {
+		fPDOM.resetCacheCounters();
+		fPDOM.getLockStatistics().reset();
+	}
+
+	@Override
+	public void dump(String fileName) throws IOException {
+		try (Writer writer= new FileWriter(fileName, true)) {
+			write(new PrintWriter(writer));
+		}
+	}
+
+	/**
+	 * Writes the current values of the statistics, one per line.
+	 */
+	@SuppressWarnings("nls")
+	public void write(PrintWriter out) {
+		out.println("# " + getLocation() + " " + new Date());
+		out.println("databaseSize=" + getDatabaseSize());
+		out.println("chunkCacheSize=" + getChunkCacheSize());
+		out.println("cacheHits=" + getCacheHits());
+		out.println("cacheMisses=" + getCacheMisses());
+		out.println("cacheHitRatio=" + getCacheHitRatio());
+		out.println("chunkWrites=" + getChunkWrites());
+		out.println("bytesWritten=" + getBytesWritten());
+		out.println("mallocCount=" + getMallocCount());
+		out.println("freeCount=" + getFreeCount());
+		out.println("resultCacheSize=" + getResultCacheSize());
+		out.println("resultCacheHits=" + getResultCacheHits());
+		out.println("resultCacheMisses=" + getResultCacheMisses());
+		out.println("resultCacheEvictions=" + getResultCacheEvictions());
+		out.println("readLockCount=" + getReadLockCount());
+		out.println("readLockWaitTime=" + getReadLockWaitTime());
+		out.println("writeLockCount=" + getWriteLockCount());
+		out.println("writeLockWaitTime=" + getWriteLockWaitTime());
+		out.println("writeLockHoldTime=" + getWriteLockHoldTime());
+		out.println("readLockWaitHistogram=" + Arrays.toString(getReadLockWaitHistogram()));
+		out.println("writeLockWaitHistogram=" + Arrays.toString(getWriteLockWaitHistogram()));
+		out.println("writeLockHoldHistogram=" + Arrays.toString(getWriteLockHoldHistogram()));
+		out.flush();
+	}
+}
@@ -0,0 +1,59 @@
+/*******************************************************************************
+ * Copyright (c) 2016 agent and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     agent - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.cdt.internal.core.pdom;
+
+import java.io.IOException;
+
+/**
+ * Management interface exposing the runtime statistics of a project's index via JMX.
+ * Times are reported in milliseconds.
+ */
+public interface PDOMStatisticsMXBean {
+	String getLocation();
+	long getDatabaseSize();
+	long getChunkCacheSize();
+
+	long getCacheHits();
+	long getCacheMisses();
+	double getCacheHitRatio();
+	long getChunkWrites();
+	long getBytesWritten();
+	long getMallocCount();
+	long getFreeCount();
+
+	long getResultCacheSize();
+	long getResultCacheHits();
+	long getResultCacheMisses();
+	long getResultCacheEvictions();
+
+	long getReadLockCount();
+	double getReadLockWaitTime();
+	long getWriteLockCount();
+	double getWriteLockWaitTime();
+	double getWriteLockHoldTime();
+
+	/**
+	 * Histograms of lock wait and hold times, see {@link PDOMLockStatistics} for the buckets.
+	 */
+	long[] getReadLockWaitHistogram();
+	long[] getWriteLockWaitHistogram();
+	long[] getWriteLockHoldHistogram();
+
+	/**
+	 * Resets the cache and lock counters.
+	 */
+	void reset();
+
+	/**
+	 * Appends the current values of the statistics to the given file.
+	 */
+	void dump(String fileName) throws IOException;
+}
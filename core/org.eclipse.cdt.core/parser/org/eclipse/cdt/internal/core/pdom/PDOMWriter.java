@@ -59,6 +59,8 @@ import org.eclipse.cdt.core.parser.IProblem;
 import org.eclipse.cdt.core.parser.ISignificantMacros;
 import org.eclipse.cdt.core.parser.util.CharArrayUtils;
 import org.eclipse.cdt.internal.core.dom.parser.ASTInternal;
+import org.eclipse.cdt.internal.core.dom.parser.cpp.CPPASTTranslationUnit;
+import org.eclipse.cdt.internal.core.dom.parser.cpp.CPPIndexLookupCache;
 import org.eclipse.cdt.internal.core.dom.parser.cpp.ICPPUnknownBinding;
 import org.eclipse.cdt.internal.core.index.FileContentKey;
 import org.eclipse.cdt.internal.core.index.IIndexFragmentFile;
@@ -418,6 +420,13 @@ public abstract class PDOMWriter implements IPDOMASTProcessor {
 			}
 		}
 		fStatistics.fResolutionTime += System.currentTimeMillis() - start;
+		if (data.fAST instanceof CPPASTTranslationUnit) {
+			CPPIndexLookupCache cache= ((CPPASTTranslationUnit) data.fAST).getIndexLookupCache();
+			if (cache != null) {
+				fStatistics.fLookupCacheHits += cache.getHits();
+				fStatistics.fLookupCacheMisses += cache.getMisses();
+			}
+		}
 	}
 
 	@Override
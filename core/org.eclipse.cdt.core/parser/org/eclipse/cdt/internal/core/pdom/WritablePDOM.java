@@ -29,6 +29,7 @@ import org.eclipse.cdt.internal.core.index.IIndexFragmentFile;
 import org.eclipse.cdt.internal.core.index.IWritableIndex.IncludeInformation;
 import org.eclipse.cdt.internal.core.index.IWritableIndexFragment;
 import org.eclipse.cdt.internal.core.model.TranslationUnit;
+import org.eclipse.cdt.internal.core.pdom.db.BTree;
 import org.eclipse.cdt.internal.core.pdom.db.ChunkCache;
 import org.eclipse.cdt.internal.core.pdom.db.DBProperties;
 import org.eclipse.cdt.internal.core.pdom.db.IBTreeVisitor;
@@ -227,15 +228,21 @@ public class WritablePDOM extends PDOM implements IWritableIndexFragment {
 
 		clearFileIndex();
 		final List<PDOMFile> notConverted = new ArrayList<PDOMFile>();
+		final long[] records= new long[pdomfiles.size()];
+		int count= 0;
 		for (PDOMFile file : pdomfiles) {
 			String internalFormat = newConverter.toInternalFormat(file.getLocation());
 			if (internalFormat != null) {
 				file.setInternalLocation(internalFormat);
-				getFileIndex().insert(file.getRecord());
+				records[count++]= file.getRecord();
 			} else {
 				notConverted.add(file);
 			}
 		}
+		// The new locations are in a different order, build the index from the sorted records.
+		final BTree fileIndex= getFileIndex();
+		fileIndex.sort(records, count);
+		fileIndex.bulkLoad(records, count);
 
 		// remove content where converter returns null
 		for (PDOMFile file : notConverted) {
@@ -12,6 +12,9 @@
  *******************************************************************************/
 package org.eclipse.cdt.internal.core.pdom.db;
 
+import java.util.Arrays;
+import java.util.Comparator;
+
 import org.eclipse.cdt.core.CCorePlugin;
 import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.IStatus;
@@ -211,6 +214,119 @@ public class BTree {
 		return db.malloc((2 * MAX_RECORDS + 1) * Database.INT_SIZE);
 	}
 
+	/**
+	 * Sorts the records according to the comparator of this b-tree, such that they can be passed
+	 * to {@link #bulkLoad(long[], int)}. The sort is stable, records that compare equal keep
+	 * their relative order.
+	 */
+	public void sort(long[] records, int length) throws CoreException {
+		Long[] boxed= new Long[length];
+		for (int i = 0; i < length; i++) {
+			boxed[i]= records[i];
+		}
+		try {
+			Arrays.sort(boxed, new Comparator<Long>() {
+				@Override
+				public int compare(Long r1, Long r2) {
+					try {
+						return cmp.compare(r1, r2);
+					} catch (CoreException e) {
+						throw new WrappedCoreException(e);
+					}
+				}
+			});
+		} catch (WrappedCoreException e) {
+			throw e.getCause();
+		}
+		for (int i = 0; i < length; i++) {
+			records[i]= boxed[i];
+		}
+	}
+
+	private static class WrappedCoreException extends RuntimeException {
+		private static final long serialVersionUID = 1L;
+
+		WrappedCoreException(CoreException cause) {
+			super(cause);
+		}
+
+		@Override
+		public synchronized CoreException getCause() {
+			return (CoreException) super.getCause();
+		}
+	}
+
+	/**
+	 * Builds the b-tree bottom-up from records sorted by the comparator of the b-tree. The nodes
+	 * are filled as densely as the b-tree invariants allow and are allocated level by level,
+	 * which is considerably cheaper than inserting the records one by one. Of records that
+	 * compare equal only the first one is added, as with {@link #insert(long)}.
+	 *
+	 * @param records the records sorted by the comparator of the b-tree
+	 * @param length the number of records to use from the array
+	 * @throws IllegalStateException if the b-tree is not empty
+	 * @throws IllegalArgumentException if the records are not sorted
+	 */
+	public void bulkLoad(long[] records, int length) throws CoreException {
+		if (getRoot() != 0)
+			throw new IllegalStateException("B-tree is not empty"); //$NON-NLS-1$
+
+		long[] keys= new long[length];
+		int n= 0;
+		for (int i = 0; i < length; i++) {
+			final long record= records[i];
+			if (n > 0) {
+				int c= cmp.compare(keys[n - 1], record);
+				if (c > 0)
+					throw new IllegalArgumentException("Records are not sorted"); //$NON-NLS-1$
+				if (c == 0)
+					continue;
+			}
+			keys[n++]= record;
+		}
+		if (n == 0)
+			return;
+
+		// At each level the keys are distributed to nodes, the key between two adjacent nodes is
+		// promoted to the parent level, together with the nodes as its children.
+		long[] children= null;
+		while (true) {
+			// k nodes hold n - (k - 1) keys, each node at most MAX_RECORDS of them.
+			final int nodeCount= (n + MAX_RECORDS + 1) / (MAX_RECORDS + 1);
+			final int keysInNodes= n - (nodeCount - 1);
+			final long[] parentKeys= new long[nodeCount - 1];
+			final long[] nodes= new long[nodeCount];
+			int k= 0;
+			int c= 0;
+			for (int j = 0; j < nodeCount; j++) {
+				// Spread the keys evenly, such that no node falls below MIN_RECORDS.
+				final int keyCount= keysInNodes / nodeCount + (j < keysInNodes % nodeCount ? 1 : 0);
+				final long node= allocateNode();
+				final Chunk chunk= db.getChunk(node);
+				for (int i = 0; i < keyCount; i++) {
+					putRecord(chunk, node, i, keys[k++]);
+					if (children != null) {
+						putChild(chunk, node, i, children[c++]);
+					}
+				}
+				if (children != null) {
+					putChild(chunk, node, keyCount, children[c++]);
+				}
+				nodes[j]= node;
+				if (j < nodeCount - 1) {
+					parentKeys[j]= keys[k++];
+				}
+			}
+			if (nodeCount == 1) {
+				db.putRecPtr(rootPointer, nodes[0]);
+				return;
+			}
+			keys= parentKeys;
+			n= parentKeys.length;
+			children= nodes;
+		}
+	}
+
 	/**
 	 * Deletes the specified record from the B-tree.
 	 * <p>
@@ -22,15 +22,22 @@ import org.eclipse.core.runtime.CoreException;
  * Caches the content of a piece of the database.
  */
 final class Chunk {
-	final private byte[] fBuffer= new byte[Database.CHUNK_SIZE];
+	/**
+	 * Either a heap buffer, or a read-only slice of a memory mapped region of the database file.
+	 * Only absolute get and put methods are used on the buffer, such that it can be shared by
+	 * concurrent readers. The field is volatile because readers look up cached chunks without
+	 * holding a lock.
+	 */
+	private volatile ByteBuffer fBuffer;
+	private boolean fMapped;
 
 	final Database fDatabase;
 	final int fSequenceNumber;
 	
-	boolean fCacheHitFlag;
+	boolean fCacheHitFlag;	// set without synchronization, see ChunkCache.touch(Chunk).
 	boolean fDirty;
 	boolean fLocked;	// locked chunks must not be released from cache.
-	int fCacheIndex= -1;
+	volatile int fCacheIndex= -1;	// modified by the cache, read by the database.
 		
 	Chunk(Database db, int sequenceNumber) {
 		fDatabase= db;
@@ -39,54 +46,110 @@ final class Chunk {
 
 	void read() throws CoreException {
 		try {
-			final ByteBuffer buf= ByteBuffer.wrap(fBuffer);
-			fDatabase.read(buf, (long) fSequenceNumber * Database.CHUNK_SIZE);
+			final ByteBuffer mapped= fDatabase.getMappedChunk(fSequenceNumber);
+			if (mapped != null) {
+				fBuffer= mapped;
+				fMapped= true;
+				return;
+			}
+			final ByteBuffer buf= ByteBuffer.allocate(Database.CHUNK_SIZE);
+			fDatabase.readChunk(buf, fSequenceNumber);
+			fBuffer= buf;
 		} catch (IOException e) {
 			throw new CoreException(new DBStatus(e));
 		}
 	}
 
+	/**
+	 * Initializes the content of a chunk that is not yet stored in the database file.
+	 */
+	void init() {
+		fBuffer= ByteBuffer.allocate(Database.CHUNK_SIZE);
+	}
+
 	void flush() throws CoreException {
+		if (fMapped) {
+			// The content has not been modified, there is nothing to write.
+			fDirty= false;
+			return;
+		}
 		try {
-			final ByteBuffer buf= ByteBuffer.wrap(fBuffer);
-			fDatabase.write(buf, (long) fSequenceNumber * Database.CHUNK_SIZE);
+			fDatabase.write(getContent(), (long) fSequenceNumber * Database.CHUNK_SIZE);
 		} catch (IOException e) {
 			throw new CoreException(new DBStatus(e));
 		}
 		fDirty= false;
 	}
 
+	/**
+	 * Returns a view of the entire content of the chunk, for writing it to a file.
+	 */
+	ByteBuffer getContent() {
+		final ByteBuffer buf= fBuffer.duplicate();
+		buf.clear();
+		return buf;
+	}
+
+	/**
+	 * Marks the chunk as dirty and returns the buffer to be modified. A chunk backed by
+	 * a memory mapped region is copied to the heap before the first modification, such that
+	 * the database file is still updated by {@link #flush()} only.
+	 */
+	private ByteBuffer modify() {
+		assert fLocked;
+		fDirty= true;
+		unmap();
+		return fBuffer;
+	}
+
+	/**
+	 * Copies the content of a chunk backed by a memory mapped region to the heap, such that
+	 * the chunk no longer refers to the region.
+	 */
+	void unmap() {
+		if (fMapped) {
+			final ByteBuffer copy= ByteBuffer.allocate(Database.CHUNK_SIZE);
+			final ByteBuffer src= fBuffer.duplicate();
+			src.clear();
+			copy.put(src);
+			fBuffer= copy;
+			fMapped= false;
+		}
+	}
+
 	private static int recPtrToIndex(final long offset) {
 		return (int) (offset & Database.OFFSET_IN_CHUNK_MASK);
 	}
 
+	/**
+	 * Returns a view of the buffer positioned at the given index.
+	 */
+	private ByteBuffer view(final int idx) {
+		final ByteBuffer buf= fBuffer.duplicate();
+		buf.position(idx);
+		return buf;
+	}
+
 	public void putByte(final long offset, final byte value) {
-		assert fLocked;
-		fDirty= true;
-		fBuffer[recPtrToIndex(offset)]= value;
+		modify().put(recPtrToIndex(offset), value);
 	}
 	
 	public byte getByte(final long offset) {
-		return fBuffer[recPtrToIndex(offset)];
+		return fBuffer.get(recPtrToIndex(offset));
 	}
 	
 	public byte[] getBytes(final long offset, final int length) {
 		final byte[] bytes = new byte[length];
-		System.arraycopy(fBuffer, recPtrToIndex(offset), bytes, 0, length);
+		get(offset, bytes, 0, length);
 		return bytes;
 	}
 	
 	public void putBytes(final long offset, final byte[] bytes) {
-		assert fLocked;
-		fDirty= true;
-		System.arraycopy(bytes, 0, fBuffer, recPtrToIndex(offset), bytes.length);
+		put(offset, bytes, 0, bytes.length);
 	}
 	
 	public void putInt(final long offset, final int value) {
-		assert fLocked;
-		fDirty= true;
-		int idx= recPtrToIndex(offset);
-		putInt(value, fBuffer, idx);
+		modify().putInt(recPtrToIndex(offset), value);
 	}
 
 	static final void putInt(final int value, final byte[] buffer, int idx) {
@@ -97,7 +160,7 @@ final class Chunk {
 	}
 	
 	public int getInt(final long offset) {
-		return getInt(fBuffer, recPtrToIndex(offset));
+		return fBuffer.getInt(recPtrToIndex(offset));
 	}
 
 	static final int getInt(final byte[] buffer, int idx) {
@@ -139,10 +202,8 @@ final class Chunk {
 	 * This is a pointer to a block + BLOCK_HEADER_SIZE.
 	 */
 	public void putRecPtr(final long offset, final long value) {
-		assert fLocked;
-		fDirty = true;
-		int idx = recPtrToIndex(offset);
-		Database.putRecPtr(value, fBuffer, idx);
+		final int denseValue = value == 0 ? 0 : compressFreeRecPtr(value - Database.BLOCK_HEADER_SIZE);
+		modify().putInt(recPtrToIndex(offset), denseValue);
 	}
 	
 	/**
@@ -150,135 +211,92 @@ final class Chunk {
 	 * i.e. the pointer is not moved past the BLOCK_HEADER_SIZE.
 	 */
 	public void putFreeRecPtr(final long offset, final long value) {
-		assert fLocked;
-		fDirty = true;
-		int idx = recPtrToIndex(offset);
-		putInt(compressFreeRecPtr(value), fBuffer, idx);
+		modify().putInt(recPtrToIndex(offset), compressFreeRecPtr(value));
 	}
 
 	public long getRecPtr(final long offset) {
-		final int idx = recPtrToIndex(offset);
-		return Database.getRecPtr(fBuffer, idx);
+		final long address = expandToFreeRecPtr(getInt(offset));
+		return address != 0 ? (address + Database.BLOCK_HEADER_SIZE) : address;
 	}
 	
 	public long getFreeRecPtr(final long offset) {
-		final int idx = recPtrToIndex(offset);
-		int value = getInt(fBuffer, idx);
-		return expandToFreeRecPtr(value);
+		return expandToFreeRecPtr(getInt(offset));
 	}
 	
 	public void put3ByteUnsignedInt(final long offset, final int value) {
-		assert fLocked;
-		fDirty= true;
+		final ByteBuffer buf= modify();
 		int idx= recPtrToIndex(offset);
-		fBuffer[idx]= (byte) (value >> 16);
-		fBuffer[++idx]= (byte) (value >> 8);
-		fBuffer[++idx]= (byte) (value);
+		buf.put(idx, (byte) (value >> 16));
+		buf.put(++idx, (byte) (value >> 8));
+		buf.put(++idx, (byte) (value));
 	}
 	
 	public int get3ByteUnsignedInt(final long offset) {
+		final ByteBuffer buf= fBuffer;
 		int idx= recPtrToIndex(offset);
-		return ((fBuffer[idx] & 0xff) << 16) |
-				((fBuffer[++idx] & 0xff) <<  8) |
-				((fBuffer[++idx] & 0xff) <<  0);
+		return ((buf.get(idx) & 0xff) << 16) |
+				((buf.get(++idx) & 0xff) <<  8) |
+				((buf.get(++idx) & 0xff) <<  0);
 	}
 
 	public void putShort(final long offset, final short value) {
-		assert fLocked;
-		fDirty= true;
-		int idx= recPtrToIndex(offset);
-		fBuffer[idx]= (byte) (value >> 8);
-		fBuffer[++idx]= (byte) (value);
+		modify().putShort(recPtrToIndex(offset), value);
 	}
 	
 	public short getShort(final long offset) {
-		int idx= recPtrToIndex(offset);
-		return (short) (((fBuffer[idx] << 8) | (fBuffer[++idx] & 0xff)));
+		return fBuffer.getShort(recPtrToIndex(offset));
 	}
 
 	public long getLong(final long offset) {
-		int idx= recPtrToIndex(offset);
-		return ((((long) fBuffer[idx] & 0xff) << 56) |
-				(((long) fBuffer[++idx] & 0xff) << 48) |
-				(((long) fBuffer[++idx] & 0xff) << 40) |
-				(((long) fBuffer[++idx] & 0xff) << 32) |
-				(((long) fBuffer[++idx] & 0xff) << 24) |
-				(((long) fBuffer[++idx] & 0xff) << 16) |
-				(((long) fBuffer[++idx] & 0xff) <<  8) |
-				(((long) fBuffer[++idx] & 0xff) <<  0));
+		return fBuffer.getLong(recPtrToIndex(offset));
 	}
 
 	public void putLong(final long offset, final long value) {
-		assert fLocked;
-		fDirty= true;
-		int idx= recPtrToIndex(offset);
-
-		fBuffer[idx]=   (byte) (value >> 56);
-		fBuffer[++idx]= (byte) (value >> 48);
-		fBuffer[++idx]= (byte) (value >> 40);
-		fBuffer[++idx]= (byte) (value >> 32);
-		fBuffer[++idx]= (byte) (value >> 24);
-		fBuffer[++idx]= (byte) (value >> 16);
-		fBuffer[++idx]= (byte) (value >> 8);
-		fBuffer[++idx]= (byte) (value);
+		modify().putLong(recPtrToIndex(offset), value);
 	}
 	
 	public void putChar(final long offset, final char value) {
-		assert fLocked;
-		fDirty= true;
-		int idx= recPtrToIndex(offset);
-		fBuffer[idx]= (byte) (value >> 8);
-		fBuffer[++idx]= (byte) (value);
+		modify().putChar(recPtrToIndex(offset), value);
 	}
 	
 	public void putChars(final long offset, char[] chars, int start, int len) {
-		assert fLocked;
-		fDirty= true;
-		int idx= recPtrToIndex(offset)-1;
-		final int end= start + len;
-		for (int i = start; i < end; i++) {
-			char value= chars[i];
-			fBuffer[++idx]= (byte) (value >> 8);
-			fBuffer[++idx]= (byte) (value);
-		}
+		final ByteBuffer buf= modify().duplicate();
+		buf.position(recPtrToIndex(offset));
+		buf.asCharBuffer().put(chars, start, len);
 	}
 
 	public void putCharsAsBytes(final long offset, char[] chars, int start, int len) {
-		assert fLocked;
-		fDirty= true;
+		final ByteBuffer buf= modify();
 		int idx= recPtrToIndex(offset)-1;
 		final int end= start + len;
 		for (int i = start; i < end; i++) {
 			char value= chars[i];
-			fBuffer[++idx]= (byte) (value);
+			buf.put(++idx, (byte) (value));
 		}
 	}
 
 	public char getChar(final long offset) {
-		int idx= recPtrToIndex(offset);
-		return (char) (((fBuffer[idx] << 8) | (fBuffer[++idx] & 0xff)));
+		return fBuffer.getChar(recPtrToIndex(offset));
 	}
 
 	public void getChars(final long offset, final char[] result, int start, int len) {
-		final ByteBuffer buf= ByteBuffer.wrap(fBuffer);
-		buf.position(recPtrToIndex(offset));
-		buf.asCharBuffer().get(result, start, len);
+		view(recPtrToIndex(offset)).asCharBuffer().get(result, start, len);
 	}
 
 	public void getCharsFromBytes(final long offset, final char[] result, int start, int len) {
+		final ByteBuffer buf= fBuffer;
 		final int pos = recPtrToIndex(offset);
 		for (int i = 0; i < len; i++) {
-			result[start + i] =  (char) (fBuffer[pos + i] & 0xff);
+			result[start + i] =  (char) (buf.get(pos + i) & 0xff);
 		}
 	}
 
 	void clear(final long offset, final int length) {
-		assert fLocked;
-		fDirty= true;
+		final ByteBuffer buf= modify();
 		int idx = recPtrToIndex(offset);
 		final int end = idx + length;
 		for (; idx < end; idx++) {
-			fBuffer[idx] = 0;
+			buf.put(idx, (byte) 0);
 		}
 	}
 
@@ -287,10 +305,9 @@ final class Chunk {
 	}
 	
 	void put(final long offset, final byte[] data, int dataPos, final int len) {
-		assert fLocked;
-		fDirty = true;
-		int idx = recPtrToIndex(offset);
-		System.arraycopy(data, dataPos, fBuffer, idx, len);
+		final ByteBuffer buf= modify().duplicate();
+		buf.position(recPtrToIndex(offset));
+		buf.put(data, dataPos, len);
 	}
 	
 	public void get(final long offset, byte[] data) {
@@ -298,7 +315,6 @@ final class Chunk {
 	}
 
 	public void get(final long offset, byte[] data, int dataPos, int len) {
-		int idx = recPtrToIndex(offset);
-		System.arraycopy(fBuffer, idx, data, dataPos, len);
+		view(recPtrToIndex(offset)).get(data, dataPos, len);
 	}
 }
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2007, 2014 Wind River Systems, Inc. and others.
+ * Copyright (c) 2007, 2016 Wind River Systems, Inc. and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -7,16 +7,32 @@
  *
  * Contributors:
  *     Markus Schorn - initial API and implementation
- *******************************************************************************/ 
+ *******************************************************************************/
 package org.eclipse.cdt.internal.core.pdom.db;
 
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Page cache for the chunks of one or more databases. The cache is divided into segments, each of
+ * them is a page table managed by the CLOCK algorithm and protected by its own lock. A chunk is
+ * assigned to a segment by its database and sequence number, such that threads loading different
+ * chunks rarely contend for the same lock.
+ * <p>
+ * Chunks that are already cached are looked up by the database without involving the cache, a hit
+ * only sets the reference flag of the chunk via {@link #touch(Chunk)}.
+ * <p>
+ * The cache never calls back into a database while holding a lock. Evicted chunks are handed back
+ * to the caller, which has to pass them to {@link Database#releaseChunk(Chunk)} after releasing
+ * its own locks.
+ */
 public final class ChunkCache {
+	private static final int MAX_SEGMENT_COUNT= 16;
 	private static ChunkCache sSharedInstance= new ChunkCache();
-	
-	private Chunk[] fPageTable;
-	private boolean fTableIsFull;
-	private int fPointer;
-	
+
+	private final Segment[] fSegments;
+	private final int fSegmentMask;
+
 	public static ChunkCache getSharedInstance() {
 		return sSharedInstance;
 	}
@@ -24,116 +40,187 @@ public final class ChunkCache {
 	public ChunkCache() {
 		this(5 * 1024 * 1024);
 	}
-	
+
 	public ChunkCache(long maxSize) {
-		fPageTable= new Chunk[computeLength(maxSize)];
-	}
-	
-	public synchronized void add(Chunk chunk, boolean locked) {
-		if (locked) {
-			chunk.fLocked= true;
+		final int length= computeLength(maxSize);
+		int segmentCount= 1;
+		while (segmentCount < MAX_SEGMENT_COUNT && segmentCount * 2 <= length) {
+			segmentCount*= 2;
 		}
-		if (chunk.fCacheIndex >= 0) {
-			chunk.fCacheHitFlag= true;
-			return;
+		fSegments= new Segment[segmentCount];
+		fSegmentMask= segmentCount - 1;
+		for (int i = 0; i < segmentCount; i++) {
+			fSegments[i]= new Segment(segmentLength(length, i));
 		}
-		if (fTableIsFull) {
-			evictChunk();
-			chunk.fCacheIndex= fPointer;
-			fPageTable[fPointer]= chunk;
-		} else {
-			chunk.fCacheIndex= fPointer;
-			fPageTable[fPointer]= chunk;
-
-			fPointer++;
-			if (fPointer == fPageTable.length) {
-				fPointer= 0;
-				fTableIsFull= true;
-			}
+	}
+
+	private Segment getSegment(Chunk chunk) {
+		int h= chunk.fDatabase.hashCode() + chunk.fSequenceNumber * 0x9E3779B9;
+		h^= h >>> 16;
+		return fSegments[h & fSegmentMask];
+	}
+
+	private int segmentLength(int length, int segment) {
+		final int count= fSegments.length;
+		return Math.max(1, length / count + (segment < length % count ? 1 : 0));
+	}
+
+	/**
+	 * Marks a cached chunk as recently used. Does not require any lock, a lost update just
+	 * gives the chunk one less chance to survive the next sweep of the clock.
+	 */
+	void touch(Chunk chunk) {
+		chunk.fCacheHitFlag= true;
+	}
+
+	/**
+	 * Adds the chunk to the cache, or marks it as recently used if it is already cached.
+	 * Must be called while holding the lock of the database of the chunk.
+	 * @return the chunk that has been evicted to make room for the new one, or <code>null</code>.
+	 */
+	Chunk add(Chunk chunk) {
+		return getSegment(chunk).add(chunk);
+	}
+
+	/**
+	 * Removes the chunk from the cache. Must be called while holding the lock of the database
+	 * of the chunk.
+	 */
+	void remove(Chunk chunk) {
+		getSegment(chunk).remove(chunk);
+	}
+
+	/**
+	 * Returns the maximum size of the chunk cache in bytes.
+	 */
+	public long getMaxSize() {
+		long length= 0;
+		for (Segment segment : fSegments) {
+			length+= segment.getLength();
 		}
+		return length * Database.CHUNK_SIZE;
 	}
-	
-	/**                                                                   
-	 * Evicts a chunk from the page table and the chunk table.            
-	 * After this method returns, {@link #fPointer}  will contain
-	 * the index of the evicted chunk within the page table.              
-	 */                                                                   
-	private void evictChunk() {
-		/*
-		 * Use the CLOCK algorithm to determine which chunk to evict.
-		 * i.e., if the chunk in the current slot of the page table has been
-		 * recently referenced (i.e. the reference flag is set), unset the
-		 * reference flag and move to the next slot.  Otherwise, evict the
-		 * chunk in the current slot.
-		 */
-		while (true) {
-			Chunk chunk = fPageTable[fPointer];
-			if (chunk.fCacheHitFlag) {
-				chunk.fCacheHitFlag= false;
-				fPointer= (fPointer + 1) % fPageTable.length;
-			} else {
-				chunk.fDatabase.releaseChunk(chunk);
-				chunk.fCacheIndex= -1;
-				fPageTable[fPointer] = null;
-				return;
-			}
+
+	/**
+	 * Changes the page table to hold chunks with maximum total memory of <code>maxSize</code>.
+	 * Chunks that no longer fit are evicted.
+	 * @param maxSize the total size of the chunks in bytes.
+	 */
+	public void setMaxSize(long maxSize) {
+		final int length= computeLength(maxSize);
+		List<Chunk> evicted= new ArrayList<>();
+		for (int i = 0; i < fSegments.length; i++) {
+			fSegments[i].setLength(segmentLength(length, i), evicted);
+		}
+		for (Chunk chunk : evicted) {
+			chunk.fDatabase.releaseChunk(chunk);
 		}
 	}
 
-	public synchronized void remove(Chunk chunk) {
-		final int idx= chunk.fCacheIndex;
-		if (idx >= 0) {
+	private int computeLength(long maxSize) {
+		long maxLength= Math.min(maxSize / Database.CHUNK_SIZE, Integer.MAX_VALUE);
+		return Math.max(1, (int) maxLength);
+	}
+
+	private static final class Segment {
+		private Chunk[] fPageTable;
+		private boolean fTableIsFull;
+		private int fPointer;
+
+		Segment(int length) {
+			fPageTable= new Chunk[length];
+		}
+
+		synchronized int getLength() {
+			return fPageTable.length;
+		}
+
+		synchronized Chunk add(Chunk chunk) {
+			if (chunk.fCacheIndex >= 0) {
+				chunk.fCacheHitFlag= true;
+				return null;
+			}
+			Chunk evicted= null;
 			if (fTableIsFull) {
-				fPointer= fPageTable.length-1;
-				fTableIsFull= false;
+				evicted= evictChunk();
+				chunk.fCacheIndex= fPointer;
+				fPageTable[fPointer]= chunk;
 			} else {
-				fPointer--;
+				chunk.fCacheIndex= fPointer;
+				fPageTable[fPointer]= chunk;
+
+				fPointer++;
+				if (fPointer == fPageTable.length) {
+					fPointer= 0;
+					fTableIsFull= true;
+				}
 			}
-			chunk.fCacheIndex= -1;
-			final Chunk move= fPageTable[fPointer];
-			fPageTable[idx]= move;
-			move.fCacheIndex= idx;
-			fPageTable[fPointer]= null;
-		}	
-	}
+			return evicted;
+		}
 
-	/**                                                                           
-	 * Returns the maximum size of the chunk cache in bytes.
-	 */                                                                           
-	public synchronized long getMaxSize() {
-		return (long) fPageTable.length * Database.CHUNK_SIZE;
-	}
+		/**
+		 * Evicts a chunk from the page table.
+		 * After this method returns, {@link #fPointer}  will contain
+		 * the index of the evicted chunk within the page table.
+		 */
+		private Chunk evictChunk() {
+			/*
+			 * Use the CLOCK algorithm to determine which chunk to evict.
+			 * i.e., if the chunk in the current slot of the page table has been
+			 * recently referenced (i.e. the reference flag is set), unset the
+			 * reference flag and move to the next slot.  Otherwise, evict the
+			 * chunk in the current slot.
+			 */
+			while (true) {
+				Chunk chunk = fPageTable[fPointer];
+				if (chunk.fCacheHitFlag) {
+					chunk.fCacheHitFlag= false;
+					fPointer= (fPointer + 1) % fPageTable.length;
+				} else {
+					chunk.fCacheIndex= -1;
+					fPageTable[fPointer] = null;
+					return chunk;
+				}
+			}
+		}
 
-	/**                                                                           
-	 * Clears the page table and changes it to hold chunks with
-	 * maximum total memory of <code>maxSize</code>.       
-	 * @param maxSize the total size of the chunks in bytes.                
-	 */                                                                           
-	public synchronized void setMaxSize(long maxSize) {
-		final int newLength= computeLength(maxSize);
-		final int oldLength= fTableIsFull ? fPageTable.length : fPointer;
-		if (newLength > oldLength) {
-			Chunk[] newTable= new Chunk[newLength];
-			System.arraycopy(fPageTable, 0, newTable, 0, oldLength);
-			fTableIsFull= false;
-			fPointer= oldLength;
-			fPageTable= newTable;
-		} else {
-			for (int i= newLength; i < oldLength; i++) {
-				final Chunk chunk= fPageTable[i];
-				chunk.fDatabase.releaseChunk(chunk);
+		synchronized void remove(Chunk chunk) {
+			final int idx= chunk.fCacheIndex;
+			if (idx >= 0) {
+				if (fTableIsFull) {
+					fPointer= fPageTable.length-1;
+					fTableIsFull= false;
+				} else {
+					fPointer--;
+				}
+				final Chunk move= fPageTable[fPointer];
+				fPageTable[idx]= move;
+				move.fCacheIndex= idx;
+				fPageTable[fPointer]= null;
 				chunk.fCacheIndex= -1;
 			}
-			Chunk[] newTable= new Chunk[newLength];
-			System.arraycopy(fPageTable, 0, newTable, 0, newLength);
-			fTableIsFull= true;
-			fPointer= 0;
-			fPageTable= newTable;
-		}       
-	}                                                                             
+		}
 
-	private int computeLength(long maxSize) {
-		long maxLength= Math.min(maxSize / Database.CHUNK_SIZE, Integer.MAX_VALUE);
-		return Math.max(1, (int) maxLength);
+		synchronized void setLength(int newLength, List<Chunk> evicted) {
+			final int oldLength= fTableIsFull ? fPageTable.length : fPointer;
+			if (newLength > oldLength) {
+				Chunk[] newTable= new Chunk[newLength];
+				System.arraycopy(fPageTable, 0, newTable, 0, oldLength);
+				fTableIsFull= false;
+				fPointer= oldLength;
+				fPageTable= newTable;
+			} else {
+				for (int i= newLength; i < oldLength; i++) {
+					final Chunk chunk= fPageTable[i];
+					chunk.fCacheIndex= -1;
+					evicted.add(chunk);
+				}
+				Chunk[] newTable= new Chunk[newLength];
+				System.arraycopy(fPageTable, 0, newTable, 0, newLength);
+				fTableIsFull= true;
+				fPointer= 0;
+				fPageTable= newTable;
+			}
+		}
 	}
 }
@@ -19,10 +19,13 @@ import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.RandomAccessFile;
 import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
 import java.nio.channels.ClosedByInterruptException;
 import java.nio.channels.ClosedChannelException;
 import java.nio.channels.FileChannel;
 import java.util.ArrayList;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
 
 import org.eclipse.cdt.core.CCorePlugin;
 import org.eclipse.core.runtime.CoreException;
@@ -90,24 +93,41 @@ public class Database {
 	private static final int BLOCK_PREV_OFFSET = BLOCK_HEADER_SIZE;
 	private static final int BLOCK_NEXT_OFFSET = BLOCK_HEADER_SIZE + INT_SIZE;
 
+	// Size of the regions of the file that are mapped into memory, must be a multiple of CHUNK_SIZE.
+	private static final int MAPPED_REGION_SIZE = 64 * 1024 * 1024;
+	private static final int CHUNKS_PER_MAPPED_REGION = MAPPED_REGION_SIZE / CHUNK_SIZE;
+	// Number of chunks compacted between two flushes, limits the number of modified chunks in memory.
+	private static final int COMPACT_FLUSH_INTERVAL = 4096;
+	// Size of the journal from which on a commit is followed by a checkpoint.
+	private static final long CHECKPOINT_SIZE = 32 * 1024 * 1024;
+
 	private final File fLocation;
 	private final boolean fReadOnly;
 	private RandomAccessFile fFile;
-	private boolean fExclusiveLock;	 // Necessary for any write operation.
+	private volatile boolean fExclusiveLock;	 // Necessary for any write operation.
 	private boolean fLocked;		 // Necessary for any operation.
 	private boolean fIsMarkedIncomplete;
 
 	private int fVersion;
 	private final Chunk fHeaderChunk;
-	private Chunk[] fChunks;
+	// Replaced and modified under the monitor of this, elements are read without a lock.
+	private volatile AtomicReferenceArray<Chunk> fChunks;
 	private int fChunksUsed;
 	private int fChunksAllocated;
-	private ChunkCache fCache;
+	private final ChunkCache fCache;
+	private boolean fMemoryMapped;
+	private MappedByteBuffer[] fMappedRegions= {};
+	private volatile Journal fJournal;
 
 	private long malloced;
 	private long freed;
-	private long cacheHits;
-	private long cacheMisses;
+	private long mallocCount;
+	private long freeCount;
+	// Updated by concurrent readers.
+	private final LongAdder cacheHits= new LongAdder();
+	private final LongAdder cacheMisses= new LongAdder();
+	private final LongAdder chunkWrites= new LongAdder();
+	private final LongAdder bytesWritten= new LongAdder();
 
 	/**
 	 * Construct a new Database object, creating a backing file if necessary.
@@ -123,18 +143,25 @@ public class Database {
 			fReadOnly= openReadOnly;
 			fCache= cache;
 			openFile();
+			openJournal();
 
 			int nChunksOnDisk = (int) (fFile.length() / CHUNK_SIZE);
+			final Journal journal= fJournal;
+			if (journal != null) {
+				// The chunks appended since the last checkpoint exist in the journal only.
+				nChunksOnDisk= Math.max(nChunksOnDisk, journal.getMaxSequenceNumber() + 1);
+			}
 			fHeaderChunk= new Chunk(this, 0);
 			fHeaderChunk.fLocked= true;		// Never makes it into the cache, needed to satisfy assertions.
 			if (nChunksOnDisk <= 0) {
+				fHeaderChunk.init();
 				fVersion= version;
-				fChunks= new Chunk[1];
-				fChunksUsed = fChunksAllocated = fChunks.length;
+				fChunks= new AtomicReferenceArray<>(1);
+				fChunksUsed = fChunksAllocated = fChunks.length();
 			} else {
 				fHeaderChunk.read();
 				fVersion= fHeaderChunk.getInt(VERSION_OFFSET);
-				fChunks = new Chunk[nChunksOnDisk];	// chunk[0] is unused.
+				fChunks = new AtomicReferenceArray<>(nChunksOnDisk);	// chunk[0] is unused.
 				fChunksUsed = fChunksAllocated = nChunksOnDisk;
 			}
 		} catch (IOException e) {
@@ -146,6 +173,36 @@ public class Database {
 		fFile = new RandomAccessFile(fLocation, fReadOnly ? "r" : "rw"); //$NON-NLS-1$ //$NON-NLS-2$
 	}
 
+	/**
+	 * Recovers the modifications committed to a journal that has been left behind by a database
+	 * that was not closed. A writable database is updated from the journal, a read-only database
+	 * keeps reading the modified chunks from the journal.
+	 */
+	private void openJournal() throws IOException {
+		final File location= Journal.getLocation(fLocation);
+		if (!location.exists())
+			return;
+
+		final Journal journal= new Journal(location, fReadOnly);
+		if (fReadOnly) {
+			fJournal= journal;
+		} else {
+			journal.checkpoint(this);
+			journal.close();
+		}
+	}
+
+	/**
+	 * Reads the content of the chunk with the given sequence number, either from the journal
+	 * or from the database file.
+	 */
+	void readChunk(ByteBuffer buf, int sequenceNumber) throws IOException {
+		final Journal journal= fJournal;
+		if (journal == null || !journal.read(sequenceNumber, buf)) {
+			read(buf, (long) sequenceNumber * CHUNK_SIZE);
+		}
+	}
+
 	void read(ByteBuffer buf, long position) throws IOException {
 		int retries= 0;
 		do {
@@ -163,7 +220,24 @@ public class Database {
 		int retries= 0;
 		while (true) {
 			try {
-				fFile.getChannel().write(buf, position);
+				bytesWritten.add(fFile.getChannel().write(buf, position));
+				chunkWrites.increment();
+				return;
+			} catch (ClosedChannelException e) {
+				// Bug 219834 file may have be closed by interrupting a thread during an I/O operation.
+				reopen(e, ++retries);
+			}
+		}
+	}
+
+	/**
+	 * Forces the modifications of the database file to the storage device.
+	 */
+	void force() throws IOException {
+		int retries= 0;
+		while (true) {
+			try {
+				fFile.getChannel().force(false);
 				return;
 			} catch (ClosedChannelException e) {
 				// Bug 219834 file may have be closed by interrupting a thread during an I/O operation.
@@ -180,6 +254,147 @@ public class Database {
 		openFile();
 	}
 
+	/**
+	 * Controls whether chunks are read through memory mapped regions of the database file. Chunks
+	 * read that way share the memory with the operating system's file cache, until they are
+	 * modified. Modified chunks are always written back to the file via {@link #write}.
+	 */
+	public void setMemoryMapped(boolean value) {
+		synchronized (this) {
+			fMemoryMapped= value;
+			if (!value) {
+				releaseMappedRegions();
+			}
+		}
+	}
+
+	public boolean isMemoryMapped() {
+		return fMemoryMapped;
+	}
+
+	/**
+	 * Controls whether modifications are appended to a write-ahead journal next to the database
+	 * file rather than written to the database file directly. With the journal, every complete
+	 * flush is an atomic commit. When a database is opened after its process has been killed, it
+	 * is restored to the state of the last commit. Without the journal the file is marked
+	 * incomplete while it is written, and such a database cannot be used anymore.
+	 * <p>
+	 * Turning the journal off flushes the database and writes the content of the journal to the
+	 * database file, which requires the exclusive lock. Has no effect on a read-only database.
+	 */
+	public void setJournaled(boolean value) throws CoreException {
+		if (fReadOnly || value == (fJournal != null))
+			return;
+		try {
+			if (value) {
+				synchronized (fHeaderChunk) {
+					fJournal= new Journal(Journal.getLocation(fLocation), false);
+				}
+			} else {
+				assert fExclusiveLock;
+				if (fJournal.hasUncommittedFrames()) {
+					flush();
+				}
+				synchronized (fHeaderChunk) {
+					final Journal journal= fJournal;
+					journal.checkpoint(this);
+					journal.close();
+					fJournal= null;
+				}
+			}
+		} catch (IOException e) {
+			throw new CoreException(new DBStatus(e));
+		}
+	}
+
+	public boolean isJournaled() {
+		return fJournal != null;
+	}
+
+	/**
+	 * Returns a read-only buffer for the content of the chunk with the given sequence number, or
+	 * <code>null</code> if memory mapping is not enabled or the chunk is not yet part of the file.
+	 * The header chunk is never mapped.
+	 */
+	ByteBuffer getMappedChunk(int sequenceNumber) throws IOException {
+		synchronized (this) {
+			if (!fMemoryMapped || sequenceNumber == 0) {
+				return null;
+			}
+			final Journal journal= fJournal;
+			if (journal != null && journal.contains(sequenceNumber)) {
+				// The content in the database file is outdated.
+				return null;
+			}
+			final int regionIndex= sequenceNumber / CHUNKS_PER_MAPPED_REGION;
+			final int offsetInRegion= (sequenceNumber % CHUNKS_PER_MAPPED_REGION) * CHUNK_SIZE;
+			if (regionIndex >= fMappedRegions.length) {
+				MappedByteBuffer[] newRegions= new MappedByteBuffer[regionIndex + 1];
+				System.arraycopy(fMappedRegions, 0, newRegions, 0, fMappedRegions.length);
+				fMappedRegions= newRegions;
+			}
+			MappedByteBuffer region= fMappedRegions[regionIndex];
+			if (region == null || region.capacity() < offsetInRegion + CHUNK_SIZE) {
+				// The file may have grown since the region was mapped.
+				region= mapRegion(regionIndex);
+				if (region == null || region.capacity() < offsetInRegion + CHUNK_SIZE) {
+					return null;
+				}
+				fMappedRegions[regionIndex]= region;
+			}
+			final ByteBuffer buf= region.duplicate();
+			buf.position(offsetInRegion);
+			buf.limit(offsetInRegion + CHUNK_SIZE);
+			return buf.slice();
+		}
+	}
+
+	private MappedByteBuffer mapRegion(int regionIndex) throws IOException {
+		final long position= (long) regionIndex * MAPPED_REGION_SIZE;
+		int retries= 0;
+		while (true) {
+			try {
+				final FileChannel channel= fFile.getChannel();
+				long size= Math.min(MAPPED_REGION_SIZE, channel.size() - position);
+				size-= size % CHUNK_SIZE;
+				if (size <= 0) {
+					return null;
+				}
+				return channel.map(FileChannel.MapMode.READ_ONLY, position, size);
+			} catch (ClosedChannelException e) {
+				// Bug 219834 file may have be closed by interrupting a thread during an I/O operation.
+				reopen(e, ++retries);
+			}
+		}
+	}
+
+	/**
+	 * Drops the references to the mapped regions. Chunks that have been read from the regions
+	 * keep them alive until they are released from the cache.
+	 */
+	private void releaseMappedRegions() {
+		fMappedRegions= new MappedByteBuffer[0];
+	}
+
+	/**
+	 * Drops all references to the mapped regions, including the slices held by the chunks in
+	 * the cache. Must be called before the file is truncated, a mapping that extends beyond
+	 * the end of the file must not be accessed anymore.
+	 */
+	private void dropMappings() {
+		assert fExclusiveLock;
+		synchronized (this) {
+			final AtomicReferenceArray<Chunk> chunks= fChunks;
+			for (int i= 0; i < chunks.length(); i++) {
+				Chunk chunk= chunks.get(i);
+				if (chunk != null) {
+					chunk.unmap();
+				}
+			}
+			releaseMappedRegions();
+		}
+	}
+
 	public void transferTo(FileChannel target) throws IOException {
 		assert fLocked;
         final FileChannel from= fFile.getChannel();
@@ -194,6 +409,10 @@ public class Database {
         		position+= nRead;
         	}
         }
+        final Journal journal= fJournal;
+        if (journal != null) {
+        	journal.copyTo(target);
+        }
 	}
 
 	public int getVersion() {
@@ -213,20 +432,27 @@ public class Database {
 	public void clear(int version) throws CoreException {
 		assert fExclusiveLock;
 		removeChunksFromCache();
+		// The regions must not be accessed beyond the truncated size of the file.
+		dropMappings();
 
 		fVersion= version;
 		// Clear the first chunk.
 		fHeaderChunk.clear(0, CHUNK_SIZE);
 		// Chunks have been removed from the cache, so we may just reset the array of chunks.
-		fChunks = new Chunk[] {null};
-		fChunksUsed = fChunksAllocated = fChunks.length;
+		fChunks = new AtomicReferenceArray<>(1);
+		fChunksUsed = fChunksAllocated = fChunks.length();
 		try {
+			final Journal journal= fJournal;
+			if (journal != null) {
+				journal.clear();
+			}
 			fHeaderChunk.flush();	// Zero out header chunk.
 			fFile.getChannel().truncate(CHUNK_SIZE);	// Truncate database.
 		} catch (IOException e) {
 			CCorePlugin.log(e);
 		}
 		malloced = freed = 0;
+		mallocCount = freeCount = 0;
 		/*
 		 * This is for debugging purposes in order to simulate having a very large PDOM database.
 		 * This will set aside the specified number of chunks.
@@ -245,12 +471,12 @@ public class Database {
 	}
 
 	private void removeChunksFromCache() {
-		synchronized (fCache) {
-			for (int i= 1; i < fChunks.length; i++) {
-				Chunk chunk= fChunks[i];
+		synchronized (this) {
+			for (int i= 1; i < fChunks.length(); i++) {
+				Chunk chunk= fChunks.get(i);
 				if (chunk != null) {
 					fCache.remove(chunk);
-					fChunks[i]= null;
+					fChunks.set(i, null);
 				}
 			}
 		}
@@ -266,24 +492,57 @@ public class Database {
 		}
 		long long_index = offset / CHUNK_SIZE;
 		assert long_index < Integer.MAX_VALUE;
+		assert fLocked;
+		final int index = (int) long_index;
+
+		if (!fExclusiveLock) {
+			// Without a writer the table of chunks is modified only to add or release chunks,
+			// a chunk found in the table can be used without locking. Chunks are stored in the
+			// table after they have been read, the atomic array publishes them safely.
+			final AtomicReferenceArray<Chunk> chunks= fChunks;
+			if (index >= 0 && index < chunks.length()) {
+				final Chunk chunk= chunks.get(index);
+				if (chunk != null) {
+					cacheHits.increment();
+					fCache.touch(chunk);
+					return chunk;
+				}
+			}
+		}
 
-		synchronized (fCache) {
-			assert fLocked;
-			final int index = (int) long_index;
-			if (index < 0 || index >= fChunks.length) {
+		final Chunk chunk;
+		final Chunk evicted;
+		synchronized (this) {
+			if (index < 0 || index >= fChunks.length()) {
 				databaseCorruptionDetected();
 			}
-			Chunk chunk= fChunks[index];
-			if (chunk == null) {
-				cacheMisses++;
-				chunk = fChunks[index] = new Chunk(this, index);
-				chunk.read();
+			Chunk c= fChunks.get(index);
+			if (c == null) {
+				cacheMisses.increment();
+				c = new Chunk(this, index);
+				c.read();
+				fChunks.set(index, c);
 			} else {
-				cacheHits++;
+				cacheHits.increment();
+			}
+			if (fExclusiveLock) {
+				c.fLocked= true;
 			}
-			fCache.add(chunk, fExclusiveLock);
-			return chunk;
+			chunk= c;
+			evicted= fCache.add(chunk);
+		}
+		if (evicted != null) {
+			evicted.fDatabase.releaseChunk(evicted);
 		}
+		return chunk;
+	}
+
+	private static AtomicReferenceArray<Chunk> copyOf(AtomicReferenceArray<Chunk> chunks, int newLength) {
+		AtomicReferenceArray<Chunk> result= new AtomicReferenceArray<>(newLength);
+		for (int i= 0; i < chunks.length(); i++) {
+			result.set(i, chunks.get(i));
+		}
+		return result;
 	}
 
 	private void databaseCorruptionDetected() throws CoreException {
@@ -340,45 +599,52 @@ public class Database {
 		chunk.clear(freeblock + BLOCK_HEADER_SIZE, usedSize - BLOCK_HEADER_SIZE);
 
 		malloced += usedSize;
+		mallocCount++;
 		return freeblock + BLOCK_HEADER_SIZE;
 	}
 
 	private long createNewChunk() throws CoreException {
 		assert fExclusiveLock;
-		synchronized (fCache) {
-			final int newChunkIndex = fChunksUsed; // fChunks.length;
+		final long address;
+		final Chunk evicted;
+		synchronized (this) {
+			final int newChunkIndex = fChunksUsed; // fChunks.length();
 
 			final Chunk chunk = new Chunk(this, newChunkIndex);
+			chunk.init();
 			chunk.fDirty = true;
 
 			if (newChunkIndex >= fChunksAllocated) {
 				int increment = Math.max(1024, fChunksAllocated / 20);
-				Chunk[] newchunks = new Chunk[fChunksAllocated + increment];
-				System.arraycopy(fChunks, 0, newchunks, 0, fChunksAllocated);
+				AtomicReferenceArray<Chunk> newchunks = copyOf(fChunks, fChunksAllocated + increment);
 
 				fChunks = newchunks;
 				fChunksAllocated += increment;
 			}
 			fChunksUsed += 1;
-			fChunks[newChunkIndex] = chunk;
+			fChunks.set(newChunkIndex, chunk);
 
-			fCache.add(chunk, true);
-			long address = (long) newChunkIndex * CHUNK_SIZE;
+			chunk.fLocked= true;
+			evicted= fCache.add(chunk);
+			address = (long) newChunkIndex * CHUNK_SIZE;
+		}
+		if (evicted != null) {
+			evicted.fDatabase.releaseChunk(evicted);
+		}
 
-			/*
-			 * Non-dense pointers are at most 31 bits dense pointers are at most 35 bits Check the sizes here
-			 * and throw an exception if the address is too large. By throwing the CoreException with the
-			 * special status, the indexing operation should be stopped. This is desired since generally, once
-			 * the max size is exceeded, there are lots of errors.
-			 */
-			if (address >= MAX_DB_SIZE) {
-				Object bindings[] = { this.getLocation().getAbsolutePath(), MAX_DB_SIZE };
-				throw new CoreException(new Status(IStatus.ERROR, CCorePlugin.PLUGIN_ID,
-						CCorePlugin.STATUS_PDOM_TOO_LARGE, NLS.bind(
-								CCorePlugin.getResourceString("pdom.DatabaseTooLarge"), bindings), null)); //$NON-NLS-1$
-			}
-			return address;
+		/*
+		 * Non-dense pointers are at most 31 bits dense pointers are at most 35 bits Check the sizes here
+		 * and throw an exception if the address is too large. By throwing the CoreException with the
+		 * special status, the indexing operation should be stopped. This is desired since generally, once
+		 * the max size is exceeded, there are lots of errors.
+		 */
+		if (address >= MAX_DB_SIZE) {
+			Object bindings[] = { this.getLocation().getAbsolutePath(), MAX_DB_SIZE };
+			throw new CoreException(new Status(IStatus.ERROR, CCorePlugin.PLUGIN_ID,
+					CCorePlugin.STATUS_PDOM_TOO_LARGE, NLS.bind(
+							CCorePlugin.getResourceString("pdom.DatabaseTooLarge"), bindings), null)); //$NON-NLS-1$
 		}
+		return address;
 	}
 
 	/**
@@ -386,22 +652,26 @@ public class Database {
 	 */
 	private long createNewChunks(int numChunks) throws CoreException {
 		assert fExclusiveLock;
-		synchronized (fCache) {
-			final int oldLen= fChunks.length;
-			Chunk[] newchunks = new Chunk[oldLen + numChunks];
-			System.arraycopy(fChunks, 0, newchunks, 0, oldLen);
-			for (int i = oldLen; i < oldLen + numChunks; i++) {
-				newchunks[i]= null;
-			}
+		final Chunk evicted;
+		final long address;
+		synchronized (this) {
+			final int oldLen= fChunks.length();
+			AtomicReferenceArray<Chunk> newchunks = copyOf(fChunks, oldLen + numChunks);
 			final Chunk chunk= new Chunk(this, oldLen + numChunks - 1);
+			chunk.init();
 			chunk.fDirty= true;
-			newchunks[ oldLen + numChunks - 1 ] = chunk;
+			newchunks.set(oldLen + numChunks - 1, chunk);
 			fChunks= newchunks;
-			fCache.add(chunk, true);
+			chunk.fLocked= true;
+			evicted= fCache.add(chunk);
 			fChunksAllocated=oldLen + numChunks;
 			fChunksUsed=oldLen + numChunks;
-			return (long) (oldLen + numChunks - 1) * CHUNK_SIZE;
+			address= (long) (oldLen + numChunks - 1) * CHUNK_SIZE;
+		}
+		if (evicted != null) {
+			evicted.fDatabase.releaseChunk(evicted);
 		}
+		return address;
 	}
 
 	private long getFirstBlock(int blocksize) throws CoreException {
@@ -460,6 +730,7 @@ public class Database {
 		}
 		addBlock(chunk, blocksize, block);
 		freed += blocksize;
+		freeCount++;
 	}
 
 	public void putByte(long offset, byte value) throws CoreException {
@@ -605,6 +876,142 @@ public class Database {
 		}
 	}
 
+	/**
+	 * Returns the number of blocks in the free lists of the database. Together with
+	 * {@link #getFreeBytes()} this describes the fragmentation of the free space.
+	 */
+	public long getFreeBlockCount() throws CoreException {
+		return scanFreeLists(false);
+	}
+
+	/**
+	 * Returns the total size of the blocks in the free lists of the database in bytes.
+	 */
+	public long getFreeBytes() throws CoreException {
+		return scanFreeLists(true);
+	}
+
+	private long scanFreeLists(boolean sumSizes) throws CoreException {
+		long result= 0;
+		for (int bs = MIN_BLOCK_DELTAS * BLOCK_SIZE_DELTA; bs <= CHUNK_SIZE; bs += BLOCK_SIZE_DELTA) {
+			long block = getFirstBlock(bs);
+			while (block != 0) {
+				result+= sumSizes ? bs : 1;
+				block = getFreeRecPtr(block + BLOCK_NEXT_OFFSET);
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Compacts the database. Adjacent free blocks are merged, the content of free blocks is cleared
+	 * and the chunks at the end of the file that are entirely free are removed. Blocks in use are
+	 * not moved, such that all record pointers remain valid. The database is flushed.
+	 * <p>
+	 * Cleared free space makes the database file compress well, e.g. when it is exported.
+	 * @return the number of bytes by which the size of the database has been reduced.
+	 */
+	public long compact() throws CoreException {
+		assert fExclusiveLock;
+		int chunksUsed= fChunksUsed;
+		while (chunksUsed > 1 && isFreeChunk(chunksUsed - 1)) {
+			chunksUsed--;
+		}
+
+		// The free lists are rebuilt from scratch. In case the operation is interrupted, the free
+		// blocks of chunks not yet compacted are lost, the database remains consistent.
+		for (int bs = MIN_BLOCK_DELTAS * BLOCK_SIZE_DELTA; bs <= CHUNK_SIZE; bs += BLOCK_SIZE_DELTA) {
+			setFirstBlock(bs, 0);
+		}
+		for (int i = 1; i < chunksUsed; i++) {
+			compactChunk(i);
+			if (i % COMPACT_FLUSH_INTERVAL == 0) {
+				flush();
+			}
+		}
+
+		final int removedChunks= fChunksUsed - chunksUsed;
+		if (removedChunks > 0) {
+			synchronized (this) {
+				for (int i= chunksUsed; i < fChunksUsed; i++) {
+					Chunk chunk= fChunks.get(i);
+					if (chunk != null) {
+						fCache.remove(chunk);
+						fChunks.set(i, null);
+					}
+				}
+				fChunksUsed= chunksUsed;
+			}
+		}
+		flush();
+		if (removedChunks > 0) {
+			try {
+				final Journal journal= fJournal;
+				if (journal != null) {
+					// The journal may contain removed chunks.
+					journal.checkpoint(this);
+				}
+				// The regions must not be accessed beyond the truncated size of the file.
+				dropMappings();
+				fFile.getChannel().truncate((long) chunksUsed * CHUNK_SIZE);
+			} catch (IOException e) {
+				throw new CoreException(new DBStatus(e));
+			}
+		}
+		return (long) removedChunks * CHUNK_SIZE;
+	}
+
+	/**
+	 * Returns whether the chunk with the given index consists of free blocks only.
+	 */
+	private boolean isFreeChunk(int index) throws CoreException {
+		final long start= (long) index * CHUNK_SIZE;
+		final Chunk chunk= getChunk(start);
+		for (long block= start; block < start + CHUNK_SIZE;) {
+			final int blocksize= chunk.getShort(block);
+			if (blocksize <= 0)
+				return false;
+			block+= blocksize;
+		}
+		return true;
+	}
+
+	/**
+	 * Adds the free blocks of the chunk with the given index to the free lists, merging adjacent
+	 * free blocks.
+	 */
+	private void compactChunk(int index) throws CoreException {
+		final long start= (long) index * CHUNK_SIZE;
+		final long end= start + CHUNK_SIZE;
+		final Chunk chunk= getChunk(start);
+		long freeBlock= 0;
+		for (long block= start; block < end;) {
+			final int blocksize= chunk.getShort(block);
+			if (blocksize == 0) {
+				// The chunk has been set aside and was never used for allocations.
+				return;
+			}
+			if (blocksize > 0) {
+				if (freeBlock == 0) {
+					freeBlock= block;
+				}
+			} else if (freeBlock != 0) {
+				addCompactedBlock(chunk, freeBlock, (int) (block - freeBlock));
+				freeBlock= 0;
+			}
+			block+= Math.abs(blocksize);
+		}
+		if (freeBlock != 0) {
+			addCompactedBlock(chunk, freeBlock, (int) (end - freeBlock));
+		}
+	}
+
+	private void addCompactedBlock(Chunk chunk, long block, int blocksize) throws CoreException {
+		addBlock(chunk, blocksize, block);
+		final int linksSize= BLOCK_NEXT_OFFSET + INT_SIZE;
+		chunk.clear(block + linksSize, blocksize - linksSize);
+	}
+
 	/**
 	 * Closes the database.
 	 * <p>
@@ -614,13 +1021,28 @@ public class Database {
 	public void close() throws CoreException {
 		assert fExclusiveLock;
 		flush();
+		final Journal journal= fJournal;
+		if (journal != null) {
+			try {
+				if (!fReadOnly) {
+					journal.checkpoint(this);
+				}
+				journal.close();
+			} catch (IOException e) {
+				throw new CoreException(new DBStatus(e));
+			}
+			fJournal= null;
+		}
 		removeChunksFromCache();
+		synchronized (this) {
+			releaseMappedRegions();
+		}
 
 		// Chunks have been removed from the cache, so we are fine.
 		fHeaderChunk.clear(0, CHUNK_SIZE);
 		fHeaderChunk.fDirty= false;
-		fChunks= new Chunk[] { null };
-		fChunksUsed = fChunksAllocated = fChunks.length;
+		fChunks= new AtomicReferenceArray<>(1);
+		fChunksUsed = fChunksAllocated = fChunks.length();
 		try {
 			fFile.close();
 		} catch (IOException e) {
@@ -636,11 +1058,16 @@ public class Database {
 	}
 
 	/**
-	 * Called from any thread via the cache, protected by {@link #fCache}.
+	 * Called from any thread after the chunk has been evicted from the cache. The caller must not
+	 * hold a lock of the cache or of any other database.
 	 */
 	void releaseChunk(final Chunk chunk) {
-		if (!chunk.fLocked) {
-			fChunks[chunk.fSequenceNumber]= null;
+		synchronized (this) {
+			// The chunk may have been added to the cache again after it was evicted.
+			final int index= chunk.fSequenceNumber;
+			if (!chunk.fLocked && chunk.fCacheIndex < 0 && index < fChunks.length() && fChunks.get(index) == chunk) {
+				fChunks.set(index, null);
+			}
 		}
 	}
 
@@ -669,9 +1096,9 @@ public class Database {
 		if (fExclusiveLock) {
 			try {
 				ArrayList<Chunk> dirtyChunks= new ArrayList<>();
-				synchronized (fCache) {
+				synchronized (this) {
 					for (int i= 1; i < fChunksUsed; i++) {
-						Chunk chunk= fChunks[i];
+						Chunk chunk= fChunks.get(i);
 						if (chunk != null) {
 							if (chunk.fCacheIndex < 0) {
 								// Locked chunk that has been removed from cache.
@@ -679,7 +1106,7 @@ public class Database {
 									dirtyChunks.add(chunk); // Keep in fChunks until it is flushed.
 								} else {
 									chunk.fLocked= false;
-									fChunks[i]= null;
+									fChunks.set(i, null);
 								}
 							} else if (chunk.fLocked) {
 								// Locked chunk, still in cache.
@@ -717,9 +1144,9 @@ public class Database {
 
 		// Be careful as other readers may access chunks concurrently.
 		ArrayList<Chunk> dirtyChunks= new ArrayList<>();
-		synchronized (fCache) {
+		synchronized (this) {
 			for (int i= 1; i < fChunksUsed ; i++) {
-				Chunk chunk= fChunks[i];
+				Chunk chunk= fChunks.get(i);
 				if (chunk != null && chunk.fDirty) {
 					dirtyChunks.add(chunk);
 				}
@@ -731,8 +1158,14 @@ public class Database {
 	}
 
 	private void flushAndUnlockChunks(final ArrayList<Chunk> dirtyChunks, boolean isComplete) throws CoreException {
-		assert !Thread.holdsLock(fCache);
+		assert !Thread.holdsLock(this);
 		synchronized (fHeaderChunk) {
+			final Journal journal= fJournal;
+			if (journal != null) {
+				writeToJournal(journal, dirtyChunks, isComplete);
+				return;
+			}
+
 			final boolean haveDirtyChunks = !dirtyChunks.isEmpty();
 			if (haveDirtyChunks || fHeaderChunk.fDirty) {
 				markFileIncomplete();
@@ -745,14 +1178,7 @@ public class Database {
 				}
 
 				// Only after the chunks are flushed we may unlock and release them.
-				synchronized (fCache) {
-					for (Chunk chunk : dirtyChunks) {
-						chunk.fLocked= false;
-						if (chunk.fCacheIndex < 0) {
-							fChunks[chunk.fSequenceNumber]= null;
-						}
-					}
-				}
+				unlockChunks(dirtyChunks);
 			}
 
 			if (isComplete) {
@@ -765,6 +1191,51 @@ public class Database {
 		}
 	}
 
+	/**
+	 * Appends the dirty chunks to the journal, the database file is neither written nor marked
+	 * incomplete. A complete flush commits the chunks together with the header chunk, such that
+	 * all modifications since the previous commit become durable at once.
+	 */
+	private void writeToJournal(Journal journal, ArrayList<Chunk> dirtyChunks, boolean isComplete)
+			throws CoreException {
+		final ArrayList<Chunk> chunks= new ArrayList<>(dirtyChunks.size() + 1);
+		for (Chunk chunk : dirtyChunks) {
+			if (chunk.fDirty) {
+				chunks.add(chunk);
+			}
+		}
+		if (isComplete && (fHeaderChunk.fDirty || fIsMarkedIncomplete)) {
+			fHeaderChunk.putInt(VERSION_OFFSET, fVersion);
+			chunks.add(fHeaderChunk);
+		}
+		try {
+			journal.write(chunks, isComplete);
+			for (Chunk chunk : chunks) {
+				chunk.fDirty= false;
+			}
+			unlockChunks(dirtyChunks);
+			if (isComplete) {
+				fIsMarkedIncomplete= false;
+				if (journal.getSize() >= CHECKPOINT_SIZE) {
+					journal.checkpoint(this);
+				}
+			}
+		} catch (IOException e) {
+			throw new CoreException(new DBStatus(e));
+		}
+	}
+
+	private void unlockChunks(ArrayList<Chunk> chunks) {
+		synchronized (this) {
+			for (Chunk chunk : chunks) {
+				chunk.fLocked= false;
+				if (chunk.fCacheIndex < 0) {
+					fChunks.set(chunk.fSequenceNumber, null);
+				}
+			}
+		}
+	}
+
 	private void markFileIncomplete() throws CoreException {
 		if (!fIsMarkedIncomplete) {
 			fIsMarkedIncomplete= true;
@@ -778,23 +1249,60 @@ public class Database {
 	}
 
 	public void resetCacheCounters() {
-		cacheHits= cacheMisses= 0;
+		cacheHits.reset();
+		cacheMisses.reset();
 	}
 
 	public long getCacheHits() {
-		return cacheHits;
+		return cacheHits.sum();
 	}
 
 	public long getCacheMisses() {
-		return cacheMisses;
+		return cacheMisses.sum();
 	}
 
+	/**
+	 * Returns the number of chunks that have been written to the database file.
+	 */
+	public long getChunkWrites() {
+		return chunkWrites.sum();
+	}
+
+	/**
+	 * Returns the number of bytes that have been written to the database file.
+	 */
+	public long getBytesWritten() {
+		return bytesWritten.sum();
+	}
+
+	/**
+	 * Returns the number of blocks that have been allocated since the database was opened.
+	 */
+	public long getMallocCount() {
+		return mallocCount;
+	}
+
+	/**
+	 * Returns the number of blocks that have been freed since the database was opened.
+	 */
+	public long getFreeCount() {
+		return freeCount;
+	}
+
+	/**
+	 * Returns the size of the database file, including the journal.
+	 */
 	public long getSizeBytes() {
+		long size= 0;
 		try {
-			return fFile.length();
+			size= fFile.length();
 		} catch (IOException e) {
 		}
-		return 0;
+		final Journal journal= fJournal;
+		if (journal != null) {
+			size+= journal.getSize();
+		}
+		return size;
 	}
 
 	/**
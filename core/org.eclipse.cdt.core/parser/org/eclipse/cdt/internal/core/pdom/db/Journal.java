@@ -0,0 +1,365 @@
+/*******************************************************************************
+ * Copyright (c) 2016 agent and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     agent - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.cdt.internal.core.pdom.db;
+
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedByInterruptException;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * Write-ahead journal of a database. Modified chunks are appended to the journal rather than
+ * written to their place in the database file, the database file is updated from the journal
+ * by checkpoints only.
+ * <p>
+ * The journal is a sequence of frames. A chunk frame holds the content of a chunk, a commit frame
+ * completes a transaction consisting of the chunk frames written since the previous commit.
+ * All chunks flushed with one commit are written with few large writes and are made durable
+ * together by a single {@link FileChannel#force(boolean)}. Chunks that are written before their
+ * transaction is committed replace an uncommitted frame of the same chunk, so the size of a
+ * transaction is bounded by the number of chunks it modifies.
+ * <p>
+ * When a journal is opened, the chunk frames of all completely written transactions are
+ * recovered, a partially written transaction is discarded.
+ */
+/*
+ * Structure of a frame
+ *
+ * offset               content
+ *                      _____________________________
+ * 0                   | type of frame (FRAME_CHUNK or FRAME_COMMIT)
+ * INT_SIZE            | sequence number of the chunk, or number of chunk frames in the transaction
+ * 2*INT_SIZE          | CRC32 of the type, the number and the content of the chunk
+ * FRAME_HEADER_SIZE   | content of the chunk (CHUNK_SIZE bytes, chunk frames only)
+ */
+final class Journal {
+	static final String FILE_EXTENSION= ".journal"; //$NON-NLS-1$
+
+	private static final int FRAME_CHUNK= 0x434b4652;
+	private static final int FRAME_COMMIT= 0x434d4652;
+	private static final int FRAME_HEADER_SIZE= 3 * Database.INT_SIZE;
+	private static final int CHUNK_FRAME_SIZE= FRAME_HEADER_SIZE + Database.CHUNK_SIZE;
+	// Maximum number of frames collected for a single write.
+	private static final int FRAMES_PER_WRITE= 256;
+
+	private final File fLocation;
+	private final boolean fReadOnly;
+	private RandomAccessFile fFile;
+	private long fSize;				// End of the last frame.
+	private long fCommittedSize;	// End of the last commit frame.
+	private int fUncommittedFrames;
+	// Maps the sequence number of a chunk to the position of its most recent frame.
+	private final HashMap<Integer, Long> fFrames= new HashMap<>();
+	private final CRC32 fChecksum= new CRC32();
+
+	/**
+	 * Returns the location of the journal for the given database file.
+	 */
+	static File getLocation(File database) {
+		return new File(database.getPath() + FILE_EXTENSION);
+	}
+
+	/**
+	 * Opens the journal at the given location, creating it if necessary, and recovers the
+	 * committed frames. The uncommitted part of a writable journal is truncated.
+	 */
+	Journal(File location, boolean openReadOnly) throws IOException {
+		fLocation= location;
+		fReadOnly= openReadOnly;
+		openFile();
+		recover();
+	}
+
+	private void openFile() throws FileNotFoundException {
+		fFile= new RandomAccessFile(fLocation, fReadOnly ? "r" : "rw"); //$NON-NLS-1$ //$NON-NLS-2$
+	}
+
+	private void recover() throws IOException {
+		final long length= fFile.length();
+		final HashMap<Integer, Long> transaction= new HashMap<>();
+		final ByteBuffer header= ByteBuffer.allocate(FRAME_HEADER_SIZE);
+		final ByteBuffer content= ByteBuffer.allocate(Database.CHUNK_SIZE);
+		long position= 0;
+		while (position + FRAME_HEADER_SIZE <= length) {
+			header.clear();
+			read(header, position);
+			final int type= header.getInt(0);
+			final int value= header.getInt(Database.INT_SIZE);
+			final int checksum= header.getInt(2 * Database.INT_SIZE);
+			if (type == FRAME_CHUNK) {
+				if (position + CHUNK_FRAME_SIZE > length)
+					break;
+				content.clear();
+				read(content, position + FRAME_HEADER_SIZE);
+				if (checksum(type, value, content) != checksum)
+					break;
+				transaction.put(value, position);
+				position+= CHUNK_FRAME_SIZE;
+			} else if (type == FRAME_COMMIT) {
+				if (checksum(type, value, null) != checksum || value != transaction.size())
+					break;
+				position+= FRAME_HEADER_SIZE;
+				fFrames.putAll(transaction);
+				transaction.clear();
+				fCommittedSize= position;
+			} else {
+				break;
+			}
+		}
+		fSize= fCommittedSize;
+		if (!fReadOnly && length > fSize) {
+			// Discard the partially written transaction.
+			fFile.getChannel().truncate(fSize);
+		}
+	}
+
+	private int checksum(int type, int value, ByteBuffer content) {
+		final ByteBuffer header= ByteBuffer.allocate(2 * Database.INT_SIZE);
+		header.putInt(0, type);
+		header.putInt(Database.INT_SIZE, value);
+		fChecksum.reset();
+		fChecksum.update(header);
+		if (content != null) {
+			final ByteBuffer buf= content.duplicate();
+			buf.clear();
+			fChecksum.update(buf);
+		}
+		return (int) fChecksum.getValue();
+	}
+
+	/**
+	 * Returns whether there are frames that have not been committed.
+	 */
+	synchronized boolean hasUncommittedFrames() {
+		return fUncommittedFrames > 0;
+	}
+
+	/**
+	 * Returns the size of the journal in bytes.
+	 */
+	synchronized long getSize() {
+		return fSize;
+	}
+
+	/**
+	 * Returns the highest sequence number of a chunk held by the journal, or <code>0</code> if
+	 * the journal is empty. Chunks appended to the database may be found in the journal only.
+	 */
+	synchronized int getMaxSequenceNumber() {
+		int max= 0;
+		for (Integer sequenceNumber : fFrames.keySet()) {
+			max= Math.max(max, sequenceNumber);
+		}
+		return max;
+	}
+
+	/**
+	 * Returns whether the journal holds a frame for the chunk with the given sequence number.
+	 */
+	synchronized boolean contains(int sequenceNumber) {
+		return fFrames.containsKey(sequenceNumber);
+	}
+
+	/**
+	 * Reads the most recent content of the chunk with the given sequence number into the buffer.
+	 * @return <code>false</code> if the journal does not hold a frame for the chunk.
+	 */
+	synchronized boolean read(int sequenceNumber, ByteBuffer buf) throws IOException {
+		final Long position= fFrames.get(sequenceNumber);
+		if (position == null)
+			return false;
+		read(buf, position + FRAME_HEADER_SIZE);
+		return true;
+	}
+
+	/**
+	 * Writes the content of the chunks to the journal. With <code>commit</code> the chunks
+	 * together with all previously written uncommitted ones are committed, and the journal
+	 * is forced to the storage device.
+	 */
+	synchronized void write(List<Chunk> chunks, boolean commit) throws IOException {
+		assert !fReadOnly;
+		final ByteBuffer batch= ByteBuffer.allocate(Math.min(chunks.size(), FRAMES_PER_WRITE) * CHUNK_FRAME_SIZE
+				+ FRAME_HEADER_SIZE);
+		long batchPosition= fSize;
+		for (Chunk chunk : chunks) {
+			final int sequenceNumber= chunk.fSequenceNumber;
+			final Long position= fFrames.get(sequenceNumber);
+			if (position != null && position >= fCommittedSize) {
+				// Replace the uncommitted frame.
+				final ByteBuffer frame= ByteBuffer.allocate(CHUNK_FRAME_SIZE);
+				putChunkFrame(frame, chunk);
+				frame.flip();
+				write(frame, position);
+				continue;
+			}
+			if (batch.remaining() < CHUNK_FRAME_SIZE + FRAME_HEADER_SIZE) {
+				batch.flip();
+				write(batch, batchPosition);
+				batchPosition= fSize;
+				batch.clear();
+			}
+			fFrames.put(sequenceNumber, fSize);
+			putChunkFrame(batch, chunk);
+			fSize+= CHUNK_FRAME_SIZE;
+			fUncommittedFrames++;
+		}
+		if (commit && fUncommittedFrames > 0) {
+			batch.putInt(FRAME_COMMIT);
+			batch.putInt(fUncommittedFrames);
+			batch.putInt(checksum(FRAME_COMMIT, fUncommittedFrames, null));
+			fSize+= FRAME_HEADER_SIZE;
+		}
+		if (batch.position() > 0) {
+			batch.flip();
+			write(batch, batchPosition);
+		}
+		if (commit && fUncommittedFrames > 0) {
+			force();
+			fCommittedSize= fSize;
+			fUncommittedFrames= 0;
+		}
+	}
+
+	private void putChunkFrame(ByteBuffer frame, Chunk chunk) {
+		final ByteBuffer content= chunk.getContent();
+		frame.putInt(FRAME_CHUNK);
+		frame.putInt(chunk.fSequenceNumber);
+		frame.putInt(checksum(FRAME_CHUNK, chunk.fSequenceNumber, content));
+		frame.put(content);
+	}
+
+	/**
+	 * Writes the most recent content of all chunks in the journal to their place in the database
+	 * file and truncates the journal once the database file has been forced to the storage device.
+	 * Must not be called while there are uncommitted frames.
+	 */
+	synchronized void checkpoint(Database db) throws IOException {
+		assert fUncommittedFrames == 0;
+		if (fFrames.isEmpty())
+			return;
+
+		copyFrames(db, null);
+		db.force();
+		fFile.getChannel().truncate(0);
+		fFrames.clear();
+		fSize= fCommittedSize= 0;
+	}
+
+	/**
+	 * Writes the most recent content of all chunks in the journal to their place in the target,
+	 * which is a copy of the database file.
+	 */
+	synchronized void copyTo(FileChannel target) throws IOException {
+		copyFrames(null, target);
+	}
+
+	private void copyFrames(Database db, FileChannel target) throws IOException {
+		// Write the chunks in the order of the database file.
+		final int[] sequenceNumbers= new int[fFrames.size()];
+		int i= 0;
+		for (Integer sequenceNumber : fFrames.keySet()) {
+			sequenceNumbers[i++]= sequenceNumber;
+		}
+		Arrays.sort(sequenceNumbers);
+		final ByteBuffer buf= ByteBuffer.allocate(Database.CHUNK_SIZE);
+		for (int sequenceNumber : sequenceNumbers) {
+			buf.clear();
+			read(buf, fFrames.get(sequenceNumber) + FRAME_HEADER_SIZE);
+			buf.flip();
+			final long position= (long) sequenceNumber * Database.CHUNK_SIZE;
+			if (db != null) {
+				db.write(buf, position);
+			} else {
+				while (buf.hasRemaining()) {
+					target.write(buf, position + buf.position());
+				}
+			}
+		}
+	}
+
+	/**
+	 * Discards the content of the journal.
+	 */
+	synchronized void clear() throws IOException {
+		fFile.getChannel().truncate(0);
+		fFrames.clear();
+		fSize= fCommittedSize= 0;
+		fUncommittedFrames= 0;
+	}
+
+	/**
+	 * Closes the journal, an empty journal is deleted.
+	 */
+	synchronized void close() throws IOException {
+		fFile.close();
+		if (!fReadOnly && fSize == 0) {
+			fLocation.delete();
+		}
+	}
+
+	private void read(ByteBuffer buf, long position) throws IOException {
+		int retries= 0;
+		final int offset= buf.position();
+		while (buf.hasRemaining()) {
+			try {
+				if (fFile.getChannel().read(buf, position + buf.position() - offset) < 0)
+					throw new EOFException();
+			} catch (ClosedChannelException e) {
+				// Bug 219834 file may have be closed by interrupting a thread during an I/O operation.
+				reopen(e, ++retries);
+			}
+		}
+	}
+
+	private void write(ByteBuffer buf, long position) throws IOException {
+		int retries= 0;
+		final int offset= buf.position();
+		while (buf.hasRemaining()) {
+			try {
+				fFile.getChannel().write(buf, position + buf.position() - offset);
+			} catch (ClosedChannelException e) {
+				// Bug 219834 file may have be closed by interrupting a thread during an I/O operation.
+				reopen(e, ++retries);
+			}
+		}
+	}
+
+	private void force() throws IOException {
+		int retries= 0;
+		while (true) {
+			try {
+				fFile.getChannel().force(false);
+				return;
+			} catch (ClosedChannelException e) {
+				// Bug 219834 file may have be closed by interrupting a thread during an I/O operation.
+				reopen(e, ++retries);
+			}
+		}
+	}
+
+	private void reopen(ClosedChannelException e, int attempt) throws ClosedChannelException, FileNotFoundException {
+		// Only if the current thread was not interrupted we try to reopen the file.
+		if (e instanceof ClosedByInterruptException || attempt >= 20) {
+			throw e;
+		}
+		openFile();
+	}
+}
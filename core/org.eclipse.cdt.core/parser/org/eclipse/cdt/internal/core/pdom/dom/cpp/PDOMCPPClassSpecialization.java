@@ -138,7 +138,7 @@ class PDOMCPPClassSpecialization extends PDOMCPPSpecialization
 				} catch (CoreException e) {
 					CCorePlugin.log(e);
 				}
-				specializationMap= (ObjectMap) getPDOM().putCachedResult(key, newMap, false);
+				specializationMap= (ObjectMap) getPDOM().putPinnedResult(key, newMap);
 			}
 		}
 		synchronized (specializationMap) {
@@ -10,14 +10,11 @@
  *******************************************************************************/ 
 package org.eclipse.cdt.internal.core.pdom.dom.cpp;
 
-import java.util.HashMap;
-
 import org.eclipse.cdt.core.CCorePlugin;
-import org.eclipse.cdt.core.dom.ast.DOMException;
 import org.eclipse.cdt.core.dom.ast.cpp.ICPPTemplateArgument;
 import org.eclipse.cdt.core.dom.ast.cpp.ICPPTemplateInstance;
+import org.eclipse.cdt.internal.core.dom.parser.cpp.CPPInstanceMap;
 import org.eclipse.cdt.internal.core.dom.parser.cpp.ICPPDeferredClassInstance;
-import org.eclipse.cdt.internal.core.index.IndexCPPSignatureUtil;
 import org.eclipse.cdt.internal.core.pdom.PDOM;
 import org.eclipse.cdt.internal.core.pdom.dom.NamedNodeCollector;
 import org.eclipse.cdt.internal.core.pdom.dom.PDOMBinding;
@@ -43,36 +40,23 @@ public class PDOMInstanceCache {
 			CCorePlugin.log(e);
 		}
 		
-		newCache= (PDOMInstanceCache) pdom.putCachedResult(key, newCache, false);
+		newCache= (PDOMInstanceCache) pdom.putPinnedResult(key, newCache);
 		return newCache;
 	}
 	
-	private final HashMap<String, ICPPTemplateInstance> fMap;
+	private final CPPInstanceMap fMap;
 	private ICPPDeferredClassInstance fDeferredInstance;
 
 	public PDOMInstanceCache() {
-		fMap= new HashMap<>();
+		fMap= new CPPInstanceMap();
 	}
 	
 	synchronized public final void addInstance(ICPPTemplateArgument[] arguments, ICPPTemplateInstance instance) {
-		try {
-			String key= IndexCPPSignatureUtil.getTemplateArgString(arguments, true);
-			fMap.put(key, instance);
-		} catch (CoreException e) {
-			CCorePlugin.log(e);
-		} catch (DOMException e) {
-		}
+		fMap.put(arguments, instance);
 	}
 
 	synchronized public final ICPPTemplateInstance getInstance(ICPPTemplateArgument[] arguments) {		
-		try {
-			String key= IndexCPPSignatureUtil.getTemplateArgString(arguments, true);
-			return fMap.get(key);
-		} catch (CoreException e) {
-			CCorePlugin.log(e);
-		} catch (DOMException e) {
-		}
-		return null;
+		return fMap.get(arguments);
 	}
 	
 	private void populate(PDOMBinding binding) throws CoreException {
@@ -95,7 +79,7 @@ public class PDOMInstanceCache {
 	}
 
 	synchronized public ICPPTemplateInstance[] getAllInstances() {
-		return fMap.values().toArray(new ICPPTemplateInstance[fMap.size()]);
+		return fMap.getAll();
 	}
 
 	public ICPPDeferredClassInstance getDeferredInstance() {
@@ -24,6 +24,9 @@ import org.eclipse.cdt.core.dom.IPDOMIndexerTask;
 import org.eclipse.cdt.core.dom.IPDOMManager;
 import org.eclipse.cdt.core.index.export.ExternalExportProjectProvider;
 import org.eclipse.cdt.core.index.export.IExportProjectProvider;
+import org.eclipse.cdt.core.model.LanguageManager;
+import org.eclipse.cdt.internal.core.pdom.WritablePDOM;
+import org.eclipse.cdt.internal.core.pdom.db.Database;
 import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.IConfigurationElement;
 import org.eclipse.core.runtime.IExtension;
@@ -49,6 +52,7 @@ public class GeneratePDOMApplication implements IApplication {
 	public static final String OPT_TARGET= "-target"; //$NON-NLS-1$
 	public static final String OPT_QUIET= "-quiet"; //$NON-NLS-1$
 	public static final String OPT_INDEXER_ID= "-indexer"; //$NON-NLS-1$
+	public static final String OPT_VACUUM= "-vacuum"; //$NON-NLS-1$
 
 	/**
 	 * Applications needing to fail in an expected way (without stack dump), should throw
@@ -83,6 +87,11 @@ public class GeneratePDOMApplication implements IApplication {
 		Map<String,List<String>> arguments= CLIUtil.parseToMap(appArgs);
 		output(Messages.GeneratePDOMApplication_Initializing);
 
+		if (arguments.containsKey(OPT_VACUUM)) {
+			vacuum(new File(CLIUtil.getArg(arguments, OPT_TARGET, 1).get(0)));
+			return null;
+		}
+
 		setupCLIProgressProvider();
 
 		String pproviderFQN;
@@ -140,6 +149,41 @@ public class GeneratePDOMApplication implements IApplication {
 		return null;
 	}
 
+	/**
+	 * Compacts an existing pre-built index, see {@link Database#compact()}, and reports its size
+	 * and the fragmentation of its free space before and after.
+	 */
+	private void vacuum(File target) throws CoreException {
+		if (!target.isFile()) {
+			fail(MessageFormat.format(Messages.GeneratePDOMApplication_CouldNotFindTarget, new Object[] {target}));
+		}
+		WritablePDOM pdom= new WritablePDOM(target, null, LanguageManager.getInstance().getPDOMLinkageFactoryMappings());
+		try {
+			pdom.acquireWriteLock(null);
+		} catch (InterruptedException e) {
+			throw new CoreException(CCorePlugin.createStatus(e.getMessage()));
+		}
+		try {
+			if (!pdom.isSupportedVersion()) {
+				fail(MessageFormat.format(Messages.GeneratePDOMApplication_UnsupportedVersion, new Object[] {target}));
+			}
+			output(Messages.GeneratePDOMApplication_VacuumStarts);
+			Database db= pdom.getDB();
+			outputSpaceUsage(Messages.GeneratePDOMApplication_SpaceBefore, db);
+			db.compact();
+			outputSpaceUsage(Messages.GeneratePDOMApplication_SpaceAfter, db);
+			output(Messages.GeneratePDOMApplication_VacuumEnds);
+		} finally {
+			pdom.close();
+			pdom.releaseWriteLock();
+		}
+	}
+
+	private void outputSpaceUsage(String message, Database db) throws CoreException {
+		output(MessageFormat.format(message, new Object[] {
+				db.getSizeBytes(), db.getFreeBytes(), db.getFreeBlockCount() }));
+	}
+
 	private void restoreSystemProperty(String key, String value) {
 		if (value == null) {
 			System.clearProperty(key);
@@ -19,11 +19,17 @@ public class Messages extends NLS {
 	public static String GeneratePDOM_ProjectProviderReturnedNullCProject;
 	public static String GeneratePDOM_Success;
 	public static String GeneratePDOMApplication_CouldNotFindInitializer;
+	public static String GeneratePDOMApplication_CouldNotFindTarget;
 	public static String GeneratePDOMApplication_GenerationEnds;
 	public static String GeneratePDOMApplication_GenerationStarts;
 	public static String GeneratePDOMApplication_Initializing;
 	public static String GeneratePDOMApplication_InvalidIndexerID;
+	public static String GeneratePDOMApplication_SpaceAfter;
+	public static String GeneratePDOMApplication_SpaceBefore;
+	public static String GeneratePDOMApplication_UnsupportedVersion;
 	public static String GeneratePDOMApplication_UsingDefaultProjectProvider;
+	public static String GeneratePDOMApplication_VacuumEnds;
+	public static String GeneratePDOMApplication_VacuumStarts;
 
 	static {
 		// Initialize resource bundle.
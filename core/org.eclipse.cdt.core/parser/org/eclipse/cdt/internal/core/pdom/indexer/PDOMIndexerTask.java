@@ -29,6 +29,7 @@ import org.eclipse.cdt.core.index.IIndexManager;
 import org.eclipse.cdt.core.model.ICProject;
 import org.eclipse.cdt.core.model.ITranslationUnit;
 import org.eclipse.cdt.core.parser.IncludeExportPatterns;
+import org.eclipse.cdt.internal.core.dom.parser.cpp.CPPInstanceMap;
 import org.eclipse.cdt.internal.core.index.IWritableIndex;
 import org.eclipse.cdt.internal.core.index.IWritableIndexManager;
 import org.eclipse.cdt.internal.core.model.CProject;
@@ -107,6 +108,9 @@ public abstract class PDOMIndexerTask extends AbstractIndexerTask implements IPD
 		setForceFirstFiles(forceFiles.length);
 
 		ICProject project = getCProject();
+		setParserThreadCount(CCorePreferenceConstants.getPreference(
+				CCorePreferenceConstants.INDEXER_PARSER_THREADS, project,
+				CCorePreferenceConstants.DEFAULT_INDEXER_PARSER_THREADS));
 		String privatePattern = CCorePreferenceConstants.getPreference(
 				CCorePreferenceConstants.INCLUDE_PRIVATE_PATTERN, project, null);
 		if (privatePattern != null) {
@@ -311,6 +315,16 @@ public abstract class PDOMIndexerTask extends AbstractIndexerTask implements IPD
 					+ fStatistics.fReferenceCount + " references, "    //$NON-NLS-1$
 					+ fStatistics.fProblemBindingCount + "(" + nfPercent.format(problemPct) + ") unresolved.");     //$NON-NLS-1$ //$NON-NLS-2$
 
+			long lookups= fStatistics.fLookupCacheHits + fStatistics.fLookupCacheMisses;
+			double lookupHitPct= lookups == 0 ? 0.0 : (double) fStatistics.fLookupCacheHits / (double) lookups;
+			System.out.println(indent + " Index lookups: "    //$NON-NLS-1$
+					+ fStatistics.fLookupCacheHits + "(" + nfPercent.format(lookupHitPct) + ") cache hits, "    //$NON-NLS-1$ //$NON-NLS-2$
+					+ fStatistics.fLookupCacheMisses + " cache misses.");    //$NON-NLS-1$
+			System.out.println(indent + " Template instances: "    //$NON-NLS-1$
+					+ CPPInstanceMap.getAdded() + " cached, "    //$NON-NLS-1$
+					+ CPPInstanceMap.getHits() + " hits, "    //$NON-NLS-1$
+					+ CPPInstanceMap.getMisses() + " misses (since startup).");    //$NON-NLS-1$
+
 			long misses= index.getCacheMisses();
 			long hits= index.getCacheHits();
 			long tries= misses + hits;
@@ -131,6 +131,68 @@ public class CCorePreferenceConstants {
 	 */
 	public static final String DEFAULT_MAX_INDEX_DB_CACHE_SIZE_MB = "64"; //$NON-NLS-1$
 
+	/**
+	 * Number of threads the indexer uses for parsing source files. With a value larger than one,
+	 * source files are parsed concurrently, the index is still updated by a single thread.
+	 * <p>
+	 * Value is of type <code>int</code>.
+	 * </p>
+	 *
+	 * @since 5.12
+	 */
+	public static final String INDEXER_PARSER_THREADS = CCorePlugin.PLUGIN_ID + ".indexerParserThreads"; //$NON-NLS-1$
+
+	/**
+	 * Default value for {@link #INDEXER_PARSER_THREADS}.
+	 * @since 5.12
+	 */
+	public static final int DEFAULT_INDEXER_PARSER_THREADS = 1;
+
+	/**
+	 * Boolean preference controlling whether the index database is read through memory mapped
+	 * regions of the database file rather than by copying its content into the heap. Modifications
+	 * of the database are written to the file in both cases.
+	 * @since 5.12
+	 */
+	public static final String INDEX_DB_MEMORY_MAPPED = CCorePlugin.PLUGIN_ID + ".indexDBMemoryMapped"; //$NON-NLS-1$
+
+	/**
+	 * Default value for {@link #INDEX_DB_MEMORY_MAPPED}.
+	 * @since 5.12
+	 */
+	public static final boolean DEFAULT_INDEX_DB_MEMORY_MAPPED = false;
+
+	/**
+	 * Boolean preference controlling whether modifications of the index database are written
+	 * to a write-ahead journal, which is copied to the database file in regular intervals. With
+	 * the journal, an index that has not been closed properly is restored to its state at the
+	 * last flush, rather than being rebuilt from scratch.
+	 * @since 5.12
+	 */
+	public static final String INDEX_DB_JOURNAL = CCorePlugin.PLUGIN_ID + ".indexDBJournal"; //$NON-NLS-1$
+
+	/**
+	 * Default value for {@link #INDEX_DB_JOURNAL}.
+	 * @since 5.12
+	 */
+	public static final boolean DEFAULT_INDEX_DB_JOURNAL = false;
+
+	/**
+	 * String preference listing pre-built indexes, e.g. for the headers of an SDK, that are added
+	 * to the index of every project. The entries are separated by {@link java.io.File#pathSeparator},
+	 * each entry has the form <code>&lt;index file&gt;=&lt;base directory&gt;</code>, where the
+	 * locations in the index are relative to the base directory. Each index is opened only once,
+	 * read-only and through memory mapped regions of its file.
+	 * @since 5.12
+	 */
+	public static final String INDEX_SHARED_FRAGMENTS = CCorePlugin.PLUGIN_ID + ".indexSharedFragments"; //$NON-NLS-1$
+
+	/**
+	 * Default value for {@link #INDEX_SHARED_FRAGMENTS}.
+	 * @since 5.12
+	 */
+	public static final String DEFAULT_INDEX_SHARED_FRAGMENTS = ""; //$NON-NLS-1$
+
 	/**
 	 * Boolean preference controlling whether paths of non-workspace files are stored in index in canonical
 	 * form or not. Canonicalization is performed by calling {@link java.io.File#getCanonicalPath()}.
@@ -315,6 +377,22 @@ public class CCorePreferenceConstants {
 	// NOTE: This default came from measurements using a 1Gb heap on a 64-bit VM.  The test project was
 	//       boost-1.55.0.  This default will index all but 9 files without running out of memory.
 
+	/**
+	 * Integer preference for the number of ASTs of recently active editors that are kept when
+	 * another editor becomes active. The ASTs are softly referenced, i.e. they are released when
+	 * memory gets low.
+	 *
+	 * @since 5.12
+	 */
+	public static final String AST_CACHE_SIZE = CCorePlugin.PLUGIN_ID + ".astCacheSize"; //$NON-NLS-1$
+
+	/**
+	 * Default value for {@link #AST_CACHE_SIZE}.
+	 *
+	 * @since 5.12
+	 */
+	public static final int DEFAULT_AST_CACHE_SIZE = 4;
+
     /**
      * Returns the node in the preference in the given context.
      *
@@ -64,6 +64,10 @@ public class CCorePreferenceInitializer extends AbstractPreferenceInitializer {
 
 		// Indexer defaults.
 		IndexerPreferences.initializeDefaultPreferences(defaultPreferences);
+		defaultPreferences.putInt(CCorePreferenceConstants.INDEXER_PARSER_THREADS, CCorePreferenceConstants.DEFAULT_INDEXER_PARSER_THREADS);
+		defaultPreferences.putBoolean(CCorePreferenceConstants.INDEX_DB_MEMORY_MAPPED, CCorePreferenceConstants.DEFAULT_INDEX_DB_MEMORY_MAPPED);
+		defaultPreferences.putBoolean(CCorePreferenceConstants.INDEX_DB_JOURNAL, CCorePreferenceConstants.DEFAULT_INDEX_DB_JOURNAL);
+		defaultPreferences.put(CCorePreferenceConstants.INDEX_SHARED_FRAGMENTS, CCorePreferenceConstants.DEFAULT_INDEX_SHARED_FRAGMENTS);
 		defaultPreferences.put(CCorePreferenceConstants.INCLUDE_EXPORT_PATTERN, CCorePreferenceConstants.DEFAULT_INCLUDE_EXPORT_PATTERN);
 		defaultPreferences.put(CCorePreferenceConstants.INCLUDE_BEGIN_EXPORTS_PATTERN, CCorePreferenceConstants.DEFAULT_INCLUDE_BEGIN_EXPORTS_PATTERN);
 		defaultPreferences.put(CCorePreferenceConstants.INCLUDE_END_EXPORTS_PATTERN, CCorePreferenceConstants.DEFAULT_INCLUDE_END_EXPORTS_PATTERN);
@@ -75,5 +79,6 @@ public class CCorePreferenceInitializer extends AbstractPreferenceInitializer {
 		defaultPreferences.putInt(CCorePreferenceConstants.SCALABILITY_MAXIMUM_TRIVIAL_EXPRESSIONS, CCorePreferenceConstants.DEFAULT_SCALABILITY_MAXIMUM_TRIVIAL_EXPRESSIONS);
 		defaultPreferences.putBoolean(CCorePreferenceConstants.SCALABILITY_LIMIT_TOKENS_PER_TU, CCorePreferenceConstants.DEFAULT_SCALABILITY_LIMIT_TOKENS_PER_TU);
 		defaultPreferences.putInt(CCorePreferenceConstants.SCALABILITY_MAXIMUM_TOKENS, CCorePreferenceConstants.DEFAULT_SCALABILITY_MAXIMUM_TOKENS);
+		defaultPreferences.putInt(CCorePreferenceConstants.AST_CACHE_SIZE, CCorePreferenceConstants.DEFAULT_AST_CACHE_SIZE);
 	}
 }
@@ -27,6 +27,7 @@ import org.eclipse.ui.IWorkbenchPart;
 import org.eclipse.ui.IWorkbenchPartReference;
 import org.eclipse.ui.IWorkbenchWindow;
 import org.eclipse.ui.PlatformUI;
+import org.eclipse.ui.texteditor.IDocumentProvider;
 import org.eclipse.ui.texteditor.ITextEditor;
 
 import org.eclipse.cdt.core.dom.ast.IASTTranslationUnit;
@@ -242,9 +243,12 @@ public final class ASTProvider {
 				tu = provider.getTranslationUnit();
 		}
 
+		// The cache may provide the AST the translation unit had when the editor was active
+		// before, the AST is discarded on modifications after this point in time.
+		final long timeStamp= getModificationStamp(editor);
 		synchronized (this) {
 			fActiveEditor= editor;
-			fTimeStamp= IDocumentExtension4.UNKNOWN_MODIFICATION_STAMP;
+			fTimeStamp= timeStamp;
 			fCache.setActiveElement(tu);
 		}
 
@@ -266,6 +270,20 @@ public final class ASTProvider {
 		updateModificationStamp();
 	}
 
+	private static long getModificationStamp(IWorkbenchPart editor) {
+		if (editor instanceof ITextEditor) {
+			ITextEditor textEditor= (ITextEditor) editor;
+			IDocumentProvider documentProvider= textEditor.getDocumentProvider();
+			if (documentProvider != null) {
+				IDocument document= documentProvider.getDocument(textEditor.getEditorInput());
+				if (document instanceof IDocumentExtension4) {
+					return ((IDocumentExtension4) document).getModificationStamp();
+				}
+			}
+		}
+		return IDocumentExtension4.UNKNOWN_MODIFICATION_STAMP;
+	}
+
 	private boolean updateModificationStamp() {
 		long timeStamp= IDocumentExtension4.UNKNOWN_MODIFICATION_STAMP;
 		ITextEditor textEditor= null;
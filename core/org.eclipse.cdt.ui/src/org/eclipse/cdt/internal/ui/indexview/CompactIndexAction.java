@@ -0,0 +1,154 @@
+/*******************************************************************************
+ * Copyright (c) 2016 agent and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     agent - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.cdt.internal.ui.indexview;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.OperationCanceledException;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.SubMonitor;
+import org.eclipse.core.runtime.jobs.Job;
+import org.eclipse.jface.dialogs.MessageDialog;
+import org.eclipse.jface.viewers.ISelection;
+import org.eclipse.jface.viewers.IStructuredSelection;
+import org.eclipse.jface.viewers.TreeViewer;
+import org.eclipse.swt.widgets.Display;
+
+import org.eclipse.cdt.core.model.ICProject;
+import org.eclipse.cdt.ui.CUIPlugin;
+
+import org.eclipse.cdt.internal.core.CCoreInternals;
+import org.eclipse.cdt.internal.core.pdom.IPDOM;
+import org.eclipse.cdt.internal.core.pdom.WritablePDOM;
+import org.eclipse.cdt.internal.core.pdom.db.Database;
+
+/**
+ * Compacts the databases of the selected projects in a job and reports their size and the
+ * fragmentation of their free space before and after.
+ */
+public class CompactIndexAction extends IndexAction {
+	private static final int SIZE = 0;
+	private static final int FREE_BYTES = 1;
+	private static final int FREE_BLOCKS = 2;
+
+	public CompactIndexAction(IndexView view, TreeViewer viewer) {
+		super(view, viewer, CUIPlugin.getResourceString("IndexView.CompactIndex.name")); //$NON-NLS-1$
+	}
+
+	@Override
+	public boolean valid() {
+		ISelection selection = viewer.getSelection();
+		if (!(selection instanceof IStructuredSelection))
+			return false;
+		Object[] objs = ((IStructuredSelection)selection).toArray();
+		for (int i = 0; i < objs.length; ++i)
+			if (objs[i] instanceof ICProject)
+				return true;
+		return false;
+	}
+
+	@Override
+	public void run() {
+		ISelection selection = viewer.getSelection();
+		if (!(selection instanceof IStructuredSelection))
+			return;
+
+		final List<ICProject> projects = new ArrayList<ICProject>();
+		Object[] objs = ((IStructuredSelection)selection).toArray();
+		for (int i = 0; i < objs.length; ++i) {
+			if (objs[i] instanceof ICProject)
+				projects.add((ICProject) objs[i]);
+		}
+		final Display display = viewer.getControl().getDisplay();
+
+		Job job = new Job(CUIPlugin.getResourceString("IndexView.CompactIndex.title")) { //$NON-NLS-1$
+			@Override
+			protected IStatus run(IProgressMonitor monitor) {
+				final long[] before = new long[3];
+				final long[] after = new long[3];
+				SubMonitor progress = SubMonitor.convert(monitor, projects.size());
+				try {
+					for (ICProject project : projects) {
+						if (progress.isCanceled())
+							return Status.CANCEL_STATUS;
+						progress.subTask(project.getElementName());
+						compact(project, before, after, progress.newChild(1));
+					}
+				} catch (CoreException e) {
+					return e.getStatus();
+				} catch (OperationCanceledException e) {
+					return Status.CANCEL_STATUS;
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					return Status.CANCEL_STATUS;
+				} finally {
+					monitor.done();
+				}
+				display.asyncExec(new Runnable() {
+					@Override
+					public void run() {
+						showResult(before, after);
+					}
+				});
+				return Status.OK_STATUS;
+			}
+		};
+		job.setUser(true);
+		job.schedule();
+	}
+
+	/**
+	 * Compacts the database of the project. A compaction that has started is not interrupted,
+	 * the free space of the chunks not yet compacted would be lost.
+	 */
+	private static void compact(ICProject project, long[] before, long[] after, IProgressMonitor monitor)
+			throws CoreException, InterruptedException {
+		IPDOM ipdom= CCoreInternals.getPDOMManager().getPDOM(project);
+		if (!(ipdom instanceof WritablePDOM)) {
+			return;
+		}
+		final WritablePDOM pdom = (WritablePDOM) ipdom;
+		// Waiting for the lock can be canceled.
+		pdom.acquireWriteLock(monitor);
+		try {
+			Database db = pdom.getDB();
+			addSpaceUsage(db, before);
+			db.compact();
+			addSpaceUsage(db, after);
+		} finally {
+			pdom.releaseWriteLock();
+		}
+	}
+
+	private static void showResult(long[] before, long[] after) {
+		MessageDialog.openInformation(null,
+				CUIPlugin.getResourceString("IndexView.CompactIndex.title"), //$NON-NLS-1$
+				CUIPlugin.getFormattedString("IndexView.CompactIndex.message", //$NON-NLS-1$
+						new String[] {
+							String.valueOf(before[SIZE]),
+							String.valueOf(before[FREE_BYTES]),
+							String.valueOf(before[FREE_BLOCKS]),
+							String.valueOf(after[SIZE]),
+							String.valueOf(after[FREE_BYTES]),
+							String.valueOf(after[FREE_BLOCKS])
+						}));
+	}
+
+	private static void addSpaceUsage(Database db, long[] usage) throws CoreException {
+		usage[SIZE] += db.getSizeBytes();
+		usage[FREE_BYTES] += db.getFreeBytes();
+		usage[FREE_BLOCKS] += db.getFreeBlockCount();
+	}
+}
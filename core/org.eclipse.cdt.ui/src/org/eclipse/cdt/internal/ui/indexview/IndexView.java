@@ -72,6 +72,7 @@ public class IndexView extends ViewPart implements PDOM.IListener, IElementChang
 	private TreeViewer viewer;
 	private ToggleLinkingAction toggleLinkingAction;
 	private IndexAction countSymbolsAction;
+	private IndexAction compactIndexAction;
 	private IndexAction discardExternalDefsAction;
 	private IndexAction openDefinitionAction;
 	private IndexAction findDeclarationsAction;
@@ -358,6 +359,7 @@ public class IndexView extends ViewPart implements PDOM.IListener, IElementChang
 	
 	private void makeActions() {
 		countSymbolsAction = new CountNodeAction(this, viewer);
+		compactIndexAction = new CompactIndexAction(this, viewer);
 		discardExternalDefsAction = new DiscardExternalDefsAction(viewer, this);
 		toggleLinkingAction = new ToggleLinkingAction(this);
 		openDefinitionAction = new OpenDefinitionAction(this, viewer);
@@ -382,6 +384,8 @@ public class IndexView extends ViewPart implements PDOM.IListener, IElementChang
 	private void fillContextMenu(IMenuManager manager) {
 		if (countSymbolsAction.valid())
 			manager.add(countSymbolsAction);
+		if (compactIndexAction.valid())
+			manager.add(compactIndexAction);
 		if (discardExternalDefsAction.valid())
 			manager.add(discardExternalDefsAction);
 		if (openDefinitionAction.valid())
@@ -10,8 +10,11 @@
  *******************************************************************************/
 package org.eclipse.cdt.dsf.gdb.tests;
 
+import org.eclipse.cdt.dsf.mi.service.MemoryPageCacheTests;
+import org.eclipse.cdt.dsf.mi.service.command.MIControlPipeliningTests;
 import org.eclipse.cdt.dsf.mi.service.command.commands.TestMIBreakInsertCommand;
 import org.eclipse.cdt.dsf.mi.service.command.commands.TestMICommandConstructCommand;
+import org.eclipse.cdt.dsf.mi.service.command.output.MIParserTests;
 import org.eclipse.cdt.dsf.mi.service.command.output.MIStringHandlerTests;
 import org.eclipse.cdt.dsf.mi.service.command.output.MIThreadTests;
 import org.junit.runner.RunWith;
@@ -26,6 +29,9 @@ import org.junit.runners.Suite.SuiteClasses;
     TestMICommandConstructCommand.class,
     LaunchUtilsTest.class,
     MIStringHandlerTests.class,
+    MIParserTests.class,
+    MemoryPageCacheTests.class,
+    MIControlPipeliningTests.class,
     ProcStatParserTest.class,
 })	
 public class AllTests {
@@ -0,0 +1,255 @@
+/*******************************************************************************
+ * Copyright (c) 2016 agent and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     agent - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.cdt.dsf.mi.service;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+
+import org.eclipse.cdt.core.IAddress;
+import org.eclipse.cdt.dsf.mi.service.MemoryPageCache.PageRun;
+import org.eclipse.cdt.utils.Addr64;
+import org.eclipse.debug.core.model.MemoryByte;
+import org.junit.Before;
+import org.junit.Test;
+
+public class MemoryPageCacheTests {
+
+	private static final int PAGE_SIZE = 16;
+
+	private MemoryCacheStats fStats;
+	private MemoryPageCache fCache;
+	private MemoryPageCache fPaddingCache;
+
+	@Before
+	public void setUp() {
+		fStats = new MemoryCacheStats();
+		fCache = new MemoryPageCache(PAGE_SIZE, false, 4 * PAGE_SIZE, fStats);
+		fPaddingCache = new MemoryPageCache(PAGE_SIZE, true, 4 * PAGE_SIZE, fStats);
+	}
+
+	/**
+	 * Simulates a read from the target, where the value of each byte is its address.
+	 */
+	private static MemoryByte[] readTarget(PageRun run, int wordSize) {
+		MemoryByte[] block = new MemoryByte[run.fLength * wordSize];
+		long address = run.fAddress.getValue().longValue();
+		for (int i = 0; i < block.length; i++) {
+			block[i] = new MemoryByte((byte) (address + i / wordSize));
+		}
+		return block;
+	}
+
+	private MemoryByte[] getMemory(long address, int count, int prefetch) {
+		MemoryByte[] result = new MemoryByte[count];
+		List<PageRun> runs = fCache.read(new Addr64(Long.toString(address)), count, 1, prefetch, result);
+		for (PageRun run : runs) {
+			MemoryByte[] block = readTarget(run, 1);
+			fCache.store(run, block);
+			fCache.copy(run, block, result);
+		}
+		return result;
+	}
+
+	private static void assertMemory(long address, MemoryByte[] memory) {
+		for (int i = 0; i < memory.length; i++) {
+			assertEquals((byte) (address + i), memory[i].getValue());
+		}
+	}
+
+	private static void assertRun(long address, long offset, int length, PageRun run) {
+		assertEquals(address, run.fAddress.getValue().longValue());
+		assertEquals(offset, run.fOffset);
+		assertEquals(length, run.fLength);
+	}
+
+	@Test
+	public void noPadding() {
+		List<PageRun> runs = fCache.read(new Addr64("20"), 10, 1, 0, new MemoryByte[10]); //$NON-NLS-1$
+		assertEquals(1, runs.size());
+		assertRun(20, 0, 10, runs.get(0));
+	}
+
+	@Test
+	public void padToPages() {
+		List<PageRun> runs = fPaddingCache.read(new Addr64("20"), 10, 1, 0, new MemoryByte[10]); //$NON-NLS-1$
+		assertEquals(1, runs.size());
+		assertRun(16, -4, 16, runs.get(0));
+
+		runs = fPaddingCache.read(new Addr64("8"), 30, 1, 0, new MemoryByte[30]); //$NON-NLS-1$
+		assertEquals(1, runs.size());
+		assertRun(0, -8, 48, runs.get(0));
+	}
+
+	@Test
+	public void cacheHits() {
+		assertMemory(20, getMemory(20, 10, 0));
+		assertEquals(1, fStats.getReadCount());
+		assertEquals(0, fStats.getHitBytes());
+
+		assertMemory(20, getMemory(20, 10, 0));
+		assertEquals(1, fStats.getReadCount());
+		assertEquals(10, fStats.getHitBytes());
+
+		// Only the missing memory is read
+		assertMemory(10, getMemory(10, 50, 0));
+		assertEquals(3, fStats.getReadCount());
+		assertEquals(20, fStats.getHitBytes());
+		assertEquals(50, fStats.getFetchedBytes());
+		assertEquals(70, fStats.getRequestedBytes());
+	}
+
+	@Test
+	public void partialPages() {
+		getMemory(20, 4, 0);
+		assertEquals(1, fCache.size());
+		assertFalse(fCache.containsAny(new Addr64("16"), 4)); //$NON-NLS-1$
+		assertTrue(fCache.containsAny(new Addr64("16"), 5)); //$NON-NLS-1$
+		assertFalse(fCache.containsAny(new Addr64("24"), 8)); //$NON-NLS-1$
+
+		// The rest of the page is read when requested
+		assertMemory(16, getMemory(16, 16, 0));
+		assertEquals(3, fStats.getReadCount());
+		assertEquals(4, fStats.getHitBytes());
+	}
+
+	@Test
+	public void prefetch() {
+		assertMemory(0, getMemory(0, 16, 1));
+		assertEquals(2, fCache.size());
+		assertEquals(16, fStats.getPrefetchedBytes());
+
+		// The next page was read ahead
+		assertMemory(16, getMemory(16, 16, 1));
+		assertEquals(1, fStats.getReadCount());
+
+		// Only the missing end of the request is read, along with the next page
+		assertMemory(24, getMemory(24, 16, 1));
+		assertEquals(2, fStats.getReadCount());
+		assertTrue(fCache.containsAny(new Addr64("55"), 1)); //$NON-NLS-1$
+		assertFalse(fCache.containsAny(new Addr64("56"), 8)); //$NON-NLS-1$
+
+		// Read ahead stops at cached memory
+		fCache.clear();
+		getMemory(100, 4, 0);
+		MemoryByte[] result = new MemoryByte[4];
+		List<PageRun> runs = fCache.read(new Addr64("90"), 4, 1, 2, result); //$NON-NLS-1$
+		assertEquals(1, runs.size());
+		assertRun(90, 0, 10, runs.get(0));
+	}
+
+	@Test
+	public void lruEviction() {
+		getMemory(0, 64, 0);
+		assertEquals(4, fCache.size());
+		getMemory(0, 1, 0);
+		getMemory(64, 1, 0);
+		assertEquals(4, fCache.size());
+		assertEquals(1, fStats.getEvictedPages());
+
+		// Page 0 was used recently, page 1 was evicted
+		assertTrue(fCache.containsAny(new Addr64("0"), 1)); //$NON-NLS-1$
+		assertFalse(fCache.containsAny(new Addr64("16"), 16)); //$NON-NLS-1$
+		assertTrue(fCache.containsAny(new Addr64("16"), 17)); //$NON-NLS-1$
+	}
+
+	@Test
+	public void largeRequest() {
+		// Larger than the cache, the result is still complete
+		assertMemory(8, getMemory(8, 200, 0));
+		assertEquals(4, fCache.size());
+	}
+
+	@Test
+	public void update() {
+		getMemory(0, 32, 0);
+		IAddress address = new Addr64("30"); //$NON-NLS-1$
+		MemoryByte[] block = new MemoryByte[] { new MemoryByte((byte) 30), new MemoryByte((byte) 99),
+				new MemoryByte((byte) 7), new MemoryByte((byte) 8) };
+		assertTrue(fCache.update(address, 4, block, 1));
+		assertFalse(fCache.update(address, 4, block, 1));
+
+		MemoryByte[] result = getMemory(28, 4, 0);
+		assertEquals(28, result[0].getValue());
+		assertEquals(29, result[1].getValue());
+		assertEquals(30, result[2].getValue());
+		assertEquals(99, result[3].getValue());
+
+		// Memory that is not cached is not added
+		assertEquals(32, getMemory(32, 1, 0)[0].getValue());
+	}
+
+	@Test
+	public void wordSize() {
+		MemoryByte[] result = new MemoryByte[8];
+		List<PageRun> runs = fCache.read(new Addr64("4"), 4, 2, 0, result); //$NON-NLS-1$
+		assertEquals(1, runs.size());
+		MemoryByte[] block = readTarget(runs.get(0), 2);
+		assertEquals(8, block.length);
+		fCache.store(runs.get(0), block);
+		fCache.copy(runs.get(0), block, result);
+		assertEquals(4, result[0].getValue());
+		assertEquals(4, result[1].getValue());
+		assertEquals(7, result[7].getValue());
+		assertEquals(0, fCache.read(new Addr64("5"), 2, 2, 0, new MemoryByte[4]).size()); //$NON-NLS-1$
+
+		// A different word size starts over
+		result = new MemoryByte[1];
+		assertEquals(1, fCache.read(new Addr64("4"), 1, 1, 0, result).size()); //$NON-NLS-1$
+		assertNull(result[0]);
+	}
+
+	@Test
+	public void sizeInBytes() {
+		// Half as many pages of two octet words fit
+		MemoryByte[] result = new MemoryByte[64 * 2];
+		for (PageRun run : fCache.read(new Addr64("0"), 64, 2, 0, result)) { //$NON-NLS-1$
+			fCache.store(run, readTarget(run, 2));
+		}
+		assertEquals(2, fCache.size());
+	}
+
+	@Test
+	public void unreadablePages() {
+		MemoryByte[] result = new MemoryByte[4];
+		List<PageRun> runs = fPaddingCache.read(new Addr64("20"), 4, 1, 2, result); //$NON-NLS-1$
+		assertEquals(1, runs.size());
+		PageRun run = runs.get(0);
+		assertRun(16, -4, 3 * PAGE_SIZE, run);
+		fPaddingCache.storeUnreadable(run);
+
+		// The requested memory is read on its own, and cached
+		PageRun requestedRun = fPaddingCache.subRun(run, 0, 4);
+		assertRun(20, 0, 4, requestedRun);
+		MemoryByte[] block = readTarget(requestedRun, 1);
+		fPaddingCache.store(requestedRun, block);
+		fPaddingCache.copy(requestedRun, block, result);
+		assertMemory(20, result);
+		assertEquals(0, fPaddingCache.read(new Addr64("20"), 4, 1, 2, result).size()); //$NON-NLS-1$
+
+		// Requests are no longer padded or read ahead into the unreadable pages
+		runs = fPaddingCache.read(new Addr64("28"), 4, 1, 2, new MemoryByte[4]); //$NON-NLS-1$
+		assertEquals(1, runs.size());
+		assertRun(28, 0, 4, runs.get(0));
+		runs = fPaddingCache.read(new Addr64("40"), 40, 1, 1, new MemoryByte[40]); //$NON-NLS-1$
+		assertEquals(1, runs.size());
+		assertRun(40, 0, 40 + 16, runs.get(0));
+
+		// Unreadable pages are forgotten when the cache is cleared
+		fPaddingCache.clear();
+		runs = fPaddingCache.read(new Addr64("28"), 4, 1, 0, new MemoryByte[4]); //$NON-NLS-1$
+		assertEquals(1, runs.size());
+		assertRun(16, -12, PAGE_SIZE, runs.get(0));
+	}
+}
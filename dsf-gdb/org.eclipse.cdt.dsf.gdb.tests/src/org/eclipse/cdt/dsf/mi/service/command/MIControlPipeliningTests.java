@@ -0,0 +1,350 @@
+/*******************************************************************************
+ * Copyright (c) 2016 agent and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     agent - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.cdt.dsf.mi.service.command;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.io.PipedInputStream;
+import java.io.PipedOutputStream;
+import java.util.Arrays;
+import java.util.LinkedList;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.cdt.dsf.concurrent.DataRequestMonitor;
+import org.eclipse.cdt.dsf.concurrent.DefaultDsfExecutor;
+import org.eclipse.cdt.dsf.concurrent.DsfRunnable;
+import org.eclipse.cdt.dsf.debug.service.command.ICommandControlService.ICommandControlDMContext;
+import org.eclipse.cdt.dsf.debug.service.command.ICommandToken;
+import org.eclipse.cdt.dsf.gdb.internal.GdbPlugin;
+import org.eclipse.cdt.dsf.mi.service.command.commands.MICommand;
+import org.eclipse.cdt.dsf.mi.service.command.output.MIInfo;
+import org.eclipse.cdt.dsf.service.DsfSession;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.osgi.framework.BundleContext;
+
+/**
+ * Tests the command pipelining of {@link AbstractMIControl}, with a fake back end
+ * that records the commands written to it.
+ */
+public class MIControlPipeliningTests {
+
+	private static final int TIMEOUT = 5000;
+
+	private static class TestControl extends AbstractMIControl {
+		private final MIControlDMContext fContext;
+
+		TestControl(DsfSession session) {
+			super(session, false, true, new CommandFactory());
+			fContext = new MIControlDMContext(session.getId(), getId());
+			setCommandPipelining(true);
+		}
+
+		void start(PipedInputStream inStream, OutputStream outStream) {
+			startCommandProcessing(inStream, outStream);
+		}
+
+		void stop() {
+			stopCommandProcessing();
+		}
+
+		@Override
+		protected BundleContext getBundleContext() {
+			return GdbPlugin.getBundleContext();
+		}
+
+		@Override
+		public MIControlDMContext getControlDMContext() {
+			return fContext;
+		}
+
+		@Override
+		public ICommandControlDMContext getContext() {
+			return fContext;
+		}
+
+		@Override
+		public String getId() {
+			return "test"; //$NON-NLS-1$
+		}
+	}
+
+	/**
+	 * Records each write. A write can be held back until the test releases it.
+	 */
+	private class BackEndInput extends OutputStream {
+		volatile CountDownLatch fWriteStarted;
+		volatile CountDownLatch fGate;
+
+		@Override
+		public void write(int b) throws IOException {
+			write(new byte[] { (byte) b }, 0, 1);
+		}
+
+		@Override
+		public void write(byte[] b, int off, int len) throws IOException {
+			CountDownLatch started = fWriteStarted;
+			if (started != null) {
+				started.countDown();
+			}
+			CountDownLatch gate = fGate;
+			if (gate != null) {
+				try {
+					gate.await();
+				} catch (InterruptedException e) {
+					throw new InterruptedIOException();
+				}
+			}
+			fWrites.add(new String(b, off, len));
+		}
+	}
+
+	private class Result extends DataRequestMonitor<MIInfo> {
+		private final CountDownLatch fDone = new CountDownLatch(1);
+
+		Result() {
+			super(fSession.getExecutor(), null);
+		}
+
+		@Override
+		protected void handleCompleted() {
+			fDone.countDown();
+		}
+
+		boolean await() throws InterruptedException {
+			return fDone.await(TIMEOUT, TimeUnit.MILLISECONDS);
+		}
+
+		boolean isCompleted() {
+			return fDone.getCount() == 0;
+		}
+	}
+
+	private DsfSession fSession;
+	private TestControl fControl;
+	private BackEndInput fBackEndInput;
+	private PipedOutputStream fBackEndOutput;
+	private final BlockingQueue<String> fWrites = new LinkedBlockingQueue<String>();
+	private final LinkedList<String> fWrittenCommands = new LinkedList<String>();
+
+	@Before
+	public void setUp() throws IOException {
+		fSession = DsfSession.startSession(new DefaultDsfExecutor(GdbPlugin.PLUGIN_ID), GdbPlugin.PLUGIN_ID);
+		fControl = new TestControl(fSession);
+		fBackEndInput = new BackEndInput();
+		fBackEndOutput = new PipedOutputStream();
+		fControl.start(new PipedInputStream(fBackEndOutput), fBackEndInput);
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		CountDownLatch gate = fBackEndInput.fGate;
+		if (gate != null) {
+			gate.countDown();
+		}
+		runOnExecutor(new Runnable() {
+			@Override
+			public void run() {
+				fControl.stop();
+			}
+		});
+		fBackEndOutput.close();
+		DsfSession.endSession(fSession);
+		fSession.getExecutor().shutdown();
+	}
+
+	private static MICommand<MIInfo> query(ICommandControlDMContext context, String operation) {
+		return new MICommand<MIInfo>(context, operation);
+	}
+
+	/**
+	 * Runs the given code on the session executor, and waits until the commands
+	 * it queued were handed to the TX thread.
+	 */
+	private void runOnExecutor(final Runnable runnable) throws Exception {
+		fSession.getExecutor().submit(new DsfRunnable() {
+			@Override
+			public void run() {
+				runnable.run();
+			}
+		}).get();
+		fSession.getExecutor().submit(new DsfRunnable() {
+			@Override
+			public void run() {
+			}
+		}).get();
+	}
+
+	private String nextWrite() throws InterruptedException {
+		String write = fWrites.poll(TIMEOUT, TimeUnit.MILLISECONDS);
+		assertNotNull("Nothing was written to the back end", write); //$NON-NLS-1$
+		return write;
+	}
+
+	private String nextCommand() throws InterruptedException {
+		if (fWrittenCommands.isEmpty()) {
+			fWrittenCommands.addAll(Arrays.asList(nextWrite().split("\n"))); //$NON-NLS-1$
+		}
+		return fWrittenCommands.removeFirst();
+	}
+
+	private static String getOperation(String command) {
+		return command.replaceFirst("^\\d+", ""); //$NON-NLS-1$ //$NON-NLS-2$
+	}
+
+	private void respond(String command) throws IOException {
+		String token = command.substring(0, command.length() - getOperation(command).length());
+		fBackEndOutput.write((token + "^done\n").getBytes()); //$NON-NLS-1$
+		fBackEndOutput.flush();
+	}
+
+	@Test
+	public void commandsQueuedTogetherAreWrittenAtOnce() throws Exception {
+		fBackEndInput.fWriteStarted = new CountDownLatch(1);
+		fBackEndInput.fGate = new CountDownLatch(1);
+		final ICommandControlDMContext context = fControl.getContext();
+		runOnExecutor(new Runnable() {
+			@Override
+			public void run() {
+				fControl.queueCommand(query(context, "-thread-info"), new Result()); //$NON-NLS-1$
+			}
+		});
+		// The TX thread is busy writing the first command while the others are queued.
+		assertTrue(fBackEndInput.fWriteStarted.await(TIMEOUT, TimeUnit.MILLISECONDS));
+		runOnExecutor(new Runnable() {
+			@Override
+			public void run() {
+				fControl.queueCommand(query(context, "-stack-info-depth"), new Result()); //$NON-NLS-1$
+				fControl.queueCommand(query(context, "-stack-list-frames"), new Result()); //$NON-NLS-1$
+				fControl.queueCommand(query(context, "-stack-list-locals"), new Result()); //$NON-NLS-1$
+			}
+		});
+		fBackEndInput.fGate.countDown();
+
+		assertEquals("-thread-info", getOperation(nextWrite().trim())); //$NON-NLS-1$
+		String[] batch = nextWrite().split("\n"); //$NON-NLS-1$
+		assertEquals(3, batch.length);
+		assertEquals("-stack-info-depth", getOperation(batch[0])); //$NON-NLS-1$
+		assertEquals("-stack-list-frames", getOperation(batch[1])); //$NON-NLS-1$
+		assertEquals("-stack-list-locals", getOperation(batch[2])); //$NON-NLS-1$
+	}
+
+	@Test
+	public void equalQueriesAreCoalesced() throws Exception {
+		final ICommandControlDMContext context = fControl.getContext();
+		final Result first = new Result();
+		final Result second = new Result();
+		runOnExecutor(new Runnable() {
+			@Override
+			public void run() {
+				fControl.queueCommand(query(context, "-stack-info-depth"), first); //$NON-NLS-1$
+				fControl.queueCommand(query(context, "-stack-info-depth"), second); //$NON-NLS-1$
+			}
+		});
+		String command = nextCommand();
+		assertEquals("-stack-info-depth", getOperation(command)); //$NON-NLS-1$
+		assertTrue(fWrittenCommands.isEmpty());
+
+		// A query equal to the one waiting for its result is not sent either.
+		final Result third = new Result();
+		runOnExecutor(new Runnable() {
+			@Override
+			public void run() {
+				fControl.queueCommand(query(context, "-stack-info-depth"), third); //$NON-NLS-1$
+			}
+		});
+		respond(command);
+		assertTrue(first.await());
+		assertTrue(second.await());
+		assertTrue(third.await());
+		assertTrue(second.isSuccess());
+		assertSame(first.getData(), second.getData());
+		assertSame(first.getData(), third.getData());
+		assertTrue(fWrites.isEmpty());
+	}
+
+	@Test
+	public void queriesAreNotCoalescedAcrossWrites() throws Exception {
+		final ICommandControlDMContext context = fControl.getContext();
+		runOnExecutor(new Runnable() {
+			@Override
+			public void run() {
+				fControl.queueCommand(query(context, "-data-list-register-values"), new Result()); //$NON-NLS-1$
+				fControl.queueCommand(query(context, "-data-write-register-values"), new Result()); //$NON-NLS-1$
+				fControl.queueCommand(query(context, "-data-list-register-values"), new Result()); //$NON-NLS-1$
+			}
+		});
+		assertEquals("-data-list-register-values", getOperation(nextCommand())); //$NON-NLS-1$
+		assertEquals("-data-write-register-values", getOperation(nextCommand())); //$NON-NLS-1$
+		assertEquals("-data-list-register-values", getOperation(nextCommand())); //$NON-NLS-1$
+
+		// The query waiting for its result was not sent last.
+		runOnExecutor(new Runnable() {
+			@Override
+			public void run() {
+				fControl.queueCommand(query(context, "-stack-list-frames"), new Result()); //$NON-NLS-1$
+			}
+		});
+		assertEquals("-stack-list-frames", getOperation(nextCommand())); //$NON-NLS-1$
+		runOnExecutor(new Runnable() {
+			@Override
+			public void run() {
+				fControl.queueCommand(query(context, "-var-assign"), new Result()); //$NON-NLS-1$
+			}
+		});
+		assertEquals("-var-assign", getOperation(nextCommand())); //$NON-NLS-1$
+		runOnExecutor(new Runnable() {
+			@Override
+			public void run() {
+				fControl.queueCommand(query(context, "-stack-list-frames"), new Result()); //$NON-NLS-1$
+			}
+		});
+		assertEquals("-stack-list-frames", getOperation(nextCommand())); //$NON-NLS-1$
+	}
+
+	@Test
+	public void removedCommandHandsOverItsCoalescedCommands() throws Exception {
+		final ICommandControlDMContext context = fControl.getContext();
+		final Result first = new Result();
+		final Result second = new Result();
+		final Result third = new Result();
+		runOnExecutor(new Runnable() {
+			@Override
+			public void run() {
+				ICommandToken token = fControl.queueCommand(query(context, "-stack-list-frames"), first); //$NON-NLS-1$
+				fControl.queueCommand(query(context, "-stack-list-frames"), second); //$NON-NLS-1$
+				fControl.queueCommand(query(context, "-stack-list-frames"), third); //$NON-NLS-1$
+				fControl.removeCommand(token);
+			}
+		});
+		String command = nextCommand();
+		assertEquals("-stack-list-frames", getOperation(command)); //$NON-NLS-1$
+		assertTrue(fWrittenCommands.isEmpty());
+		respond(command);
+		assertTrue(second.await());
+		assertTrue(third.await());
+		assertTrue(third.isSuccess());
+		assertSame(second.getData(), third.getData());
+		assertFalse(first.isCompleted());
+		assertTrue(fWrites.isEmpty());
+	}
+}
@@ -0,0 +1,124 @@
+/*******************************************************************************
+ * Copyright (c) 2016 agent and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     agent - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.cdt.dsf.mi.service.command.output;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+@SuppressWarnings("nls")
+public class MIParserTests {
+	private final MIParser fParser = new MIParser();
+
+	@Test
+	public void testStackListFrames() {
+		String line = "12^done,stack=[frame={level=\"0\",addr=\"0x00400536\",func=\"main\",file=\"a.c\","
+				+ "fullname=\"/tmp/a.c\",line=\"5\"},frame={level=\"1\",addr=\"0x00400500\",func=\"start\"}]";
+		assertEquals(MIParser.RecordType.ResultRecord, fParser.getRecordType(line));
+		MIResultRecord rr = fParser.parseMIResultRecord(line);
+		assertEquals(12, rr.getToken());
+		assertEquals(MIResultRecord.DONE, rr.getResultClass());
+		MIResult[] results = rr.getMIResults();
+		assertEquals(1, results.length);
+		assertEquals("stack", results[0].getVariable());
+		MIList stack = (MIList) results[0].getMIValue();
+		assertEquals(2, stack.getMIResults().length);
+		MITuple frame = (MITuple) stack.getMIResults()[1].getMIValue();
+		assertEquals("frame", stack.getMIResults()[1].getVariable());
+		assertEquals("0x00400500", ((MIConst) frame.getField("addr")).getCString());
+		assertEquals("start", ((MIConst) frame.getField("func")).getCString());
+		assertEquals(line, rr.toString());
+	}
+
+	@Test
+	public void testEscapedConst() {
+		MIResultRecord rr = fParser.parseMIResultRecord("^done,value=\"\\\"a\\\\b\\n\\\"\",x=\"1\"");
+		MIResult[] results = rr.getMIResults();
+		assertEquals(2, results.length);
+		assertEquals("\"a\\b\\n\"", ((MIConst) results[0].getMIValue()).getCString());
+		assertEquals("1", ((MIConst) results[1].getMIValue()).getCString());
+	}
+
+	@Test
+	public void testSetCString() {
+		MIResultRecord rr = fParser.parseMIResultRecord("^done,value=\"a\"");
+		MIConst value = (MIConst) rr.getMIResults()[0].getMIValue();
+		value.setCString("b");
+		assertEquals("b", value.getCString());
+	}
+
+	@Test
+	public void testErrorRecord() {
+		MIResultRecord rr = fParser.parseMIResultRecord("^error,msg=\"No symbol \\\"x\\\" in current context.\"");
+		assertEquals(-1, rr.getToken());
+		assertEquals(MIResultRecord.ERROR, rr.getResultClass());
+		assertEquals("No symbol \"x\" in current context.", ((MIConst) rr.getMIResults()[0].getMIValue()).getCString());
+	}
+
+	@Test
+	public void testAsyncRecord() {
+		String line = "*stopped,reason=\"breakpoint-hit\",bkptno=\"1\",frame={addr=\"0x1\",args=[{name=\"argc\",value=\"1\"}]},thread-id=\"1\"";
+		MIOOBRecord oob = fParser.parseMIOOBRecord(line);
+		assertTrue(oob instanceof MIExecAsyncOutput);
+		MIExecAsyncOutput async = (MIExecAsyncOutput) oob;
+		assertEquals("stopped", async.getAsyncClass());
+		MIResult[] results = async.getMIResults();
+		assertEquals(4, results.length);
+		assertEquals("thread-id", results[3].getVariable());
+		MITuple frame = (MITuple) results[2].getMIValue();
+		MIList args = (MIList) frame.getField("args");
+		assertEquals(1, args.getMIValues().length);
+		assertEquals("argc", ((MIConst) ((MITuple) args.getMIValues()[0]).getField("name")).getCString());
+
+		oob = fParser.parseMIOOBRecord("=thread-group-added,id=\"i1\"");
+		assertTrue(oob instanceof MINotifyAsyncOutput);
+		assertEquals("thread-group-added", ((MIAsyncRecord) oob).getAsyncClass());
+
+		oob = fParser.parseMIOOBRecord("+download");
+		assertTrue(oob instanceof MIStatusAsyncOutput);
+		assertEquals("download", ((MIAsyncRecord) oob).getAsyncClass());
+	}
+
+	@Test
+	public void testStreamRecords() {
+		MIOOBRecord oob = fParser.parseMIOOBRecord("~\"Breakpoint 1 at 0x400536: file a.c, line 5.\\n\"");
+		assertTrue(oob instanceof MIConsoleStreamOutput);
+		assertEquals("Breakpoint 1 at 0x400536: file a.c, line 5.\\n", ((MIStreamRecord) oob).getCString());
+
+		// Backslashes of stream records are not escaped
+		oob = fParser.parseMIOOBRecord("&\"C:\\\\dir\\\\a.c\\n\"");
+		assertTrue(oob instanceof MILogStreamOutput);
+		assertEquals("C:\\\\dir\\\\a.c\\n", ((MIStreamRecord) oob).getCString());
+
+		oob = fParser.parseMIOOBRecord("not an MI record");
+		assertTrue(oob instanceof MITargetStreamOutput);
+		assertEquals("not an MI record\n", ((MIStreamRecord) oob).getCString());
+	}
+
+	@Test
+	public void testLargeResponse() {
+		StringBuilder line = new StringBuilder("^done,asm_insns=[");
+		int count = 20000;
+		for (int i = 0; i < count; i++) {
+			if (i > 0)
+				line.append(',');
+			line.append("{address=\"0x").append(Integer.toHexString(i)).append("\",func-name=\"main\",offset=\"")
+					.append(i).append("\",inst=\"mov    %rsp,%rbp\"}");
+		}
+		line.append(']');
+		MIResultRecord rr = fParser.parseMIResultRecord(line.toString());
+		MIList insns = (MIList) rr.getMIResults()[0].getMIValue();
+		assertEquals(count, insns.getMIValues().length);
+		MITuple last = (MITuple) insns.getMIValues()[count - 1];
+		assertEquals(Integer.toString(count - 1), ((MIConst) last.getField("offset")).getCString());
+	}
+}
@@ -146,5 +146,68 @@ public interface IGdbDebugPreferenceConstants {
 	 * @since 4.2
 	 */
 	public static final String PREF_AGGRESSIVE_BP_FILTER = PREFIX + "aggressiveBpFilter"; //$NON-NLS-1$
-}
 
+	/**
+	 * Boolean preference whether to keep several independent MI commands in flight to
+	 * GDB, and to answer identical pending queries with a single command.
+	 * Default is <code>false</code>.
+	 *
+	 * @since 5.0
+	 */
+	public static final String PREF_COMMAND_PIPELINING = PREFIX + "commandPipelining"; //$NON-NLS-1$
+
+	/**
+	 * The value is an integer specifying the size of the pages of the memory cache, in
+	 * addressable units.  The cached memory is stored and evicted in pages.  The size is
+	 * rounded down to a power of two.
+	 * @since 5.0
+	 */
+	public static final String PREF_MEMORY_CACHE_PAGE_SIZE = PREFIX + "memoryCachePageSize"; //$NON-NLS-1$
+
+	/**
+	 * Default value for <code>PREF_MEMORY_CACHE_PAGE_SIZE</code>.
+	 * @since 5.0
+	 */
+	public static final int MEMORY_CACHE_PAGE_SIZE_DEFAULT = 1024;
+
+	/**
+	 * The value is a boolean specifying whether memory requests are padded to the
+	 * boundaries of the pages of the memory cache.  Padding reads memory that was not
+	 * requested, which can have side effects on memory mapped devices, so it is disabled
+	 * by default.
+	 * @since 5.0
+	 */
+	public static final String PREF_MEMORY_CACHE_PAD_TO_PAGES = PREFIX + "memoryCachePadToPages"; //$NON-NLS-1$
+
+	/**
+	 * Default value for <code>PREF_MEMORY_CACHE_PAD_TO_PAGES</code>.
+	 * @since 5.0
+	 */
+	public static final boolean MEMORY_CACHE_PAD_TO_PAGES_DEFAULT = false;
+
+	/**
+	 * The value is an integer specifying the number of pages worth of memory to read
+	 * ahead when the end of a memory request is not cached, use 0 to disable read ahead.
+	 * @since 5.0
+	 */
+	public static final String PREF_MEMORY_CACHE_PREFETCH_PAGES = PREFIX + "memoryCachePrefetchPages"; //$NON-NLS-1$
+
+	/**
+	 * Default value for <code>PREF_MEMORY_CACHE_PREFETCH_PAGES</code>.
+	 * @since 5.0
+	 */
+	public static final int MEMORY_CACHE_PREFETCH_PAGES_DEFAULT = 1;
+
+	/**
+	 * The value is an integer specifying the maximum size, in octets, of the memory
+	 * cached for each memory context.  The least recently used pages are evicted first.
+	 * @since 5.0
+	 */
+	public static final String PREF_MEMORY_CACHE_SIZE = PREFIX + "memoryCacheSize"; //$NON-NLS-1$
+
+	/**
+	 * Default value for <code>PREF_MEMORY_CACHE_SIZE</code>.
+	 * @since 5.0
+	 */
+	public static final int MEMORY_CACHE_SIZE_DEFAULT = 16 * 1024 * 1024;
+}
@@ -45,5 +45,10 @@ public class GdbPreferenceInitializer extends AbstractPreferenceInitializer {
 		node.putInt(IGdbDebugPreferenceConstants.PREF_COMMAND_TIMEOUT_VALUE, IGdbDebugPreferenceConstants.COMMAND_TIMEOUT_VALUE_DEFAULT);
 		node.putBoolean(IGdbDebugPreferenceConstants.PREF_HIDE_RUNNING_THREADS, false);
 		node.putBoolean(IGdbDebugPreferenceConstants.PREF_AGGRESSIVE_BP_FILTER, true);
+		node.putBoolean(IGdbDebugPreferenceConstants.PREF_COMMAND_PIPELINING, false);
+		node.putInt(IGdbDebugPreferenceConstants.PREF_MEMORY_CACHE_PAGE_SIZE, IGdbDebugPreferenceConstants.MEMORY_CACHE_PAGE_SIZE_DEFAULT);
+		node.putBoolean(IGdbDebugPreferenceConstants.PREF_MEMORY_CACHE_PAD_TO_PAGES, IGdbDebugPreferenceConstants.MEMORY_CACHE_PAD_TO_PAGES_DEFAULT);
+		node.putInt(IGdbDebugPreferenceConstants.PREF_MEMORY_CACHE_PREFETCH_PAGES, IGdbDebugPreferenceConstants.MEMORY_CACHE_PREFETCH_PAGES_DEFAULT);
+		node.putInt(IGdbDebugPreferenceConstants.PREF_MEMORY_CACHE_SIZE, IGdbDebugPreferenceConstants.MEMORY_CACHE_SIZE_DEFAULT);
 	}
 }
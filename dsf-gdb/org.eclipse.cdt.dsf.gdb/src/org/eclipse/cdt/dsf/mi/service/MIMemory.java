@@ -21,9 +21,7 @@ package org.eclipse.cdt.dsf.mi.service;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Hashtable;
-import java.util.LinkedList;
 import java.util.List;
-import java.util.ListIterator;
 import java.util.Map;
 
 import org.eclipse.cdt.core.IAddress;
@@ -48,6 +46,7 @@ import org.eclipse.cdt.dsf.debug.service.IRunControl.ISuspendedDMEvent;
 import org.eclipse.cdt.dsf.debug.service.IRunControl.StateChangeReason;
 import org.eclipse.cdt.dsf.debug.service.command.BufferedCommandControl;
 import org.eclipse.cdt.dsf.debug.service.command.CommandCache;
+import org.eclipse.cdt.dsf.gdb.IGdbDebugPreferenceConstants;
 import org.eclipse.cdt.dsf.gdb.internal.GdbPlugin;
 import org.eclipse.cdt.dsf.gdb.service.command.IGDBControl;
 import org.eclipse.cdt.dsf.mi.service.MIExpressions.ExpressionChangedEvent;
@@ -61,7 +60,9 @@ import org.eclipse.cdt.dsf.service.DsfServiceEventHandler;
 import org.eclipse.cdt.dsf.service.DsfSession;
 import org.eclipse.cdt.utils.Addr64;
 import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Platform;
 import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.preferences.IPreferencesService;
 import org.eclipse.debug.core.model.MemoryByte;
 import org.osgi.framework.BundleContext;
 
@@ -97,6 +98,13 @@ public class MIMemory extends AbstractDsfService implements IMemory, ICachingSer
 	// Map of memory caches
     private Map<IMemoryDMContext, MIMemoryCache> fMemoryCaches;
 
+    // Memory cache configuration and statistics
+    private int fPageSize;
+    private boolean fPadToPages;
+    private int fPrefetchPages;
+    private int fMaxSize;
+    private final MemoryCacheStats fCacheStats = new MemoryCacheStats();
+
     /** @since 4.2 */
     protected MIMemoryCache getMemoryCache(IMemoryDMContext memoryDMC) {
     	MIMemoryCache cache = fMemoryCaches.get(memoryDMC);
@@ -158,6 +166,16 @@ public class MIMemory extends AbstractDsfService implements IMemory, ICachingSer
 
     	fMemoryCaches = new HashMap<IMemoryDMContext, MIMemoryCache>();
 
+    	IPreferencesService prefs = Platform.getPreferencesService();
+    	fPageSize = prefs.getInt(GdbPlugin.PLUGIN_ID, IGdbDebugPreferenceConstants.PREF_MEMORY_CACHE_PAGE_SIZE,
+    			IGdbDebugPreferenceConstants.MEMORY_CACHE_PAGE_SIZE_DEFAULT, null);
+    	fPadToPages = prefs.getBoolean(GdbPlugin.PLUGIN_ID, IGdbDebugPreferenceConstants.PREF_MEMORY_CACHE_PAD_TO_PAGES,
+    			IGdbDebugPreferenceConstants.MEMORY_CACHE_PAD_TO_PAGES_DEFAULT, null);
+    	fPrefetchPages = prefs.getInt(GdbPlugin.PLUGIN_ID, IGdbDebugPreferenceConstants.PREF_MEMORY_CACHE_PREFETCH_PAGES,
+    			IGdbDebugPreferenceConstants.MEMORY_CACHE_PREFETCH_PAGES_DEFAULT, null);
+    	fMaxSize = prefs.getInt(GdbPlugin.PLUGIN_ID, IGdbDebugPreferenceConstants.PREF_MEMORY_CACHE_SIZE,
+    			IGdbDebugPreferenceConstants.MEMORY_CACHE_SIZE_DEFAULT, null);
+
     	getSession().addServiceEventListener(this, null);
 
     	requestMonitor.done();
@@ -513,6 +531,14 @@ public class MIMemory extends AbstractDsfService implements IMemory, ICachingSer
 		}
 	}
 
+	/**
+	 * Returns the statistics of the memory cache, over all memory contexts.
+	 * @since 5.0
+	 */
+	public MemoryCacheStats getMemoryCacheStats() {
+		return fCacheStats;
+	}
+
 	/**
 	 * The default addressable size is set to 1 octet, to be overridden by sub-classes supporting different values
 	 * @since 4.4
@@ -521,113 +547,6 @@ public class MIMemory extends AbstractDsfService implements IMemory, ICachingSer
 		return 1;
 	}
    	
-	///////////////////////////////////////////////////////////////////////////
-	// SortedLinkedlist
-	///////////////////////////////////////////////////////////////////////////
-
-	// This class is really the equivalent of a C struct (old habits die hard...)
-   	// For simplicity, everything is public.
-   	private static class MemoryBlock {
-		public IAddress fAddress;
-		public long fLengthInAddressableUnits;
-		public long fLengthInOctets;
-		public MemoryByte[] fBlock;
-		public MemoryBlock(IAddress address, long lengthInOctets, long lengthInAddressableUnits, MemoryByte[] block) {
-			// A memory block is expected to be populated with the contents of a defined range of addresses
-			// therefore the number of octets shall be divisible by the number of addresses
-			assert (lengthInOctets % lengthInAddressableUnits == 0);
-			fAddress = address;
-			fLengthInAddressableUnits = lengthInAddressableUnits;
-			fLengthInOctets = lengthInOctets;
-			fBlock = block;
-		}
-	}
-
-   	// Address-ordered data structure to cache the memory blocks.
-   	// Contiguous blocks are merged if possible.
-	@SuppressWarnings("serial")
-	private static class SortedMemoryBlockList extends LinkedList<MemoryBlock> {
-
-		public SortedMemoryBlockList() {
-			super();
-		}
-
-		// Insert the block in the sorted linked list and merge contiguous
-		// blocks if necessary
-		@Override
-		public boolean add(MemoryBlock block) {
-
-			// If the list is empty, just store the block
-			if (isEmpty()) {
-				addFirst(block);
-				return true;
-			}
-
-			// Insert the block at the correct location and then
-			// merge the blocks if possible
-			ListIterator<MemoryBlock> it = listIterator();
-			while (it.hasNext()) {
-				int index = it.nextIndex();
-				MemoryBlock item = it.next();
-				if (block.fAddress.compareTo(item.fAddress) < 0) {
-					add(index, block);
-					compact(index);
-					return true;
-				}
-			}
-
-			// Put at the end of the list and merge if necessary 
-			addLast(block);
-			compact(size() - 1);
-			return true;
-		}
-
-		// Merge this block with its contiguous neighbors (if any)
-		// Note: Merge is not performed if resulting block size would exceed MAXINT
-		private void compact(int index) {
-
-			MemoryBlock newBlock = get(index); 
-
-			// Case where the block is to be merged with the previous block
-			if (index > 0) {
-				MemoryBlock prevBlock = get(index - 1);
-				IAddress endOfPreviousBlock = prevBlock.fAddress.add(prevBlock.fLengthInAddressableUnits);
-				if (endOfPreviousBlock.distanceTo(newBlock.fAddress).longValue() == 0) {
-					long newLengthInOctets = prevBlock.fLengthInOctets + newBlock.fLengthInOctets;
-					long newLengthInAddressableUnits = prevBlock.fLengthInAddressableUnits + newBlock.fLengthInAddressableUnits;
-					if (newLengthInOctets <= Integer.MAX_VALUE) {
-						MemoryByte[] block = new MemoryByte[(int) newLengthInOctets] ;
-						System.arraycopy(prevBlock.fBlock, 0, block, 0, (int) prevBlock.fLengthInOctets);
-						System.arraycopy(newBlock.fBlock, 0, block, (int) prevBlock.fLengthInOctets, (int) newBlock.fLengthInOctets);
-						newBlock = new MemoryBlock(prevBlock.fAddress, newLengthInOctets, newLengthInAddressableUnits, block);
-						remove(index);
-						index -= 1;
-						set(index, newBlock);
-					}
-				}
-			}
-
-			// Case where the block is to be merged with the following block
-			int lastIndex = size() - 1;
-			if (index < lastIndex) {
-				MemoryBlock nextBlock = get(index + 1);
-				IAddress endOfNewBlock = newBlock.fAddress.add(newBlock.fLengthInAddressableUnits);
-				if (endOfNewBlock.distanceTo(nextBlock.fAddress).longValue() == 0) {
-					long newLength = newBlock.fLengthInOctets + nextBlock.fLengthInOctets;
-					long newAddressesLength = newBlock.fLengthInAddressableUnits + nextBlock.fLengthInAddressableUnits;
-					if (newLength <= Integer.MAX_VALUE) {
-						MemoryByte[] block = new MemoryByte[(int) newLength] ;
-						System.arraycopy(newBlock.fBlock, 0, block, 0, (int) newBlock.fLengthInOctets);
-						System.arraycopy(nextBlock.fBlock, 0, block, (int) newBlock.fLengthInOctets, (int) nextBlock.fLengthInOctets);
-						newBlock = new MemoryBlock(newBlock.fAddress, newLength, newAddressesLength, block);
-						set(index, newBlock);
-						remove(index + 1);
-					}
-				}
-			}
-		}
-	}
-
 	///////////////////////////////////////////////////////////////////////////
 	// MIMemoryCache
 	///////////////////////////////////////////////////////////////////////////
@@ -635,298 +554,110 @@ public class MIMemory extends AbstractDsfService implements IMemory, ICachingSer
 	/** @since 4.2 */
 	protected class MIMemoryCache {
 		// The memory cache data structure
-		private SortedMemoryBlockList fMemoryBlockList;
+		private MemoryPageCache fPages;
+
+		// Incremented on reset, so that reads started before the reset are not cached
+		private int fGeneration;
 
 		public MIMemoryCache() {
-	    	// Create the memory block cache
-	    	fMemoryBlockList = new SortedMemoryBlockList();
+	    	// Create the memory page cache
+	    	fPages = new MemoryPageCache(fPageSize, fPadToPages, fMaxSize, fCacheStats);
 		}
 
 		public void reset() {
 	    	// Clear the memory cache
-	    	fMemoryBlockList.clear();
-		}
-
-	    /**
- 	     *  This function walks the address-sorted memory block list to identify
-	     *  the 'missing' blocks (i.e. the holes) that need to be fetched on the target.
-	     * 
-	     *  The idea is fairly simple but an illustration could perhaps help.
-	     *  Assume the cache holds a number of cached memory blocks with gaps i.e.
-	     *  there is un-cached memory areas between blocks A, B and C:
-	     * 
-	     *        +---------+      +---------+      +---------+
-	     *        +    A    +      +    B    +      +    C    +
-	     *        +---------+      +---------+      +---------+
-	     *        :         :      :         :      :         :
-	     *   [a]  :         :  [b] :         :  [c] :         :  [d]
-	     *        :         :      :         :      :         :
-	     *   [e---+--]      :  [f--+---------+--]   :         :
-	     *   [g---+---------+------+---------+------+---------+----]
-	     *        :         :      :         :      :         :
-	     *        :   [h]   :      :   [i----+--]   :         :
-	     * 
-	     * 
-	     *  We have the following cases to consider.The requested block [a-i] either:
-	     * 
-	     *  [1] Fits entirely before A, in one of the gaps, or after C
-	     *      with no overlap and no contiguousness (e.g. [a], [b], [c] and [d])
-	     *      -> Add the requested block to the list of blocks to fetch
-	     * 
-	     *  [2] Starts before an existing block but overlaps part of it, possibly
-	     *      spilling in the gap following the cached block (e.g. [e], [f] and [g])
-	     *      -> Determine the length of the missing part (< count)
-	     *      -> Add a request to fill the gap before the existing block
-	     *      -> Update the requested block for the next iteration:
-	     *         - Start address to point just after the end of the cached block
-	     *         - Count reduced by cached block length (possibly becoming negative, e.g. [e])
-	     *      At this point, the updated requested block starts just beyond the cached block
-	     *      for the next iteration.
-	     * 
-	     *  [3] Starts at or into an existing block and overlaps part of it ([h] and [i])
-	     *      -> Update the requested block for the next iteration:
-	     *         - Start address to point just after the end of the cached block
-	     *         - Count reduced by length to end of cached block (possibly becoming negative, e.g. [h])
-	     *      At this point, the updated requested block starts just beyond the cached block
-	     *      for the next iteration.
-	     * 
-	     *  We iterate over the cached blocks list until there is no entry left or until
-	     *  the remaining requested block count is <= 0, meaning the result list contains
-	     *  only the sub-blocks needed to fill the gap(s), if any.
-	     * 
-	     *  (As is often the case, it takes much more typing to explain it than to just do it :-)
-	     *
-	     *  What is missing is a parameter that indicates the minimal block size that is worth fetching.
-	     *  This is target-specific and straight in the realm of the coalescing function... 
-	     *  
-	     * @param reqBlockStart The address of the requested block
-	     * @param count Its length
-	     * @return A list of the sub-blocks to fetch in order to fill enough gaps in the memory cache
-	     * to service the request
-	     */
-	    private List<MemoryBlock> getListOfMissingBlocks(IAddress reqBlockStart, int wordCount, int wordSize) {
-	    	int octetCount = wordCount * wordSize;
-
-			LinkedList<MemoryBlock> list = new LinkedList<MemoryBlock>();
-			ListIterator<MemoryBlock> it = fMemoryBlockList.listIterator();
-
-			// Look for holes in the list of memory blocks
-			while (it.hasNext() && octetCount > 0) {
-				MemoryBlock cachedBlock = it.next();
-				IAddress cachedBlockStart = cachedBlock.fAddress;
-				IAddress cachedBlockEnd   = cachedBlock.fAddress.add(cachedBlock.fLengthInAddressableUnits);
-
-				// Case where we miss a block before the cached block
-				if (reqBlockStart.distanceTo(cachedBlockStart).longValue() >= 0) {
-					int lengthInOctets = (int) Math.min(reqBlockStart.distanceTo(cachedBlockStart).longValue()*wordSize, octetCount);
-					// If both blocks start at the same location, no need to create a new cached block
-					if (lengthInOctets > 0) {
-						int lengthInAddressableUnits = lengthInOctets / wordSize;
-						MemoryBlock newBlock = new MemoryBlock(reqBlockStart, lengthInOctets, lengthInAddressableUnits, new MemoryByte[0]);
-						list.add(newBlock);
-					}
-					// Adjust request block start and length for the next iteration
-					reqBlockStart = cachedBlockEnd;
-					octetCount -= lengthInOctets + cachedBlock.fLengthInOctets;
-				}
-
-				// Case where the requested block starts somewhere in the cached block
-				else if (cachedBlockStart.distanceTo(reqBlockStart).longValue() > 0
-					&&  reqBlockStart.distanceTo(cachedBlockEnd).longValue() >= 0)
-				{
-					// Start of the requested block already in cache
-					// Adjust request block start and length for the next iteration
-					octetCount -= reqBlockStart.distanceTo(cachedBlockEnd).longValue()*wordSize;
-					reqBlockStart = cachedBlockEnd;
-				}
-			}
-
-			// Case where we miss a block at the end of the cache
-			if (octetCount > 0) {
-				int addressesLength = octetCount / wordSize;
-				MemoryBlock newBlock = new MemoryBlock(reqBlockStart, octetCount, addressesLength, new MemoryByte[0]);
-				list.add(newBlock);
-			}
-			
-			return list;
+	    	fPages.clear();
+	    	fGeneration++;
 		}
 
 	    /**
-	     *  This function walks the address-sorted memory block list to get the
-	     *  cached memory bytes (possibly from multiple contiguous blocks).
-	     *  This function is called *after* the missing blocks have been read from
-	     *  the back end i.e. the requested memory is all cached. 
-	     *
-	     *  Again, this is fairly simple. As we loop over the address-ordered list,
-	     *  There are really only 2 cases:
-	     *
-	     *  [1] The requested block fits entirely in the cached block ([a] or [b])
-	     *  [2] The requested block starts in a cached block and ends in the
-	     *      following (contiguous) one ([c]) in which case it is treated
-	     *      as 2 contiguous requests ([c'] and [c"])
-	     *
-	     *       +--------------+--------------+
-	     *       +       A      +      B       +
-	     *       +--------------+--------------+
-	     *       :  [a----]     :   [b-----]   :
-	     *       :              :              :
-	     *       :       [c-----+------]       :
-	     *       :       [c'---]+[c"---]       :
-		 *
-	     * @param reqBlockStart The address of the requested block
-	     * @param count Its length
-	     * @return The cached memory content
-	     */
-	    private MemoryByte[] getMemoryBlockFromCache(IAddress reqBlockStart, int wordCount, int wordSize) {
-	    	int count = wordCount * wordSize;
-	    	
-			IAddress reqBlockEnd = reqBlockStart.add(wordCount);
-			MemoryByte[] resultBlock = new MemoryByte[count];
-			ListIterator<MemoryBlock> iter = fMemoryBlockList.listIterator();
-
-			while (iter.hasNext()) {
-				MemoryBlock cachedBlock = iter.next();
-				IAddress cachedBlockStart = cachedBlock.fAddress;
-				IAddress cachedBlockEnd   = cachedBlock.fAddress.add(cachedBlock.fLengthInAddressableUnits);
-
-				// Case where the cached block overlaps completely the requested memory block  
-				if (cachedBlockStart.distanceTo(reqBlockStart).longValue() >= 0
-					&& reqBlockEnd.distanceTo(cachedBlockEnd).longValue() >= 0)
-				{
-					int pos = (int) cachedBlockStart.distanceTo(reqBlockStart).longValue() * wordSize;
-					System.arraycopy(cachedBlock.fBlock, pos, resultBlock, 0, count);
-				}
-				
-				// Case where the beginning of the cached block is within the requested memory block  
-				else if (reqBlockStart.distanceTo(cachedBlockStart).longValue() >= 0
-					&& cachedBlockStart.distanceTo(reqBlockEnd).longValue() > 0)
-				{
-					int pos = (int) reqBlockStart.distanceTo(cachedBlockStart).longValue() * wordSize;
-					int length = (int) Math.min(cachedBlock.fLengthInOctets, count - pos);
-					System.arraycopy(cachedBlock.fBlock, 0, resultBlock, pos, length);
-				}
-				
-				// Case where the end of the cached block is within the requested memory block  
-				else if (cachedBlockStart.distanceTo(reqBlockStart).longValue() >= 0
-					&& reqBlockStart.distanceTo(cachedBlockEnd).longValue() > 0)
-				{
-					int pos = (int) cachedBlockStart.distanceTo(reqBlockStart).longValue() * wordSize;
-					int length = (int) Math.min(cachedBlock.fLengthInOctets - pos, count);
-					System.arraycopy(cachedBlock.fBlock, pos, resultBlock, 0, length);
-				}
- 			}
-			return resultBlock;
-		}
-
-		/**
-	     *  This function walks the address-sorted memory block list and updates
-	     *  the content with the actual memory just read from the target.
+	     * Reads the requested memory from the cache.  The memory that is not cached
+	     * is read from the target, in as few reads as possible, and cached.  If the
+	     * end of the request is missing, the memory following it can be read as well, in
+	     * anticipation of the next request of a client scrolling through memory.
 	     * 
-		 * @param modBlockStart
-		 * @param wordCount - Number of addressable units
-		 * @param modBlock
-		 * @param wordSize - Number of octets per addressable unit
-		 */
-		private void updateMemoryCache(IAddress modBlockStart, int wordCount, MemoryByte[] modBlock, int wordSize) {
-			IAddress modBlockEnd = modBlockStart.add(wordCount);
-			ListIterator<MemoryBlock> iter = fMemoryBlockList.listIterator();
-			int count = wordCount * wordSize;
-
-			while (iter.hasNext()) {
-				MemoryBlock cachedBlock = iter.next();
-				IAddress cachedBlockStart = cachedBlock.fAddress;
-				IAddress cachedBlockEnd   = cachedBlock.fAddress.add(cachedBlock.fLengthInAddressableUnits);
-				
-				// For now, we only bother to update bytes already cached.
-				// Note: In a better implementation (v1.1), we would augment
-				// the cache with the missing memory blocks since we went 
-				// through the pains of reading them in the first place.
-				// (this is left as an exercise to the reader :-)
-
-				// Case where the modified block is completely included in the cached block  
-				if (cachedBlockStart.distanceTo(modBlockStart).longValue() >= 0
-					&& modBlockEnd.distanceTo(cachedBlockEnd).longValue() >= 0)
-				{
-					int pos = (int) cachedBlockStart.distanceTo(modBlockStart).longValue() * wordSize;
-					System.arraycopy(modBlock, 0, cachedBlock.fBlock, pos, count);
-				}
-				
-				// Case where the cached block is completely included in the modified block
-				else if (modBlockStart.distanceTo(cachedBlockStart).longValue() >= 0
-					&& cachedBlockEnd.distanceTo(modBlockEnd).longValue() >= 0)
-				{
-					int pos = (int) modBlockStart.distanceTo(cachedBlockStart).longValue() * wordSize;
-					System.arraycopy(modBlock, pos, cachedBlock.fBlock, 0, (int) cachedBlock.fLengthInOctets);
-				}
-
-				// Case where the beginning of the modified block is within the cached block  
-				else if (cachedBlockStart.distanceTo(modBlockStart).longValue() >= 0
-					&& modBlockStart.distanceTo(cachedBlockEnd).longValue() > 0)
-				{
-					int pos = (int) cachedBlockStart.distanceTo(modBlockStart).longValue() * wordSize;
-					int length = (int) modBlockStart.distanceTo(cachedBlockEnd).longValue() * wordSize;
-					System.arraycopy(modBlock, 0, cachedBlock.fBlock, pos, length);
-				}
-				
-				// Case where the end of the modified block is within the cached block  
-				else if (cachedBlockStart.distanceTo(modBlockEnd).longValue() > 0
-					&& modBlockEnd.distanceTo(cachedBlockEnd).longValue() >= 0)
-				{
-					int pos = (int) modBlockStart.distanceTo(cachedBlockStart).longValue() * wordSize;
-					int length = (int) cachedBlockStart.distanceTo(modBlockEnd).longValue() * wordSize;
-					System.arraycopy(modBlock, pos, cachedBlock.fBlock, 0, length);
-				}
- 			}
-			return;
-		}
-
-	    /**
 		 * @param memoryDMC
 	     * @param address	the memory block address (on the target)
 	     * @param wordSize	the size, in bytes, of an addressable item
 	     * @param wordCount the number of addressable units to read
 	     * @param drm		the asynchronous data request monitor
 	     */
-	    public void getMemory(IMemoryDMContext memoryDMC, final IAddress address, final int wordSize, 
+	    public void getMemory(final IMemoryDMContext memoryDMC, final IAddress address, final int wordSize, 
 	    		final int wordCount, final DataRequestMonitor<MemoryByte[]> drm)
 	    {
-	    	// Determine the number of read requests to issue 
-	    	List<MemoryBlock> missingBlocks = getListOfMissingBlocks(address, wordCount, wordSize);
-	    	int numberOfRequests = missingBlocks.size();
+	    	final MemoryByte[] result = new MemoryByte[wordCount * wordSize];
+
+	    	// Determine the read requests to issue
+	    	List<MemoryPageCache.PageRun> missingRuns = fPages.read(address, wordCount, wordSize, fPrefetchPages, result);
+	    	final int generation = fGeneration;
 
-	    	// A read request will be issued for each block needed
+	    	// A read request will be issued for each run of missing memory
 	    	// so we need to keep track of the count
 	        final CountingRequestMonitor countingRM =
 	        	new CountingRequestMonitor(getExecutor(), drm) { 
 	                @Override
 	                protected void handleSuccess() {
-	                	// We received everything so read the result from the memory cache
-	                	drm.setData(getMemoryBlockFromCache(address, wordCount, wordSize));
+	                	drm.setData(result);
 	                    drm.done();
 	                }
 	            };
-	       	countingRM.setDoneCount(numberOfRequests);
+	       	countingRM.setDoneCount(missingRuns.size());
 
 	        // Issue the read requests
-	        for (int i = 0; i < numberOfRequests; i++) {
-	        	MemoryBlock block = missingBlocks.get(i);
-	        	final IAddress startAddress = block.fAddress;
-	        	final int length = (int) block.fLengthInAddressableUnits;
-		        readMemoryBlock(memoryDMC, startAddress, 0, wordSize, length,
-					    new DataRequestMonitor<MemoryByte[]>(getSession().getExecutor(), drm) {
+	        for (final MemoryPageCache.PageRun run : missingRuns) {
+	        	final int length = run.fLength;
+		        readMemoryBlock(memoryDMC, run.fAddress, 0, wordSize, length,
+					    new DataRequestMonitor<MemoryByte[]>(getSession().getExecutor(), countingRM) {
 					    	@Override
 					    	protected void handleSuccess() {
 					    		MemoryByte[] block = getData();
-					    		int lenghtInaddressableUnits = block.length / wordSize;
-					    		MemoryBlock memoryBlock = new MemoryBlock(startAddress, block.length, lenghtInaddressableUnits, block);
-					    		fMemoryBlockList.add(memoryBlock);
-					    		countingRM.done();
+					    		final long start = Math.max(run.fOffset, 0);
+					    		final long end = Math.min(run.fOffset + length, wordCount);
+					    		if ((start == run.fOffset && end == run.fOffset + length) || isReadable(block)) {
+					    			if (generation == fGeneration) {
+					    				fPages.store(run, block);
+					    			}
+					    			fPages.copy(run, block, result);
+					    			countingRM.done();
+					    			return;
+					    		}
+					    		// Reading the padded or prefetched memory failed but the requested memory
+					    		// could still be readable, e.g. if it is next to an unmapped area; read it
+					    		// on its own.  The pages are remembered as unreadable such that the next
+					    		// requests for them are not extended again.
+					    		if (generation == fGeneration) {
+					    			fPages.storeUnreadable(run);
+					    		}
+					    		final MemoryPageCache.PageRun requestedRun = fPages.subRun(run, start, end);
+					    		readMemoryBlock(memoryDMC, requestedRun.fAddress, 0, wordSize, requestedRun.fLength,
+					    			new DataRequestMonitor<MemoryByte[]>(getExecutor(), countingRM) {
+					    				@Override
+					    				protected void handleSuccess() {
+					    					if (generation == fGeneration) {
+					    						fPages.store(requestedRun, getData());
+					    					}
+					    					fPages.copy(requestedRun, getData(), result);
+					    					countingRM.done();
+					    				}
+					    			});
 					    	}
 					    });
 	        }
 	    }
 
 	    /**
+	     * Returns whether any byte of the block could be read.
+	     */
+	    private boolean isReadable(MemoryByte[] block) {
+	    	for (MemoryByte b : block) {
+	    		if (b != null && b.isReadable()) {
+	    			return true;
+	    		}
+	    	}
+	    	return false;
+	    }
+
+		/**
 		 * @param memoryDMC
 	     * @param address	the memory block address (on the target)
 	     * @param offset	the offset from the start address
@@ -953,7 +684,7 @@ public class MIMemory extends AbstractDsfService implements IMemory, ICachingSer
 					        new DataRequestMonitor<MemoryByte[]>(getExecutor(), rm) { 
 					        	@Override
 	                            protected void handleSuccess() {
-									updateMemoryCache(address.add(offset), wordCount, getData(), wordSize);
+									fPages.update(address.add(offset), wordCount, getData(), wordSize);
 									// Send the MemoryChangedEvent
 									IAddress[] addresses = new IAddress[wordCount];
 									for (int i = 0; i < wordCount; i++) {
@@ -982,14 +713,8 @@ public class MIMemory extends AbstractDsfService implements IMemory, ICachingSer
 	   {
 		   // Check if we already cache part of this memory area (which means it
 		   // is used by a memory service client that will have to be updated)
-		   List<MemoryBlock> list = getListOfMissingBlocks(address, wordCount, wordSize);
-		   int sizeToRead = 0;
-		   for (MemoryBlock block : list) {
-			   sizeToRead += block.fLengthInAddressableUnits;
-		   }
-
 		   // If none of the requested memory is in cache, just get out
-		   if (sizeToRead == wordCount) {
+		   if (!fPages.containsAny(address.add(offset), wordCount)) {
 			   rm.done();
 			   return;
 		   }
@@ -1000,25 +725,14 @@ public class MIMemory extends AbstractDsfService implements IMemory, ICachingSer
 				   new DataRequestMonitor<MemoryByte[]>(getExecutor(), rm) {
 					   @Override
 					   protected void handleSuccess() {
-						   MemoryByte[] oldBlock = getMemoryBlockFromCache(address, wordCount, wordSize);
-						   MemoryByte[] newBlock = getData();
-						   boolean blocksDiffer = false;
-						   for (int i = 0; i < oldBlock.length; i++) {
-						       if (oldBlock[i].getValue() != newBlock[i].getValue()) {
-						          blocksDiffer = true;
-						          break;
-						       }
-						   }
-						   if (blocksDiffer) {
-							   updateMemoryCache(address.add(offset), wordCount, newBlock, wordSize);
-							   if (sendMemoryEvent) {
-								   // Send the MemoryChangedEvent
-								   final IAddress[] addresses = new IAddress[wordCount];
-								   for (int i = 0; i < wordCount; i++) {
-									   addresses[i] = address.add(offset + i);
-								   }
-								   getSession().dispatchEvent(new MemoryChangedEvent(memoryDMC, addresses), getProperties());
+						   boolean blocksDiffer = fPages.update(address.add(offset), wordCount, getData(), wordSize);
+						   if (blocksDiffer && sendMemoryEvent) {
+							   // Send the MemoryChangedEvent
+							   final IAddress[] addresses = new IAddress[wordCount];
+							   for (int i = 0; i < wordCount; i++) {
+								   addresses[i] = address.add(offset + i);
 							   }
+							   getSession().dispatchEvent(new MemoryChangedEvent(memoryDMC, addresses), getProperties());
 						   }
 						   rm.done();
 					   }
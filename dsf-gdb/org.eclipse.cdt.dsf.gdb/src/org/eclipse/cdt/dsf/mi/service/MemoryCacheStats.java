@@ -0,0 +1,117 @@
+/*******************************************************************************
+ * Copyright (c) 2016 agent and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     agent - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.cdt.dsf.mi.service;
+
+/**
+ * Statistics of the memory cache of the {@link MIMemory} service, over all
+ * memory contexts.  Sizes are in octets.
+ *
+ * @since 5.0
+ */
+public class MemoryCacheStats {
+
+	private long fRequested;
+	private long fHits;
+	private long fFetched;
+	private int fReads;
+	private long fPrefetched;
+	private int fEvictedPages;
+
+	/**
+	 * Records a memory request of the given size, of which the given part was
+	 * found in the cache.
+	 */
+	public synchronized void memoryRequested(long requested, long hits) {
+		fRequested += requested;
+		fHits += hits;
+	}
+
+	/**
+	 * Records a read of the given size from the back end.
+	 */
+	public synchronized void memoryFetched(long fetched) {
+		fReads++;
+		fFetched += fetched;
+	}
+
+	/**
+	 * Records memory of the given size that is read ahead of a request.
+	 */
+	public synchronized void memoryPrefetched(long prefetched) {
+		fPrefetched += prefetched;
+	}
+
+	public synchronized void pageEvicted() {
+		fEvictedPages++;
+	}
+
+	public synchronized long getRequestedBytes() {
+		return fRequested;
+	}
+
+	public synchronized long getHitBytes() {
+		return fHits;
+	}
+
+	/**
+	 * Returns the ratio of the requested memory that was found in the cache.
+	 */
+	public synchronized double getHitRatio() {
+		return fRequested == 0 ? 0.0 : (double) fHits / fRequested;
+	}
+
+	/**
+	 * Returns the amount of memory read from the back end, including prefetched memory.
+	 */
+	public synchronized long getFetchedBytes() {
+		return fFetched;
+	}
+
+	/**
+	 * Returns the number of memory reads sent to the back end.
+	 */
+	public synchronized int getReadCount() {
+		return fReads;
+	}
+
+	/**
+	 * Returns the amount of memory read ahead of the requests.
+	 */
+	public synchronized long getPrefetchedBytes() {
+		return fPrefetched;
+	}
+
+	public synchronized int getEvictedPages() {
+		return fEvictedPages;
+	}
+
+	public synchronized void reset() {
+		fRequested = 0;
+		fHits = 0;
+		fFetched = 0;
+		fReads = 0;
+		fPrefetched = 0;
+		fEvictedPages = 0;
+	}
+
+	@Override
+	public synchronized String toString() {
+		StringBuilder sb = new StringBuilder();
+		sb.append("Memory cache: requested ").append(fRequested); //$NON-NLS-1$
+		sb.append(", hits ").append(fHits); //$NON-NLS-1$
+		sb.append(String.format(" (%.1f%%)", getHitRatio() * 100)); //$NON-NLS-1$
+		sb.append(", fetched ").append(fFetched); //$NON-NLS-1$
+		sb.append(" in ").append(fReads).append(" reads"); //$NON-NLS-1$ //$NON-NLS-2$
+		sb.append(", prefetched ").append(fPrefetched); //$NON-NLS-1$
+		sb.append(", evicted pages ").append(fEvictedPages).append('\n'); //$NON-NLS-1$
+		return sb.toString();
+	}
+}
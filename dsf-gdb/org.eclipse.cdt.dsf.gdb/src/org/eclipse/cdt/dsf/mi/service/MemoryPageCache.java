@@ -0,0 +1,442 @@
+/*******************************************************************************
+ * Copyright (c) 2016 agent and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     agent - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.cdt.dsf.mi.service;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.eclipse.cdt.core.IAddress;
+import org.eclipse.debug.core.model.MemoryByte;
+
+/**
+ * Memory contents of one memory context, cached in pages of a fixed number of
+ * addressable units.  Pages are looked up by page number, and the least recently
+ * used pages are evicted when the cache is full.  A page keeps the values and flags
+ * of its octets in arrays, and can be partially filled: only the memory that has been
+ * read from the target is valid.
+ * <p>
+ * Only the missing parts of a request are read from the target.  Optionally, the
+ * reads at the start and end of a request are padded to the page boundaries.  If the
+ * end of a request is missing, the memory following it can be read ahead.  Reading
+ * memory that was not requested fails if it overlaps unmapped memory.  The pages for
+ * which that happened are remembered, and reads are no longer extended into them.
+ */
+class MemoryPageCache {
+
+	/**
+	 * A range of consecutive addressable units that is missing from the cache.
+	 */
+	static class PageRun {
+		/** Address of the memory to read */
+		IAddress fAddress;
+		/** Position of the run relative to the request, in addressable units */
+		long fOffset;
+		/** Page of the first addressable unit of the run */
+		final long fFirstPage;
+		/** Position of the first addressable unit of the run in its page */
+		int fOffsetInPage;
+		/** Number of addressable units to read */
+		int fLength;
+
+		PageRun(IAddress address, long offset, long firstPage, int offsetInPage) {
+			fAddress = address;
+			fOffset = offset;
+			fFirstPage = firstPage;
+			fOffsetInPage = offsetInPage;
+		}
+	}
+
+	/**
+	 * The cached memory of one page.
+	 */
+	private static class Page {
+		final byte[] fValues;
+		final byte[] fFlags;
+		/** The addressable units that have been read, <code>null</code> once all of them are */
+		BitSet fValid;
+		int fValidCount;
+
+		Page(int pageSize, int wordSize) {
+			fValues = new byte[pageSize * wordSize];
+			fFlags = new byte[pageSize * wordSize];
+			fValid = new BitSet(pageSize);
+		}
+
+		boolean isValid(int unit) {
+			return fValid == null || fValid.get(unit);
+		}
+
+		boolean isAnyValid(int fromUnit, int toUnit) {
+			if (fValid == null) {
+				return true;
+			}
+			int unit = fValid.nextSetBit(fromUnit);
+			return unit >= 0 && unit < toUnit;
+		}
+
+		void setValid(int unit, int pageSize) {
+			if (fValid != null && !fValid.get(unit)) {
+				fValid.set(unit);
+				if (++fValidCount == pageSize) {
+					fValid = null;
+				}
+			}
+		}
+	}
+
+	/** Number of pages remembered as unreadable */
+	private static final int MAX_UNREADABLE_PAGES = 1024;
+
+	private final int fPageSize;
+	private final BigInteger fBigPageSize;
+	private final boolean fPadToPages;
+	private final int fMaxSize;
+	private int fMaxPages;
+	private final MemoryCacheStats fStats;
+	private int fWordSize;
+
+	private final Map<Long, Page> fPages;
+	private final Set<Long> fUnreadablePages;
+
+	/**
+	 * @param pageSize Number of addressable units per page, rounded down to a power of two.
+	 * @param padToPages Whether reads are padded to the page boundaries.
+	 * @param maxSize Maximum size of the cached memory, in octets.  At least one page is kept.
+	 * @param stats The statistics to update.
+	 */
+	@SuppressWarnings("serial")
+	MemoryPageCache(int pageSize, boolean padToPages, int maxSize, MemoryCacheStats stats) {
+		fPageSize = Integer.highestOneBit(Math.max(pageSize, 1));
+		fBigPageSize = BigInteger.valueOf(fPageSize);
+		fPadToPages = padToPages;
+		fMaxSize = maxSize;
+		fStats = stats;
+		fPages = new LinkedHashMap<Long, Page>(16, 0.75f, true) {
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<Long, Page> eldest) {
+				if (size() > fMaxPages) {
+					fStats.pageEvicted();
+					return true;
+				}
+				return false;
+			}
+		};
+		fUnreadablePages = Collections.newSetFromMap(new LinkedHashMap<Long, Boolean>(16, 0.75f, true) {
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<Long, Boolean> eldest) {
+				return size() > MAX_UNREADABLE_PAGES;
+			}
+		});
+		setWordSize(1);
+	}
+
+	int getPageSize() {
+		return fPageSize;
+	}
+
+	int size() {
+		return fPages.size();
+	}
+
+	void clear() {
+		fPages.clear();
+		fUnreadablePages.clear();
+	}
+
+	/**
+	 * Copies the cached part of the requested memory into the result, and returns the
+	 * runs of memory that have to be read from the target to complete it.
+	 * If the end of the request is missing, up to <code>prefetchPages</code> pages worth
+	 * of memory following the request are added to the last run.
+	 *
+	 * @param address Start of the requested memory.
+	 * @param wordCount Number of addressable units requested.
+	 * @param wordSize Number of octets per addressable unit.
+	 * @param prefetchPages Number of pages to read ahead.
+	 * @param result Receives the cached memory, of size <code>wordCount * wordSize</code>.
+	 */
+	List<PageRun> read(IAddress address, int wordCount, int wordSize, int prefetchPages, MemoryByte[] result) {
+		setWordSize(wordSize);
+		List<PageRun> runs = new ArrayList<PageRun>();
+		if (wordCount == 0) {
+			return runs;
+		}
+
+		BigInteger[] pos = address.getValue().divideAndRemainder(fBigPageSize);
+		long pageNumber = pos[0].longValue();
+		int offsetInPage = pos[1].intValue();
+		long hits = 0;
+		PageRun run = null;
+		for (int unit = 0; unit < wordCount; pageNumber++, offsetInPage = 0) {
+			int count = Math.min(fPageSize - offsetInPage, wordCount - unit);
+			Page page = fPages.get(pageNumber);
+			for (int i = offsetInPage; i < offsetInPage + count; i++, unit++) {
+				if (page != null && page.isValid(i)) {
+					for (int j = 0; j < wordSize; j++) {
+						int k = i * wordSize + j;
+						result[unit * wordSize + j] = new MemoryByte(page.fValues[k], page.fFlags[k]);
+					}
+					hits += wordSize;
+					run = null;
+				} else {
+					if (run == null) {
+						run = new PageRun(address.add(unit), unit, pageNumber, i);
+						runs.add(run);
+					}
+					run.fLength++;
+				}
+			}
+		}
+		fStats.memoryRequested(result.length, hits);
+
+		if (runs.isEmpty()) {
+			return runs;
+		}
+		int maxRunLength = Integer.MAX_VALUE / wordSize;
+		PageRun first = runs.get(0);
+		if (fPadToPages && first.fOffset == 0 && first.fOffsetInPage > 0
+				&& !fUnreadablePages.contains(first.fFirstPage)
+				&& first.fLength <= maxRunLength - first.fOffsetInPage) {
+			first.fAddress = first.fAddress.add(-first.fOffsetInPage);
+			first.fOffset -= first.fOffsetInPage;
+			first.fLength += first.fOffsetInPage;
+			first.fOffsetInPage = 0;
+		}
+		if (run != null) {
+			// The end of the request is missing
+			if (fPadToPages) {
+				extend(run, (fPageSize - getEndInPage(run)) % fPageSize, maxRunLength, address.getMaxOffset(), false);
+			}
+			if (prefetchPages > 0) {
+				long prefetched = extend(run, (long) prefetchPages * fPageSize, maxRunLength, address.getMaxOffset(), true);
+				fStats.memoryPrefetched(prefetched * wordSize);
+			}
+		}
+		return runs;
+	}
+
+	/**
+	 * Returns the position following the last addressable unit of a run in its page.
+	 */
+	private int getEndInPage(PageRun run) {
+		return (int) ((run.fOffsetInPage + (long) run.fLength) % fPageSize);
+	}
+
+	/**
+	 * Extends a run by up to the given number of addressable units, as long as they are
+	 * within the address space and not in a page known to be unreadable.
+	 * @param stopAtCached Whether to stop at memory that is cached.
+	 * @return The number of addressable units added.
+	 */
+	private long extend(PageRun run, long units, int maxRunLength, BigInteger maxAddress, boolean stopAtCached) {
+		long available = maxAddress.subtract(run.fAddress.getValue()).subtract(BigInteger.valueOf(run.fLength - 1L))
+				.min(BigInteger.valueOf(Integer.MAX_VALUE)).longValue();
+		units = Math.min(units, Math.min(available, maxRunLength - run.fLength));
+		long added = 0;
+		long unit = run.fOffsetInPage + (long) run.fLength;
+		long pageNumber = run.fFirstPage + unit / fPageSize;
+		int offsetInPage = (int) (unit % fPageSize);
+		Page page = null;
+		while (added < units) {
+			if (offsetInPage == 0 || page == null) {
+				if (fUnreadablePages.contains(pageNumber)) {
+					break;
+				}
+				page = stopAtCached ? fPages.get(pageNumber) : null;
+			}
+			if (page != null && page.isValid(offsetInPage)) {
+				break;
+			}
+			run.fLength++;
+			added++;
+			if (++offsetInPage == fPageSize) {
+				offsetInPage = 0;
+				pageNumber++;
+				page = null;
+			}
+		}
+		return added;
+	}
+
+	/**
+	 * Stores the memory read for a run.
+	 * @param block The memory of the run, <code>fLength</code> addressable units long.
+	 */
+	void store(PageRun run, MemoryByte[] block) {
+		fStats.memoryFetched(block.length);
+		int units = Math.min(run.fLength, block.length / fWordSize);
+		long pageNumber = run.fFirstPage;
+		int offsetInPage = run.fOffsetInPage;
+		Page page = null;
+		for (int unit = 0; unit < units; unit++) {
+			if (page == null) {
+				page = fPages.get(pageNumber);
+				if (page == null) {
+					page = new Page(fPageSize, fWordSize);
+					fPages.put(pageNumber, page);
+				}
+			}
+			boolean complete = true;
+			for (int j = 0; j < fWordSize; j++) {
+				MemoryByte b = block[unit * fWordSize + j];
+				if (b == null) {
+					complete = false;
+					break;
+				}
+				int k = offsetInPage * fWordSize + j;
+				page.fValues[k] = b.getValue();
+				page.fFlags[k] = b.getFlags();
+			}
+			if (complete) {
+				page.setValid(offsetInPage, fPageSize);
+			}
+			if (++offsetInPage == fPageSize) {
+				offsetInPage = 0;
+				pageNumber++;
+				page = null;
+			}
+		}
+	}
+
+	/**
+	 * Remembers that the pages of a run overlap memory that cannot be read, such that
+	 * reads are no longer padded or read ahead into them.
+	 */
+	void storeUnreadable(PageRun run) {
+		long lastPage = run.fFirstPage + (run.fOffsetInPage + (long) run.fLength - 1) / fPageSize;
+		for (long page = run.fFirstPage; page <= lastPage; page++) {
+			fUnreadablePages.add(page);
+		}
+	}
+
+	/**
+	 * Returns the part of a run at the given positions relative to the request.
+	 */
+	PageRun subRun(PageRun run, long start, long end) {
+		long unit = run.fOffsetInPage + (start - run.fOffset);
+		PageRun result = new PageRun(run.fAddress.add(start - run.fOffset), start,
+				run.fFirstPage + unit / fPageSize, (int) (unit % fPageSize));
+		result.fLength = (int) (end - start);
+		return result;
+	}
+
+	/**
+	 * Copies the part of the memory read for a run that overlaps the request into the result.
+	 */
+	void copy(PageRun run, MemoryByte[] block, MemoryByte[] result) {
+		long src = run.fOffset < 0 ? -run.fOffset * fWordSize : 0;
+		long dst = run.fOffset > 0 ? run.fOffset * fWordSize : 0;
+		long length = Math.min(block.length - src, result.length - dst);
+		if (length > 0) {
+			System.arraycopy(block, (int) src, result, (int) dst, (int) length);
+		}
+	}
+
+	/**
+	 * Returns whether any of the given memory is cached.
+	 */
+	boolean containsAny(IAddress address, int wordCount) {
+		if (fPages.isEmpty() || wordCount == 0) {
+			return false;
+		}
+		BigInteger[] pos = address.getValue().divideAndRemainder(fBigPageSize);
+		long firstPage = pos[0].longValue();
+		int offsetInPage = pos[1].intValue();
+		long end = offsetInPage + (long) wordCount;
+		long pageCount = (end + fPageSize - 1) / fPageSize;
+		if (pageCount > fPages.size()) {
+			for (Map.Entry<Long, Page> entry : fPages.entrySet()) {
+				long i = entry.getKey() - firstPage;
+				if (i >= 0 && i < pageCount && isAnyValid(entry.getValue(), i, offsetInPage, end)) {
+					return true;
+				}
+			}
+			return false;
+		}
+		for (long i = 0; i < pageCount; i++) {
+			Page page = fPages.get(firstPage + i);
+			if (page != null && isAnyValid(page, i, offsetInPage, end)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Returns whether any memory of the i-th page of a request is valid, given the
+	 * start and end of the request relative to the start of its first page.
+	 */
+	private boolean isAnyValid(Page page, long i, int start, long end) {
+		long pageStart = i * fPageSize;
+		int from = (int) Math.max(start - pageStart, 0);
+		int to = (int) Math.min(end - pageStart, fPageSize);
+		return page.isAnyValid(from, to);
+	}
+
+	/**
+	 * Updates the cached memory with the given memory, the memory that is not cached
+	 * is ignored.
+	 * @return Whether the value of any cached byte was changed.
+	 */
+	boolean update(IAddress address, int wordCount, MemoryByte[] block, int wordSize) {
+		if (wordSize != fWordSize || fPages.isEmpty()) {
+			return false;
+		}
+		BigInteger[] pos = address.getValue().divideAndRemainder(fBigPageSize);
+		long pageNumber = pos[0].longValue();
+		int offsetInPage = pos[1].intValue();
+		int units = Math.min(wordCount, block.length / wordSize);
+		boolean changed = false;
+		for (int unit = 0; unit < units; pageNumber++, offsetInPage = 0) {
+			int count = Math.min(fPageSize - offsetInPage, units - unit);
+			Page page = fPages.get(pageNumber);
+			if (page == null) {
+				unit += count;
+				continue;
+			}
+			for (int i = offsetInPage; i < offsetInPage + count; i++, unit++) {
+				if (!page.isValid(i)) {
+					continue;
+				}
+				for (int j = 0; j < wordSize; j++) {
+					MemoryByte newByte = block[unit * wordSize + j];
+					if (newByte == null) {
+						continue;
+					}
+					int k = i * wordSize + j;
+					if (page.fValues[k] != newByte.getValue()) {
+						changed = true;
+					}
+					page.fValues[k] = newByte.getValue();
+					page.fFlags[k] = newByte.getFlags();
+				}
+			}
+		}
+		return changed;
+	}
+
+	/**
+	 * The pages hold the memory for one word size, start over if it changes.
+	 */
+	private void setWordSize(int wordSize) {
+		if (wordSize != fWordSize) {
+			clear();
+			fWordSize = wordSize;
+			fMaxPages = (int) Math.max(fMaxSize / ((long) fPageSize * wordSize), 1);
+		}
+	}
+}
@@ -25,9 +25,11 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.RejectedExecutionException;
@@ -45,6 +47,7 @@ import org.eclipse.cdt.dsf.debug.service.command.ICommandListener;
 import org.eclipse.cdt.dsf.debug.service.command.ICommandResult;
 import org.eclipse.cdt.dsf.debug.service.command.ICommandToken;
 import org.eclipse.cdt.dsf.debug.service.command.IEventListener;
+import org.eclipse.cdt.dsf.gdb.IGdbDebugPreferenceConstants;
 import org.eclipse.cdt.dsf.gdb.internal.GdbDebugOptions;
 import org.eclipse.cdt.dsf.gdb.internal.GdbPlugin;
 import org.eclipse.cdt.dsf.mi.service.IMICommandControl;
@@ -65,6 +68,7 @@ import org.eclipse.cdt.dsf.mi.service.command.output.MIValue;
 import org.eclipse.cdt.dsf.service.AbstractDsfService;
 import org.eclipse.cdt.dsf.service.DsfSession;
 import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Platform;
 import org.eclipse.core.runtime.Status;
 
 import com.ibm.icu.text.MessageFormat;
@@ -80,7 +84,35 @@ public abstract class AbstractMIControl extends AbstractDsfService
 {
 	private static final String MI_TRACE_IDENTIFIER = "[MI]"; //$NON-NLS-1$
 	private static final int NUMBER_CONCURRENT_COMMANDS = 3;
+	private static final int NUMBER_PIPELINED_COMMANDS = 16;
 	private static final int DEVELOPMENT_TRACE_LIMIT_CHARS = 5000;
+
+	/**
+	 * MI operations that only query the state of GDB. When command pipelining is
+	 * enabled, a query that is identical to a pending one is not sent again, it gets
+	 * the result of the pending one.
+	 */
+	private static final Set<String> COALESCABLE_OPERATIONS = new HashSet<String>(Arrays.asList(
+			"-stack-info-depth", //$NON-NLS-1$
+			"-stack-info-frame", //$NON-NLS-1$
+			"-stack-list-arguments", //$NON-NLS-1$
+			"-stack-list-frames", //$NON-NLS-1$
+			"-stack-list-locals", //$NON-NLS-1$
+			"-data-disassemble", //$NON-NLS-1$
+			"-data-list-register-names", //$NON-NLS-1$
+			"-data-list-register-values", //$NON-NLS-1$
+			"-data-read-memory", //$NON-NLS-1$
+			"-data-read-memory-bytes", //$NON-NLS-1$
+			"-thread-info", //$NON-NLS-1$
+			"-thread-list-ids", //$NON-NLS-1$
+			"-list-thread-groups", //$NON-NLS-1$
+			"-var-info-expression", //$NON-NLS-1$
+			"-var-info-num-children", //$NON-NLS-1$
+			"-var-info-path-expression", //$NON-NLS-1$
+			"-var-info-type", //$NON-NLS-1$
+			"-var-show-attributes", //$NON-NLS-1$
+			"-var-show-format", //$NON-NLS-1$
+			"-break-list")); //$NON-NLS-1$
 	
     /*
 	 *  Thread control variables for the transmit and receive threads.
@@ -101,6 +133,11 @@ public abstract class AbstractMIControl extends AbstractDsfService
     // boolean for --thread-group option which helps to handle multiple inferior behavior.
     // Since GDB.7.1
     private boolean fUseThreadGroupOption;
+
+    // Whether several commands are written to GDB at once and identical queries are coalesced.
+    private boolean fCommandPipelining;
+
+    private final CommandLatencyStats fLatencyStats = new CommandLatencyStats();
     
     private final BlockingQueue<CommandHandle> fTxCommands = new LinkedBlockingQueue<CommandHandle>();
     private final Map<Integer, CommandHandle>  fRxCommands = Collections.synchronizedMap(new HashMap<Integer, CommandHandle>());
@@ -125,6 +162,11 @@ public abstract class AbstractMIControl extends AbstractDsfService
     
     private final List<CommandHandle> fCommandQueue = new ArrayList<CommandHandle>();
 
+    /*
+     *   The command last handed to the TX thread, see coalesceCommand().
+     */
+    private CommandHandle fLastSentCommand;
+
     /**
      * Flag indicating that the command control has stopped processing commands.
      */
@@ -166,6 +208,8 @@ public abstract class AbstractMIControl extends AbstractDsfService
         	fUseThreadAndFrameOptions = true;
         }
         fCommandFactory = factory;
+        fCommandPipelining = Platform.getPreferencesService().getBoolean(GdbPlugin.PLUGIN_ID,
+        		IGdbDebugPreferenceConstants.PREF_COMMAND_PIPELINING, false, null);
     }
 
     /**
@@ -204,6 +248,38 @@ public abstract class AbstractMIControl extends AbstractDsfService
     	}
     }
     
+    /**
+     * Enables or disables command pipelining. With pipelining, up to sixteen
+     * commands are kept in flight to GDB, the commands queued in the same dispatch
+     * cycle are written to GDB at once, and a query that is identical to a pending
+     * one gets the result of the pending one.
+     * By default, the {@link IGdbDebugPreferenceConstants#PREF_COMMAND_PIPELINING}
+     * preference decides.
+     * @since 5.0
+     */
+    protected void setCommandPipelining(boolean enable) {
+    	fCommandPipelining = enable;
+    }
+
+    /**
+     * @since 5.0
+     */
+    protected boolean isCommandPipelining() {
+    	return fCommandPipelining;
+    }
+
+    /**
+     * Returns the round-trip times of the commands sent to the back end.
+     * @since 5.0
+     */
+    public CommandLatencyStats getCommandLatencyStats() {
+    	return fLatencyStats;
+    }
+
+    private int getMaxCommandsInFlight() {
+    	return fCommandPipelining ? NUMBER_PIPELINED_COMMANDS : NUMBER_CONCURRENT_COMMANDS;
+    }
+
     /**
      * @since 3.0
      */
@@ -274,6 +350,7 @@ public abstract class AbstractMIControl extends AbstractDsfService
     	 *  First go through the commands which have been queueud and not yet sent to the backend.
     	 */
     	for (CommandHandle commandHandle : fCommandQueue) {
+    		failCoalescedCommands(commandHandle);
             if (commandHandle.getRequestMonitor() == null) continue;
             commandHandle.getRequestMonitor().setStatus(genStatus("Connection is shut down")); //$NON-NLS-1$
             commandHandle.getRequestMonitor().done();
@@ -285,6 +362,7 @@ public abstract class AbstractMIControl extends AbstractDsfService
     	 */
         synchronized(fRxCommands) {
             for (CommandHandle commandHandle : fRxCommands.values()) {
+            	failCoalescedCommands(commandHandle);
                 if (commandHandle.getRequestMonitor() == null) continue;
                 commandHandle.getRequestMonitor().setStatus(genStatus( "Connection is shut down")); //$NON-NLS-1$
                 commandHandle.getRequestMonitor().done();
@@ -298,6 +376,7 @@ public abstract class AbstractMIControl extends AbstractDsfService
         List<CommandHandle> txCommands = new ArrayList<CommandHandle>();
         fTxCommands.drainTo(txCommands);
         for (CommandHandle commandHandle : txCommands) {
+        	failCoalescedCommands(commandHandle);
             if (commandHandle.getRequestMonitor() == null) continue;
             commandHandle.getRequestMonitor().setStatus(genStatus("Connection is shut down")); //$NON-NLS-1$
             commandHandle.getRequestMonitor().done();
@@ -305,6 +384,17 @@ public abstract class AbstractMIControl extends AbstractDsfService
         
         // Queue a null value to tell the send thread to shut down.
         fTxCommands.add(fTerminatorHandle);
+
+        if (GdbDebugOptions.DEBUG) {
+        	GdbDebugOptions.trace(fLatencyStats.toString());
+        }
+    }
+
+    private void failCoalescedCommands(CommandHandle commandHandle) {
+    	for (CommandHandle coalesced : commandHandle.takeCoalesced()) {
+    		coalesced.getRequestMonitor().setStatus(genStatus("Connection is shut down")); //$NON-NLS-1$
+    		coalesced.getRequestMonitor().done();
+    	}
     }
     
     /**
@@ -337,17 +427,21 @@ public abstract class AbstractMIControl extends AbstractDsfService
         if (fStoppedCommandProcessing) {
             rm.setStatus(genStatus("Connection is shut down")); //$NON-NLS-1$
             rm.done();
+        } else if (coalesceCommand(handle)) {
+        	processCommandQueued(handle);
         } else {
         	/*
         	 *  We only allow three outstanding commands to be on the wire to the backend
-        	 *  at any one time. This allows for coalescing as well as canceling
-        	 *  existing commands on a state change. So we add it to the waiting list and let
-        	 *  the user know they can now work with this item if need be.
+        	 *  at any one time, or more with pipelining. This allows for coalescing as well
+        	 *  as canceling existing commands on a state change. So we add it to the waiting
+        	 *  list and let the user know they can now work with this item if need be.
         	 */
-        	fCommandQueue.add(handle);
+        	synchronized(fCommandQueue) {
+        		fCommandQueue.add(handle);
+        	}
             processCommandQueued(handle);
             
-            if (fRxCommands.size() < NUMBER_CONCURRENT_COMMANDS) {
+            if (fRxCommands.size() < getMaxCommandsInFlight()) {
                 // In a separate dispatch cycle.  This allows command listeners 
             	// to respond to the command queued event.  
                 getExecutor().execute(new DsfRunnable() {
@@ -362,59 +456,121 @@ public abstract class AbstractMIControl extends AbstractDsfService
         return handle;
     }
 
+    /**
+     * With command pipelining, attaches the given command to an identical query which
+     * is pending, such that it gets the same result. Any command sent after the pending
+     * one could change that result, so only the last queued command is considered or,
+     * if the queue is empty, the last command handed to the back end.
+     * @return whether the command was attached to another one.
+     */
+    private boolean coalesceCommand(final CommandHandle handle) {
+    	if (!fCommandPipelining || handle.getRequestMonitor() == null ||
+    			!COALESCABLE_OPERATIONS.contains(handle.getCommand().getOperation())) {
+    		return false;
+    	}
+    	synchronized(fCommandQueue) {
+    		if (!fCommandQueue.isEmpty()) {
+    			CommandHandle last = fCommandQueue.get(fCommandQueue.size() - 1);
+    			if (canCoalesce(handle, last) && last.addCoalesced(handle)) {
+    				fLatencyStats.commandCoalesced();
+    				return true;
+    			}
+    			return false;
+    		}
+    		// Fails once the result of the command sent last was received.
+    		if (fLastSentCommand != null && canCoalesce(handle, fLastSentCommand) &&
+    				fLastSentCommand.addCoalesced(handle)) {
+    			fLatencyStats.commandCoalesced();
+    			// In a separate dispatch cycle, like a command that is actually sent.
+    			getExecutor().execute(new DsfRunnable() {
+    				@Override
+    				public void run() {
+    					processCommandSent(handle);
+    				}
+    			});
+    			return true;
+    		}
+    	}
+    	return false;
+    }
+
+    private static boolean canCoalesce(CommandHandle handle, CommandHandle pending) {
+    	return pending.getRequestMonitor() != null && !(pending.getCommand() instanceof RawCommand) &&
+    			handle.getCommand().equals(pending.getCommand());
+    }
+
     private void processNextQueuedCommand() {
-		if (!fCommandQueue.isEmpty()) {
-			final CommandHandle handle = fCommandQueue.remove(0);
-			if (handle != null) {
-				processCommandSent(handle);
-
-				// Older debuggers didn't support the --thread/--frame options
-				// Also, not all commands support those options (e.g., CLI commands)
-				if (!fUseThreadAndFrameOptions || !handle.getCommand().supportsThreadAndFrameOptions()) {
-					// Without the --thread/--frame, we need to send the proper 
-					// -thread-select and -stack-frame-select before sending the command
-					
-					final IDMContext targetContext = handle.fCommand.getContext();
-					final String targetThread = handle.getThreadId();
-					final int targetFrame = handle.getStackFrameId();
-
-					// The thread-select and frame-select make sense only if the thread is stopped.
-					IRunControl runControl = getServicesTracker().getService(IRunControl.class);
-					IMIExecutionDMContext execDmc = DMContexts.getAncestorOfType(targetContext, IMIExecutionDMContext.class);
-					if (runControl != null && execDmc != null && runControl.isSuspended(execDmc)) {
-						// Before the command is sent, Check the Thread Id and send it to 
-						// the queue only if the id has been changed. Also, don't send a threadId of 0,
-						// because that id is only used internally for single-threaded programs
-						if (targetThread != null && !targetThread.equals("0") && !targetThread.equals(fCurrentThreadId)) { //$NON-NLS-1$
-							fCurrentThreadId = targetThread;
-							resetCurrentStackLevel();
-							CommandHandle cmdHandle = new CommandHandle(
-									(MICommand<MIInfo>)getCommandFactory().createMIThreadSelect(targetContext, targetThread), null);
-							cmdHandle.generateTokenId();
-							fTxCommands.add(cmdHandle);
-						}
+    	// Without pipelining, one command is handed to the TX thread per call.
+    	// With pipelining, all queued commands up to the limit are, so that they
+    	// are written to GDB at once.
+    	do {
+    		sendNextQueuedCommand();
+    	} while (fCommandPipelining && !fCommandQueue.isEmpty() &&
+    			fRxCommands.size() + fTxCommands.size() < NUMBER_PIPELINED_COMMANDS);
+    }
 
-						// Before the command is sent, Check the Stack level and send it to 
-						// the queue only if the level has been changed. 
-						if (targetFrame >= 0 && targetFrame != fCurrentStackLevel) {
-							fCurrentStackLevel = targetFrame;
-							CommandHandle cmdHandle = new CommandHandle(
-									(MICommand<MIInfo>)getCommandFactory().createMIStackSelectFrame(targetContext, targetFrame), null);
-							cmdHandle.generateTokenId();
-							fTxCommands.add(cmdHandle);
-						}
-					}
+    private void sendNextQueuedCommand() {
+		final CommandHandle handle;
+		final List<CommandHandle> coalescedHandles;
+		synchronized(fCommandQueue) {
+			if (fCommandQueue.isEmpty()) {
+				return;
+			}
+			handle = fCommandQueue.remove(0);
+			// Commands attached from now on are notified by coalesceCommand()
+			coalescedHandles = handle.getCoalesced();
+			fLastSentCommand = handle;
+		}
+		processCommandSent(handle);
+		for (CommandHandle coalesced : coalescedHandles) {
+			processCommandSent(coalesced);
+		}
+
+		// Older debuggers didn't support the --thread/--frame options
+		// Also, not all commands support those options (e.g., CLI commands)
+		if (!fUseThreadAndFrameOptions || !handle.getCommand().supportsThreadAndFrameOptions()) {
+			// Without the --thread/--frame, we need to send the proper 
+			// -thread-select and -stack-frame-select before sending the command
+			
+			final IDMContext targetContext = handle.fCommand.getContext();
+			final String targetThread = handle.getThreadId();
+			final int targetFrame = handle.getStackFrameId();
+
+			// The thread-select and frame-select make sense only if the thread is stopped.
+			IRunControl runControl = getServicesTracker().getService(IRunControl.class);
+			IMIExecutionDMContext execDmc = DMContexts.getAncestorOfType(targetContext, IMIExecutionDMContext.class);
+			if (runControl != null && execDmc != null && runControl.isSuspended(execDmc)) {
+				// Before the command is sent, Check the Thread Id and send it to 
+				// the queue only if the id has been changed. Also, don't send a threadId of 0,
+				// because that id is only used internally for single-threaded programs
+				if (targetThread != null && !targetThread.equals("0") && !targetThread.equals(fCurrentThreadId)) { //$NON-NLS-1$
+					fCurrentThreadId = targetThread;
+					resetCurrentStackLevel();
+					CommandHandle cmdHandle = new CommandHandle(
+							(MICommand<MIInfo>)getCommandFactory().createMIThreadSelect(targetContext, targetThread), null);
+					cmdHandle.generateTokenId();
+					fTxCommands.add(cmdHandle);
 				}
 
-				if (!(handle.getCommand() instanceof RawCommand)) {
-					// Only generate a token id if the command is not a RawCommand
-					// RawCommands are sent to GDB without an answer expected, so we don't
-					// need a token id.  In fact, GDB will fail if we send one in this case.
-					handle.generateTokenId();
+				// Before the command is sent, Check the Stack level and send it to 
+				// the queue only if the level has been changed. 
+				if (targetFrame >= 0 && targetFrame != fCurrentStackLevel) {
+					fCurrentStackLevel = targetFrame;
+					CommandHandle cmdHandle = new CommandHandle(
+							(MICommand<MIInfo>)getCommandFactory().createMIStackSelectFrame(targetContext, targetFrame), null);
+					cmdHandle.generateTokenId();
+					fTxCommands.add(cmdHandle);
 				}
-		    	fTxCommands.add(handle);
 			}
 		}
+
+		if (!(handle.getCommand() instanceof RawCommand)) {
+			// Only generate a token id if the command is not a RawCommand
+			// RawCommands are sent to GDB without an answer expected, so we don't
+			// need a token id.  In fact, GDB will fail if we send one in this case.
+			handle.generateTokenId();
+		}
+		fTxCommands.add(handle);
     }
 
     /*
@@ -431,8 +587,28 @@ public abstract class AbstractMIControl extends AbstractDsfService
     	synchronized(fCommandQueue) {
     		
     		for ( CommandHandle handle : fCommandQueue ) {
+    			if (handle.removeCoalesced(token)) {
+    				final CommandHandle finalHandle = (CommandHandle) token;
+                    getExecutor().execute(new DsfRunnable() {
+                    	@Override
+                        public void run() {
+                        	processCommandRemoved(finalHandle);
+                        }
+                    });
+    				break;
+    			}
     			if ( handle.equals(token)) {
-    				fCommandQueue.remove(handle);
+    				int index = fCommandQueue.indexOf(handle);
+    				fCommandQueue.remove(index);
+    				// The commands that were attached to this one still need to be sent.
+    				List<CommandHandle> coalesced = handle.takeCoalesced();
+    				if (!coalesced.isEmpty()) {
+    					CommandHandle first = coalesced.remove(0);
+    					for (CommandHandle other : coalesced) {
+    						first.addCoalesced(other);
+    					}
+    					fCommandQueue.add(index, first);
+    				}
     				
     				final CommandHandle finalHandle = handle;
                     getExecutor().execute(new DsfRunnable() {
@@ -556,6 +732,12 @@ public abstract class AbstractMIControl extends AbstractDsfService
         private MICommand<MIInfo> fCommand;
         private DataRequestMonitor<MIInfo> fRequestMonitor;
         private int fTokenId ;
+        // Time at which the command was written to the back end
+        private long fSentTime;
+        // Identical commands that get the result of this one, see coalesceCommand().
+        private List<CommandHandle> fCoalesced;
+        // Set once the result is being delivered, no command can be attached anymore.
+        private boolean fCoalescedTaken;
         
         CommandHandle(MICommand<MIInfo> c, DataRequestMonitor<MIInfo> d) {
             fCommand = c; 
@@ -571,6 +753,35 @@ public abstract class AbstractMIControl extends AbstractDsfService
         // be sent
         public void generateTokenId() { fTokenId = getNewTokenId(); }
         public Integer getTokenId() { return fTokenId; }
+
+        synchronized boolean addCoalesced(CommandHandle handle) {
+        	if (fCoalescedTaken) {
+        		return false;
+        	}
+        	if (fCoalesced == null) {
+        		fCoalesced = new ArrayList<CommandHandle>(2);
+        	}
+        	fCoalesced.add(handle);
+        	return true;
+        }
+
+        synchronized boolean removeCoalesced(ICommandToken token) {
+        	return fCoalesced != null && fCoalesced.remove(token);
+        }
+
+        synchronized List<CommandHandle> getCoalesced() {
+        	if (fCoalesced == null) {
+        		return Collections.emptyList();
+        	}
+        	return new ArrayList<CommandHandle>(fCoalesced);
+        }
+
+        synchronized List<CommandHandle> takeCoalesced() {
+        	List<CommandHandle> coalesced = fCoalesced;
+        	fCoalesced = null;
+        	fCoalescedTaken = true;
+        	return coalesced == null ? new ArrayList<CommandHandle>(0) : coalesced;
+        }
         
         public int getStackFrameId() {
         	IFrameDMContext frameCtx = DMContexts.getAncestorOfType(fCommand.getContext(), IFrameDMContext.class);
@@ -599,6 +810,23 @@ public abstract class AbstractMIControl extends AbstractDsfService
         }
     }
 
+    private String constructCommand(CommandHandle commandHandle) {
+        if (commandHandle.getCommand() instanceof RawCommand) {
+        	// RawCommands CANNOT have a token id: GDB would read it as part of the RawCommand!
+        	return commandHandle.getCommand().constructCommand();
+        } else if (fUseThreadGroupOption) {
+        	// Implies that fUseThreadAndFrameOptions == true
+        	return commandHandle.getTokenId() + commandHandle.getCommand().constructCommand(commandHandle.getGroupId(),
+        			commandHandle.getThreadId(),
+        			commandHandle.getStackFrameId());
+        } else if (fUseThreadAndFrameOptions) {
+        	return commandHandle.getTokenId() + commandHandle.getCommand().constructCommand(commandHandle.getThreadId(),
+        			commandHandle.getStackFrameId());
+        } else {
+        	return commandHandle.getTokenId() + commandHandle.getCommand().constructCommand();
+        }
+    }
+
     /*
      *  This is the transmitter thread. When a command is given to this thread it has been
      *  considered to be sent, even if it has not actually been sent yet.  This assumption
@@ -618,64 +846,68 @@ public abstract class AbstractMIControl extends AbstractDsfService
 
         @Override
         public void run () {
-            while (true) {
-                CommandHandle commandHandle = null;
+            boolean terminate = false;
+            while (!terminate) {
+                List<CommandHandle> commandHandles = new ArrayList<CommandHandle>(1);
                 
                 /*
                  *   Note: Acquiring locks for both fRxCommands and fTxCommands collections. 
                  */
                 synchronized(fTxCommands) {
                     try {
-                        commandHandle = fTxCommands.take();
+                        commandHandles.add(fTxCommands.take());
                     } catch (InterruptedException e) {
                         break;  // Shutting down.
                     }
+                    // With pipelining, the commands that are already waiting are
+                    // written to GDB along with the first one.
+                    if (fCommandPipelining) {
+                        fTxCommands.drainTo(commandHandles);
+                    }
         
-                    if (commandHandle == fTerminatorHandle) {
-                        
-                        break; // Null command is an indicator that we're shutting down. 
+                    int terminator = commandHandles.indexOf(fTerminatorHandle);
+                    if (terminator != -1) {
+                        // Null command is an indicator that we're shutting down.
+                        commandHandles.subList(terminator, commandHandles.size()).clear();
+                        terminate = true;
                     }
                     
                     /*
-                     *  We note that this is an outstanding request at this point.
+                     *  We note that these are outstanding requests at this point.
                      */
-                    if (!(commandHandle.getCommand() instanceof RawCommand)) {
-                    	// RawCommands will not get an answer, so we cannot put them in the receive queue.
-                    	fRxCommands.put(commandHandle.getTokenId(), commandHandle);
+                    long sentTime = System.nanoTime();
+                    for (CommandHandle commandHandle : commandHandles) {
+                        commandHandle.fSentTime = sentTime;
+                        if (!(commandHandle.getCommand() instanceof RawCommand)) {
+                        	// RawCommands will not get an answer, so we cannot put them in the receive queue.
+                        	fRxCommands.put(commandHandle.getTokenId(), commandHandle);
+                        }
                     }
                 }
+                if (commandHandles.isEmpty()) {
+                    break;
+                }
                 
                 /*
-                 *   Construct the new command and push this command out the pipeline.
+                 *   Construct the new commands and push them out the pipeline.
                  */
 
-                final String str;
-                if (commandHandle.getCommand() instanceof RawCommand) {
-                	// RawCommands CANNOT have a token id: GDB would read it as part of the RawCommand!
-                	str = commandHandle.getCommand().constructCommand();
-                } else if (fUseThreadGroupOption) {
-                	// Implies that fUseThreadAndFrameOptions == true
-                	str = commandHandle.getTokenId() + commandHandle.getCommand().constructCommand(commandHandle.getGroupId(),
-							   																	   commandHandle.getThreadId(),
-							   																	   commandHandle.getStackFrameId());                	
-                } else if (fUseThreadAndFrameOptions) {
-                	str = commandHandle.getTokenId() + commandHandle.getCommand().constructCommand(commandHandle.getThreadId(),
-							   																	   commandHandle.getStackFrameId());
-                } else {
-                	str = commandHandle.getTokenId() + commandHandle.getCommand().constructCommand();
+                StringBuilder batch = new StringBuilder();
+                for (CommandHandle commandHandle : commandHandles) {
+                	batch.append(constructCommand(commandHandle));
                 }
                 
                 try {
                     if (fOutputStream != null) {
-                        fOutputStream.write(str.getBytes());
+                        fOutputStream.write(batch.toString().getBytes());
                         fOutputStream.flush();
                         
                         if (GdbDebugOptions.DEBUG) {
-                        	GdbDebugOptions.trace(String.format( "%s %s  %s", GdbPlugin.getDebugTime(), MI_TRACE_IDENTIFIER, str)); //$NON-NLS-1$
+                        	GdbDebugOptions.trace(String.format( "%s %s  %s", GdbPlugin.getDebugTime(), MI_TRACE_IDENTIFIER, batch)); //$NON-NLS-1$
                         }
                         if (getMITracingStream() != null) {
                         	try {
-                        		String message = GdbPlugin.getDebugTime() + " " + str; //$NON-NLS-1$
+                        		String message = GdbPlugin.getDebugTime() + " " + batch; //$NON-NLS-1$
                         		while (message.length() > 100) {
                         			String partial = message.substring(0, 100) + "\\\n"; //$NON-NLS-1$
                         			message = message.substring(100);
@@ -914,6 +1146,11 @@ public abstract class AbstractMIControl extends AbstractDsfService
                 final CommandHandle commandHandle = fRxCommands.remove(id);
 
                 if (commandHandle != null) {
+                	fLatencyStats.commandDone(commandHandle.getCommand().getOperation(),
+                			System.nanoTime() - commandHandle.fSentTime);
+                	// No more commands are attached once the handle is out of fRxCommands.
+                	final List<CommandHandle> coalesced = commandHandle.takeCoalesced();
+
                     final MIOutput response = new MIOutput(
                         rr, fAccumulatedOOBRecords.toArray(new MIOOBRecord[fAccumulatedOOBRecords.size()]) );
                     fAccumulatedOOBRecords.clear();
@@ -940,6 +1177,10 @@ public abstract class AbstractMIControl extends AbstractDsfService
 							Exception exception = new Exception(message);
 							rm.setStatus(new Status(IStatus.ERROR, GdbPlugin.PLUGIN_ID, REQUEST_FAILED, status, exception)); 
 						}
+						for (CommandHandle other : coalesced) {
+							other.getRequestMonitor().setData(result);
+							other.getRequestMonitor().setStatus(rm.getStatus());
+						}
 						
 						/*
 						 *  We need to complete the command on the DSF thread for data security.
@@ -954,11 +1195,17 @@ public abstract class AbstractMIControl extends AbstractDsfService
 	                            if (commandHandle.getRequestMonitor() != null) {
 	                                commandHandle.getRequestMonitor().done();
 	                            }
+	                            for (CommandHandle other : coalesced) {
+	                            	other.getRequestMonitor().done();
+	                            }
 	                            
 	                            /*
 	                             *  Now tell the generic listeners about it.
 	                             */
 	                            processCommandDone(commandHandle, finalResult);
+	                            for (CommandHandle other : coalesced) {
+	                            	processCommandDone(other, finalResult);
+	                            }
 	                        }
 	                        @Override
                             public String toString() {
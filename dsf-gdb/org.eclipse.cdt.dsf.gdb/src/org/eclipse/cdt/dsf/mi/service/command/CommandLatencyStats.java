@@ -0,0 +1,106 @@
+/*******************************************************************************
+ * Copyright (c) 2016 agent and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     agent - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.cdt.dsf.mi.service.command;
+
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Round-trip times of the MI commands sent to the back end, per MI operation.
+ * The round trip of a command is the time from writing the command to GDB
+ * to reading its result record.
+ *
+ * @since 5.0
+ */
+public class CommandLatencyStats {
+
+	private static class Entry {
+		int fCount;
+		long fTotal;
+		long fMax;
+	}
+
+	private final Map<String, Entry> fEntries = new TreeMap<String, Entry>();
+	private int fCoalesced;
+
+	/**
+	 * Records the round trip of a command.
+	 * @param operation The MI operation of the command, e.g. "-stack-list-frames".
+	 * @param nanos The round-trip time in nanoseconds.
+	 */
+	public synchronized void commandDone(String operation, long nanos) {
+		Entry entry = fEntries.get(operation);
+		if (entry == null) {
+			entry = new Entry();
+			fEntries.put(operation, entry);
+		}
+		entry.fCount++;
+		entry.fTotal += nanos;
+		entry.fMax = Math.max(entry.fMax, nanos);
+	}
+
+	/**
+	 * Records a command that was not sent to the back end, because an identical
+	 * command was already pending.
+	 */
+	public synchronized void commandCoalesced() {
+		fCoalesced++;
+	}
+
+	/**
+	 * Returns the number of completed commands of the given operation.
+	 */
+	public synchronized int getCount(String operation) {
+		Entry entry = fEntries.get(operation);
+		return entry == null ? 0 : entry.fCount;
+	}
+
+	/**
+	 * Returns the average round-trip time of the given operation in microseconds.
+	 */
+	public synchronized long getAverageMicros(String operation) {
+		Entry entry = fEntries.get(operation);
+		return entry == null || entry.fCount == 0 ? 0 : entry.fTotal / entry.fCount / 1000;
+	}
+
+	/**
+	 * Returns the maximum round-trip time of the given operation in microseconds.
+	 */
+	public synchronized long getMaxMicros(String operation) {
+		Entry entry = fEntries.get(operation);
+		return entry == null ? 0 : entry.fMax / 1000;
+	}
+
+	/**
+	 * Returns the number of commands that were answered by an identical pending command.
+	 */
+	public synchronized int getCoalescedCount() {
+		return fCoalesced;
+	}
+
+	public synchronized void reset() {
+		fEntries.clear();
+		fCoalesced = 0;
+	}
+
+	@Override
+	public synchronized String toString() {
+		StringBuilder sb = new StringBuilder();
+		sb.append("MI command round trips (count, average us, max us):\n"); //$NON-NLS-1$
+		for (Map.Entry<String, Entry> e : fEntries.entrySet()) {
+			Entry entry = e.getValue();
+			sb.append(String.format("%6d %8d %8d %s\n", entry.fCount, entry.fTotal / entry.fCount / 1000, //$NON-NLS-1$
+					entry.fMax / 1000, e.getKey()));
+		}
+		sb.append("Coalesced commands: ").append(fCoalesced).append('\n'); //$NON-NLS-1$
+		return sb.toString();
+	}
+}
@@ -21,13 +21,39 @@ package org.eclipse.cdt.dsf.mi.service.command.output;
 public class MIConst extends MIValue {
     
     private String cstring = ""; //$NON-NLS-1$
+
+    /**
+     * The line the value was parsed from, as long as the value has not been
+     * extracted from it yet. Most values of a large response are never looked
+     * at, so the parser leaves them in the line.
+     */
+    private volatile String source;
+    private int start;
+    private int end;
     
     public String getCString() {
+        String line = source;
+        if (line != null) {
+            String str = MIParser.translateCString(line, start, end, true);
+            cstring = str;
+            source = null;
+            return str;
+        }
         return cstring;
     }
     
     public void setCString(String str) {
         cstring = str;
+        source = null;
+    }
+
+    /**
+     * Sets the value to the escaped C string between the given offsets of the line.
+     */
+    void setCString(String line, int start, int end) {
+        this.start = start;
+        this.end = end;
+        source = line;
     }
     
     /**
@@ -35,7 +61,7 @@ public class MIConst extends MIValue {
      * @return The translated string.
      */
     public String getString() {
-        return MIStringHandler.translateCString(cstring, true);
+        return MIStringHandler.translateCString(getCString(), true);
     }
     
     public static String getString(String str) {
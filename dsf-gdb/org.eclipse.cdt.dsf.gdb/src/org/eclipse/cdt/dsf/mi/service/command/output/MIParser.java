@@ -97,6 +97,12 @@ public class MIParser {
     public String cliPrompt = primaryPrompt;
     public String secondaryPrompt = ">"; //$NON-NLS-1$
 
+    private static final MIResult[] NULL_RESULTS = new MIResult[0];
+    private static final MIValue[] NULL_VALUES = new MIValue[0];
+
+    /** Recently seen variable names, indexed by their hash code */
+    private final String[] fNames = new String[256];
+
     public RecordType getRecordType(String line) {
         int i = 0;
         if (Character.isDigit(line.charAt(0))) {
@@ -115,42 +121,37 @@ public class MIParser {
             return RecordType.OOBRecord;
         }
     }    
-
     /**
-     * 
+     * Parses a result record. The line is read in place, values of constants are
+     * extracted from it only when they are asked for, see {@link MIConst#getCString()}.
      */
     public MIResultRecord parseMIResultRecord(String line) {
-        StringBuffer buffer = new StringBuffer(line);
+        Cursor cursor = new Cursor(line);
         // Fetch the Token/Id
-        int id = parseToken(buffer);
+        int id = parseToken(cursor);
         // Consume the '^'
-        buffer.deleteCharAt(0);
+        cursor.pos++;
         
         MIResultRecord rr = new MIResultRecord();
         rr.setToken(id);
-        if (buffer.toString().startsWith(MIResultRecord.DONE)) {
+        if (cursor.consume(MIResultRecord.DONE)) {
             rr.setResultClass(MIResultRecord.DONE);
-            buffer.delete(0, MIResultRecord.DONE.length());
-        } else if (buffer.toString().startsWith(MIResultRecord.ERROR)) {
+        } else if (cursor.consume(MIResultRecord.ERROR)) {
             rr.setResultClass(MIResultRecord.ERROR);
-            buffer.delete(0, MIResultRecord.ERROR.length());
-        } else if (buffer.toString().startsWith(MIResultRecord.EXIT)) {
+        } else if (cursor.consume(MIResultRecord.EXIT)) {
             rr.setResultClass(MIResultRecord.EXIT);
-            buffer.delete(0, MIResultRecord.EXIT.length());
-        } else if (buffer.toString().startsWith(MIResultRecord.RUNNING)) {
+        } else if (cursor.consume(MIResultRecord.RUNNING)) {
             rr.setResultClass(MIResultRecord.RUNNING);
-            buffer.delete(0, MIResultRecord.RUNNING.length());
-        } else if (buffer.toString().startsWith(MIResultRecord.CONNECTED)) {
+        } else if (cursor.consume(MIResultRecord.CONNECTED)) {
             rr.setResultClass(MIResultRecord.CONNECTED);
-            buffer.delete(0, MIResultRecord.CONNECTED.length());
         } else {
             // Error throw an exception?
         }
 
         // Results are separated by commas.
-        if (buffer.length() > 0 && buffer.charAt(0) == ',') {
-            buffer.deleteCharAt(0);
-            MIResult[] res = processMIResults(new FSB(buffer));
+        if (cursor.peek() == ',') {
+            cursor.pos++;
+            MIResult[] res = processMIResults(cursor);
             rr.setMIResults(res);
         }
         return rr;
@@ -160,13 +161,13 @@ public class MIParser {
      * Find OutOfBand Records depending on the starting token.
      */
     public MIOOBRecord parseMIOOBRecord(String line) {
-        StringBuffer buffer = new StringBuffer(line);
-        int id = parseToken(buffer);
+        Cursor cursor = new Cursor(line);
+        int id = parseToken(cursor);
         MIOOBRecord oob = null;
-        char c = buffer.length() != 0 ? buffer.charAt(0) : 0;
+        char c = cursor.peek();
         if (c == '*' || c == '+' || c == '=') {
             // Consume the first char
-            buffer.deleteCharAt(0);
+            cursor.pos++;
             MIAsyncRecord async = null;
             switch (c) {
                 case '*' :
@@ -186,22 +187,21 @@ public class MIParser {
             }
             async.setToken(id);
             // Extract the Async-Class
-            int i = buffer.toString().indexOf(',');
+            int i = line.indexOf(',', cursor.pos);
             if (i != -1) {
-                String asyncClass = buffer.substring(0, i);
-                async.setAsyncClass(asyncClass);
+                async.setAsyncClass(getName(line, cursor.pos, i));
                 // Consume the async-class and the comma
-                buffer.delete(0, i + 1);
+                cursor.pos = i + 1;
             } else {
-                async.setAsyncClass(buffer.toString().trim());
-                buffer.setLength(0);
+                async.setAsyncClass(line.substring(cursor.pos).trim());
+                cursor.pos = cursor.end;
             }
-            MIResult[] res = processMIResults(new FSB(buffer));
+            MIResult[] res = processMIResults(cursor);
             async.setMIResults(res);
             oob = async;
         } else if (c == '~' || c == '@' || c == '&') {
             // Consume the first char
-            buffer.deleteCharAt(0);
+            cursor.pos++;
             MIStreamRecord stream = null;
             switch (c) {
                 case '~' :
@@ -219,13 +219,15 @@ public class MIParser {
                 	assert false;
                 	stream = new MIConsoleStreamOutput();
             }
-            // translateCString() assumes that the leading " is deleted
-            if (buffer.length() > 0 && buffer.charAt(0) == '"') {
-                buffer.deleteCharAt(0);
+            // scanCString() assumes that the leading " is consumed
+            if (cursor.peek() == '"') {
+                cursor.pos++;
             }
             // Don't parse any backslashes - backslashes within stream records
             // aren't escaped.
-            stream.setCString(translateCString(new FSB(buffer), false));
+            int start = cursor.pos;
+            int end = scanCString(cursor);
+            stream.setCString(translateCString(line, start, end, false));
             oob = stream;
         } else {
             // Badly format MI line, just pass it to the user as target stream
@@ -236,21 +238,21 @@ public class MIParser {
         return oob;
     }
     
-    private int parseToken(StringBuffer buffer) {
+    private int parseToken(Cursor cursor) {
         int id = -1;
         // Fetch the Token/Id
-        if (Character.isDigit(buffer.charAt(0))) {
-            int i = 1;
-            while (i < buffer.length() && Character.isDigit(buffer.charAt(i))) {
-                i++;
+        if (Character.isDigit(cursor.peek())) {
+            long value = 0;
+            while (cursor.pos < cursor.end && Character.isDigit(cursor.line.charAt(cursor.pos))) {
+                if (value <= Integer.MAX_VALUE) {
+                    value = value * 10 + Character.digit(cursor.line.charAt(cursor.pos), 10);
+                }
+                // Consume the token.
+                cursor.pos++;
             }
-            String numbers = buffer.substring(0, i);
-            try {
-                id = Integer.parseInt(numbers);
-            } catch (NumberFormatException e) {
+            if (value <= Integer.MAX_VALUE) {
+                id = (int) value;
             }
-            // Consume the token.
-            buffer.delete(0, i);
         }
         return id;
     }
@@ -259,15 +261,15 @@ public class MIParser {
      * Assuming that the usual leading comma was consumed.
      * Extract the MI Result comma seperated responses.
      */
-    private MIResult[] processMIResults(FSB buffer) {
+    private MIResult[] processMIResults(Cursor cursor) {
         List<MIResult> aList = new ArrayList<MIResult>();
-        MIResult result = processMIResult(buffer);
+        MIResult result = processMIResult(cursor);
         if (result != null) {
             aList.add(result);
         }
-        while (buffer.length() > 0 && buffer.charAt(0) == ',') {
-            buffer.deleteCharAt(0);
-            result = processMIResult(buffer);
+        while (cursor.peek() == ',') {
+            cursor.pos++;
+            result = processMIResult(cursor);
             if (result != null) {
                 aList.add(result);
             }
@@ -276,145 +278,221 @@ public class MIParser {
     }
 
     /**
-     * Construct the DsfMIResult.  Characters will be consume/delete
+     * Construct the DsfMIResult.  Characters will be consumed
      * moving forward constructing the AST.
      */
-    private MIResult processMIResult(FSB buffer) {
+    private MIResult processMIResult(Cursor cursor) {
         MIResult result = new MIResult();
         int equal;
-        if (buffer.length() > 0 && Character.isLetter(buffer.charAt(0)) && (equal = buffer.indexOf('=')) != -1) {
-            String variable = buffer.substring(0, equal);
-            result.setVariable(variable);
-            buffer.delete(0, equal + 1);
-            MIValue value = processMIValue(buffer);
+        if (Character.isLetter(cursor.peek()) && (equal = findEqual(cursor)) != -1) {
+            result.setVariable(getName(cursor.line, cursor.pos, equal));
+            cursor.pos = equal + 1;
+            MIValue value = processMIValue(cursor);
             result.setMIValue(value);
-        } else if(buffer.length()>0 && buffer.charAt(0)=='"') {
+        } else if (cursor.peek() == '"') {
             // This an error but we just swallow it and move on.
-            MIValue value = processMIValue(buffer);
+            MIValue value = processMIValue(cursor);
             result.setMIValue(value);
         } else {
-            result.setVariable(buffer.toString());
+            result.setVariable(cursor.line.substring(cursor.pos));
             result.setMIValue(new MIConst()); // Empty string:???
-            buffer.setLength(0);
+            cursor.pos = cursor.end;
         }
         return result;
     }
 
+    /**
+     * Returns the offset of the '=' following the variable of a result, or -1 if there is none.
+     * The search stops at the end of the variable. Only for malformed output, where the variable
+     * is followed by a value rather than by '=', the next '=' of the line is used.
+     */
+    private static int findEqual(Cursor cursor) {
+        for (int i = cursor.pos; i < cursor.end; i++) {
+            switch (cursor.line.charAt(i)) {
+            case '=':
+                return i;
+            case ',':
+            case '{':
+            case '}':
+            case '[':
+            case ']':
+            case '"':
+                return cursor.line.indexOf('=', i);
+            }
+        }
+        return -1;
+    }
+
     /**
      * Find a DsfMIValue implementation or return null.
      */
-    private MIValue processMIValue(FSB buffer) {
+    private MIValue processMIValue(Cursor cursor) {
         MIValue value = null;
-        if (buffer.length() > 0) {
-            if (buffer.charAt(0) == '{') {
-                buffer.deleteCharAt(0);
-                value = processMITuple(buffer);
-            } else if (buffer.charAt(0) == '[') {
-                buffer.deleteCharAt(0);
-                value = processMIList(buffer);
-            } else if (buffer.charAt(0) == '"') {
-                buffer.deleteCharAt(0);
-                MIConst cnst = new MIConst();
-                // Parse backslashes - backslashes within result
-                // and out of band records are escaped.
-                cnst.setCString(translateCString(buffer, true));
-                value = cnst;
-            }
+        char c = cursor.peek();
+        if (c == '{') {
+            cursor.pos++;
+            value = processMITuple(cursor);
+        } else if (c == '[') {
+            cursor.pos++;
+            value = processMIList(cursor);
+        } else if (c == '"') {
+            cursor.pos++;
+            MIConst cnst = new MIConst();
+            // Parse backslashes - backslashes within result
+            // and out of band records are escaped.
+            int start = cursor.pos;
+            int end = scanCString(cursor);
+            cnst.setCString(cursor.line, start, end);
+            value = cnst;
         }
         return value;
     }
 
     /**
-     * Assuming the starting '{' was deleted form the StringBuffer,
-     * go to the closing '}' consuming/deleting all the characters.
+     * Assuming the starting '{' was consumed, go to the closing '}'
+     * consuming all the characters.
      * This is usually call by processMIvalue();
      */
-    private MIValue processMITuple(FSB buffer) {
+    private MIValue processMITuple(Cursor cursor) {
         MITuple tuple = new MITuple();
         List<MIValue> valueList = new ArrayList<MIValue>();
         List<MIResult> resultList = new ArrayList<MIResult>();
         // Catch closing '}'
-        while (buffer.length() > 0 && buffer.charAt(0) != '}') {
+        while (cursor.pos < cursor.end && cursor.peek() != '}') {
             // Try for the DsfMIValue first
-            MIValue value = processMIValue(buffer);
+            MIValue value = processMIValue(cursor);
             if (value != null) {
                 valueList.add(value);
             } else {
-                MIResult result = processMIResult(buffer);
+                MIResult result = processMIResult(cursor);
                 if (result != null) {
                     resultList.add(result);
                 }
             }
-            if (buffer.length() > 0 && buffer.charAt(0) == ',') {
-                buffer.deleteCharAt(0);
+            if (cursor.peek() == ',') {
+                cursor.pos++;
             }
         }
-        if (buffer.length() > 0 && buffer.charAt(0) == '}') {
-            buffer.deleteCharAt(0);
+        if (cursor.peek() == '}') {
+            cursor.pos++;
         }
-        MIValue[] values = valueList.toArray(new MIValue[valueList.size()]);
-        MIResult[] res = resultList.toArray(new MIResult[resultList.size()]);
-        tuple.setMIValues(values);
-        tuple.setMIResults(res);
+        tuple.setMIValues(toValueArray(valueList));
+        tuple.setMIResults(toResultArray(resultList));
         return tuple;
     }
 
     /**
-     * Assuming the leading '[' was deleted, find the closing
-     * ']' consuming/delete chars from the StringBuffer.
+     * Assuming the leading '[' was consumed, find the closing
+     * ']' consuming the characters.
      */
-    private MIValue processMIList(FSB buffer) {
+    private MIValue processMIList(Cursor cursor) {
         MIList list = new MIList();
         List<MIValue> valueList = new ArrayList<MIValue>();
         List<MIResult> resultList = new ArrayList<MIResult>();
         // catch closing ']'
-        while (buffer.length() > 0 && buffer.charAt(0) != ']') {
+        while (cursor.pos < cursor.end && cursor.peek() != ']') {
             // Try for the DsfMIValue first
-            MIValue value = processMIValue(buffer);
+            MIValue value = processMIValue(cursor);
             if (value != null) {
                 valueList.add(value);
             } else {
-                MIResult result = processMIResult(buffer);
+                MIResult result = processMIResult(cursor);
                 if (result != null) {
                     resultList.add(result);
                 }
             }
-            if (buffer.length() > 0 && buffer.charAt(0) == ',') {
-                buffer.deleteCharAt(0);
+            if (cursor.peek() == ',') {
+                cursor.pos++;
             }
         }
-        if (buffer.length() > 0 && buffer.charAt(0) == ']') {
-            buffer.deleteCharAt(0);
+        if (cursor.peek() == ']') {
+            cursor.pos++;
         }
-        MIValue[] values = valueList.toArray(new MIValue[valueList.size()]);
-        MIResult[] res = resultList.toArray(new MIResult[resultList.size()]);
-        list.setMIValues(values);
-        list.setMIResults(res);
+        list.setMIValues(toValueArray(valueList));
+        list.setMIResults(toResultArray(resultList));
         return list;
     }
 
+    private static MIValue[] toValueArray(List<MIValue> list) {
+        return list.isEmpty() ? NULL_VALUES : list.toArray(new MIValue[list.size()]);
+    }
+
+    private static MIResult[] toResultArray(List<MIResult> list) {
+        return list.isEmpty() ? NULL_RESULTS : list.toArray(new MIResult[list.size()]);
+    }
+
+    /**
+     * Returns the variable or async class name between the given offsets of the line.
+     * The names repeat in every record, so they are shared between records rather than
+     * copied out of every line.
+     */
+    private String getName(String line, int start, int end) {
+        int hash = 0;
+        for (int i = start; i < end; i++) {
+            hash = 31 * hash + line.charAt(i);
+        }
+        int slot = (hash ^ (hash >>> 16)) & (fNames.length - 1);
+        String name = fNames[slot];
+        int length = end - start;
+        if (name == null || name.length() != length || !line.regionMatches(start, name, 0, length)) {
+            name = line.substring(start, end);
+            fNames[slot] = name;
+        }
+        return name;
+    }
+
     /**
      * MI C-String rather MIConst values are enclosed in double quotes
      * and any double quotes or backslashes in the string are escaped.
-     * Assuming the starting double quote was removed. This method will
-     * stop at the closing double quote, remove the extra backslash escaping
-     * and return the string __without__ the enclosing double quotes. The
-     * original string buffer will move forward.
-     * @param buffer The string buffer to read from.
+     * Assuming the starting double quote was consumed. This method will
+     * stop at the closing double quote and move the cursor past it.
+     * @return The end offset of the string __without__ the closing double
+     * quote.
+     */
+    private static int scanCString(Cursor cursor) {
+        String line = cursor.line;
+        boolean escape = false;
+        for (int index = cursor.pos; index < cursor.end; index++) {
+            char c = line.charAt(index);
+            if (c == '\\') {
+                escape = !escape;
+            } else if (c == '"' && !escape) {
+                // Bail out.
+                cursor.pos = index + 1;
+                return index;
+            } else {
+                escape = false;
+            }
+        }
+        cursor.pos = cursor.end;
+        return cursor.end;
+    }
+
+    /**
+     * Removes the extra backslash escaping from the C string between the given
+     * offsets, as found by {@link #scanCString(Cursor)}.
+     * @param line The line to read from.
+     * @param start The offset following the opening double quote.
+     * @param end The offset of the closing double quote.
      * @param parseBackslashes Defines whether backslashes should be parsed.
      * This parameter is necessary to differentiate between records which
      * contain escaped backslashes and records which do not.
      * @return The translated C string.
      */
-    private String translateCString(FSB buffer, boolean parseBackslashes) {
-        boolean escape = false;
-        boolean closingQuotes = false;
-
-        StringBuffer sb = new StringBuffer();
+    static String translateCString(String line, int start, int end, boolean parseBackslashes) {
+        int backslash = start;
+        while (backslash < end && line.charAt(backslash) != '\\') {
+            backslash++;
+        }
+        if (backslash == end) {
+            return line.substring(start, end);
+        }
 
-        int index = 0;
-        for (; index < buffer.length() && !closingQuotes; index++) {
-            char c = buffer.charAt(index);
+        StringBuilder sb = new StringBuilder(end - start);
+        sb.append(line, start, backslash);
+        boolean escape = false;
+        for (int index = backslash; index < end; index++) {
+            char c = line.charAt(index);
             if (c == '\\') {
                 if (escape) {
                     sb.append(c);
@@ -425,26 +503,49 @@ public class MIParser {
                 } else {
                     escape = true;
                 }
-            } else if (c == '"') {
-                if (escape) {
-                    sb.append(c);
-                    escape = false;
-                } else {
-                    // Bail out.
-                    closingQuotes = true;
-                }
             } else {
-                if (escape) {
+                if (escape && c != '"') {
                     sb.append('\\');
                 }
                 sb.append(c);
                 escape = false;
             }
         }
-        buffer.delete(0, index);
         return sb.toString();
     }
 
+    /**
+     * Position of the parser in the line being parsed.
+     */
+    private static class Cursor {
+        final String line;
+        final int end;
+        int pos;
+
+        Cursor(String line) {
+            this.line = line;
+            end = line.length();
+        }
+
+        /**
+         * Returns the character at the current position, or 0 at the end of the line.
+         */
+        char peek() {
+            return pos < end ? line.charAt(pos) : 0;
+        }
+
+        /**
+         * Consumes the prefix if the remaining line starts with it.
+         */
+        boolean consume(String prefix) {
+            if (line.startsWith(prefix, pos)) {
+                pos += prefix.length();
+                return true;
+            }
+            return false;
+        }
+    }
+
     /**
      * Tests if this string starts with the specified prefix beginning
      * a specified index.
@@ -476,7 +577,10 @@ public class MIParser {
      * with this for large arrays. Use of FSB rather than String
      * Buffer makes MIParser N rather than N^2 because FSB can 
      * delete from the front in constant time.
+     * @deprecated The parser no longer copies the line it parses, it keeps an
+     *             offset into it instead.
      */
+    @Deprecated
     public class FSB {
         StringBuffer buf;
         int pos;
@@ -14,9 +14,12 @@ import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.PrintStream;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.Callable;
+import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.ScheduledThreadPoolExecutor;
@@ -83,6 +86,10 @@ public class DefaultDsfExecutor extends ScheduledThreadPoolExecutor
             prestartAllCoreThreads();
             fThreadToExecutorMap.put(((DsfThreadFactory)getThreadFactory()).fThread, DefaultDsfExecutor.this);
         }
+        
+        if (PROFILE_EXECUTOR) {
+            enableStatistics();
+        }
     }
     
     @Override
@@ -104,6 +111,39 @@ public class DefaultDsfExecutor extends ScheduledThreadPoolExecutor
         return fName;
     }
     
+    /**
+     * Starts collecting profiling statistics for the tasks submitted from now on, 
+     * and publishes them as an MBean.  Profiling is enabled for all executors
+     * with the <code>org.eclipse.cdt.dsf/debug/executor/profile</code> tracing option.
+     * 
+     * @return The statistics of this executor.
+     * @since 2.6
+     */
+    public synchronized DsfExecutorStatistics enableStatistics() {
+        if (fStatistics == null) {
+            DsfExecutorStatistics statistics = new DsfExecutorStatistics(
+                ((DsfThreadFactory)getThreadFactory()).fThreadName, PROFILE_LONG_TASK_THRESHOLD, PROFILE_FILE);
+            statistics.register();
+            Set<String> classNames = new HashSet<String>();
+            for (Class<?> c = getClass(); c != null; c = c.getSuperclass()) {
+                classNames.add(c.getName());
+            }
+            fExecutorClassNames = classNames;
+            fStatistics = statistics;
+        }
+        return fStatistics;
+    }
+
+    /**
+     * Returns the profiling statistics of this executor, or <code>null</code> 
+     * if profiling is not enabled.
+     * 
+     * @since 2.6
+     */
+    public DsfExecutorStatistics getStatistics() {
+        return fStatistics;
+    }
+    
     static void logException(Throwable t) {
         DsfPlugin plugin = DsfPlugin.getDefault();
         if (plugin == null) return;
@@ -131,11 +171,27 @@ public class DefaultDsfExecutor extends ScheduledThreadPoolExecutor
     protected static boolean DEBUG_EXECUTOR = false;
     protected static String DEBUG_EXECUTOR_NAME = ""; //$NON-NLS-1$
     protected static boolean ASSERTIONS_ENABLED = false;
+    static boolean PROFILE_EXECUTOR = false;
+    static long PROFILE_LONG_TASK_THRESHOLD = 100;
+    static String PROFILE_FILE = null;
     static {
         DEBUG_EXECUTOR = DsfPlugin.DEBUG && "true".equals( //$NON-NLS-1$
             Platform.getDebugOption("org.eclipse.cdt.dsf/debug/executor")); //$NON-NLS-1$
         DEBUG_EXECUTOR_NAME = DsfPlugin.DEBUG 
             ? Platform.getDebugOption("org.eclipse.cdt.dsf/debug/executorName") : ""; //$NON-NLS-1$ //$NON-NLS-2$
+        PROFILE_EXECUTOR = DsfPlugin.DEBUG && "true".equals( //$NON-NLS-1$
+            Platform.getDebugOption("org.eclipse.cdt.dsf/debug/executor/profile")); //$NON-NLS-1$
+        if (PROFILE_EXECUTOR) {
+            try {
+                PROFILE_LONG_TASK_THRESHOLD = Long.parseLong(
+                    Platform.getDebugOption("org.eclipse.cdt.dsf/debug/executor/longTaskThreshold")); //$NON-NLS-1$
+            } catch (NumberFormatException e) {
+            }
+            String file = Platform.getDebugOption("org.eclipse.cdt.dsf/debug/executor/profileFile"); //$NON-NLS-1$
+            if (file != null && !file.isEmpty()) {
+                PROFILE_FILE = file;
+            }
+        }
         assert (ASSERTIONS_ENABLED = true) == true;
     }  
 
@@ -157,6 +213,17 @@ public class DefaultDsfExecutor extends ScheduledThreadPoolExecutor
      * <br>Note: Only used when tracing. 
      */
     int fSequenceCounter;
+    
+    /**
+     * Profiling statistics, <code>null</code> unless profiling is enabled.
+     */
+    private volatile DsfExecutorStatistics fStatistics;
+
+    /**
+     * Names of the classes of this executor, skipped when looking for the submitter of a task.
+     * <br>Note: Only used when profiling.
+     */
+    private volatile Set<String> fExecutorClassNames;
 
     /** 
      * Wrapper for runnables/callables, is used to store tracing information 
@@ -419,38 +486,179 @@ public class DefaultDsfExecutor extends ScheduledThreadPoolExecutor
         }
     }
 
+    /**
+     * Wrapper for runnables, measures the time a runnable waits before it is 
+     * executed and the time it runs.
+     * <br>Note: Only used when profiling.
+     */
+    class ProfilingWrapperRunnable implements Runnable {
+        final Runnable fRunnable;
+        final Object fExecutable;
+        final String fSubmitter;
+        final DsfExecutorStatistics fStats;
+        
+        /** Time at which the runnable is ready to run */
+        long fReadyTime;
+        
+        /** Period of a fixed rate task if positive, delay of a fixed delay task if negative */
+        final long fPeriod;
+        
+        ProfilingWrapperRunnable(Runnable runnable, Object executable, String submitter, DsfExecutorStatistics stats, long delay, long period) {
+            fRunnable = runnable;
+            fExecutable = executable;
+            fSubmitter = submitter;
+            fStats = stats;
+            fReadyTime = System.nanoTime() + delay;
+            fPeriod = period;
+        }
+        
+        @Override
+        public void run() {
+            int queueDepth = getQueue().size();
+            long start = System.nanoTime();
+            try {
+                fRunnable.run();
+            } finally {
+                long end = System.nanoTime();
+                fStats.taskDone(fExecutable, fSubmitter, queueDepth, Math.max(0, start - fReadyTime), end - start);
+                if (fPeriod > 0) {
+                    fReadyTime += fPeriod;
+                } else if (fPeriod < 0) {
+                    fReadyTime = end - fPeriod;
+                }
+            }
+        }
+    }
+    
+    /**
+     * Wrapper for callables, see {@link ProfilingWrapperRunnable}.
+     * <br>Note: Only used when profiling.
+     */
+    class ProfilingWrapperCallable<T> implements Callable<T> {
+        final Callable<T> fCallable;
+        final Object fExecutable;
+        final String fSubmitter;
+        final DsfExecutorStatistics fStats;
+        final long fReadyTime;
+        
+        ProfilingWrapperCallable(Callable<T> callable, Object executable, String submitter, DsfExecutorStatistics stats, long delay) {
+            fCallable = callable;
+            fExecutable = executable;
+            fSubmitter = submitter;
+            fStats = stats;
+            fReadyTime = System.nanoTime() + delay;
+        }
+        
+        @Override
+        public T call() throws Exception {
+            int queueDepth = getQueue().size();
+            long start = System.nanoTime();
+            try {
+                return fCallable.call();
+            } finally {
+                fStats.taskDone(fExecutable, fSubmitter, queueDepth, Math.max(0, start - fReadyTime), System.nanoTime() - start);
+            }
+        }
+    }
+    
+    // Note: ScheduledThreadPoolExecutor implements execute() and submit() by 
+    // calling schedule() with a zero delay, so profiling is only done in the 
+    // schedule methods.
+    
+    private Runnable profile(Runnable command, Object executable, long delay, long period) {
+        DsfExecutorStatistics stats = fStatistics;
+        if (stats == null) {
+            return command;
+        }
+        String submitter = getSubmitter(command);
+        if (executable instanceof TracingWrapper) {
+            executable = ((TracingWrapper)executable).getExecutable();
+        }
+        return new ProfilingWrapperRunnable(command, executable, submitter, stats, delay, period);
+    }
+
+    private <T> Callable<T> profile(Callable<T> callable, Object executable, long delay) {
+        DsfExecutorStatistics stats = fStatistics;
+        if (stats == null) {
+            return callable;
+        }
+        String submitter = getSubmitter(callable);
+        if (executable instanceof TracingWrapper) {
+            executable = ((TracingWrapper)executable).getExecutable();
+        }
+        return new ProfilingWrapperCallable<T>(callable, executable, submitter, stats, delay);
+    }
+
+    /**
+     * Returns the code location that submitted a task: the first caller outside of this 
+     * executor and of the DSF concurrency classes, e.g. the service method that completed 
+     * a request monitor rather than {@link RequestMonitor#done()}.  The location is taken 
+     * from the stack trace recorded by the tracing wrapper if there is one, otherwise the 
+     * stack of the current thread is captured.
+     */
+    private String getSubmitter(Object command) {
+        StackTraceElement[] stack;
+        if (command instanceof TracingWrapper && ((TracingWrapper)command).fSubmittedAt != null) {
+            stack = ((TracingWrapper)command).fSubmittedAt.fStackTraceElements;
+        } else {
+            stack = new Throwable().getStackTrace();
+        }
+        Set<String> executorClassNames = fExecutorClassNames;
+        for (StackTraceElement frame : stack) {
+            String className = frame.getClassName();
+            if (!className.startsWith("org.eclipse.cdt.dsf.concurrent.") && !className.startsWith("java.util.concurrent.") //$NON-NLS-1$ //$NON-NLS-2$
+                && !className.equals(Thread.class.getName())
+                && (executorClassNames == null || !executorClassNames.contains(className))) 
+            {
+                return frame.toString();
+            }
+        }
+        return stack.length > 0 ? stack[stack.length - 1].toString() : "<unknown>"; //$NON-NLS-1$
+    }
+
     @Override
     public <V> ScheduledFuture<V> schedule(Callable<V> callable, long delay, TimeUnit unit) {
+        if (callable instanceof ProfilingWrapperCallable) {
+            return super.schedule(callable, delay, unit);
+        }
+        Object executable = callable;
         if(DEBUG_EXECUTOR || ASSERTIONS_ENABLED) {
             if ( !(callable instanceof TracingWrapper) ) {
                 callable = new TracingWrapperCallable<V>(callable);
             }
         }
+        callable = profile(callable, executable, unit.toNanos(delay));
         return super.schedule(callable, delay, unit);
     }
      @Override
      public ScheduledFuture<?> schedule(Runnable command, long delay, TimeUnit unit) {
+         Object executable = command;
          if(DEBUG_EXECUTOR || ASSERTIONS_ENABLED) {
              if ( !(command instanceof TracingWrapper) ) {
                  command = new TracingWrapperRunnable(command);
              }
          }
+         command = profile(command, executable, unit.toNanos(delay), 0);
          return super.schedule(command, delay, unit);
     }
 
     @Override
     public ScheduledFuture<?> scheduleAtFixedRate(Runnable command, long initialDelay, long period, TimeUnit unit) {
+        Object executable = command;
         if(DEBUG_EXECUTOR || ASSERTIONS_ENABLED) {
             command = new TracingWrapperRunnable(command);
         }
+        command = profile(command, executable, unit.toNanos(initialDelay), unit.toNanos(period));
         return super.scheduleAtFixedRate(command, initialDelay, period, unit);
     }
 
     @Override
     public ScheduledFuture<?> scheduleWithFixedDelay(Runnable command, long initialDelay, long delay, TimeUnit unit) {
+        Object executable = command;
         if(DEBUG_EXECUTOR || ASSERTIONS_ENABLED) {
             command = new TracingWrapperRunnable(command);
         }
+        command = profile(command, executable, unit.toNanos(initialDelay), -unit.toNanos(delay));
         return super.scheduleWithFixedDelay(command, initialDelay, delay, unit);
     }
     
@@ -480,9 +688,15 @@ public class DefaultDsfExecutor extends ScheduledThreadPoolExecutor
     
     @Override
     public <T> Future<T> submit(Runnable command, T result) {
+        Object executable = command;
         if(DEBUG_EXECUTOR || ASSERTIONS_ENABLED) {
             command = new TracingWrapperRunnable(command);
         }
+        if (fStatistics != null) {
+            // The super class adapts the runnable to a callable, profile it 
+            // before it does so that the time is attributed to the runnable.
+            return schedule(profile(Executors.callable(command, result), executable, 0), 0, TimeUnit.NANOSECONDS);
+        }
         return super.submit(command, result);
     }
     
@@ -505,6 +719,11 @@ public class DefaultDsfExecutor extends ScheduledThreadPoolExecutor
     @Override
     protected void terminated() {
     	fThreadToExecutorMap.remove(((DsfThreadFactory)getThreadFactory()).fThread);
+    	DsfExecutorStatistics statistics = fStatistics;
+    	if (statistics != null) {
+    		statistics.writeTraceFile();
+    		statistics.unregister();
+    	}
     	super.terminated();
     }
 }
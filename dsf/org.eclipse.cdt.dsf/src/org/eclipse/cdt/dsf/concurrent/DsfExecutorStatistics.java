@@ -0,0 +1,395 @@
+/*******************************************************************************
+ * Copyright (c) 2016 agent and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     agent - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.cdt.dsf.concurrent;
+
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.eclipse.cdt.dsf.internal.DsfPlugin;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Status;
+
+/**
+ * Profiling statistics of a {@link DefaultDsfExecutor}: the depth of its queue, the time
+ * tasks wait before they run and the time they take to run.  The execution time is
+ * attributed to the submitter of a task, which is the code location that handed the
+ * task to the executor.
+ * <p>
+ * Tasks that run longer than the long task threshold are recorded and, if a trace
+ * file is set, appended to the trace file.  The file is written by a background thread,
+ * not by the executor thread.
+ *
+ * @since 2.6
+ */
+public class DsfExecutorStatistics implements DsfExecutorStatisticsMXBean {
+	private static final String DOMAIN = DsfPlugin.PLUGIN_ID;
+	private static final int MAX_LONG_TASKS = 50;
+	private static final int MAX_TOP_SUBMITTERS = 25;
+
+	/**
+	 * Distinguishes the MBeans of executors with the same thread name, e.g. the
+	 * executors of concurrent debug sessions.
+	 */
+	private static final AtomicInteger NEXT_ID = new AtomicInteger();
+
+	/**
+	 * Writes the trace files of all executors, created when it is first needed.
+	 */
+	private static ExecutorService fgTraceWriter;
+
+	private static synchronized ExecutorService getTraceWriter() {
+		if (fgTraceWriter == null) {
+			fgTraceWriter = Executors.newSingleThreadExecutor(new ThreadFactory() {
+				@Override
+				public Thread newThread(Runnable r) {
+					Thread thread = new Thread(r, "DSF Executor Statistics Writer"); //$NON-NLS-1$
+					thread.setDaemon(true);
+					return thread;
+				}
+			});
+		}
+		return fgTraceWriter;
+	}
+
+	private static class Entry {
+		final String fName;
+		long fCount;
+		long fExecTotal;
+		long fExecMax;
+		long fWaitTotal;
+
+		Entry(String name) {
+			fName = name;
+		}
+	}
+
+	private final String fExecutorName;
+	private final int fId = NEXT_ID.incrementAndGet();
+	private final String fTraceFile;
+	private volatile long fLongTaskThreshold;
+
+	private long fTaskCount;
+	private int fQueueDepth;
+	private int fMaxQueueDepth;
+	private long fWaitTotal;
+	private long fWaitMax;
+	private long fExecTotal;
+	private long fExecMax;
+	private long fLongTaskCount;
+	private final Deque<String> fLongTasks = new ArrayDeque<String>();
+	private final Map<String, Entry> fSubmitters = new HashMap<String, Entry>();
+
+	/** Long tasks not yet appended to the trace file */
+	private final Queue<String> fPendingTrace = new ConcurrentLinkedQueue<String>();
+	private final AtomicBoolean fTraceWriteScheduled = new AtomicBoolean();
+
+	/**
+	 * @param executorName Name of the executor thread.
+	 * @param longTaskThreshold Execution time in milliseconds above which a task is reported.
+	 * @param traceFile File to which long tasks are appended, or <code>null</code>.
+	 */
+	public DsfExecutorStatistics(String executorName, long longTaskThreshold, String traceFile) {
+		fExecutorName = executorName;
+		fLongTaskThreshold = longTaskThreshold;
+		fTraceFile = traceFile;
+	}
+
+	/**
+	 * Registers the statistics with the platform MBean server.
+	 */
+	void register() {
+		try {
+			MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+			ObjectName name = getObjectName();
+			if (server.isRegistered(name)) {
+				server.unregisterMBean(name);
+			}
+			server.registerMBean(this, name);
+		} catch (JMException e) {
+			log(e);
+		}
+	}
+
+	/**
+	 * Removes the statistics from the platform MBean server.
+	 */
+	void unregister() {
+		try {
+			MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+			ObjectName name = getObjectName();
+			if (server.isRegistered(name)) {
+				server.unregisterMBean(name);
+			}
+		} catch (JMException e) {
+			log(e);
+		}
+	}
+
+	/**
+	 * Returns the name under which the statistics are registered with the platform
+	 * MBean server.
+	 */
+	public ObjectName getObjectName() throws JMException {
+		return new ObjectName(DOMAIN + ":type=Executor,name=" + ObjectName.quote(fExecutorName) + ",id=" + fId); //$NON-NLS-1$ //$NON-NLS-2$
+	}
+
+	private static void log(Throwable e) {
+		DsfPlugin plugin = DsfPlugin.getDefault();
+		if (plugin != null) {
+			plugin.getLog().log(new Status(IStatus.ERROR, DsfPlugin.PLUGIN_ID, e.getMessage(), e));
+		}
+	}
+
+	/**
+	 * Records the execution of a task, called in the executor thread.
+	 * @param executable The runnable or callable that was executed.
+	 * @param submitter The code location that submitted the task.
+	 * @param queueDepth Number of tasks in the queue when the task was started.
+	 * @param waitNanos Time the task waited in the queue after it became ready to run.
+	 * @param execNanos Time it took to run the task.
+	 */
+	public void taskDone(Object executable, String submitter, int queueDepth, long waitNanos, long execNanos) {
+		String longTask = null;
+		synchronized (this) {
+			fTaskCount++;
+			fQueueDepth = queueDepth;
+			fMaxQueueDepth = Math.max(fMaxQueueDepth, queueDepth);
+			fWaitTotal += waitNanos;
+			fWaitMax = Math.max(fWaitMax, waitNanos);
+			fExecTotal += execNanos;
+			fExecMax = Math.max(fExecMax, execNanos);
+
+			Entry entry = fSubmitters.get(submitter);
+			if (entry == null) {
+				entry = new Entry(submitter);
+				fSubmitters.put(submitter, entry);
+			}
+			entry.fCount++;
+			entry.fExecTotal += execNanos;
+			entry.fExecMax = Math.max(entry.fExecMax, execNanos);
+			entry.fWaitTotal += waitNanos;
+
+			if (execNanos > fLongTaskThreshold * 1000000) {
+				fLongTaskCount++;
+				longTask = DsfPlugin.getDebugTime() + " " + fExecutorName + ": " + executable.getClass().getName() //$NON-NLS-1$ //$NON-NLS-2$
+						+ " submitted at " + submitter + " ran for " + toMillis(execNanos) + " ms, waited " + toMillis(waitNanos) //$NON-NLS-1$ //$NON-NLS-2$
+						+ " ms, queue depth " + queueDepth; //$NON-NLS-1$
+				if (fLongTasks.size() == MAX_LONG_TASKS) {
+					fLongTasks.removeFirst();
+				}
+				fLongTasks.addLast(longTask);
+			}
+		}
+		if (longTask != null) {
+			DsfPlugin.debug(longTask);
+			if (fTraceFile != null) {
+				fPendingTrace.add(longTask);
+				if (fTraceWriteScheduled.compareAndSet(false, true)) {
+					getTraceWriter().execute(new Runnable() {
+						@Override
+						public void run() {
+							fTraceWriteScheduled.set(false);
+							writePendingTrace();
+						}
+					});
+				}
+			}
+		}
+	}
+
+	/**
+	 * Appends the pending long tasks to the trace file, called by the trace writer.
+	 */
+	private void writePendingTrace() {
+		if (fPendingTrace.isEmpty()) {
+			return;
+		}
+		try (Writer writer = new FileWriter(fTraceFile, true)) {
+			String longTask;
+			while ((longTask = fPendingTrace.poll()) != null) {
+				writer.write(longTask);
+				writer.write('\n');
+			}
+		} catch (IOException e) {
+			log(e);
+		}
+	}
+
+	/**
+	 * Writes the statistics to the trace file in the background, if a trace file is set.
+	 */
+	void writeTraceFile() {
+		if (fTraceFile != null) {
+			getTraceWriter().execute(new Runnable() {
+				@Override
+				public void run() {
+					writePendingTrace();
+					try {
+						append(fTraceFile);
+					} catch (IOException e) {
+						log(e);
+					}
+				}
+			});
+		}
+	}
+
+	@Override
+	public String getExecutorName() {
+		return fExecutorName;
+	}
+
+	@Override
+	public synchronized long getTaskCount() {
+		return fTaskCount;
+	}
+
+	@Override
+	public synchronized int getQueueDepth() {
+		return fQueueDepth;
+	}
+
+	@Override
+	public synchronized int getMaxQueueDepth() {
+		return fMaxQueueDepth;
+	}
+
+	@Override
+	public synchronized double getAverageWaitTime() {
+		return fTaskCount == 0 ? 0.0 : toMillis(fWaitTotal) / fTaskCount;
+	}
+
+	@Override
+	public synchronized double getMaxWaitTime() {
+		return toMillis(fWaitMax);
+	}
+
+	@Override
+	public synchronized double getAverageExecutionTime() {
+		return fTaskCount == 0 ? 0.0 : toMillis(fExecTotal) / fTaskCount;
+	}
+
+	@Override
+	public synchronized double getMaxExecutionTime() {
+		return toMillis(fExecMax);
+	}
+
+	@Override
+	public synchronized long getLongTaskCount() {
+		return fLongTaskCount;
+	}
+
+	@Override
+	public long getLongTaskThreshold() {
+		return fLongTaskThreshold;
+	}
+
+	@Override
+	public void setLongTaskThreshold(long millis) {
+		fLongTaskThreshold = millis;
+	}
+
+	@Override
+	public synchronized String[] getLongTasks() {
+		return fLongTasks.toArray(new String[fLongTasks.size()]);
+	}
+
+	@Override
+	public synchronized String[] getTopSubmitters() {
+		List<Entry> entries = new ArrayList<Entry>(fSubmitters.values());
+		Collections.sort(entries, new Comparator<Entry>() {
+			@Override
+			public int compare(Entry e1, Entry e2) {
+				return Long.compare(e2.fExecTotal, e1.fExecTotal);
+			}
+		});
+		int size = Math.min(entries.size(), MAX_TOP_SUBMITTERS);
+		String[] result = new String[size];
+		for (int i = 0; i < size; i++) {
+			Entry entry = entries.get(i);
+			result[i] = String.format("%8d %10.3f %10.3f %10.3f %s", entry.fCount, toMillis(entry.fExecTotal), //$NON-NLS-1$
+					toMillis(entry.fExecMax), toMillis(entry.fWaitTotal), entry.fName);
+		}
+		return result;
+	}
+
+	private static double toMillis(long nanos) {
+		return nanos / 1000000.0;
+	}
+
+	@Override
+	public synchronized void reset() {
+		fTaskCount = 0;
+		fQueueDepth = 0;
+		fMaxQueueDepth = 0;
+		fWaitTotal = 0;
+		fWaitMax = 0;
+		fExecTotal = 0;
+		fExecMax = 0;
+		fLongTaskCount = 0;
+		fLongTasks.clear();
+		fSubmitters.clear();
+	}
+
+	/**
+	 * Appends the current values of the statistics to the given file.
+	 */
+	private void append(String fileName) throws IOException {
+		try (Writer writer = new FileWriter(fileName, true)) {
+			write(new PrintWriter(writer));
+		}
+	}
+
+	/**
+	 * Writes the current values of the statistics, one per line.
+	 */
+	@SuppressWarnings("nls")
+	public synchronized void write(PrintWriter out) {
+		out.println("# " + fExecutorName + " " + new Date());
+		out.println("taskCount=" + getTaskCount());
+		out.println("queueDepth=" + getQueueDepth());
+		out.println("maxQueueDepth=" + getMaxQueueDepth());
+		out.println("averageWaitTime=" + getAverageWaitTime());
+		out.println("maxWaitTime=" + getMaxWaitTime());
+		out.println("averageExecutionTime=" + getAverageExecutionTime());
+		out.println("maxExecutionTime=" + getMaxExecutionTime());
+		out.println("longTaskThreshold=" + getLongTaskThreshold());
+		out.println("longTaskCount=" + getLongTaskCount());
+		out.println("# tasks, total ms, max ms, wait ms, submitter");
+		for (String submitter : getTopSubmitters()) {
+			out.println(submitter);
+		}
+		out.flush();
+	}
+}
@@ -0,0 +1,50 @@
+/*******************************************************************************
+ * Copyright (c) 2016 agent and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     agent - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.cdt.dsf.concurrent;
+
+/**
+ * Management interface exposing the profiling statistics of a DSF executor via JMX.
+ * Times are reported in milliseconds.
+ *
+ * @since 2.6
+ */
+public interface DsfExecutorStatisticsMXBean {
+	String getExecutorName();
+
+	long getTaskCount();
+	int getQueueDepth();
+	int getMaxQueueDepth();
+
+	double getAverageWaitTime();
+	double getMaxWaitTime();
+	double getAverageExecutionTime();
+	double getMaxExecutionTime();
+
+	long getLongTaskCount();
+	long getLongTaskThreshold();
+	void setLongTaskThreshold(long millis);
+
+	/**
+	 * The most recent tasks that exceeded the long task threshold, oldest first.
+	 */
+	String[] getLongTasks();
+
+	/**
+	 * The submitters that used the executor the most, one line per submitter with
+	 * the number of tasks, the total and maximum execution time and the total wait time.
+	 */
+	String[] getTopSubmitters();
+
+	/**
+	 * Resets all counters.
+	 */
+	void reset();
+}
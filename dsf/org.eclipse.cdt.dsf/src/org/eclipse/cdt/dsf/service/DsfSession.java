@@ -13,6 +13,7 @@ package org.eclipse.cdt.dsf.service;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.Dictionary;
@@ -22,7 +23,6 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
-import java.util.SortedMap;
 import java.util.TreeMap;
 
 import org.eclipse.cdt.dsf.concurrent.ConfinedToDsfExecutor;
@@ -247,6 +247,10 @@ public class DsfSession
     private static class ListenerEntry {
         Object fListener;
         Filter fFilter;
+        /** The handler methods of the listener, see {@link DsfSession#getEventHandlerMethods(Object)} */
+        Method[] fMethods;
+        /** The event types of the handler methods, in the same order */
+        Class<?>[] fEventTypes;
 
         ListenerEntry(Object listener, Filter filter) {
             fListener = listener;
@@ -262,6 +266,24 @@ public class DsfSession
         public int hashCode() { return fListener.hashCode(); }
     }
 
+    /**
+     * The listeners and handler methods that receive events of one class, in the order
+     * in which they are called.
+     */
+    private static class DispatchTable {
+        final ListenerEntry[] fListeners;
+        final Method[][] fMethods;
+        /** Number of dispatched events and the time spent dispatching them */
+        int fCount;
+        long fTotalTime;
+        long fMaxTime;
+
+        DispatchTable(ListenerEntry[] listeners, Method[][] methods) {
+            fListeners = listeners;
+            fMethods = methods;
+        }
+    }
+
     /** ID (plugin ID preferably) of the owner of this session */
     private final String fOwnerId;
     
@@ -276,6 +298,21 @@ public class DsfSession
     
     /** Map of registered event listeners. */
     private Map<ListenerEntry,Method[]> fListeners = new HashMap<ListenerEntry,Method[]>();
+
+    /**
+     * Registered event listeners in the order in which they receive events, or
+     * <code>null</code> if the listeners changed since they were last sorted.
+     */
+    private ListenerEntry[] fSortedListeners;
+
+    /**
+     * Dispatch tables by event class. Built at the first dispatch of an event class
+     * and discarded when the listeners change.
+     */
+    private Map<Class<?>,DispatchTable> fDispatchTables = new HashMap<Class<?>,DispatchTable>();
+
+    /** Dispatch statistics of the event classes whose tables were discarded. */
+    private Map<String,long[]> fDispatchStatistics = new TreeMap<String,long[]>();
     
     /** 
      * Map of registered adapters, for implementing the <code>IDMContext.getAdapter()</code> 
@@ -332,7 +369,14 @@ public class DsfSession
 
         	DsfPlugin.debug(msg);
         }
-        fListeners.put(entry, getEventHandlerMethods(listener));
+        Method[] methods = getEventHandlerMethods(listener);
+        entry.fMethods = methods;
+        entry.fEventTypes = new Class<?>[methods.length];
+        for (int i = 0; i < methods.length; i++) {
+            entry.fEventTypes[i] = methods[i].getParameterTypes()[0];
+        }
+        fListeners.put(entry, methods);
+        invalidateDispatchTables();
     }
     
     /**
@@ -358,7 +402,62 @@ public class DsfSession
 
         	DsfPlugin.debug(msg);
         }
-        fListeners.remove(entry);
+        if (fListeners.remove(entry) != null) {
+            invalidateDispatchTables();
+        }
+    }
+
+    private void invalidateDispatchTables() {
+        fSortedListeners = null;
+        for (Map.Entry<Class<?>,DispatchTable> entry : fDispatchTables.entrySet()) {
+            addDispatchStatistics(entry.getKey().getName(), entry.getValue());
+        }
+        fDispatchTables.clear();
+    }
+
+    private void addDispatchStatistics(String eventClass, DispatchTable table) {
+        if (table.fCount == 0) {
+            return;
+        }
+        long[] stats = fDispatchStatistics.get(eventClass);
+        if (stats == null) {
+            stats = new long[3];
+            fDispatchStatistics.put(eventClass, stats);
+        }
+        stats[0] += table.fCount;
+        stats[1] += table.fTotalTime;
+        stats[2] = Math.max(stats[2], table.fMaxTime);
+    }
+
+    /**
+     * Returns the time spent dispatching events, per event class. Each value holds
+     * the number of events dispatched, the total time and the longest time spent
+     * dispatching one event, in nanoseconds.
+     * 
+     * @since 2.6
+     */
+    public Map<String,long[]> getEventDispatchStatistics() {
+        assert getExecutor().isInExecutorThread();
+
+        Map<String,long[]> result = new TreeMap<String,long[]>();
+        for (Map.Entry<String,long[]> entry : fDispatchStatistics.entrySet()) {
+            result.put(entry.getKey(), entry.getValue().clone());
+        }
+        for (Map.Entry<Class<?>,DispatchTable> entry : fDispatchTables.entrySet()) {
+            DispatchTable table = entry.getValue();
+            if (table.fCount == 0) {
+                continue;
+            }
+            long[] stats = result.get(entry.getKey().getName());
+            if (stats == null) {
+                stats = new long[3];
+                result.put(entry.getKey().getName(), stats);
+            }
+            stats[0] += table.fCount;
+            stats[1] += table.fTotalTime;
+            stats[2] = Math.max(stats[2], table.fMaxTime);
+        }
+        return result;
     }
 
     /**
@@ -478,57 +577,22 @@ public class DsfSession
         @SuppressWarnings("unchecked") 
         Dictionary<String,?> serviceProperties = (Dictionary<String,?>)_serviceProperties;
         
-        // Build a list of listeners;
-        SortedMap<ListenerEntry,List<Method>> listeners = new TreeMap<ListenerEntry,List<Method>>(new Comparator<ListenerEntry>() {
-            @Override
-                public int compare(ListenerEntry o1, ListenerEntry o2) {
-                    if (o1.fListener == o2.fListener) {
-                        return 0;
-                    } if (o1.fListener instanceof IDsfService && !(o2.fListener instanceof IDsfService)) {
-                        return -1;
-                    } else if (o2.fListener instanceof IDsfService && !(o1.fListener instanceof IDsfService)) {
-                        return 1;
-                    } else if ( (o1.fListener instanceof IDsfService) && (o2.fListener instanceof IDsfService) ) {
-                        return ((IDsfService)o1.fListener).getStartupNumber() - ((IDsfService)o2.fListener).getStartupNumber();
-                    }
-                    return 1;
-                }
-                
-                @Override
-                public boolean equals(Object obj) {
-                    return obj == this;
-                }
-            });
-
-        // Build a list of listeners and methods that are registered for this event class.
-        Class<?> eventClass = event.getClass();
-        for (Map.Entry<ListenerEntry,Method[]> entry : fListeners.entrySet()) {
-            if (entry.getKey().fFilter != null && !entry.getKey().fFilter.match(serviceProperties)) {
+        long startTime = System.nanoTime();
+        DispatchTable table = getDispatchTable(event.getClass());
+        
+        // Call the listeners
+        for (int i = 0; i < table.fListeners.length; i++) {
+            ListenerEntry listener = table.fListeners[i];
+            if (listener.fFilter != null && !listener.fFilter.match(serviceProperties)) {
                 // Dispatching service doesn't match the listener's filter, skip it.
                 continue;
             }
-            Method[] allMethods = entry.getValue();
-            List<Method> matchingMethods = new ArrayList<Method>();
-            for (Method method : allMethods) {
-            	assert method.getParameterTypes().length > 0 : eventClass.getName() + "." + method.getName() //$NON-NLS-1$
-            		+ " signature contains zero parameters"; //$NON-NLS-1$
-    	    	if ( method.getParameterTypes()[0].isAssignableFrom(eventClass) ) {
-                    matchingMethods.add(method);
-                }
-            }
-            if (!matchingMethods.isEmpty()) {
-                listeners.put(entry.getKey(), matchingMethods);
-            }
-        }
-        
-        // Call the listeners
-        for (Map.Entry<ListenerEntry,List<Method>> entry : listeners.entrySet()) {
-            for (Method method : entry.getValue()) {
+            for (Method method : table.fMethods[i]) {
                 try {
                     if (DEBUG_SESSION_DISPATCHES) {
-                    	DsfPlugin.debug(DsfPlugin.getDebugTime() + " Listener " + LoggingUtils.toString(entry.getKey().fListener) + " invoked with event " + LoggingUtils.toString(event));  //$NON-NLS-1$ //$NON-NLS-2$
+                    	DsfPlugin.debug(DsfPlugin.getDebugTime() + " Listener " + LoggingUtils.toString(listener.fListener) + " invoked with event " + LoggingUtils.toString(event));  //$NON-NLS-1$ //$NON-NLS-2$
                     }
-                    method.invoke(entry.getKey().fListener, new Object[] { event } );
+                    method.invoke(listener.fListener, event);
                 }
                 catch (IllegalAccessException e) {
                     DsfPlugin.getDefault().getLog().log(new Status(
@@ -542,6 +606,74 @@ public class DsfSession
                 }
             }
         }
+
+        long time = System.nanoTime() - startTime;
+        table.fCount++;
+        table.fTotalTime += time;
+        table.fMaxTime = Math.max(table.fMaxTime, time);
+        if (DEBUG_SESSION_DISPATCHES) {
+        	DsfPlugin.debug(DsfPlugin.getDebugTime() + " Event " + LoggingUtils.toString(event) + " dispatched in " + time / 1000 + " us");  //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+        }
+    }
+
+    /**
+     * Returns the listeners and handler methods for events of the given class. The
+     * table is built at the first dispatch of the class, and kept until a listener
+     * is added or removed. Listener filters are not part of the table, since they
+     * depend on the dispatching service.
+     */
+    private DispatchTable getDispatchTable(Class<?> eventClass) {
+        DispatchTable table = fDispatchTables.get(eventClass);
+        if (table != null) {
+            return table;
+        }
+        List<ListenerEntry> listeners = new ArrayList<ListenerEntry>();
+        List<Method[]> methods = new ArrayList<Method[]>();
+        for (ListenerEntry entry : getSortedListeners()) {
+            List<Method> matchingMethods = new ArrayList<Method>(1);
+            for (int i = 0; i < entry.fMethods.length; i++) {
+    	    	if (entry.fEventTypes[i].isAssignableFrom(eventClass)) {
+                    matchingMethods.add(entry.fMethods[i]);
+                }
+            }
+            if (!matchingMethods.isEmpty()) {
+                listeners.add(entry);
+                methods.add(matchingMethods.toArray(new Method[matchingMethods.size()]));
+            }
+        }
+        table = new DispatchTable(listeners.toArray(new ListenerEntry[listeners.size()]),
+            methods.toArray(new Method[methods.size()][]));
+        fDispatchTables.put(eventClass, table);
+        return table;
+    }
+
+    /**
+     * Returns the registered listeners in the order in which they receive events:
+     * services first, in the order in which they were started, then the other
+     * listeners.
+     */
+    private ListenerEntry[] getSortedListeners() {
+        if (fSortedListeners == null) {
+            ListenerEntry[] listeners = fListeners.keySet().toArray(new ListenerEntry[fListeners.size()]);
+            // The sort is stable, other listeners keep their order.
+            Arrays.sort(listeners, new Comparator<ListenerEntry>() {
+                @Override
+                public int compare(ListenerEntry o1, ListenerEntry o2) {
+                    boolean service1 = o1.fListener instanceof IDsfService;
+                    boolean service2 = o2.fListener instanceof IDsfService;
+                    if (service1 && service2) {
+                        return ((IDsfService)o1.fListener).getStartupNumber() - ((IDsfService)o2.fListener).getStartupNumber();
+                    } else if (service1) {
+                        return -1;
+                    } else if (service2) {
+                        return 1;
+                    }
+                    return 0;
+                }
+            });
+            fSortedListeners = listeners;
+        }
+        return fSortedListeners;
     }
 
 	/**
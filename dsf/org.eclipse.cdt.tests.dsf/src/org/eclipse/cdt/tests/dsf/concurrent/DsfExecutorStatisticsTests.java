@@ -0,0 +1,201 @@
+/*******************************************************************************
+ * Copyright (c) 2016 agent and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     agent - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.cdt.tests.dsf.concurrent;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.eclipse.cdt.dsf.concurrent.DefaultDsfExecutor;
+import org.eclipse.cdt.dsf.concurrent.DsfExecutorStatistics;
+import org.eclipse.cdt.dsf.concurrent.DsfRunnable;
+import org.eclipse.cdt.tests.dsf.TestDsfExecutor;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests the profiling statistics of the DSF executor.
+ */
+public class DsfExecutorStatisticsTests {
+    TestDsfExecutor fExecutor;
+    DsfExecutorStatistics fStatistics;
+
+    static class SleepRunnable extends DsfRunnable {
+        final long fMillis;
+        SleepRunnable(long millis) {
+            fMillis = millis;
+        }
+        @Override
+        public void run() {
+            try {
+                Thread.sleep(fMillis);
+            } catch (InterruptedException e) {
+            }
+        }
+    }
+
+    @Before
+    public void startExecutor() {
+        fExecutor = new TestDsfExecutor();
+        fStatistics = fExecutor.enableStatistics();
+    }
+
+    @After
+    public void shutdownExecutor() throws ExecutionException, InterruptedException {
+        fExecutor.shutdown();
+        fExecutor.awaitTermination(10, TimeUnit.SECONDS);
+        if (fExecutor.exceptionsCaught()) {
+            Throwable[] exceptions = fExecutor.getExceptions();
+            throw new ExecutionException(exceptions[0]);
+        }
+        fExecutor = null;
+    }
+
+    @Test
+    public void countTasksTest() throws InterruptedException, ExecutionException {
+        assertSame(fStatistics, fExecutor.enableStatistics());
+        assertSame(fStatistics, fExecutor.getStatistics());
+
+        for (int i = 0; i < 10; i++) {
+            fExecutor.execute(new SleepRunnable(0));
+        }
+        fExecutor.submit(new SleepRunnable(0)).get();
+        fExecutor.submit(new SleepRunnable(0), Boolean.TRUE).get();
+        assertEquals(1, (int) fExecutor.submit(new Callable<Integer>() {
+            @Override
+            public Integer call() {
+                return 1;
+            }
+        }).get());
+        fExecutor.schedule(new SleepRunnable(0), 10, TimeUnit.MILLISECONDS).get();
+
+        assertEquals(14, fStatistics.getTaskCount());
+        assertTrue(fStatistics.getMaxQueueDepth() <= 10);
+
+        // Each submitting line of this test is a submitter.
+        String[] submitters = fStatistics.getTopSubmitters();
+        assertEquals(5, submitters.length);
+        String loopSubmitter = null;
+        for (String submitter : submitters) {
+            assertTrue(submitter, submitter.contains(getClass().getName() + ".countTasksTest(")); //$NON-NLS-1$
+            if (submitter.trim().startsWith("10 ")) { //$NON-NLS-1$
+                loopSubmitter = submitter;
+            }
+        }
+        assertNotNull(loopSubmitter);
+
+        fStatistics.reset();
+        assertEquals(0, fStatistics.getTaskCount());
+        assertEquals(0, fStatistics.getTopSubmitters().length);
+    }
+
+    @Test
+    public void waitTimeTest() throws InterruptedException, ExecutionException {
+        fExecutor.execute(new SleepRunnable(50));
+        fExecutor.submit(new SleepRunnable(0)).get();
+
+        assertEquals(2, fStatistics.getTaskCount());
+        assertTrue(fStatistics.getMaxExecutionTime() >= 50);
+        assertTrue(fStatistics.getMaxWaitTime() >= 40);
+    }
+
+    @Test
+    public void longTaskTest() throws InterruptedException, ExecutionException {
+        fStatistics.setLongTaskThreshold(20);
+        fExecutor.submit(new SleepRunnable(0)).get();
+        assertEquals(0, fStatistics.getLongTaskCount());
+
+        fExecutor.submit(new SleepRunnable(50)).get();
+        assertEquals(1, fStatistics.getLongTaskCount());
+        String[] longTasks = fStatistics.getLongTasks();
+        assertEquals(1, longTasks.length);
+        assertTrue(longTasks[0], longTasks[0].contains(SleepRunnable.class.getName()));
+        assertTrue(longTasks[0], longTasks[0].contains(getClass().getName() + ".longTaskTest(")); //$NON-NLS-1$
+    }
+
+    @Test
+    public void traceFileTest() throws IOException, InterruptedException {
+        File file = File.createTempFile("dsfExecutorTrace", ".txt"); //$NON-NLS-1$ //$NON-NLS-2$
+        try {
+            DsfExecutorStatistics statistics = new DsfExecutorStatistics("Trace Executor", 10, file.getPath()); //$NON-NLS-1$
+            statistics.taskDone(new SleepRunnable(0), "Submitter.submit(Submitter.java:1)", 0, 0, 5000000); //$NON-NLS-1$
+            statistics.taskDone(new SleepRunnable(0), "Submitter.submit(Submitter.java:2)", 0, 0, 50000000); //$NON-NLS-1$
+            assertEquals(1, statistics.getLongTaskCount());
+
+            // The file is written in the background.
+            List<String> lines = Collections.emptyList();
+            for (int i = 0; i < 100 && lines.isEmpty(); i++) {
+                Thread.sleep(50);
+                lines = Files.readAllLines(file.toPath(), Charset.defaultCharset());
+            }
+            assertEquals(1, lines.size());
+            assertTrue(lines.get(0), lines.get(0).contains("Submitter.java:2")); //$NON-NLS-1$
+        } finally {
+            file.delete();
+        }
+    }
+
+    @Test
+    public void mbeanTest() throws Exception {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        ObjectName name = fStatistics.getObjectName();
+        assertEquals("org.eclipse.cdt.dsf", name.getDomain()); //$NON-NLS-1$
+        assertTrue(server.isRegistered(name));
+
+        fExecutor.submit(new SleepRunnable(0)).get();
+        assertEquals(1L, server.getAttribute(name, "TaskCount")); //$NON-NLS-1$
+
+        fExecutor.shutdown();
+        assertTrue(fExecutor.awaitTermination(10, TimeUnit.SECONDS));
+        assertFalse(server.isRegistered(name));
+    }
+
+    @Test
+    public void mbeanNamesAreUnique() throws Exception {
+        // Statistics of executors with the same name
+        DsfExecutorStatistics same1 = new DsfExecutorStatistics("Session Executor", 100, null); //$NON-NLS-1$
+        DsfExecutorStatistics same2 = new DsfExecutorStatistics("Session Executor", 100, null); //$NON-NLS-1$
+        assertFalse(same1.getObjectName().equals(same2.getObjectName()));
+
+        // The executors of concurrent debug sessions
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        DefaultDsfExecutor executor1 = new DefaultDsfExecutor("Session Executor"); //$NON-NLS-1$
+        DefaultDsfExecutor executor2 = new DefaultDsfExecutor("Session Executor"); //$NON-NLS-1$
+        try {
+            DsfExecutorStatistics statistics1 = executor1.enableStatistics();
+            DsfExecutorStatistics statistics2 = executor2.enableStatistics();
+            assertFalse(statistics1.getObjectName().equals(statistics2.getObjectName()));
+            assertTrue(server.isRegistered(statistics1.getObjectName()));
+            assertTrue(server.isRegistered(statistics2.getObjectName()));
+
+            executor2.shutdown();
+            assertTrue(executor2.awaitTermination(10, TimeUnit.SECONDS));
+            assertTrue(server.isRegistered(statistics1.getObjectName()));
+            assertFalse(server.isRegistered(statistics2.getObjectName()));
+        } finally {
+            executor1.shutdown();
+            executor2.shutdown();
+        }
+    }
+}
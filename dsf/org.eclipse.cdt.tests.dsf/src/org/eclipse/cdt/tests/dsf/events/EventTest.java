@@ -10,9 +10,11 @@
  *******************************************************************************/
 package org.eclipse.cdt.tests.dsf.events;
 
+import java.util.Map;
 import java.util.concurrent.ExecutionException;
 
 import org.eclipse.cdt.dsf.concurrent.DsfRunnable;
+import org.eclipse.cdt.dsf.service.DsfServiceEventHandler;
 import org.eclipse.cdt.dsf.service.DsfServicesTracker;
 import org.eclipse.cdt.dsf.service.DsfSession;
 import org.eclipse.cdt.tests.dsf.DsfTestPlugin;
@@ -233,4 +235,43 @@ public class EventTest {
             Assert.assertTrue(0 == fService4.fEvent3RecipientNumber);	// service 4 specified filter to receive events only from service 2
         }}).get();
     }
+
+    public static class Listener {
+        int fEvent1Count;
+        
+        @DsfServiceEventHandler public void eventDispatched(AbstractService.Event1 e) {
+            fEvent1Count++;
+        }
+    }
+
+    /**
+     * Tests that listeners added and removed between dispatches of the same
+     * event class are taken into account, and that dispatches are counted.
+     */
+    @Test public void listenerChangeTest() throws ExecutionException, InterruptedException {
+        final Listener listener = new Listener();
+        fService1.dispatchEvent1();
+        fExecutor.submit(new DsfRunnable() { @Override
+	public void run() {
+            Assert.assertTrue(1 == fService1.fEvent1RecipientNumber);
+            fSession.addServiceEventListener(listener, null);
+        }}).get();
+
+        fService1.dispatchEvent1();
+        fExecutor.submit(new DsfRunnable() { @Override
+	public void run() {
+            Assert.assertEquals(1, listener.fEvent1Count);
+            fSession.removeServiceEventListener(listener);
+        }}).get();
+
+        fService1.dispatchEvent1();
+        fExecutor.submit(new DsfRunnable() { @Override
+	public void run() {
+            Assert.assertEquals(1, listener.fEvent1Count);
+            Map<String,long[]> stats = fSession.getEventDispatchStatistics();
+            long[] event1Stats = stats.get(AbstractService.Event1.class.getName());
+            Assert.assertNotNull(event1Stats);
+            Assert.assertEquals(3, event1Stats[0]);
+        }}).get();
+    }
 }